@@ -0,0 +1,97 @@
+package com.rtxct.crawler.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.utils.Helper;
+import com.rtxct.crawler.utils.NginxTestContainer;
+
+/**
+ * Compares the fixed thread pool mode with the virtual thread mode, crawling
+ * the local nginx test server (requires Docker). Each seed is a distinct query
+ * of the index page, so every URL is fetched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CrawlModeBenchmark {
+
+  /** Properties */
+  @Param({ "200" })
+  private int pages;
+
+  @Param({ "64" })
+  private int maxInFlight;
+
+  private List<String> seeds;
+
+  /** Dependencies */
+  private NginxTestContainer nginx;
+
+  /**
+   * Starts the nginx test server and waits until it serves the index page.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws InterruptedException {
+    this.nginx = new NginxTestContainer();
+    Helper helper = new Helper();
+
+    String url = null;
+    for (int i = 0; i < 120 && (url == null || !helper.checkPageAvailability(url)); i++) {
+      Thread.sleep(500);
+      url = nginx.getNginx() != null && nginx.getNginx().isRunning() ? nginx.getServerPort() : null;
+    }
+    if (url == null) {
+      throw new IllegalStateException("Nginx test server did not start");
+    }
+
+    this.seeds = new ArrayList<>();
+    for (int i = 0; i < pages; i++) {
+      seeds.add(String.format("%s/?page=%d", url, i));
+    }
+  }
+
+  /**
+   * Stops the nginx test server.
+   */
+  @TearDown(Level.Trial)
+  public void cleanup() {
+    nginx.stopContainer();
+  }
+
+  /**
+   * Fixed pool sized to the number of cores.
+   */
+  @Benchmark
+  public List<PageDTO> fixedPool() {
+    return new Bot(seeds, 0).crawlAsync();
+  }
+
+  /**
+   * One virtual thread per fetch, bounded by the in flight permits.
+   */
+  @Benchmark
+  public List<PageDTO> virtualThreads() {
+    return new Bot(seeds, 0).crawlVirtual(maxInFlight);
+  }
+}
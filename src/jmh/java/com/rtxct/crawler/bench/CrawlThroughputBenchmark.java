@@ -0,0 +1,171 @@
+package com.rtxct.crawler.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.BotConfig;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.fetch.Fetcher;
+import com.rtxct.crawler.fetch.HttpClientFetcher;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Measures the end to end crawl throughput, in pages per second, of the
+ * synchronous, thread pool and virtual thread modes. The pages are served by
+ * an in-process HTTP server, so the results do not depend on Docker nor on the
+ * network, and an optional delay per response stands for the server latency.
+ * The server disables Nagle's algorithm, otherwise delayed ACKs add about 40ms
+ * to every response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class CrawlThroughputBenchmark {
+
+  /** Properties */
+  private static final int PAGES = 500;
+
+  private static final int LINKS_PER_PAGE = 8;
+
+  @Param({ "0", "5" })
+  public int latencyMillis;
+
+  @Param({ "16" })
+  public int maxThreads;
+
+  private String seed;
+
+  /** Dependencies */
+  private HttpServer server;
+
+  private Fetcher fetcher;
+
+  /**
+   * Starts a local server serving a site of {@link #PAGES} pages, each one
+   * linking to the following ones and to the first pages of the site.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    server.setExecutor(executor);
+    server.createContext("/", exchange -> {
+      String path = exchange.getRequestURI().getPath();
+      int page = path.startsWith("/p") ? parsePage(path) : -1;
+      if (page < 0 || page >= PAGES) {
+        exchange.sendResponseHeaders(404, -1);
+        exchange.close();
+        return;
+      }
+
+      if (latencyMillis > 0) {
+        try {
+          Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      byte[] body = page(page).getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(body);
+      }
+    });
+    server.start();
+
+    seed = "http://127.0.0.1:" + server.getAddress().getPort() + "/p0";
+    fetcher = new HttpClientFetcher();
+  }
+
+  /**
+   * Stops the local server.
+   */
+  @TearDown(Level.Trial)
+  public void cleanup() {
+    server.stop(0);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PAGES)
+  public List<PageDTO> crawlSync() {
+    return bot().crawlSync();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PAGES)
+  public List<PageDTO> crawlAsync() {
+    return bot().crawlAsync(maxThreads);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PAGES)
+  public List<PageDTO> crawlVirtual() {
+    return bot().crawlVirtual(Bot.DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  /**
+   * Creates a Bot crawling the whole site, sharing the kept alive connections
+   * between invocations.
+   */
+  private Bot bot() {
+    BotConfig config = BotConfig.builder()
+        .fetcher(fetcher)
+        .respectRobots(false)
+        .build();
+    return new Bot(List.of(seed), PAGES, config);
+  }
+
+  /**
+   * Generates a page linking to the following pages and to the first ones.
+   */
+  private static String page(int page) {
+    StringBuilder html = new StringBuilder(2048)
+        .append("<html><head><title>Page ").append(page).append("</title>")
+        .append("<meta name=\"description\" content=\"Page ").append(page).append(" of the benchmark site\">")
+        .append("</head><body><h1>Page ").append(page).append("</h1><ul>");
+    for (int i = 1; i <= LINKS_PER_PAGE; i++) {
+      int target = i <= LINKS_PER_PAGE / 2 ? page + i : i;
+      html.append("<li><a href=\"/p").append(target).append("\">Page ").append(target).append("</a></li>");
+    }
+    return html.append("</ul><p>Lorem ipsum dolor sit amet, consectetur adipiscing elit.</p></body></html>")
+        .toString();
+  }
+
+  /**
+   * Parses the page number of a path, or -1 if it is not a page.
+   */
+  private static int parsePage(String path) {
+    try {
+      return Integer.parseInt(path.substring(2));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+}
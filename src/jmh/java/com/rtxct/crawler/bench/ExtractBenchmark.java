@@ -0,0 +1,130 @@
+package com.rtxct.crawler.bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.rtxct.crawler.extract.DomExtractor;
+import com.rtxct.crawler.extract.StreamingExtractor;
+import com.rtxct.crawler.fetch.FetchResult;
+
+/**
+ * Compares the per page cost of extracting the title, description and links
+ * by building the page tree, as Bot did, with the single pass streaming
+ * extraction. Run with "-prof gc" to compare the allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractBenchmark {
+
+  /** Properties */
+  @Param({ "50", "500" })
+  public int links;
+
+  private FetchResult result;
+
+  private DomExtractor dom = new DomExtractor();
+
+  private StreamingExtractor streaming = new StreamingExtractor(StreamingExtractor.DEFAULT_MAX_BYTES, false);
+
+  private StreamingExtractor streamingText = new StreamingExtractor();
+
+  /**
+   * Generates a page with a head, scripts, paragraphs of text and the given
+   * number of links.
+   */
+  @Setup
+  public void setup() {
+    StringBuilder html = new StringBuilder("<!DOCTYPE html><html><head><meta charset=\"utf-8\">")
+        .append("<title>Benchmark page &amp; links</title>")
+        .append("<meta name=\"description\" content=\"A page used to benchmark the extraction\">")
+        .append("<link rel=\"canonical\" href=\"https://www.example.com/articles/benchmark\">")
+        .append("<link rel=\"stylesheet\" href=\"/assets/site.css\">")
+        .append("<script>window.dataLayer = []; function track(a) { return a < 1 && a > 0; }</script>")
+        .append("</head><body><nav class=\"menu\"><ul>");
+    for (int i = 0; i < links; i++) {
+      if (i % 10 == 0) {
+        html.append("</ul></nav><article><h2>Section ").append(i).append("</h2><p>")
+            .append("Lorem ipsum dolor sit amet, <b>consectetur</b> adipiscing elit, sed do eiusmod tempor ")
+            .append("incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis nostrud.</p>")
+            .append("</article><nav class=\"menu\"><ul>");
+      }
+      html.append("<li><a class=\"link\" href=\"/articles/2023/").append(i).append("?ref=nav&amp;page=")
+          .append(i % 7).append("\" title=\"Article ").append(i).append("\">Article ").append(i).append("</a></li>");
+    }
+    html.append("</ul></nav><footer><!-- footer --><p>Copyright</p></footer></body></html>");
+
+    result = FetchResult.builder()
+        .url("https://www.example.com/articles/benchmark")
+        .finalUrl("https://www.example.com/articles/benchmark")
+        .statusCode(200)
+        .charset("UTF-8")
+        .body(html.toString().getBytes(StandardCharsets.UTF_8))
+        .build();
+  }
+
+  /**
+   * Extraction as done by Bot before the extractors: the page tree is built and
+   * queried, and the links are copied into a LinkedList.
+   */
+  @Benchmark
+  public void domSelect(Blackhole blackhole) throws IOException {
+    Document doc = result.parse();
+    blackhole.consume(doc.title());
+    Element desc = doc.select("meta[name=description]").first();
+    blackhole.consume(desc != null ? desc.attr("content") : "");
+
+    Queue<String> urls = new LinkedList<>();
+    doc.select("a[href]").forEach(element -> urls.add(element.attr("href")));
+    blackhole.consume(urls);
+  }
+
+  @Benchmark
+  public void domExtractor(Blackhole blackhole) throws IOException {
+    blackhole.consume(dom.extract(result));
+  }
+
+  @Benchmark
+  public void streaming(Blackhole blackhole) {
+    blackhole.consume(streaming.extract(result));
+  }
+
+  /**
+   * Streaming extraction collecting the body text as well, as needed by the
+   * index.
+   */
+  @Benchmark
+  public void streamingWithText(Blackhole blackhole) {
+    blackhole.consume(streamingText.extract(result));
+  }
+
+  /**
+   * Tree extraction reading the body text as well, as needed by the index.
+   */
+  @Benchmark
+  public void domExtractorWithText(Blackhole blackhole) throws IOException {
+    Document doc = dom.extract(result).getDocument();
+    blackhole.consume(doc.body().text());
+  }
+}
@@ -0,0 +1,69 @@
+package com.rtxct.crawler.bench;
+
+import java.util.ArrayDeque;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rtxct.crawler.utils.Helper;
+
+/**
+ * Measures Helper.mergeQueues against merging into an ArrayDeque. The URL
+ * methods of Helper are measured by UrlBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HelperBenchmark {
+
+  /** Properties */
+  @Param({ "100", "10000" })
+  public int size;
+
+  private Queue<String> base;
+
+  private Queue<String> added;
+
+  private Helper helper = new Helper();
+
+  /**
+   * Fills the two queues with distinct URLs.
+   */
+  @Setup
+  public void setup() {
+    base = new LinkedList<>();
+    added = new LinkedList<>();
+    for (int i = 0; i < size; i++) {
+      base.add("https://www.example.com/base/" + i);
+      added.add("https://www.example.com/added/" + i);
+    }
+  }
+
+  @Benchmark
+  public Queue<String> mergeQueues() {
+    return helper.mergeQueues(base, added);
+  }
+
+  @Benchmark
+  public Queue<String> arrayDeque() {
+    Queue<String> merged = new ArrayDeque<>(base.size() + added.size());
+    merged.addAll(base);
+    merged.addAll(added);
+    return merged;
+  }
+}
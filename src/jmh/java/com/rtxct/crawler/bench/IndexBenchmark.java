@@ -0,0 +1,144 @@
+package com.rtxct.crawler.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.dto.SearchResultDTO;
+import com.rtxct.crawler.index.InvertedIndex;
+
+/**
+ * Measures the BM25 query latency of the inverted index over a synthetic corpus
+ * whose terms follow a Zipf distribution, as in natural text. The index is
+ * built once per trial, which takes a while at one million documents. The
+ * mapped storage writes it as on disk segments, merged into a few ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx3g" })
+public class IndexBenchmark {
+
+  /** Properties */
+  private static final int VOCABULARY = 50_000;
+
+  private static final int BODY_TERMS = 40;
+
+  @Param({ "1000000" })
+  private int documents;
+
+  @Param({ "memory", "mapped" })
+  private String storage;
+
+  private Path directory;
+
+  private InvertedIndex index;
+
+  /**
+   * Builds the index, with a five terms title and a forty terms body per page.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    double[] cumulative = new double[VOCABULARY];
+    double sum = 0;
+    for (int i = 0; i < VOCABULARY; i++) {
+      sum += 1.0 / (i + 1);
+      cumulative[i] = sum;
+    }
+
+    Random random = new Random(42);
+    if (storage.equals("mapped")) {
+      this.directory = Files.createTempDirectory("index-benchmark");
+      this.index = new InvertedIndex(directory, 100_000, 4);
+    } else {
+      this.index = new InvertedIndex();
+    }
+    StringBuilder title = new StringBuilder();
+    StringBuilder body = new StringBuilder();
+
+    for (int document = 0; document < documents; document++) {
+      title.setLength(0);
+      body.setLength(0);
+      for (int i = 0; i < 5; i++) {
+        title.append('w').append(sample(cumulative, random.nextDouble() * sum)).append(' ');
+      }
+      for (int i = 0; i < BODY_TERMS; i++) {
+        body.append('w').append(sample(cumulative, random.nextDouble() * sum)).append(' ');
+      }
+      index.add(new PageDTO(title.toString(), "", "http://site/" + document), body.toString());
+    }
+    index.flush();
+
+    System.out.printf("%n%d documents, %d terms, %d MB of postings%n", index.size(), index.termCount(),
+        index.postingsSizeInBytes() >> 20);
+  }
+
+  /**
+   * Removes the segments of the mapped storage.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    index.close();
+    if (directory != null) {
+      try (var files = Files.walk(directory)) {
+        for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+          Files.delete(file);
+        }
+      }
+    }
+  }
+
+  /**
+   * A single rare term, matching a few hundred documents.
+   */
+  @Benchmark
+  public List<SearchResultDTO> rareTerm() {
+    return index.search("w20000", 10);
+  }
+
+  /**
+   * Two of the most frequent terms, matching most of the corpus.
+   */
+  @Benchmark
+  public List<SearchResultDTO> commonTerms() {
+    return index.search("w1 w2", 10);
+  }
+
+  /**
+   * A frequent, a medium and a rare term together.
+   */
+  @Benchmark
+  public List<SearchResultDTO> mixedTerms() {
+    return index.search("w5 w300 w20000", 10);
+  }
+
+  /**
+   * Finds the vocabulary rank of a point of the cumulative distribution.
+   */
+  private static int sample(double[] cumulative, double point) {
+    int rank = Arrays.binarySearch(cumulative, point);
+    return rank >= 0 ? rank : -rank - 1;
+  }
+}
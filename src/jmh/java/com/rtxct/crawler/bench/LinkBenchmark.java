@@ -0,0 +1,111 @@
+package com.rtxct.crawler.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rtxct.crawler.extract.DomExtractor;
+import com.rtxct.crawler.extract.ExtractedPage;
+import com.rtxct.crawler.extract.PageExtractor;
+import com.rtxct.crawler.extract.StreamingExtractor;
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.utils.UrlNormalizer;
+
+/**
+ * Measures the link extraction of a page as done by Bot: the page is
+ * extracted, then every href is resolved and normalized against its base.
+ * Runs over recorded pages of src/jmh/resources/fixtures, an article with a
+ * couple hundred links and a listing with over a thousand.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkBenchmark {
+
+  /** Properties */
+  @Param({ "article", "listing" })
+  public String fixture;
+
+  @Param({ "dom", "streaming" })
+  public String engine;
+
+  private FetchResult result;
+
+  private PageExtractor extractor;
+
+  private List<String> links;
+
+  private UrlNormalizer normalizer = new UrlNormalizer();
+
+  /**
+   * Loads the recorded page.
+   */
+  @Setup
+  public void setup() throws IOException {
+    try (InputStream input = LinkBenchmark.class.getResourceAsStream("/fixtures/" + fixture + ".html")) {
+      if (input == null) {
+        throw new IllegalStateException("Missing fixture " + fixture);
+      }
+
+      String url = "https://www.example.com/guides/" + fixture;
+      result = FetchResult.builder()
+          .url(url)
+          .finalUrl(url)
+          .statusCode(200)
+          .charset("UTF-8")
+          .body(input.readAllBytes())
+          .build();
+    }
+    extractor = engine.equals("dom") ? new DomExtractor() : new StreamingExtractor();
+    links = extractor.extract(result).getLinks();
+  }
+
+  /**
+   * Extraction and normalization of all the links of the page.
+   */
+  @Benchmark
+  public List<String> getLinks() throws IOException {
+    ExtractedPage page = extractor.extract(result);
+    String baseUrl = page.getBaseUrl() == null || page.getBaseUrl().isEmpty() ? result.getUrl() : page.getBaseUrl();
+
+    List<String> urls = new ArrayList<>(page.getLinks().size());
+    for (String link : page.getLinks()) {
+      String href = normalizer.normalize(baseUrl, link);
+      if (href != null) {
+        urls.add(href);
+      }
+    }
+    return urls;
+  }
+
+  /**
+   * Normalization only, over the already extracted links.
+   */
+  @Benchmark
+  public int normalizeOnly() {
+    int count = 0;
+    for (String link : links) {
+      if (normalizer.normalize(result.getUrl(), link) != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
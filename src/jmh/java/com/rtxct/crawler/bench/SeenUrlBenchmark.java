@@ -0,0 +1,124 @@
+package com.rtxct.crawler.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rtxct.crawler.frontier.BloomSeenUrlStore;
+import com.rtxct.crawler.frontier.ConcurrentSeenUrlStore;
+import com.rtxct.crawler.frontier.MappedSeenUrlStore;
+import com.rtxct.crawler.frontier.SeenUrlStore;
+
+/**
+ * Measures the visited set lookups done for every extracted link, over a set
+ * holding one million URLs, for links already seen and new ones, from 4
+ * crawl threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SeenUrlBenchmark {
+
+  /** Properties */
+  private static final int URLS = 1_000_000;
+
+  private static final int LOOKUPS = 1 << 16;
+
+  @Param({ "concurrent", "bloom", "mapped" })
+  public String store;
+
+  private String[] seen;
+
+  private String[] unseen;
+
+  private Path file;
+
+  /** Dependencies */
+  private SeenUrlStore urls;
+
+  /**
+   * Fills the set, and picks the URLs looked up.
+   */
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    switch (store) {
+      case "concurrent":
+        urls = new ConcurrentSeenUrlStore();
+        break;
+      case "bloom":
+        urls = new BloomSeenUrlStore(URLS * 2L, 0.001);
+        break;
+      default:
+        file = Files.createTempFile("seen-urls", ".bloom");
+        Files.delete(file);
+        urls = MappedSeenUrlStore.openOrCreate(file, URLS * 2L, 0.001);
+    }
+
+    for (int i = 0; i < URLS; i++) {
+      urls.add(url(i));
+    }
+
+    seen = new String[LOOKUPS];
+    unseen = new String[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      seen[i] = url((int) ((i * 2654435761L) % URLS));
+      unseen[i] = url(URLS + i);
+    }
+  }
+
+  /**
+   * Closes the set and removes its file.
+   */
+  @TearDown(Level.Trial)
+  public void cleanup() throws Exception {
+    urls.close();
+    if (file != null) {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  /**
+   * Position of the next lookup of each thread.
+   */
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+  }
+
+  @Benchmark
+  public boolean containsSeen(Cursor cursor) {
+    return urls.contains(seen[cursor.next++ & (LOOKUPS - 1)]);
+  }
+
+  @Benchmark
+  public boolean containsUnseen(Cursor cursor) {
+    return urls.contains(unseen[cursor.next++ & (LOOKUPS - 1)]);
+  }
+
+  /**
+   * Generates a URL as found in a crawl.
+   */
+  private static String url(int i) {
+    return "https://www.example" + (i % 1000) + ".com/articles/" + i + "/index.html?page=" + (i % 7);
+  }
+}
@@ -0,0 +1,91 @@
+package com.rtxct.crawler.bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.rtxct.crawler.utils.Helper;
+import com.rtxct.crawler.utils.UrlNormalizer;
+
+/**
+ * Compares the per link cost of the Helper URL methods with the UrlNormalizer,
+ * over a mix of absolute and relative hrefs as found in a page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UrlBenchmark {
+
+  /** Properties */
+  private static final String BASE = "https://www.example.com/articles/2023/index.html";
+
+  private static final String[] HREFS = {
+      "https://www.example.com/articles/2023/post.html",
+      "/about/",
+      "/search?q=crawler&utm_source=newsletter",
+      "HTTPS://WWW.Example.com:443/contact#form",
+      "https://cdn.example.com/assets/app.js?v=12&b=1",
+      "mailto:someone@example.com",
+      "/articles/2023/../2022/archive.html",
+      "https://other.example.org/",
+  };
+
+  private static final String REGEX = "\\b(https|http):\\/\\/+[^\\s]+[\\\\w]*";
+
+  private Helper helper = new Helper();
+
+  private UrlNormalizer normalizer = new UrlNormalizer();
+
+  /**
+   * Link handling as done by Bot before the normalizer, compiling the
+   * validation regex on every call.
+   */
+  @Benchmark
+  public void helperPerCallRegex(Blackhole blackhole) {
+    for (String href : HREFS) {
+      if (href.charAt(0) == '/') {
+        blackhole.consume(helper.formatUrl(BASE, href));
+      } else {
+        blackhole.consume(Pattern.compile(REGEX).matcher(href).matches());
+      }
+    }
+  }
+
+  /**
+   * Link handling as done by Bot before the normalizer: root relative links are
+   * formatted, and absolute ones validated through the regex.
+   */
+  @Benchmark
+  public void helper(Blackhole blackhole) {
+    for (String href : HREFS) {
+      if (href.charAt(0) == '/') {
+        blackhole.consume(helper.formatUrl(BASE, href));
+      } else {
+        blackhole.consume(helper.validateURL(href));
+      }
+    }
+  }
+
+  /**
+   * Resolution, validation and canonicalization in a single call.
+   */
+  @Benchmark
+  public void normalizer(Blackhole blackhole) {
+    for (String href : HREFS) {
+      blackhole.consume(normalizer.normalize(BASE, href));
+    }
+  }
+}
@@ -1,26 +1,41 @@
 package com.rtxct.crawler.bot;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
 
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import com.rtxct.crawler.dedup.NearDuplicateIndex;
+import com.rtxct.crawler.dto.CrawlSummaryDTO;
 import com.rtxct.crawler.dto.PageDTO;
-import com.rtxct.crawler.utils.Helper;
+import com.rtxct.crawler.extract.ExtractedPage;
+import com.rtxct.crawler.extract.PageExtractor;
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.fetch.Fetcher;
+import com.rtxct.crawler.frontier.Frontier;
+import com.rtxct.crawler.frontier.FrontierEntry;
+import com.rtxct.crawler.frontier.SeenUrlStore;
+import com.rtxct.crawler.metrics.CrawlStage;
+import com.rtxct.crawler.metrics.CrawlStats;
+import com.rtxct.crawler.persistence.CrawlStore;
+import com.rtxct.crawler.persistence.PageRecord;
+import com.rtxct.crawler.robots.RobotsCache;
+import com.rtxct.crawler.robots.RobotsRules;
+import com.rtxct.crawler.utils.UrlNormalizer;
 
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -40,24 +55,40 @@ public class Bot {
 	/** Class properties. */
 	private static final Logger logger = LoggerFactory.getLogger(Bot.class.getName());
 
-	private final Semaphore semaphore = new Semaphore(1);
+	public static final int DEFAULT_MAX_IN_FLIGHT = 64;
 
 	private ExecutorService executorService;
 
 	private Integer breakpoint;
 
-	private List<PageDTO> pages;
+	private List<String> seeds = new ArrayList<>();
 
-	private List<String> visitedUrls;
+	private ResultSink results;
 
-	private Queue<String> tempUrlQueue;
+	private SeenUrlStore visitedUrls;
 
-	private Queue<String> urlQueue;
+	private Frontier frontier;
+
+	private CrawlStats stats;
 
 	/** Class Dependencies. */
-	private Helper helper = new Helper();
+	private UrlNormalizer urlNormalizer = new UrlNormalizer();
+
+	private Fetcher fetcher;
+
+	private RobotsCache robots;
+
+	private CrawlStore history;
+
+	private NearDuplicateIndex nearDuplicates;
 
-	private PageDTO page;
+	private PageExtractor extractor;
+
+	private CrawlListener listener;
+
+	private LinkRouter linkRouter;
+
+	private volatile boolean nonBlocking;
 
 	/**
 	 * Bot class constructor.
@@ -75,18 +106,67 @@ public class Bot {
 	 * @param breakpoint  Limit how deep in the URLs the program should go.
 	 */
 	public Bot(List<String> rootUrlList, int breakpoint) {
+		this(rootUrlList, breakpoint, BotConfig.builder().build());
+	}
+
+	/**
+	 * Bot class constructor.
+	 * 
+	 * @param rootUrlList List of URLs as Strings.
+	 * @param breakpoint  Limit how deep in the URLs the program should go.
+	 * @param visitedUrls Store that keeps track of the URLs already seen, such as
+	 *                    a Bloom filter for large crawls, closed once the crawl
+	 *                    ends.
+	 */
+	public Bot(List<String> rootUrlList, int breakpoint, SeenUrlStore visitedUrls) {
+		this(rootUrlList, breakpoint, BotConfig.builder().seenUrls(visitedUrls).build());
+	}
+
+	/**
+	 * Bot class constructor.
+	 * 
+	 * @param rootUrlList List of URLs as Strings.
+	 * @param breakpoint  Limit how deep in the URLs the program should go.
+	 * @param config      Crawl collaborators and rules.
+	 */
+	public Bot(List<String> rootUrlList, int breakpoint, BotConfig config) {
 		this.breakpoint = breakpoint;
-		this.urlQueue = new LinkedList<String>(rootUrlList);
-		propertiesInitializer();
+		this.visitedUrls = config.getSeenUrls();
+		this.fetcher = config.getFetcher();
+		this.listener = config.getListener();
+		this.linkRouter = config.getLinkRouter();
+		this.history = config.getHistory();
+		this.nearDuplicates = config.getNearDuplicates();
+		this.extractor = config.getExtractor();
+		this.stats = new CrawlStats(config.getMetrics());
+		if (config.isRespectRobots()) {
+			this.robots = config.getRobots() != null ? config.getRobots() : new RobotsCache(this.fetcher);
+		}
+		this.frontier = new Frontier(this.visitedUrls, config.getPoliteness(), config.getPriority(), config.getBudget());
+		this.frontier.setJournal(config.getJournal());
+		for (String url : rootUrlList) {
+			String seed = urlNormalizer.normalize(url);
+			if (seed == null) {
+				logger.warn("Invalid seed URL {} dropped", url);
+			} else {
+				this.seeds.add(seed);
+				this.frontier.offer(seed, 0);
+			}
+		}
+		propertiesInitializer(config);
 	}
 
 	/**
 	 * Initializes the class properties.
+	 * 
+	 * @param config Crawl collaborators and rules.
 	 */
-	private void propertiesInitializer() {
-		this.visitedUrls = new ArrayList<String>();
-		this.pages = new ArrayList<PageDTO>();
-		this.tempUrlQueue = new LinkedList<String>();
+	private void propertiesInitializer(BotConfig config) {
+		if (config.getResultSink() != null) {
+			this.results = config.getResultSink();
+		} else {
+			this.results = config.isCollectPages() ? new CollectingResultSink() : ResultSink.discarding();
+		}
 	}
 
 	/**
@@ -111,17 +191,77 @@ public class Bot {
 	 */
 	public List<PageDTO> crawlAsync(Integer maxThreads) {
 		this.executorService = Executors.newFixedThreadPool(maxThreads);
-		this.tempUrlQueue.clear();
 
-		scrapeLinksAsync();
-		this.breakpoint--;
+		try {
+			return crawlAsync(this.executorService, maxThreads);
+		} finally {
+			this.executorService.shutdown();
+		}
+	}
+
+	/**
+	 * Crawls the given URL on a shared executor, finding all the links inside it
+	 * until the breakpoint is reached. The executor is not shut down, so it can be
+	 * reused by other crawls.
+	 * 
+	 * @param executor    Executor running the fetches.
+	 * @param maxInFlight The maximum number of URLs processed at the same time.
+	 * @return Pages objects in a json representation.
+	 * @throws IllegalArgumentException When maxInFlight is lower than one.
+	 */
+	public List<PageDTO> crawlAsync(Executor executor, Integer maxInFlight) {
+		scrapeLinksAsync(executor, maxInFlight);
+
+		return this.results.results();
+	}
+
+	/**
+	 * Crawls the given URL running each fetch on a virtual thread, finding all the
+	 * links inside it until the breakpoint is reached. The default number of
+	 * in flight requests is used.
+	 * 
+	 * @return Pages objects in a json representation.
+	 */
+	public List<PageDTO> crawlVirtual() {
+		return crawlVirtual(DEFAULT_MAX_IN_FLIGHT);
+	}
+
+	/**
+	 * Crawls the given URL running each fetch on a virtual thread, finding all the
+	 * links inside it until the breakpoint is reached. As fetching is bound by the
+	 * network rather than the CPU, concurrency is limited by the number of in
+	 * flight requests instead of the number of cores.
+	 * 
+	 * @param maxInFlight The maximum number of requests in flight.
+	 * @return Pages objects in a json representation.
+	 */
+	public List<PageDTO> crawlVirtual(Integer maxInFlight) {
+		this.executorService = Executors.newVirtualThreadPerTaskExecutor();
 
-		if (this.tempUrlQueue.size() > 0) {
-			this.urlQueue = new LinkedList<>(this.tempUrlQueue);
-			return crawlAsync(maxThreads);
+		try {
+			return crawlAsync(this.executorService, maxInFlight);
+		} finally {
+			this.executorService.shutdown();
 		}
+	}
+
+	/**
+	 * Crawls the given URL without blocking a thread per request: requests are
+	 * sent through {@link Fetcher#fetchAsync(String, Map)}, and only the robots
+	 * check, the parsing and the links extraction run on the parser executor, so
+	 * thousands of requests can be in flight from a few threads. The executor is
+	 * not shut down, so it can be reused by other crawls.
+	 * 
+	 * @param parser      Executor parsing the pages, sized to the number of cores.
+	 * @param maxInFlight The maximum number of requests in flight.
+	 * @return Pages objects in a json representation.
+	 * @throws IllegalArgumentException When maxInFlight is lower than one.
+	 */
+	public List<PageDTO> crawlNonBlocking(Executor parser, Integer maxInFlight) {
+		this.nonBlocking = true;
+		scrapeLinksNonBlocking(parser, maxInFlight);
 
-		return this.pages;
+		return this.results.results();
 	}
 
 	/**
@@ -131,138 +271,504 @@ public class Bot {
 	 * @return Pages objects in a json representation.
 	 */
 	public List<PageDTO> crawlSync() {
-		this.tempUrlQueue.clear();
-
 		scrapeLinksSync();
 
-		this.breakpoint--;
+		return this.results.results();
+	}
 
-		if (tempUrlQueue.size() > 0) {
-			this.urlQueue = new LinkedList<>(this.tempUrlQueue);
-			return crawlSync();
-		}
+	/**
+	 * Stops the crawl. No more URLs are dispatched, the pages being processed are
+	 * finished and the pages scraped so far are returned by the crawl method.
+	 */
+	public void cancel() {
+		this.frontier.close();
+	}
+
+	/**
+	 * Adds an URL found outside the crawl, such as by another node of a cluster,
+	 * to the frontier. URLs disallowed by the robots.txt of their host are
+	 * dropped.
+	 * 
+	 * @param url   Normalized absolute URL.
+	 * @param depth Depth of the URL in the crawl.
+	 * @return Boolean whether the URL was queued or not.
+	 */
+	public boolean offer(String url, int depth) {
+		return isAllowed(url) && this.frontier.offer(url, depth);
+	}
 
-		return this.pages;
+	/**
+	 * Checks whether the crawl was cancelled. A crawl stopped by its budget is
+	 * not cancelled.
+	 * 
+	 * @return Boolean whether the crawl was cancelled or not.
+	 */
+	public boolean isCancelled() {
+		return this.frontier.isClosed() && !this.frontier.isBudgetSpent();
 	}
 
 	/**
-	 * Loop through the URLs list, scraping the needed data and setting it to the
-	 * corresponding global property. If the breakpoint is bigger than zero, get all
-	 * links inside the URLs, and also set it to the corresponding global
-	 * property for the next iteration.
+	 * Takes the URLs from the frontier as soon as they are discovered, handing
+	 * each one to the executor. The permits bound how many URLs are in flight, so
+	 * the frontier keeps the backlog instead of the executor queue. Returns once
+	 * every dispatched URL was processed.
+	 * 
+	 * @param executor    Executor running the fetches.
+	 * @param maxInFlight Number of URLs allowed to be processed at the same time.
 	 */
-	private void scrapeLinksAsync() {
-		while (!this.urlQueue.isEmpty()) {
-			String url = this.urlQueue.poll();
-			this.visitedUrls.add(url);
+	private void scrapeLinksAsync(Executor executor, int maxInFlight) {
+		checkMaxInFlight(maxInFlight);
+		Semaphore permits = new Semaphore(maxInFlight);
+		FrontierEntry entry;
+		this.stats.started(this.frontier);
+
+		while ((entry = this.frontier.take()) != null) {
+			FrontierEntry current = entry;
 
-			if (!helper.checkPageAvailability(url)) {
-				continue;
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.frontier.complete(current);
+				logger.error("Awaiting permits error", e);
+				break;
 			}
 
 			try {
-				this.executorService.execute(() -> {
+				executor.execute(() -> {
 					try {
-						Document doc = Jsoup.connect(url).get();
-						String title = doc.title();
-						Element descDoc = doc.select("meta[name=description]").first();
-
-						String desc = (descDoc != null) ? descDoc.attr("content") : "";
-						page = PageDTO.builder().title(title).desc(desc).url(url).build();
-						this.pages.add(page);
-
-						Queue<String> returnedUrls = getLinks(doc, url);
-						if (returnedUrls != null) {
-							try {
-								this.semaphore.acquire();
-								this.tempUrlQueue = helper.mergeQueues(this.tempUrlQueue, returnedUrls);
-							} catch (InterruptedException e) {
-								Thread.currentThread().interrupt();
-								logger.error("Semaphore error", e);
-							} finally {
-								this.semaphore.release();
-							}
-						}
-					} catch (IOException e) {
-						logger.error("ScrapeLinksAsync method error", e);
+						scrapePage(current);
+					} finally {
+						this.frontier.complete(current);
+						permits.release();
 					}
 				});
 			} catch (Exception e) {
+				this.frontier.complete(current);
+				permits.release();
 				logger.error("Executor error", e);
 			}
 		}
 
-		this.executorService.shutdown();
+		permits.acquireUninterruptibly(maxInFlight);
+		finished();
+	}
 
-		try {
-			this.executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-		} catch (InterruptedException e) {
-			Thread.currentThread().interrupt();
-			logger.error("Awaiting threads error", e);
+	/**
+	 * Checks that the crawl may process at least one URL at a time, as a crawl
+	 * without any permit would wait forever for its first URL.
+	 * 
+	 * @param maxInFlight Number of URLs allowed to be processed at the same time.
+	 * @throws IllegalArgumentException When maxInFlight is lower than one.
+	 */
+	private static void checkMaxInFlight(int maxInFlight) {
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("maxInFlight must be at least 1: " + maxInFlight);
 		}
 	}
 
 	/**
-	 * Loop through the URLs list, scraping the needed data and setting it to the
-	 * corresponding global property. If the breakpoint is bigger than zero, get all
-	 * links inside the URLs, and also set it to the corresponding global
-	 * property for the next iteration.
+	 * Takes the URLs from the frontier as soon as they are discovered, starting
+	 * their request right away from the calling thread. The permits bound how
+	 * many requests are in flight, and each entry is completed once its page was
+	 * processed by the parser executor. Returns once every request was
+	 * processed.
+	 * 
+	 * @param parser      Executor parsing the pages.
+	 * @param maxInFlight Number of requests allowed to be in flight.
 	 */
-	private void scrapeLinksSync() {
-		while (!this.urlQueue.isEmpty()) {
-			String url = this.urlQueue.poll();
-			this.visitedUrls.add(url);
+	private void scrapeLinksNonBlocking(Executor parser, int maxInFlight) {
+		checkMaxInFlight(maxInFlight);
+		Semaphore permits = new Semaphore(maxInFlight);
+		FrontierEntry entry;
+		this.stats.started(this.frontier);
 
-			if (!helper.checkPageAvailability(url)) {
-				continue;
+		while ((entry = this.frontier.take()) != null) {
+			FrontierEntry current = entry;
+
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.frontier.complete(current);
+				logger.error("Awaiting permits error", e);
+				break;
 			}
 
+			CompletableFuture<Void> scrape;
 			try {
-				Document doc = Jsoup.connect(url).get();
-				String title = doc.title();
-				Element descDoc = doc.select("meta[name=description]").first();
+				scrape = scrapePageAsync(current, parser);
+			} catch (Exception e) {
+				scrape = CompletableFuture.failedFuture(e);
+			}
+			scrape.whenComplete((ignored, error) -> {
+				if (error != null) {
+					logger.error("ScrapePageAsync method error", error);
+				}
+				this.frontier.complete(current);
+				permits.release();
+			});
+		}
+
+		permits.acquireUninterruptibly(maxInFlight);
+		finished();
+	}
+
+	/**
+	 * Loop through the frontier, scraping the needed data and setting it to the
+	 * corresponding global property. Links found in pages under the breakpoint
+	 * are added back to the frontier.
+	 */
+	private void scrapeLinksSync() {
+		FrontierEntry entry;
+		this.stats.started(this.frontier);
+
+		while ((entry = this.frontier.take()) != null) {
+			try {
+				scrapePage(entry);
+			} finally {
+				this.frontier.complete(entry);
+			}
+		}
+		finished();
+	}
 
-				String desc = (descDoc != null) ? descDoc.attr("content") : "";
-				page = PageDTO.builder().title(title).desc(desc).url(url).build();
-				this.pages.add(page);
+	/**
+	 * Marks the end of the crawl, completes the result sink, closes the seen URL
+	 * store and logs the crawl summary.
+	 */
+	private void finished() {
+		this.stats.finished(this.frontier);
+		this.results.complete();
+		this.visitedUrls.close();
+		if (this.frontier.isBudgetSpent()) {
+			logger.info("Crawl budget spent, {} URLs left in the frontier", this.frontier.size());
+		}
+		CrawlSummaryDTO summary = this.stats.getSummary();
+		logger.info("Crawl finished in {} ms: {} pages ({} pages/s), {} bytes, {} errors {}, {} duplicates, {} unchanged",
+				summary.getElapsedMillis(), summary.getPages(), String.format("%.1f", summary.getPagesPerSecond()),
+				summary.getBytes(), summary.getErrors(), summary.getErrorsByType(), summary.getDuplicates(),
+				summary.getUnchanged());
+	}
+
+	/**
+	 * Fetches the given URL once, and reuses the downloaded response for the
+	 * availability check, the page data and the links extraction.
+	 * 
+	 * @param entry Frontier entry to be scraped.
+	 */
+	private void scrapePage(FrontierEntry entry) {
+		String url = entry.getUrl();
+		if (entry.getDepth() == 0 && !isAllowed(url)) {
+			return;
+		}
+
+		PageRecord previous = findPrevious(url);
+		if (previous != null && !isDue(previous)) {
+			offerLinks(storedLinks(url, entry.getDepth()), entry.getDepth());
+			return;
+		}
+
+		scrapeFetched(entry, previous, fetch(url, previous));
+	}
+
+	/**
+	 * Checks the robots.txt rules of the URL and fetches it without blocking,
+	 * then processes the response on the parser executor.
+	 * 
+	 * @param entry  Frontier entry to be scraped.
+	 * @param parser Executor parsing the page.
+	 * @return Future completed once the page was processed.
+	 */
+	private CompletableFuture<Void> scrapePageAsync(FrontierEntry entry, Executor parser) {
+		String url = entry.getUrl();
+
+		return isAllowedAsync(url).thenComposeAsync(allowed -> {
+			if (!allowed) {
+				return CompletableFuture.completedFuture(null);
+			}
+
+			PageRecord previous = findPrevious(url);
+			if (previous != null && !isDue(previous)) {
+				offerLinks(storedLinks(url, entry.getDepth()), entry.getDepth());
+				return CompletableFuture.completedFuture(null);
+			}
+
+			long startedAt = this.stats.fetchStarted();
+			return this.fetcher.fetchAsync(url, previous == null ? Map.of() : validators(previous))
+					.thenAcceptAsync(result -> {
+						this.stats.fetched(result, startedAt);
+						scrapeFetched(entry, previous, result);
+					}, parser);
+		}, parser);
+	}
+
+	/**
+	 * Processes the response of a page: unchanged pages reuse the stored data,
+	 * failures are reported, and new or changed pages are parsed, returned and
+	 * expanded.
+	 * 
+	 * @param entry    Frontier entry being scraped.
+	 * @param previous Page stored by the previous crawl, may be null.
+	 * @param result   Fetch result.
+	 */
+	private void scrapeFetched(FrontierEntry entry, PageRecord previous, FetchResult result) {
+		String url = entry.getUrl();
+		if (result.getBody() != null) {
+			this.frontier.charge(result.getBody().length);
+		}
+		if (previous != null && result.isNotModified()) {
+			scrapeUnchanged(entry, previous, result);
+			return;
+		}
+
+		if (!result.isOk()) {
+			notifyFailure(result);
+			return;
+		}
+
+		String contentHash = this.history != null ? result.contentHash() : null;
+		if (previous != null && contentHash.equals(previous.getContentHash())) {
+			scrapeUnchanged(entry, previous, result);
+			return;
+		}
 
-				Queue<String> returnedUrls = getLinks(doc, url);
-				if (returnedUrls != null) {
-					this.tempUrlQueue = helper.mergeQueues(this.tempUrlQueue, returnedUrls);
+		if (result.isRedirected()) {
+			this.frontier.markSeen(urlNormalizer.normalize(result.getFinalUrl()));
+		}
+
+		try {
+			long startedAt = System.nanoTime();
+			ExtractedPage extracted = extractor.extract(result);
+			this.stats.stage(CrawlStage.EXTRACT, startedAt);
+			Document doc = extracted.getDocument();
+			PageDTO page = PageDTO.builder().title(extracted.getTitle()).desc(extracted.getDescription()).url(url).build();
+
+			if (extracted.getCanonical() != null) {
+				this.frontier.markSeen(urlNormalizer.normalize(extracted.getCanonical()));
+			}
+
+			String text = extracted.getText();
+			if (this.nearDuplicates != null) {
+				startedAt = System.nanoTime();
+				text = text != null ? text : CrawledPage.bodyText(doc);
+				String original = this.nearDuplicates.findOrAdd(url, text);
+				this.stats.stage(CrawlStage.DEDUP, startedAt);
+				if (original != null) {
+					notifyDuplicate(CrawledPage.builder()
+							.page(page)
+							.depth(entry.getDepth())
+							.document(doc)
+							.result(result)
+							.previous(previous)
+							.contentHash(contentHash)
+							.text(text)
+							.build(), original);
+					return;
 				}
-			} catch (IOException e) {
-				logger.error("ScrapeLinksSync method error", e);
 			}
+
+			this.results.accept(page);
+			startedAt = System.nanoTime();
+			List<String> returnedUrls = getLinks(extracted, url, entry.getDepth());
+			this.stats.stage(CrawlStage.LINKS, startedAt);
+			notifyListener(CrawledPage.builder()
+					.page(page)
+					.depth(entry.getDepth())
+					.document(doc)
+					.result(result)
+					.links(returnedUrls)
+					.previous(previous)
+					.contentHash(contentHash)
+					.text(text)
+					.build());
+
+			offerLinks(returnedUrls, entry.getDepth());
+		} catch (IOException e) {
+			this.stats.failed(result);
+			logger.error("ScrapePage method error", e);
+		}
+	}
+
+	/**
+	 * Fetches a page, sending the validators of the stored page if any, and
+	 * records the request.
+	 * 
+	 * @param url      Page URL.
+	 * @param previous Page stored by the previous crawl, may be null.
+	 * @return Fetch result.
+	 */
+	private FetchResult fetch(String url, PageRecord previous) {
+		long startedAt = this.stats.fetchStarted();
+		FetchResult result = null;
+		try {
+			result = previous == null ? fetcher.fetch(url) : fetcher.fetch(url, validators(previous));
+			return result;
+		} finally {
+			this.stats.fetched(result != null ? result : FetchResult.failed(url, null), startedAt);
+		}
+	}
+
+	/**
+	 * Handles a page that did not change since the previous crawl: the stored page
+	 * data is returned and the stored links are followed, without parsing nor
+	 * indexing the page again.
+	 * 
+	 * @param entry    Frontier entry being scraped.
+	 * @param previous Page stored by the previous crawl.
+	 * @param result   Fetch result, either a 304 or an identical body.
+	 */
+	private void scrapeUnchanged(FrontierEntry entry, PageRecord previous, FetchResult result) {
+		PageDTO unchanged = PageDTO.builder()
+				.title(previous.getTitle())
+				.desc(previous.getDesc())
+				.url(entry.getUrl())
+				.build();
+		this.results.accept(unchanged);
+
+		Collection<String> links = storedLinks(entry.getUrl(), entry.getDepth());
+		notifyUnchanged(CrawledPage.builder()
+				.page(unchanged)
+				.depth(entry.getDepth())
+				.result(result)
+				.links(links)
+				.previous(previous)
+				.contentHash(previous.getContentHash())
+				.build());
+		offerLinks(links, entry.getDepth());
+	}
+
+	/**
+	 * Adds the links found in a page to the frontier, one level deeper.
+	 * 
+	 * @param links Links found in the page, may be null.
+	 * @param depth Depth of the page in the crawl.
+	 */
+	private void offerLinks(Collection<String> links, int depth) {
+		if (links != null) {
+			long startedAt = System.nanoTime();
+			for (String link : links) {
+				if (isLocal(link)) {
+					this.frontier.offer(link, depth + 1);
+				} else {
+					this.linkRouter.forward(link, depth + 1);
+				}
+			}
+			this.stats.stage(CrawlStage.ENQUEUE, startedAt);
+		}
+	}
+
+	/**
+	 * Checks whether a link is crawled by this Bot, or by another node of the
+	 * cluster.
+	 * 
+	 * @param url Absolute URL.
+	 * @return Boolean whether the link is local or not.
+	 */
+	private boolean isLocal(String url) {
+		return this.linkRouter == null || this.linkRouter.isLocal(url);
+	}
+
+	/**
+	 * Finds the page stored by a previous crawl, when the crawl is incremental.
+	 * Only successfully scraped pages are returned, as failed ones have nothing
+	 * to compare with.
+	 * 
+	 * @param url Page URL.
+	 * @return Stored page, or null if none.
+	 */
+	private PageRecord findPrevious(String url) {
+		if (this.history == null) {
+			return null;
+		}
+
+		try {
+			return this.history.findPage(url)
+					.filter(previous -> previous.getStatusCode() == 200 && previous.getError() == null)
+					.orElse(null);
+		} catch (Exception e) {
+			logger.error("Crawl history error", e);
 		}
+		return null;
+	}
+
+	/**
+	 * Checks whether a stored page is due to be fetched again.
+	 * 
+	 * @param previous Page stored by the previous crawl.
+	 * @return Boolean whether the page is due or not.
+	 */
+	private static boolean isDue(PageRecord previous) {
+		return previous.getNextVisitAt() == null || !Instant.now().isBefore(previous.getNextVisitAt());
 	}
 
 	/**
-	 * If breakpoint is bigger than 0, gets all the links inside the given URLs.
+	 * Gets the links stored for a page, if its depth is under the breakpoint.
+	 * Links disallowed by the robots.txt rules are dropped, as the rules may have
+	 * changed since.
 	 * 
-	 * @param doc Document to retrieve links from.
-	 * @param url Base URL for validation.
+	 * @param url   Page URL.
+	 * @param depth Depth of the page in the crawl.
+	 * @return Stored links, or null if the page is at the breakpoint depth.
+	 */
+	private Collection<String> storedLinks(String url, int depth) {
+		if (depth >= this.breakpoint) {
+			return null;
+		}
+
+		try {
+			return this.history.findLinks(url).stream().filter(link -> !isLocal(link) || isAllowed(link)).toList();
+		} catch (Exception e) {
+			logger.error("Crawl history error", e);
+		}
+		return null;
+	}
+
+	/**
+	 * Builds the conditional request headers from the validators of the stored
+	 * page, so the server answers 304 when the page did not change.
+	 * 
+	 * @param previous Page stored by the previous crawl.
+	 * @return Request headers, empty if the page had no validators.
+	 */
+	private static Map<String, String> validators(PageRecord previous) {
+		Map<String, String> headers = new LinkedHashMap<>();
+		if (previous.getEtag() != null) {
+			headers.put("If-None-Match", previous.getEtag());
+		}
+		if (previous.getLastModified() != null) {
+			headers.put("If-Modified-Since", previous.getLastModified());
+		}
+		return headers;
+	}
+
+	/**
+	 * If the page depth is under the breakpoint, gets all the links inside the
+	 * given URLs. Links disallowed by the robots.txt of their host are dropped
+	 * here, so they never reach the frontier, except the ones forwarded to
+	 * another node, which checks them itself.
+	 * 
+	 * @param page  Extracted page to retrieve links from.
+	 * @param url   Base URL for validation.
+	 * @param depth Depth of the page in the crawl.
 	 * @return List of all the links founded.
 	 */
-	private Queue<String> getLinks(Document doc, String url) {
-		if (this.breakpoint <= 0) {
+	private List<String> getLinks(ExtractedPage page, String url, int depth) {
+		if (depth >= this.breakpoint) {
 			return null;
 		}
 
 		try {
-			Elements links = doc.select("a");
+			String baseUrl = page.getBaseUrl() == null || page.getBaseUrl().isEmpty() ? url : page.getBaseUrl();
 
-			Queue<String> urls = new LinkedList<>();
-			links.forEach(element -> {
-				String href = element.attr("href");
+			List<String> urls = new ArrayList<>(page.getLinks().size());
+			for (String link : page.getLinks()) {
+				String href = urlNormalizer.normalize(baseUrl, link);
 
-				if (href.length() > 0) {
-					if (href.charAt(0) == '/') {
-						href = helper.formatUrl(url, href);
-					} else if (helper.validateURL(href) && !visitedUrls.contains(href)) {
-						urls.add(href);
-					}
+				if (href != null && (!isLocal(href) || isAllowed(href))) {
+					urls.add(href);
 				}
-			});
+			}
 
 			return urls;
 		} catch (Exception e) {
@@ -270,4 +776,132 @@ public class Bot {
 		}
 		return null;
 	}
+
+	/**
+	 * Hands the scraped page to the listener, if any. Listener failures are
+	 * logged and do not stop the crawl.
+	 * 
+	 * @param page Scraped page.
+	 */
+	private void notifyListener(CrawledPage page) {
+		this.stats.scraped();
+		if (this.listener == null) {
+			return;
+		}
+
+		try {
+			this.listener.onCrawled(page);
+		} catch (Exception e) {
+			logger.error("Crawl listener error", e);
+		}
+	}
+
+	/**
+	 * Hands the near duplicate page to the listener, if any.
+	 * 
+	 * @param page     Duplicate page.
+	 * @param original URL of the page it duplicates.
+	 */
+	private void notifyDuplicate(CrawledPage page, String original) {
+		logger.debug("Skipping {}, near duplicate of {}", page.getPage().getUrl(), original);
+		this.stats.duplicate();
+		if (this.listener == null) {
+			return;
+		}
+
+		try {
+			this.listener.onDuplicate(page, original);
+		} catch (Exception e) {
+			logger.error("Crawl listener error", e);
+		}
+	}
+
+	/**
+	 * Hands the unchanged page to the listener, if any.
+	 * 
+	 * @param page Unchanged page.
+	 */
+	private void notifyUnchanged(CrawledPage page) {
+		this.stats.unchanged();
+		if (this.listener == null) {
+			return;
+		}
+
+		try {
+			this.listener.onUnchanged(page);
+		} catch (Exception e) {
+			logger.error("Crawl listener error", e);
+		}
+	}
+
+	/**
+	 * Hands the failed fetch to the listener, if any.
+	 * 
+	 * @param result Failed fetch result.
+	 */
+	private void notifyFailure(FetchResult result) {
+		this.stats.failed(result);
+		if (this.listener == null) {
+			return;
+		}
+
+		try {
+			this.listener.onFailure(result);
+		} catch (Exception e) {
+			logger.error("Crawl listener error", e);
+		}
+	}
+
+	/**
+	 * Checks the URL against the robots.txt rules of its host, applying the
+	 * Crawl-delay of the host to the frontier.
+	 * 
+	 * @param url Absolute URL.
+	 * @return Boolean whether the URL may be crawled or not.
+	 */
+	private boolean isAllowed(String url) {
+		if (this.robots == null) {
+			return true;
+		}
+
+		try {
+			RobotsRules rules = this.nonBlocking ? this.robots.cachedRules(url) : this.robots.rulesFor(url);
+			if (rules == null) {
+				return true;
+			}
+			if (rules.getCrawlDelay() != null) {
+				this.frontier.setCrawlDelay(Frontier.hostOf(url), rules.getCrawlDelay());
+			}
+			return rules.isAllowed(url);
+		} catch (Exception e) {
+			logger.error("Robots rules error", e);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks the URL against the robots.txt rules of its host without blocking,
+	 * applying the Crawl-delay of the host to the frontier. Non blocking crawls
+	 * check every URL before fetching it, as the links of hosts whose rules were
+	 * not cached yet are queued unchecked.
+	 * 
+	 * @param url Absolute URL.
+	 * @return Future completed with whether the URL may be crawled or not.
+	 */
+	private CompletableFuture<Boolean> isAllowedAsync(String url) {
+		if (this.robots == null) {
+			return CompletableFuture.completedFuture(true);
+		}
+
+		return this.robots.rulesForAsync(url).handle((rules, error) -> {
+			if (error != null) {
+				logger.error("Robots rules error", error);
+				return true;
+			}
+			if (rules.getCrawlDelay() != null) {
+				this.frontier.setCrawlDelay(Frontier.hostOf(url), rules.getCrawlDelay());
+			}
+			return rules.isAllowed(url);
+		});
+	}
 }
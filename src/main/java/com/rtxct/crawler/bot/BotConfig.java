@@ -0,0 +1,113 @@
+package com.rtxct.crawler.bot;
+
+import com.rtxct.crawler.dedup.NearDuplicateIndex;
+import com.rtxct.crawler.extract.DomExtractor;
+import com.rtxct.crawler.extract.PageExtractor;
+import com.rtxct.crawler.fetch.Fetcher;
+import com.rtxct.crawler.fetch.HttpClientFetcher;
+import com.rtxct.crawler.frontier.ConcurrentSeenUrlStore;
+import com.rtxct.crawler.frontier.CrawlBudget;
+import com.rtxct.crawler.frontier.FrontierJournal;
+import com.rtxct.crawler.frontier.HostPoliteness;
+import com.rtxct.crawler.frontier.SeenUrlStore;
+import com.rtxct.crawler.frontier.UrlPriority;
+import com.rtxct.crawler.metrics.CrawlMetrics;
+import com.rtxct.crawler.persistence.CrawlStore;
+import com.rtxct.crawler.robots.RobotsCache;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class BotConfig {
+
+  /** Store that keeps track of the URLs already seen, closed once the crawl ends. */
+  @Builder.Default
+  private SeenUrlStore seenUrls = new ConcurrentSeenUrlStore();
+
+  /** Per host concurrency and delay rules. */
+  @Builder.Default
+  private HostPoliteness politeness = HostPoliteness.UNLIMITED;
+
+  /**
+   * Scores ordering the URLs of each host, so the most valuable pages are
+   * fetched first when the budget runs out.
+   */
+  @Builder.Default
+  private UrlPriority priority = UrlPriority.DEFAULT;
+
+  /** Pages, bytes and time after which the crawl stops. */
+  @Builder.Default
+  private CrawlBudget budget = CrawlBudget.UNLIMITED;
+
+  /** Fetch stage, reusing kept alive connections by default. */
+  @Builder.Default
+  private Fetcher fetcher = new HttpClientFetcher();
+
+  /** Extraction stage, building the page tree by default. */
+  @Builder.Default
+  private PageExtractor extractor = new DomExtractor();
+
+  /** Whether the robots.txt rules of the crawled hosts are followed. */
+  @Builder.Default
+  private boolean respectRobots = true;
+
+  /**
+   * Cache of the robots.txt rules, shared between crawls. When not set, each
+   * Bot fetches the rules with its own cache.
+   */
+  private RobotsCache robots;
+
+  /** Listener notified of each page as soon as it is scraped. */
+  private CrawlListener listener;
+
+  /**
+   * Whether the scraped pages are kept and returned by the crawl methods. Can be
+   * disabled when pages are consumed through the listener, so memory use does
+   * not grow with the crawl.
+   */
+  @Builder.Default
+  private boolean collectPages = true;
+
+  /**
+   * Sink receiving the pages returned by the crawl, such as a bounded ring read
+   * while the crawl runs. When not set, pages are collected in memory, or
+   * dropped if collectPages is disabled.
+   */
+  private ResultSink resultSink;
+
+  /**
+   * Pages stored by the previous crawls. When set, the crawl is incremental:
+   * pages not due for a revisit are skipped, the others are fetched with
+   * conditional requests and only parsed again when they changed, and links of
+   * unchanged pages are read from the store.
+   */
+  private CrawlStore history;
+
+  /**
+   * Fingerprints of the pages scraped by the crawl. When set, pages whose text
+   * is a near duplicate of an already scraped page are neither returned nor
+   * expanded.
+   */
+  private NearDuplicateIndex nearDuplicates;
+
+  /**
+   * Application meters updated by the crawl. The crawl keeps its own summary
+   * either way, the meters being shared by all the crawls.
+   */
+  private CrawlMetrics metrics;
+
+  /**
+   * Router of the links owned by other nodes, when the crawl is spread over a
+   * cluster. The links it does not keep local are forwarded instead of being
+   * queued.
+   */
+  private LinkRouter linkRouter;
+
+  /**
+   * Journal notified of every change of the frontier, from the seed URLs on,
+   * such as a checkpoint the crawl can be resumed from.
+   */
+  private FrontierJournal journal;
+}
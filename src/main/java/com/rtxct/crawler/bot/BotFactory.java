@@ -0,0 +1,294 @@
+package com.rtxct.crawler.bot;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.rtxct.crawler.cache.CachePolicy;
+import com.rtxct.crawler.cache.CachingFetcher;
+import com.rtxct.crawler.dedup.NearDuplicateIndex;
+import com.rtxct.crawler.extract.DomExtractor;
+import com.rtxct.crawler.extract.PageExtractor;
+import com.rtxct.crawler.extract.StreamingExtractor;
+import com.rtxct.crawler.fetch.FetchLimits;
+import com.rtxct.crawler.fetch.Fetcher;
+import com.rtxct.crawler.fetch.HttpClientFetcher;
+import com.rtxct.crawler.fetch.JsoupFetcher;
+import com.rtxct.crawler.frontier.BloomSeenUrlStore;
+import com.rtxct.crawler.frontier.ConcurrentSeenUrlStore;
+import com.rtxct.crawler.frontier.CrawlBudget;
+import com.rtxct.crawler.frontier.FrontierJournal;
+import com.rtxct.crawler.frontier.HostPoliteness;
+import com.rtxct.crawler.frontier.MappedSeenUrlStore;
+import com.rtxct.crawler.frontier.SeenUrlStore;
+import com.rtxct.crawler.frontier.UrlPriority;
+import com.rtxct.crawler.index.IndexingListener;
+import com.rtxct.crawler.index.InvertedIndex;
+import com.rtxct.crawler.metrics.CrawlMetrics;
+import com.rtxct.crawler.persistence.CrawlStore;
+import com.rtxct.crawler.persistence.CrawlWriter;
+import com.rtxct.crawler.persistence.PersistingListener;
+import com.rtxct.crawler.persistence.RevisitPolicy;
+import com.rtxct.crawler.robots.RobotsCache;
+
+@Component
+public class BotFactory {
+
+  /** Class properties. */
+  private final HostPoliteness politeness;
+
+  private final UrlPriority priority;
+
+  private final Supplier<SeenUrlStore> seenUrls;
+
+  private final boolean respectRobots;
+
+  /** Class Dependencies. */
+  private final Fetcher fetcher;
+
+  private final RobotsCache robots;
+
+  private final CrawlListener storageListener;
+
+  private final CrawlStore history;
+
+  private final boolean skipNearDuplicates;
+
+  private final int maxDuplicateDistance;
+
+  private final int minDuplicateTerms;
+
+  private final PageExtractor extractor;
+
+  private final CrawlMetrics metrics;
+
+  /**
+   * BotFactory class constructor.
+   *
+   * @param properties Crawler properties.
+   * @param index      Search index the scraped pages are added to.
+   * @param writer     Writer storing the pages, their fetch metadata and their
+   *                   links.
+   * @param store      Store holding the pages of the previous crawls.
+   * @param metrics    Application meters updated by the crawls.
+   * @throws IOException If the cache directory could not be read.
+   */
+  public BotFactory(CrawlerProperties properties, InvertedIndex index, CrawlWriter writer, CrawlStore store,
+      CrawlMetrics metrics) throws IOException {
+    CrawlerProperties.Fetch fetch = properties.getFetch();
+    FetchLimits limits = FetchLimits.builder()
+        .maxBodySize(fetch.getMaxBodySize().toBytes())
+        .minThroughput(fetch.getMinThroughput().toBytes())
+        .throughputGracePeriod(fetch.getThroughputGracePeriod())
+        .bodyTimeout(fetch.getBodyTimeout())
+        .build();
+    Fetcher httpFetcher = switch (fetch.getClient()) {
+      case "httpclient" -> new HttpClientFetcher(
+          HttpClientFetcher.newClient(HttpClientFetcher.DEFAULT_TIMEOUT, fetch.getHttpVersion()),
+          HttpClientFetcher.DEFAULT_TIMEOUT, limits);
+      case "jsoup" -> new JsoupFetcher();
+      default -> throw new IllegalArgumentException("Unknown fetch client: " + fetch.getClient());
+    };
+    CrawlerProperties.Cache cache = properties.getCache();
+    CachePolicy cachePolicy = CachePolicy.builder().minTtl(cache.getMinTtl()).maxTtl(cache.getMaxTtl()).build();
+    if (!cache.isEnabled()) {
+      this.fetcher = httpFetcher;
+    } else if (cache.getDirectory().isBlank()) {
+      this.fetcher = new CachingFetcher(httpFetcher, cache.getMaxSize().toBytes(), cachePolicy);
+    } else {
+      this.fetcher = new CachingFetcher(httpFetcher, cache.getMaxSize().toBytes(), cachePolicy,
+          Path.of(cache.getDirectory()), cache.getDiskMaxSize().toBytes());
+    }
+    this.politeness = HostPoliteness.builder()
+        .maxConnectionsPerHost(properties.getPoliteness().getMaxConnectionsPerHost())
+        .delay(properties.getPoliteness().getDelay())
+        .build();
+    CrawlerProperties.Frontier frontier = properties.getFrontier();
+    this.priority = frontier.getPriority().isEnabled() ? UrlPriority.DEFAULT : UrlPriority.NONE;
+    long expectedUrls = frontier.getExpectedUrls();
+    double falsePositiveRate = frontier.getFalsePositiveRate();
+    Path seenStoreDirectory = Path.of(frontier.getSeenStoreDirectory());
+    this.seenUrls = switch (frontier.getSeenStore()) {
+      case "concurrent" -> ConcurrentSeenUrlStore::new;
+      case "bloom" -> () -> new BloomSeenUrlStore(expectedUrls, falsePositiveRate);
+      case "mapped" -> () -> newMappedStore(seenStoreDirectory, expectedUrls, falsePositiveRate);
+      default -> throw new IllegalArgumentException("Unknown seen URL store: " + frontier.getSeenStore());
+    };
+    this.respectRobots = properties.getRobots().isEnabled();
+    this.robots = new RobotsCache(httpFetcher, properties.getRobots().getTtl(), properties.getRobots().getMaxHosts());
+
+    boolean indexPages = properties.getIndex().isEnabled();
+    boolean persistPages = properties.getPersistence().isEnabled();
+    CrawlListener indexing = indexPages ? new IndexingListener(index) : null;
+    CrawlerProperties.Recrawl recrawl = properties.getRecrawl();
+    RevisitPolicy revisitPolicy = RevisitPolicy.builder()
+        .initialInterval(recrawl.getInitialInterval())
+        .minInterval(recrawl.getMinInterval())
+        .maxInterval(recrawl.getMaxInterval())
+        .build();
+    CrawlListener persisting = persistPages ? new PersistingListener(writer, revisitPolicy) : null;
+    if (indexing != null && persisting != null) {
+      this.storageListener = indexing.andThen(persisting);
+    } else {
+      this.storageListener = indexing != null ? indexing : persisting;
+    }
+    this.history = persistPages && recrawl.isEnabled() ? store : null;
+    this.skipNearDuplicates = properties.getDedup().isEnabled();
+    this.maxDuplicateDistance = properties.getDedup().getMaxDistance();
+    this.minDuplicateTerms = properties.getDedup().getMinTerms();
+    CrawlerProperties.Extract extract = properties.getExtract();
+    this.extractor = switch (extract.getEngine()) {
+      case "dom" -> new DomExtractor();
+      case "streaming" -> new StreamingExtractor((int) Math.min(extract.getMaxBodySize().toBytes(), Integer.MAX_VALUE),
+          indexPages || skipNearDuplicates);
+      default -> throw new IllegalArgumentException("Unknown extraction engine: " + extract.getEngine());
+    };
+    this.metrics = properties.getMetrics().isEnabled() ? metrics : null;
+    if (this.metrics != null && this.fetcher instanceof CachingFetcher cachingFetcher) {
+      this.metrics.monitor(cachingFetcher);
+    }
+  }
+
+  /**
+   * Creates a Bot configured from the application properties, crawling only the
+   * given pages and their links.
+   *
+   * @param urls List of URLs as Strings.
+   * @return New Bot.
+   */
+  public Bot create(List<String> urls) {
+    return create(urls, 1);
+  }
+
+  /**
+   * Creates a Bot configured from the application properties.
+   *
+   * @param urls       List of URLs as Strings.
+   * @param breakpoint Limit how deep in the URLs the program should go.
+   * @return New Bot.
+   */
+  public Bot create(List<String> urls, int breakpoint) {
+    return create(urls, breakpoint, CrawlBudget.UNLIMITED);
+  }
+
+  /**
+   * Creates a Bot configured from the application properties, crawling only the
+   * given pages and their links, and stopping once its budget is spent.
+   *
+   * @param urls   List of URLs as Strings.
+   * @param budget Pages, bytes and time after which the crawl stops.
+   * @return New Bot.
+   */
+  public Bot create(List<String> urls, CrawlBudget budget) {
+    return create(urls, 1, budget);
+  }
+
+  /**
+   * Creates a Bot configured from the application properties, stopping once
+   * its budget is spent.
+   *
+   * @param urls       List of URLs as Strings.
+   * @param breakpoint Limit how deep in the URLs the program should go.
+   * @param budget     Pages, bytes and time after which the crawl stops.
+   * @return New Bot.
+   */
+  public Bot create(List<String> urls, int breakpoint, CrawlBudget budget) {
+    return new Bot(urls, breakpoint, configBuilder().listener(storageListener).budget(budget).build());
+  }
+
+  /**
+   * Creates a Bot configured from the application properties, handing each page
+   * returned by the crawl to the sink, and stopping once its budget is spent.
+   * Pages are still indexed and stored.
+   *
+   * @param urls       List of URLs as Strings.
+   * @param breakpoint Limit how deep in the URLs the program should go.
+   * @param results    Sink receiving the pages returned by the crawl.
+   * @param budget     Pages, bytes and time after which the crawl stops.
+   * @return New Bot.
+   */
+  public Bot create(List<String> urls, int breakpoint, ResultSink results, CrawlBudget budget) {
+    return new Bot(urls, breakpoint, configBuilder()
+        .listener(storageListener)
+        .resultSink(results)
+        .budget(budget)
+        .build());
+  }
+
+  /**
+   * Creates a Bot configured from the application properties, handing each page
+   * to the listener instead of keeping it, reporting the changes of its
+   * frontier to the journal, and stopping once its budget is spent.
+   *
+   * @param urls       List of URLs as Strings.
+   * @param breakpoint Limit how deep in the URLs the program should go.
+   * @param listener   Listener notified of each scraped page.
+   * @param journal    Journal notified of the frontier changes, may be null.
+   * @param budget     Pages, bytes and time after which the crawl stops.
+   * @return New Bot.
+   */
+  public Bot create(List<String> urls, int breakpoint, CrawlListener listener, FrontierJournal journal,
+      CrawlBudget budget) {
+    return new Bot(urls, breakpoint, configBuilder()
+        .listener(storageListener == null ? listener : listener.andThen(storageListener))
+        .collectPages(false)
+        .journal(journal)
+        .budget(budget)
+        .build());
+  }
+
+  /**
+   * Creates a Bot configured from the application properties, crawling the
+   * share of a cluster crawl owned by this node. The links owned by the other
+   * nodes are handed to the router.
+   *
+   * @param urls       List of URLs as Strings.
+   * @param breakpoint Limit how deep in the URLs the program should go.
+   * @param linkRouter Router of the links owned by the other nodes.
+   * @return New Bot.
+   */
+  public Bot create(List<String> urls, int breakpoint, LinkRouter linkRouter) {
+    return new Bot(urls, breakpoint, configBuilder().listener(storageListener).linkRouter(linkRouter).build());
+  }
+
+  /**
+   * Creates a Bot configuration builder holding the application properties.
+   *
+   * @return Configuration builder.
+   */
+  private BotConfig.BotConfigBuilder configBuilder() {
+    return BotConfig.builder()
+        .seenUrls(seenUrls.get())
+        .politeness(politeness)
+        .priority(priority)
+        .fetcher(fetcher)
+        .extractor(extractor)
+        .respectRobots(respectRobots)
+        .robots(robots)
+        .history(history)
+        .metrics(metrics)
+        .nearDuplicates(skipNearDuplicates ? new NearDuplicateIndex(maxDuplicateDistance, minDuplicateTerms) : null);
+  }
+
+  /**
+   * Creates the memory-mapped seen URL store of a crawl, in a file removed once
+   * the crawl ends.
+   *
+   * @param directory         Directory of the store file.
+   * @param expectedUrls      Expected number of URLs.
+   * @param falsePositiveRate Accepted false positive rate, between 0 and 1.
+   * @return New store.
+   * @throws UncheckedIOException If the file could not be created or mapped.
+   */
+  private static SeenUrlStore newMappedStore(Path directory, long expectedUrls, double falsePositiveRate) {
+    try {
+      return MappedSeenUrlStore.createTemporary(directory, expectedUrls, falsePositiveRate);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
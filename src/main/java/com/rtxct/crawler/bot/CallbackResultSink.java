@@ -0,0 +1,62 @@
+package com.rtxct.crawler.bot;
+
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rtxct.crawler.dto.PageDTO;
+
+/**
+ * Sink handing each page to a consumer as soon as it is scraped, such as a
+ * streamed response, without keeping it. Consumer failures are logged, so they
+ * do not stop the crawl.
+ */
+public class CallbackResultSink implements ResultSink {
+
+  /** Class properties. */
+  private static final Logger logger = LoggerFactory.getLogger(CallbackResultSink.class.getName());
+
+  private final Consumer<PageDTO> onPage;
+
+  private final Runnable onComplete;
+
+  /**
+   * CallbackResultSink class constructor.
+   *
+   * @param onPage Consumer of the pages, called from the crawl threads.
+   */
+  public CallbackResultSink(Consumer<PageDTO> onPage) {
+    this(onPage, () -> {
+    });
+  }
+
+  /**
+   * CallbackResultSink class constructor.
+   *
+   * @param onPage     Consumer of the pages, called from the crawl threads.
+   * @param onComplete Called once the crawl finished.
+   */
+  public CallbackResultSink(Consumer<PageDTO> onPage, Runnable onComplete) {
+    this.onPage = onPage;
+    this.onComplete = onComplete;
+  }
+
+  @Override
+  public void accept(PageDTO page) {
+    try {
+      onPage.accept(page);
+    } catch (RuntimeException e) {
+      logger.error("Result consumer error", e);
+    }
+  }
+
+  @Override
+  public void complete() {
+    try {
+      onComplete.run();
+    } catch (RuntimeException e) {
+      logger.error("Result consumer error", e);
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package com.rtxct.crawler.bot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.rtxct.crawler.dto.PageDTO;
+
+/**
+ * Sink keeping every page in memory, returned at once when the crawl ends.
+ * Pages are appended to a lock free queue, so concurrent workers never wait on
+ * each other nor lose a page.
+ */
+public class CollectingResultSink implements ResultSink {
+
+  /** Class properties. */
+  private final ConcurrentLinkedQueue<PageDTO> pages = new ConcurrentLinkedQueue<>();
+
+  @Override
+  public void accept(PageDTO page) {
+    pages.offer(page);
+  }
+
+  /**
+   * Gets the pages in the order they were scraped.
+   *
+   * @return Copy of the collected pages.
+   */
+  @Override
+  public List<PageDTO> results() {
+    return new ArrayList<>(pages);
+  }
+}
@@ -0,0 +1,97 @@
+package com.rtxct.crawler.bot;
+
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.fetch.FetchResult;
+
+public interface CrawlListener {
+
+  /**
+   * Called as soon as a page is scraped, from the thread that scraped it, so
+   * implementations must be thread safe.
+   *
+   * @param page Scraped page.
+   */
+  void onPage(PageDTO page);
+
+  /**
+   * Called as soon as a page is scraped, with its depth and body text. Hands
+   * the page data to {@link #onPage(PageDTO)} by default.
+   *
+   * @param page Scraped page.
+   */
+  default void onCrawled(CrawledPage page) {
+    onPage(page.getPage());
+  }
+
+  /**
+   * Called on incremental recrawls when a page did not change since the
+   * previous crawl, either answered with 304 or with the same content hash. The
+   * page is neither parsed nor scraped again, so it holds the stored page data
+   * and links.
+   *
+   * @param page Unchanged page.
+   */
+  default void onUnchanged(CrawledPage page) {
+  }
+
+  /**
+   * Called when a scraped page is a near duplicate of a page already scraped by
+   * the crawl. The page is neither returned nor expanded.
+   *
+   * @param page     Duplicate page, without its links.
+   * @param original URL of the page it duplicates.
+   */
+  default void onDuplicate(CrawledPage page, String original) {
+  }
+
+  /**
+   * Called when a page could not be fetched or did not return a parsable
+   * successful response.
+   *
+   * @param result Fetch result, holding the status code or the error.
+   */
+  default void onFailure(FetchResult result) {
+  }
+
+  /**
+   * Creates a listener notifying this listener and then the given one.
+   *
+   * @param next Listener notified after this one.
+   * @return Composed listener.
+   */
+  default CrawlListener andThen(CrawlListener next) {
+    CrawlListener first = this;
+
+    return new CrawlListener() {
+      @Override
+      public void onPage(PageDTO page) {
+        first.onPage(page);
+        next.onPage(page);
+      }
+
+      @Override
+      public void onCrawled(CrawledPage page) {
+        first.onCrawled(page);
+        next.onCrawled(page);
+      }
+
+      @Override
+      public void onUnchanged(CrawledPage page) {
+        first.onUnchanged(page);
+        next.onUnchanged(page);
+      }
+
+      @Override
+      public void onDuplicate(CrawledPage page, String original) {
+        first.onDuplicate(page, original);
+        next.onDuplicate(page, original);
+      }
+
+      @Override
+      public void onFailure(FetchResult result) {
+        first.onFailure(result);
+        next.onFailure(result);
+      }
+    };
+  }
+}
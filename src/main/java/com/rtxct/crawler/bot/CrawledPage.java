@@ -0,0 +1,101 @@
+package com.rtxct.crawler.bot;
+
+import java.util.Collection;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.persistence.PageRecord;
+
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+public class CrawledPage {
+
+  /** Class properties. */
+  private final PageDTO page;
+
+  private final int depth;
+
+  @Getter(AccessLevel.NONE)
+  private final Document document;
+
+  private final FetchResult result;
+
+  /** Links found in the page, null if the page is at the breakpoint depth. */
+  private final Collection<String> links;
+
+  /** Page stored by a previous crawl, only set on incremental recrawls. */
+  private final PageRecord previous;
+
+  /** SHA-256 of the body, only computed on incremental recrawls. */
+  private final String contentHash;
+
+  private String text;
+
+  /**
+   * CrawledPage class constructor.
+   *
+   * @param page     Scraped page data.
+   * @param depth    Depth of the page in the crawl.
+   * @param document Parsed page, used to extract the text on demand.
+   */
+  public CrawledPage(PageDTO page, int depth, Document document) {
+    this(page, depth, document, null, null, null, null, null);
+  }
+
+  /**
+   * CrawledPage class constructor.
+   *
+   * @param page        Scraped page data.
+   * @param depth       Depth of the page in the crawl.
+   * @param document    Parsed page, used to extract the text on demand. Null for
+   *                    unchanged pages, which are not parsed.
+   * @param result      Fetch result, holding the response metadata.
+   * @param links       Links found in the page, or null if they were not
+   *                    extracted.
+   * @param previous    Page stored by a previous crawl, if any.
+   * @param contentHash SHA-256 of the body, if computed.
+   * @param text        Body text, if already extracted.
+   */
+  @Builder
+  public CrawledPage(PageDTO page, int depth, Document document, FetchResult result, Collection<String> links,
+      PageRecord previous, String contentHash, String text) {
+    this.page = page;
+    this.depth = depth;
+    this.document = document;
+    this.result = result;
+    this.links = links;
+    this.previous = previous;
+    this.contentHash = contentHash;
+    this.text = text;
+  }
+
+  /**
+   * Gets the visible text of the page body. The text is only extracted on the
+   * first call, so listeners not using it do not pay for it.
+   *
+   * @return Body text, or an empty String if the page has no body.
+   */
+  public String getText() {
+    if (text == null) {
+      text = bodyText(document);
+    }
+    return text;
+  }
+
+  /**
+   * Extracts the visible text of a page body.
+   *
+   * @param document Parsed page, may be null.
+   * @return Body text, or an empty String if the page has no body.
+   */
+  public static String bodyText(Document document) {
+    Element body = document == null ? null : document.body();
+    return body == null ? "" : body.text();
+  }
+}
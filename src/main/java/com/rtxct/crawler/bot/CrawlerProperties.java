@@ -0,0 +1,229 @@
+package com.rtxct.crawler.bot;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Properties under "crawler" configuring the Bots created by the
+ * {@link BotFactory}. Each group maps to the properties of the same name, and
+ * every property keeps its default when not set.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("crawler")
+public class CrawlerProperties {
+
+  private final Index index = new Index();
+
+  private final Persistence persistence = new Persistence();
+
+  private final Recrawl recrawl = new Recrawl();
+
+  private final Politeness politeness = new Politeness();
+
+  private final Frontier frontier = new Frontier();
+
+  private final Robots robots = new Robots();
+
+  private final Dedup dedup = new Dedup();
+
+  private final Extract extract = new Extract();
+
+  private final Metrics metrics = new Metrics();
+
+  private final Fetch fetch = new Fetch();
+
+  private final Cache cache = new Cache();
+
+  @Getter
+  @Setter
+  public static class Index {
+
+    /** Whether the scraped pages are indexed. */
+    private boolean enabled = true;
+  }
+
+  @Getter
+  @Setter
+  public static class Persistence {
+
+    /** Whether the scraped pages are stored. */
+    private boolean enabled = true;
+  }
+
+  @Getter
+  @Setter
+  public static class Recrawl {
+
+    /**
+     * Whether crawls only fetch again the pages due for a revisit, and only parse
+     * the changed ones.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Interval before the first revisit of a page, which shrinks when the page
+     * changes and grows when it does not.
+     */
+    private Duration initialInterval = Duration.ofDays(1);
+
+    /** Shortest interval between two visits of a page. */
+    private Duration minInterval = Duration.ofHours(1);
+
+    /** Longest interval between two visits of a page. */
+    private Duration maxInterval = Duration.ofDays(30);
+  }
+
+  @Getter
+  @Setter
+  public static class Politeness {
+
+    /** Maximum number of pages fetched at the same time from a single host. */
+    private int maxConnectionsPerHost = 4;
+
+    /** Minimum delay between two fetches of the same host. */
+    private Duration delay = Duration.ZERO;
+  }
+
+  @Getter
+  @Setter
+  public static class Frontier {
+
+    private final Priority priority = new Priority();
+
+    /**
+     * Store of the URLs seen by each crawl: "concurrent" keeps every URL,
+     * "bloom" keeps a Bloom filter in memory, and "mapped" keeps it in a
+     * memory-mapped file, off the heap.
+     */
+    private String seenStore = "concurrent";
+
+    /** Number of URLs a crawl is expected to see, sizing the Bloom filters. */
+    private long expectedUrls = 1_000_000;
+
+    /**
+     * Accepted rate of new URLs wrongly taken for seen ones, and skipped, by the
+     * Bloom filters.
+     */
+    private double falsePositiveRate = 0.001;
+
+    /** Directory of the files of the "mapped" store, each removed once its crawl ends. */
+    private String seenStoreDirectory = System.getProperty("java.io.tmpdir");
+  }
+
+  @Getter
+  @Setter
+  public static class Priority {
+
+    /**
+     * Whether the URLs of each host are fetched by score, or in the order they
+     * were found.
+     */
+    private boolean enabled = true;
+  }
+
+  @Getter
+  @Setter
+  public static class Robots {
+
+    /** Whether the robots.txt rules are followed. */
+    private boolean enabled = true;
+
+    /** How long the robots.txt rules of a host are cached. */
+    private Duration ttl = Duration.ofHours(24);
+
+    /** Maximum number of hosts whose rules are cached. */
+    private int maxHosts = 10000;
+  }
+
+  @Getter
+  @Setter
+  public static class Dedup {
+
+    /** Whether pages near duplicate of a page already scraped are skipped. */
+    private boolean enabled = true;
+
+    /** Maximum number of differing SimHash bits for two near duplicate pages. */
+    private int maxDistance = 3;
+
+    /** Minimum number of terms for a page to be checked for near duplicates. */
+    private int minTerms = 50;
+  }
+
+  @Getter
+  @Setter
+  public static class Extract {
+
+    /**
+     * How pages are extracted: "dom" builds the page tree, "streaming" reads the
+     * markup in a single pass without building it.
+     */
+    private String engine = "dom";
+
+    /** Size of the body read at most by the streaming extraction. */
+    private DataSize maxBodySize = DataSize.ofMegabytes(4);
+  }
+
+  @Getter
+  @Setter
+  public static class Metrics {
+
+    /** Whether the crawls update the application meters. */
+    private boolean enabled = true;
+  }
+
+  @Getter
+  @Setter
+  public static class Fetch {
+
+    /**
+     * How pages are fetched: "httpclient" sends the requests without blocking a
+     * thread, "jsoup" blocks the calling thread on each request.
+     */
+    private String client = "httpclient";
+
+    /** HTTP version preferred by the "httpclient" fetcher. */
+    private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+    /** Largest response body downloaded. */
+    private DataSize maxBodySize = DataSize.ofMegabytes(10);
+
+    /** Slowest transfer rate accepted per second, once the grace period is over. */
+    private DataSize minThroughput = DataSize.ofKilobytes(1);
+
+    /** Time given to a body to reach the minimum rate. */
+    private Duration throughputGracePeriod = Duration.ofSeconds(5);
+
+    /** Time given to a body to be received once the request timeout is over. */
+    private Duration bodyTimeout = Duration.ofSeconds(30);
+  }
+
+  @Getter
+  @Setter
+  public static class Cache {
+
+    /** Whether responses are cached and shared by the crawls. */
+    private boolean enabled = true;
+
+    /** Size of the responses cached in memory. */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /** Shortest time a response is cached. */
+    private Duration minTtl = Duration.ofMinutes(10);
+
+    /** Longest time a response is cached. */
+    private Duration maxTtl = Duration.ofDays(1);
+
+    /** Directory of the responses evicted from memory, or empty to cache them in memory only. */
+    private String directory = "";
+
+    /** Size of the responses cached on disk. */
+    private DataSize diskMaxSize = DataSize.ofGigabytes(1);
+  }
+}
@@ -0,0 +1,22 @@
+package com.rtxct.crawler.bot;
+
+public interface LinkRouter {
+
+  /**
+   * Checks whether an URL belongs to the crawl of this node, or is to be
+   * forwarded to the node owning it.
+   *
+   * @param url Absolute URL.
+   * @return Boolean whether the URL is crawled locally or not.
+   */
+  boolean isLocal(String url);
+
+  /**
+   * Hands a link owned by another node over, to be crawled there. Called from
+   * the thread that scraped the page, so implementations must be thread safe.
+   *
+   * @param url   Absolute URL, not local.
+   * @param depth Depth of the link in the crawl.
+   */
+  void forward(String url, int depth);
+}
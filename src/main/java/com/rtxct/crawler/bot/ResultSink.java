@@ -0,0 +1,45 @@
+package com.rtxct.crawler.bot;
+
+import java.util.List;
+
+import com.rtxct.crawler.dto.PageDTO;
+
+public interface ResultSink {
+
+  /**
+   * Called with each page returned by the crawl, from the thread that scraped
+   * it, so implementations must be thread safe. May block to slow the crawl
+   * down until the page can be taken.
+   *
+   * @param page Scraped page.
+   */
+  void accept(PageDTO page);
+
+  /**
+   * Called once the crawl finished or was cancelled, no page being accepted
+   * afterwards.
+   */
+  default void complete() {
+  }
+
+  /**
+   * Gets the pages returned by the crawl methods once the crawl finished.
+   * Sinks handing the pages over as they are scraped keep none.
+   *
+   * @return Pages kept by the sink.
+   */
+  default List<PageDTO> results() {
+    return List.of();
+  }
+
+  /**
+   * Creates a sink dropping every page, for crawls only consumed through their
+   * listener.
+   *
+   * @return Discarding sink.
+   */
+  static ResultSink discarding() {
+    return page -> {
+    };
+  }
+}
@@ -0,0 +1,110 @@
+package com.rtxct.crawler.cache;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import com.rtxct.crawler.fetch.FetchResult;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class CachePolicy {
+
+  /** Class properties. */
+  public static final CachePolicy DEFAULT = CachePolicy.builder().build();
+
+  /**
+   * Shortest time a response is kept, even when the server asks for it to be
+   * revalidated sooner or sends no freshness headers.
+   */
+  @Builder.Default
+  private Duration minTtl = Duration.ofMinutes(10);
+
+  /** Longest time a response is kept, whatever the server allows. */
+  @Builder.Default
+  private Duration maxTtl = Duration.ofDays(1);
+
+  /**
+   * Computes how long a response can be served from the cache, from its
+   * Cache-Control max-age (or s-maxage) directive, or else its Expires header.
+   * The private directive is ignored, as the crawler sends neither credentials
+   * nor cookies, so responses are the same for every user.
+   *
+   * @param result Fetch result.
+   * @return Time to live, between the minimum and the maximum, or null if the
+   *         response can not be cached: failed, not a 200 or marked no-store.
+   */
+  public Duration ttlOf(FetchResult result) {
+    if (!result.isOk()) {
+      return null;
+    }
+
+    Long seconds = null;
+    String cacheControl = result.header("Cache-Control");
+    if (cacheControl != null) {
+      Long maxAge = null;
+      for (String directive : cacheControl.split(",")) {
+        String[] pair = directive.trim().toLowerCase().split("=", 2);
+        switch (pair[0]) {
+          case "no-store":
+            return null;
+          case "s-maxage":
+            seconds = parseSeconds(pair);
+            break;
+          case "max-age":
+            maxAge = parseSeconds(pair);
+            break;
+          default:
+            break;
+        }
+      }
+      seconds = seconds != null ? seconds : maxAge;
+    }
+    if (seconds == null) {
+      seconds = expiresIn(result);
+    }
+
+    long ttl = seconds == null ? 0 : seconds;
+    return Duration.ofSeconds(Math.max(minTtl.toSeconds(), Math.min(maxTtl.toSeconds(), ttl)));
+  }
+
+  /**
+   * Parses the seconds of a directive value.
+   */
+  private static Long parseSeconds(String[] directive) {
+    if (directive.length < 2) {
+      return null;
+    }
+
+    try {
+      return Math.max(0, Long.parseLong(directive[1].trim().replace("\"", "")));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Computes the seconds until the Expires header, from the Date header of the
+   * response or from now. An invalid date means already expired.
+   */
+  private static Long expiresIn(FetchResult result) {
+    String expires = result.header("Expires");
+    if (expires == null) {
+      return null;
+    }
+
+    try {
+      ZonedDateTime expiresAt = ZonedDateTime.parse(expires.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+      String date = result.header("Date");
+      ZonedDateTime now = date == null ? ZonedDateTime.now()
+          : ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+      return Math.max(0, Duration.between(now, expiresAt).toSeconds());
+    } catch (DateTimeParseException e) {
+      return 0L;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.rtxct.crawler.cache;
+
+import java.util.Map;
+
+import com.rtxct.crawler.fetch.FetchResult;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class CachedResponse {
+
+  /** Class properties. */
+  /** Approximate memory taken by an entry besides its body. */
+  private static final int OVERHEAD = 512;
+
+  private final FetchResult result;
+
+  /** Expiration time, in milliseconds since the epoch. */
+  private final long expiresAt;
+
+  /**
+   * Checks whether the response can still be served.
+   *
+   * @param now Current time, in milliseconds since the epoch.
+   * @return Boolean whether the response is fresh or not.
+   */
+  public boolean isFresh(long now) {
+    return now < expiresAt;
+  }
+
+  /**
+   * Gets the approximate memory taken by the response.
+   *
+   * @return Size in bytes.
+   */
+  public long weight() {
+    return OVERHEAD + (result.getBody() == null ? 0 : result.getBody().length);
+  }
+
+  /**
+   * Builds the result answering a request for the given URL, which may differ
+   * from the cached one by its normalization. A conditional request whose
+   * validators match the cached ones is answered with a 304.
+   *
+   * @param url     Requested URL.
+   * @param headers Request headers.
+   * @return Fetch result served from the cache.
+   */
+  public FetchResult toResult(String url, Map<String, String> headers) {
+    String finalUrl = result.isRedirected() ? result.getFinalUrl() : url;
+    if (matches(headers.get("If-None-Match"), result.header("ETag"))
+        || matches(headers.get("If-Modified-Since"), result.header("Last-Modified"))) {
+      return FetchResult.builder()
+          .url(url)
+          .finalUrl(finalUrl)
+          .statusCode(304)
+          .headers(result.getHeaders())
+          .build();
+    }
+
+    return result.toBuilder()
+        .url(url)
+        .finalUrl(finalUrl)
+        .fetchTimeMillis(0)
+        .build();
+  }
+
+  /**
+   * Checks whether a request validator equals the cached one.
+   */
+  private static boolean matches(String requested, String cached) {
+    return requested != null && requested.equals(cached);
+  }
+}
@@ -0,0 +1,376 @@
+package com.rtxct.crawler.cache;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.fetch.Fetcher;
+import com.rtxct.crawler.utils.UrlNormalizer;
+
+public class CachingFetcher implements Fetcher {
+
+  /** Class properties. */
+  public static final long DEFAULT_MAX_BYTES = 64 << 20;
+
+  private final long maxBytes;
+
+  /** Cached responses by canonical URL, the least recently used first. */
+  private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long size;
+
+  private final Map<String, CompletableFuture<FetchResult>> loading = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder coalesced = new LongAdder();
+
+  private final LongAdder bytesSaved = new LongAdder();
+
+  /** Class Dependencies. */
+  private final Fetcher delegate;
+
+  private final CachePolicy policy;
+
+  private final DiskCache disk;
+
+  private final UrlNormalizer urlNormalizer = new UrlNormalizer();
+
+  /**
+   * CachingFetcher class constructor, keeping the responses in memory only,
+   * with the default size and policy.
+   *
+   * @param delegate Fetcher issuing the requests missing the cache.
+   */
+  public CachingFetcher(Fetcher delegate) {
+    this(delegate, DEFAULT_MAX_BYTES, CachePolicy.DEFAULT);
+  }
+
+  /**
+   * CachingFetcher class constructor, keeping the responses in memory only.
+   *
+   * @param delegate Fetcher issuing the requests missing the cache.
+   * @param maxBytes Maximum size of the responses kept in memory.
+   * @param policy   How long responses are kept.
+   */
+  public CachingFetcher(Fetcher delegate, long maxBytes, CachePolicy policy) {
+    this.delegate = delegate;
+    this.maxBytes = maxBytes;
+    this.policy = policy;
+    this.disk = null;
+  }
+
+  /**
+   * CachingFetcher class constructor, moving the responses evicted from memory
+   * to a directory.
+   *
+   * @param delegate     Fetcher issuing the requests missing the cache.
+   * @param maxBytes     Maximum size of the responses kept in memory.
+   * @param policy       How long responses are kept.
+   * @param directory    Directory of the responses evicted from memory.
+   * @param maxDiskBytes Maximum size of the directory.
+   * @throws IOException If the directory could not be created or read.
+   */
+  public CachingFetcher(Fetcher delegate, long maxBytes, CachePolicy policy, Path directory, long maxDiskBytes)
+      throws IOException {
+    this.delegate = delegate;
+    this.maxBytes = maxBytes;
+    this.policy = policy;
+    this.disk = new DiskCache(directory, maxDiskBytes);
+  }
+
+  @Override
+  public FetchResult fetch(String url) {
+    return fetch(url, Map.of());
+  }
+
+  /**
+   * Serves the response of the given URL from the cache while it is fresh,
+   * fetching it otherwise. Concurrent requests for the same URL wait for a
+   * single fetch, except conditional ones, whose answer depends on their
+   * validators.
+   *
+   * @param url     URL to be fetched.
+   * @param headers Request headers, by name.
+   * @return Fetch result.
+   */
+  @Override
+  public FetchResult fetch(String url, Map<String, String> headers) {
+    String key = urlNormalizer.normalize(url);
+    if (key == null) {
+      return delegate.fetch(url, headers);
+    }
+
+    CachedResponse cached = lookup(key);
+    if (cached != null) {
+      hits.increment();
+      bytesSaved.add(cached.getResult().getBody().length);
+      return cached.toResult(url, headers);
+    }
+
+    if (!headers.isEmpty()) {
+      misses.increment();
+      FetchResult result = delegate.fetch(url, headers);
+      store(key, result);
+      return result;
+    }
+
+    CompletableFuture<FetchResult> created = new CompletableFuture<>();
+    CompletableFuture<FetchResult> existing = loading.putIfAbsent(key, created);
+    if (existing != null) {
+      FetchResult result = existing.join();
+      coalesced.increment();
+      if (result.isOk()) {
+        bytesSaved.add(result.getBody().length);
+      }
+      return new CachedResponse(result, 0).toResult(url, headers);
+    }
+
+    misses.increment();
+    try {
+      FetchResult result = delegate.fetch(url);
+      store(key, result);
+      created.complete(result);
+      return result;
+    } catch (RuntimeException e) {
+      created.complete(FetchResult.failed(url, e));
+      throw e;
+    } finally {
+      loading.remove(key);
+    }
+  }
+
+  /**
+   * Serves the response of the given URL from the cache while it is fresh,
+   * fetching it without blocking otherwise. Concurrent requests for the same
+   * URL share a single fetch, except conditional ones.
+   *
+   * @param url     URL to be fetched.
+   * @param headers Request headers, by name.
+   * @return Future completed with the fetch result.
+   */
+  @Override
+  public CompletableFuture<FetchResult> fetchAsync(String url, Map<String, String> headers) {
+    String key = urlNormalizer.normalize(url);
+    if (key == null) {
+      return delegate.fetchAsync(url, headers);
+    }
+
+    CachedResponse cached = lookup(key);
+    if (cached != null) {
+      hits.increment();
+      bytesSaved.add(cached.getResult().getBody().length);
+      return CompletableFuture.completedFuture(cached.toResult(url, headers));
+    }
+
+    if (!headers.isEmpty()) {
+      misses.increment();
+      return delegate.fetchAsync(url, headers).thenApply(result -> {
+        store(key, result);
+        return result;
+      });
+    }
+
+    CompletableFuture<FetchResult> created = new CompletableFuture<>();
+    CompletableFuture<FetchResult> existing = loading.putIfAbsent(key, created);
+    if (existing != null) {
+      return existing.thenApply(result -> {
+        coalesced.increment();
+        if (result.isOk()) {
+          bytesSaved.add(result.getBody().length);
+        }
+        return new CachedResponse(result, 0).toResult(url, headers);
+      });
+    }
+
+    misses.increment();
+    delegate.fetchAsync(url, Map.of()).whenComplete((result, error) -> {
+      FetchResult fetched = error == null ? result : FetchResult.failed(url, error);
+      try {
+        store(key, fetched);
+      } finally {
+        loading.remove(key);
+        created.complete(fetched);
+      }
+    });
+    return created;
+  }
+
+  /**
+   * Gets the number of requests served from the cache.
+   *
+   * @return Number of hits.
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Gets the number of requests sent to the delegate fetcher.
+   *
+   * @return Number of misses.
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Gets the number of requests that waited for the same request in flight
+   * instead of sending their own.
+   *
+   * @return Number of coalesced requests.
+   */
+  public long getCoalesced() {
+    return coalesced.sum();
+  }
+
+  /**
+   * Gets the number of body bytes that were not downloaded thanks to the cache
+   * and the coalesced requests.
+   *
+   * @return Bytes saved.
+   */
+  public long getBytesSaved() {
+    return bytesSaved.sum();
+  }
+
+  /**
+   * Gets the share of the requests that were not sent, served from the cache
+   * or coalesced.
+   *
+   * @return Hit ratio, from 0 to 1.
+   */
+  public double getHitRatio() {
+    long saved = hits.sum() + coalesced.sum();
+    long total = saved + misses.sum();
+    return total == 0 ? 0 : (double) saved / total;
+  }
+
+  /**
+   * Gets the size of the responses kept in memory.
+   *
+   * @return Size in bytes.
+   */
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * Gets the size of the responses kept on disk.
+   *
+   * @return Size in bytes, 0 without disk tier.
+   */
+  public long getDiskSize() {
+    return disk == null ? 0 : disk.size();
+  }
+
+  /**
+   * Looks up a fresh response in memory, then on disk, moving the responses
+   * found on disk back to memory. Expired responses are dropped.
+   *
+   * @param key Canonical URL.
+   * @return Fresh response, or null if none.
+   */
+  private CachedResponse lookup(String key) {
+    long now = System.currentTimeMillis();
+    CachedResponse cached;
+    synchronized (this) {
+      cached = entries.get(key);
+      if (cached != null && !cached.isFresh(now)) {
+        remove(key);
+        cached = null;
+      }
+    }
+    if (cached != null || disk == null) {
+      return cached;
+    }
+
+    cached = disk.get(key);
+    if (cached == null) {
+      return null;
+    }
+    if (!cached.isFresh(now)) {
+      disk.remove(key);
+      return null;
+    }
+    put(key, cached);
+    return cached;
+  }
+
+  /**
+   * Caches a response, if the policy allows it, replacing the one on disk.
+   *
+   * @param key    Canonical URL.
+   * @param result Fetch result.
+   */
+  private void store(String key, FetchResult result) {
+    Duration ttl = policy.ttlOf(result);
+    if (ttl == null) {
+      return;
+    }
+
+    CachedResponse response = new CachedResponse(result, System.currentTimeMillis() + ttl.toMillis());
+    if (disk != null) {
+      disk.remove(key);
+    }
+    if (response.weight() <= maxBytes) {
+      put(key, response);
+    } else if (disk != null) {
+      disk.put(key, response);
+    }
+  }
+
+  /**
+   * Adds a response to memory, evicting the least recently used ones over the
+   * size limit. Evicted responses still fresh are moved to disk.
+   *
+   * @param key      Canonical URL.
+   * @param response Response to be cached.
+   */
+  private void put(String key, CachedResponse response) {
+    List<Map.Entry<String, CachedResponse>> evicted = new ArrayList<>();
+    synchronized (this) {
+      remove(key);
+      entries.put(key, response);
+      size += response.weight();
+
+      Iterator<Map.Entry<String, CachedResponse>> iterator = entries.entrySet().iterator();
+      while (size > maxBytes && iterator.hasNext()) {
+        Map.Entry<String, CachedResponse> eldest = iterator.next();
+        size -= eldest.getValue().weight();
+        evicted.add(eldest);
+        iterator.remove();
+      }
+    }
+
+    if (disk != null) {
+      long now = System.currentTimeMillis();
+      for (Map.Entry<String, CachedResponse> entry : evicted) {
+        if (entry.getValue().isFresh(now) && !disk.contains(entry.getKey())) {
+          disk.put(entry.getKey(), entry.getValue());
+        }
+      }
+    }
+  }
+
+  /**
+   * Removes a response from memory. Must be called holding the lock.
+   */
+  private void remove(String key) {
+    CachedResponse removed = entries.remove(key);
+    if (removed != null) {
+      size -= removed.weight();
+    }
+  }
+}
@@ -0,0 +1,305 @@
+package com.rtxct.crawler.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rtxct.crawler.fetch.FetchResult;
+
+/**
+ * Second tier of the response cache, holding the responses evicted from the
+ * memory tier as one file per URL. The least recently used files are deleted
+ * when the directory grows over its size limit, and the files left by a
+ * previous run are reused.
+ */
+class DiskCache {
+
+  /** Class properties. */
+  private static final Logger logger = LoggerFactory.getLogger(DiskCache.class.getName());
+
+  private static final String EXTENSION = ".entry";
+
+  private static final int VERSION = 1;
+
+  private final Path directory;
+
+  private final long maxBytes;
+
+  /** Size of each file, by file name, the least recently used first. */
+  private final LinkedHashMap<String, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long size;
+
+  /**
+   * DiskCache class constructor, indexing the files already in the directory.
+   *
+   * @param directory Directory holding the files, created if missing.
+   * @param maxBytes  Maximum size of the files.
+   * @throws IOException If the directory could not be read.
+   */
+  DiskCache(Path directory, long maxBytes) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    this.maxBytes = maxBytes;
+
+    List<Path> existing = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+      stream.forEach(existing::add);
+    }
+    existing.sort(Comparator.comparingLong(DiskCache::lastModified));
+    for (Path path : existing) {
+      long length = Files.size(path);
+      files.put(path.getFileName().toString(), length);
+      size += length;
+    }
+    evict();
+  }
+
+  /**
+   * Reads the response cached for a key.
+   *
+   * @param key Canonical URL.
+   * @return Cached response, or null if none or its file is unreadable.
+   */
+  CachedResponse get(String key) {
+    String name = fileName(key);
+    synchronized (this) {
+      if (files.get(name) == null) {
+        return null;
+      }
+    }
+
+    try (DataInputStream input = new DataInputStream(Files.newInputStream(directory.resolve(name)))) {
+      return read(input, key);
+    } catch (NoSuchFileException e) {
+      forget(name);
+    } catch (IOException e) {
+      logger.warn("Unreadable cache file {}", name, e);
+      forget(name);
+    }
+    return null;
+  }
+
+  /**
+   * Checks whether a response is cached for a key.
+   *
+   * @param key Canonical URL.
+   * @return Boolean whether a file exists for the key or not.
+   */
+  synchronized boolean contains(String key) {
+    return files.containsKey(fileName(key));
+  }
+
+  /**
+   * Writes a response to its file, replacing the previous one, then deletes
+   * the least recently used files over the size limit.
+   *
+   * @param key      Canonical URL.
+   * @param response Response to be cached.
+   */
+  void put(String key, CachedResponse response) {
+    String name = fileName(key);
+    Path path = directory.resolve(name);
+    Path temporary = directory.resolve(name + ".tmp");
+
+    try {
+      try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(temporary))) {
+        write(output, key, response);
+      }
+      try {
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+      }
+
+      long length = Files.size(path);
+      synchronized (this) {
+        Long previous = files.put(name, length);
+        size += length - (previous == null ? 0 : previous);
+      }
+      evict();
+    } catch (IOException e) {
+      logger.warn("Cache file {} could not be written", name, e);
+    }
+  }
+
+  /**
+   * Deletes the file of a key.
+   *
+   * @param key Canonical URL.
+   */
+  void remove(String key) {
+    forget(fileName(key));
+  }
+
+  /**
+   * Removes a file from the index and deletes it.
+   */
+  private void forget(String name) {
+    synchronized (this) {
+      Long length = files.remove(name);
+      if (length == null) {
+        return;
+      }
+      size -= length;
+    }
+    delete(name);
+  }
+
+  /**
+   * Gets the size of the files.
+   *
+   * @return Size in bytes.
+   */
+  synchronized long size() {
+    return size;
+  }
+
+  /**
+   * Deletes the least recently used files until the size is under the limit.
+   */
+  private void evict() {
+    List<String> evicted = new ArrayList<>();
+    synchronized (this) {
+      Iterator<Map.Entry<String, Long>> iterator = files.entrySet().iterator();
+      while (size > maxBytes && iterator.hasNext()) {
+        Map.Entry<String, Long> eldest = iterator.next();
+        size -= eldest.getValue();
+        evicted.add(eldest.getKey());
+        iterator.remove();
+      }
+    }
+    evicted.forEach(this::delete);
+  }
+
+  /**
+   * Deletes a file, logging failures.
+   */
+  private void delete(String name) {
+    try {
+      Files.deleteIfExists(directory.resolve(name));
+    } catch (IOException e) {
+      logger.warn("Cache file {} could not be deleted", name, e);
+    }
+  }
+
+  /**
+   * Writes a response: the key, the expiration time, the fetch result fields
+   * and the body.
+   */
+  private static void write(DataOutputStream output, String key, CachedResponse response) throws IOException {
+    FetchResult result = response.getResult();
+    output.writeInt(VERSION);
+    writeString(output, key);
+    output.writeLong(response.getExpiresAt());
+    writeString(output, result.getUrl());
+    writeString(output, result.getFinalUrl());
+    output.writeInt(result.getStatusCode());
+    writeString(output, result.getContentType());
+    writeString(output, result.getCharset());
+    output.writeInt(result.getHeaders().size());
+    for (Map.Entry<String, String> header : result.getHeaders().entrySet()) {
+      writeString(output, header.getKey());
+      writeString(output, header.getValue());
+    }
+    output.writeInt(result.getBody().length);
+    output.write(result.getBody());
+  }
+
+  /**
+   * Reads a response written by {@link #write(DataOutputStream, String,
+   * CachedResponse)}, checking that it belongs to the key.
+   */
+  private static CachedResponse read(DataInputStream input, String key) throws IOException {
+    if (input.readInt() != VERSION || !key.equals(readString(input))) {
+      throw new IOException("Unexpected cache file content");
+    }
+
+    long expiresAt = input.readLong();
+    FetchResult.FetchResultBuilder result = FetchResult.builder()
+        .url(readString(input))
+        .finalUrl(readString(input))
+        .statusCode(input.readInt())
+        .contentType(readString(input))
+        .charset(readString(input));
+    int headerCount = input.readInt();
+    Map<String, String> headers = new LinkedHashMap<>();
+    for (int i = 0; i < headerCount; i++) {
+      headers.put(readString(input), readString(input));
+    }
+    byte[] body = new byte[input.readInt()];
+    input.readFully(body);
+
+    return new CachedResponse(result.headers(headers).body(body).build(), expiresAt);
+  }
+
+  /**
+   * Writes a nullable string as its UTF-8 length, -1 for null, and bytes.
+   */
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    if (value == null) {
+      output.writeInt(-1);
+      return;
+    }
+
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(DataOutputStream, String)}.
+   */
+  private static String readString(DataInputStream input) throws IOException {
+    int length = input.readInt();
+    if (length < 0) {
+      return null;
+    }
+
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Names the file of a key after its SHA-256, so any URL maps to a valid file
+   * name.
+   */
+  private static String fileName(String key) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+      return HexFormat.of().formatHex(digest) + EXTENSION;
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Gets the last modification time of a file, 0 if unknown.
+   */
+  private static long lastModified(Path path) {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (IOException e) {
+      return 0;
+    }
+  }
+}
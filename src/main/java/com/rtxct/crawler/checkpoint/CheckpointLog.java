@@ -0,0 +1,208 @@
+package com.rtxct.crawler.checkpoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import com.rtxct.crawler.dto.PageDTO;
+
+/**
+ * Append only file of checkpoint records. Each record is written as its size,
+ * a CRC32 checksum and its fields, through a buffer handed to the operating
+ * system on {@link #flush()}, so appending never waits on the disk.
+ */
+class CheckpointLog implements Closeable {
+
+  /** Class properties. */
+  private static final int MAX_RECORD_SIZE = 16 << 20;
+
+  private static final int BUFFER_SIZE = 64 << 10;
+
+  private final FileChannel channel;
+
+  private final OutputStream output;
+
+  private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+
+  private final DataOutputStream fields = new DataOutputStream(record);
+
+  private final CRC32 checksum = new CRC32();
+
+  /**
+   * CheckpointLog class constructor, appending to the file if it already
+   * exists.
+   *
+   * @param path Log file.
+   * @throws IOException If the file could not be opened.
+   */
+  CheckpointLog(Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+    this.output = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+  }
+
+  /**
+   * Appends a record to the buffer, writing it to the file once full.
+   *
+   * @param change Record to be appended.
+   * @throws IOException If the buffer could not be written.
+   */
+  void append(CheckpointRecord change) throws IOException {
+    record.reset();
+    fields.writeInt(0);
+    fields.writeInt(0);
+    fields.writeByte(change.type.ordinal());
+
+    switch (change.type) {
+      case OFFERED, DONE -> {
+        writeString(fields, change.url);
+        fields.writeInt(change.depth);
+      }
+      case SEEN -> writeString(fields, change.url);
+      case DEPTH -> fields.writeInt(change.depth);
+      case PAGE -> {
+        writeString(fields, change.page.getUrl());
+        writeString(fields, change.page.getTitle());
+        writeString(fields, change.page.getDesc());
+      }
+    }
+
+    byte[] bytes = record.toByteArray();
+    int size = bytes.length - 8;
+    checksum.reset();
+    checksum.update(bytes, 8, size);
+    writeInt(bytes, 0, size);
+    writeInt(bytes, 4, (int) checksum.getValue());
+    output.write(bytes);
+  }
+
+  /**
+   * Hands the buffered records to the operating system, so they survive the
+   * process stopping.
+   *
+   * @throws IOException If the records could not be written.
+   */
+  void flush() throws IOException {
+    output.flush();
+  }
+
+  /**
+   * Writes the buffered records and waits until they reach the disk, so they
+   * also survive the machine stopping.
+   *
+   * @throws IOException If the records could not be written.
+   */
+  void sync() throws IOException {
+    output.flush();
+    channel.force(false);
+  }
+
+  @Override
+  public void close() throws IOException {
+    output.close();
+  }
+
+  /**
+   * Reads the records of a file in the order they were appended. Reading stops
+   * at the first truncated or corrupted record, such as one cut by a crash.
+   *
+   * @param path   Log file.
+   * @param replay Callback receiving each record.
+   * @return Number of replayed records.
+   * @throws IOException If the file could not be read.
+   */
+  static long replay(Path path, Consumer<CheckpointRecord> replay) throws IOException {
+    long count = 0;
+    CRC32 checksum = new CRC32();
+    CheckpointRecord.Type[] types = CheckpointRecord.Type.values();
+
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path),
+        BUFFER_SIZE))) {
+      while (true) {
+        int size;
+        int expected;
+        byte[] bytes;
+        try {
+          size = input.readInt();
+          expected = input.readInt();
+          if (size < 1 || size > MAX_RECORD_SIZE) {
+            return count;
+          }
+          bytes = input.readNBytes(size);
+        } catch (EOFException e) {
+          return count;
+        }
+
+        checksum.reset();
+        checksum.update(bytes);
+        if (bytes.length != size || (int) checksum.getValue() != expected || bytes[0] < 0
+            || bytes[0] >= types.length) {
+          return count;
+        }
+
+        DataInputStream fields = new DataInputStream(new ByteArrayInputStream(bytes, 1, size - 1));
+        replay.accept(switch (types[bytes[0]]) {
+          case OFFERED -> CheckpointRecord.offered(readString(fields), fields.readInt());
+          case SEEN -> CheckpointRecord.seen(readString(fields));
+          case DONE -> CheckpointRecord.done(readString(fields), fields.readInt());
+          case DEPTH -> CheckpointRecord.depth(fields.readInt());
+          case PAGE -> {
+            String url = readString(fields);
+            String title = readString(fields);
+            yield CheckpointRecord.page(new PageDTO(title, readString(fields), url));
+          }
+        });
+        count++;
+      }
+    }
+  }
+
+  /**
+   * Writes a length prefixed UTF-8 String, a negative length standing for null.
+   */
+  private static void writeString(DataOutputStream output, String value) throws IOException {
+    if (value == null) {
+      output.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * Reads a length prefixed UTF-8 String, a negative length standing for null.
+   */
+  private static String readString(DataInputStream fields) throws IOException {
+    int length = fields.readInt();
+    if (length < 0) {
+      return null;
+    }
+    return new String(fields.readNBytes(length), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes a big endian int into the array.
+   */
+  private static void writeInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >>> 24);
+    bytes[offset + 1] = (byte) (value >>> 16);
+    bytes[offset + 2] = (byte) (value >>> 8);
+    bytes[offset + 3] = (byte) value;
+  }
+}
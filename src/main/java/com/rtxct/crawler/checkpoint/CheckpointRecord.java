@@ -0,0 +1,61 @@
+package com.rtxct.crawler.checkpoint;
+
+import com.rtxct.crawler.dto.PageDTO;
+
+/**
+ * Change of a crawl state, as written to its checkpoint files.
+ */
+final class CheckpointRecord {
+
+  /** Class properties. */
+  final Type type;
+
+  final String url;
+
+  final int depth;
+
+  final PageDTO page;
+
+  /**
+   * Kind of change.
+   */
+  enum Type {
+    /** URL enqueued at a depth. */
+    OFFERED,
+    /** URL seen without being enqueued, or whose entry was completed. */
+    SEEN,
+    /** Entry completed at a depth. */
+    DONE,
+    /** Deepest depth with a completed entry. */
+    DEPTH,
+    /** Page handed to the crawl results. */
+    PAGE
+  }
+
+  private CheckpointRecord(Type type, String url, int depth, PageDTO page) {
+    this.type = type;
+    this.url = url;
+    this.depth = depth;
+    this.page = page;
+  }
+
+  static CheckpointRecord offered(String url, int depth) {
+    return new CheckpointRecord(Type.OFFERED, url, depth, null);
+  }
+
+  static CheckpointRecord seen(String url) {
+    return new CheckpointRecord(Type.SEEN, url, 0, null);
+  }
+
+  static CheckpointRecord done(String url, int depth) {
+    return new CheckpointRecord(Type.DONE, url, depth, null);
+  }
+
+  static CheckpointRecord depth(int depth) {
+    return new CheckpointRecord(Type.DEPTH, null, depth, null);
+  }
+
+  static CheckpointRecord page(PageDTO page) {
+    return new CheckpointRecord(Type.PAGE, page.getUrl(), 0, page);
+  }
+}
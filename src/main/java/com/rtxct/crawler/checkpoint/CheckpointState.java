@@ -0,0 +1,105 @@
+package com.rtxct.crawler.checkpoint;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.frontier.CrawlBudget;
+import com.rtxct.crawler.frontier.Frontier;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+@Getter
+public class CheckpointState {
+
+  /** Class properties. */
+  private final String id;
+
+  private final List<String> urls;
+
+  private final int breakpoint;
+
+  private final CrawlBudget budget;
+
+  private final Instant submittedAt;
+
+  /** URLs queued or in flight when the checkpoint was written, by depth. */
+  private final Map<String, Integer> pending = new LinkedHashMap<>();
+
+  /** URLs already seen, not counting the pending ones. */
+  private final Set<String> seen = new HashSet<>();
+
+  /** Pages handed to the crawl results, in the order they were scraped. */
+  private final List<PageDTO> pages = new ArrayList<>();
+
+  /** Deepest depth with a completed entry. */
+  private int depth;
+
+  @Getter(AccessLevel.NONE)
+  private final Map<String, PageDTO> pagesByUrl = new LinkedHashMap<>();
+
+  /**
+   * CheckpointState class constructor, holding no URLs yet.
+   *
+   * @param id          Crawl identifier.
+   * @param urls        Seed URLs of the crawl.
+   * @param breakpoint  Limit how deep in the URLs the crawl goes.
+   * @param budget      Pages, bytes and time after which the crawl stops.
+   * @param submittedAt When the crawl was submitted.
+   */
+  CheckpointState(String id, List<String> urls, int breakpoint, CrawlBudget budget, Instant submittedAt) {
+    this.id = id;
+    this.urls = urls;
+    this.breakpoint = breakpoint;
+    this.budget = budget;
+    this.submittedAt = submittedAt;
+  }
+
+  /**
+   * Enqueues the pending URLs in the frontier and marks the other ones as seen,
+   * so the crawl goes on where it stopped. Must be called before the frontier
+   * journal is set, so the restored URLs are not recorded again.
+   *
+   * @param frontier Frontier of the resumed crawl.
+   */
+  public void restore(Frontier frontier) {
+    pending.forEach(frontier::offer);
+    seen.forEach(frontier::markSeen);
+  }
+
+  /**
+   * Applies a record read from the checkpoint files.
+   *
+   * @param change Checkpoint record.
+   */
+  void apply(CheckpointRecord change) {
+    switch (change.type) {
+      case OFFERED -> pending.put(change.url, change.depth);
+      case SEEN -> seen.add(change.url);
+      case DONE -> {
+        pending.remove(change.url);
+        seen.add(change.url);
+        depth = Math.max(depth, change.depth);
+      }
+      case DEPTH -> depth = Math.max(depth, change.depth);
+      case PAGE -> pagesByUrl.put(change.url, change.page);
+    }
+  }
+
+  /**
+   * Ends the replay of the checkpoint files. Pages whose URL is still pending
+   * were in flight when the crawl stopped, so they are dropped as they will be
+   * scraped again.
+   */
+  void replayed() {
+    pagesByUrl.keySet().removeAll(pending.keySet());
+    pages.addAll(pagesByUrl.values());
+    pagesByUrl.clear();
+  }
+}
@@ -0,0 +1,228 @@
+package com.rtxct.crawler.checkpoint;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.rtxct.crawler.frontier.CrawlBudget;
+
+import jakarta.annotation.PreDestroy;
+
+@Component
+public class CheckpointStore {
+
+  /** Class properties. */
+  private static final Logger logger = LoggerFactory.getLogger(CheckpointStore.class.getName());
+
+  private static final Pattern ID = Pattern.compile("[A-Za-z0-9_-]+");
+
+  private final Path directory;
+
+  private final long flushMillis;
+
+  private final long snapshotNanos;
+
+  private final Map<String, CrawlCheckpoint> checkpoints = new ConcurrentHashMap<>();
+
+  private final Thread writer;
+
+  private volatile boolean closed;
+
+  /**
+   * CheckpointStore class constructor. The crawl threads only queue the
+   * changes of their crawl, and a single background thread appends them to the
+   * log of each crawl and periodically compacts the logs into a snapshot, so
+   * checkpoints never pause the crawl.
+   *
+   * @param directory        Directory holding a sub directory per crawl, empty
+   *                         to disable checkpoints.
+   * @param flushInterval    Time between two writes of the queued changes, the
+   *                         most changes lost when the process stops.
+   * @param snapshotInterval Minimum time between two snapshots of a crawl.
+   */
+  public CheckpointStore(@Value("${crawler.checkpoint.directory:}") String directory,
+      @Value("${crawler.checkpoint.flush-interval:1s}") Duration flushInterval,
+      @Value("${crawler.checkpoint.snapshot-interval:1m}") Duration snapshotInterval) {
+    this.directory = directory.isBlank() ? null : Path.of(directory);
+    this.flushMillis = Math.max(1, flushInterval.toMillis());
+    this.snapshotNanos = snapshotInterval.toNanos();
+    this.writer = this.directory == null ? null
+        : Thread.ofPlatform().name("crawl-checkpoint").daemon().start(this::run);
+  }
+
+  /**
+   * Checks whether checkpoints are written.
+   *
+   * @return Boolean whether checkpoints are enabled or not.
+   */
+  public boolean isEnabled() {
+    return directory != null;
+  }
+
+  /**
+   * Creates the checkpoint of a new crawl. Failures are logged, the crawl
+   * running without checkpoint.
+   *
+   * @param id          Crawl identifier.
+   * @param urls        Seed URLs of the crawl.
+   * @param breakpoint  Limit how deep in the URLs the crawl goes.
+   * @param budget      Pages, bytes and time after which the crawl stops.
+   * @param submittedAt When the crawl was submitted.
+   * @return Checkpoint to be set as the crawl journal and listener, or null if
+   *         checkpoints are disabled or it could not be created.
+   */
+  public CrawlCheckpoint create(String id, List<String> urls, int breakpoint, CrawlBudget budget,
+      Instant submittedAt) {
+    if (!isEnabled() || closed) {
+      return null;
+    }
+
+    try {
+      CrawlCheckpoint checkpoint = CrawlCheckpoint.create(directory.resolve(id), id, urls, breakpoint, budget,
+          submittedAt);
+      checkpoints.put(id, checkpoint);
+      return checkpoint;
+    } catch (IOException e) {
+      logger.error("Creating crawl checkpoint error", e);
+      return null;
+    }
+  }
+
+  /**
+   * Loads the state of a stopped crawl from its checkpoint.
+   *
+   * @param id Crawl identifier.
+   * @return Crawl state, or empty if there is no checkpoint of the crawl, or it
+   *         is still being written.
+   */
+  public Optional<CheckpointState> load(String id) {
+    if (!isEnabled() || !ID.matcher(id).matches() || checkpoints.containsKey(id)) {
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.ofNullable(CrawlCheckpoint.load(directory.resolve(id), id));
+    } catch (IOException e) {
+      logger.error("Loading crawl checkpoint error", e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Opens the checkpoint of a loaded crawl to go on recording its changes.
+   *
+   * @param state Loaded crawl state.
+   * @return Checkpoint to be set as the crawl journal and listener, or null if
+   *         it could not be opened.
+   */
+  public CrawlCheckpoint resume(CheckpointState state) {
+    if (!isEnabled() || closed) {
+      return null;
+    }
+
+    try {
+      CrawlCheckpoint checkpoint = CrawlCheckpoint.open(directory.resolve(state.getId()), state.getId());
+      checkpoints.put(state.getId(), checkpoint);
+      return checkpoint;
+    } catch (IOException e) {
+      logger.error("Opening crawl checkpoint error", e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes the last changes of a stopped crawl and a snapshot, keeping its
+   * checkpoint to be resumed.
+   *
+   * @param id Crawl identifier.
+   */
+  public void close(String id) {
+    CrawlCheckpoint checkpoint = checkpoints.remove(id);
+    if (checkpoint == null) {
+      return;
+    }
+
+    try {
+      checkpoint.close();
+    } catch (IOException e) {
+      logger.error("Closing crawl checkpoint error", e);
+    }
+  }
+
+  /**
+   * Removes the checkpoint of a crawl that has nothing left to resume, such as
+   * a completed or cancelled one.
+   *
+   * @param id Crawl identifier.
+   */
+  public void delete(String id) {
+    CrawlCheckpoint checkpoint = checkpoints.remove(id);
+    if (checkpoint == null) {
+      return;
+    }
+
+    try {
+      checkpoint.delete();
+    } catch (IOException e) {
+      logger.error("Deleting crawl checkpoint error", e);
+    }
+  }
+
+  /**
+   * Stops the writer and closes the checkpoints still open, so their crawls can
+   * be resumed after a restart.
+   */
+  @PreDestroy
+  public void shutdown() {
+    closed = true;
+    if (writer == null) {
+      return;
+    }
+
+    writer.interrupt();
+    try {
+      writer.join(TimeUnit.SECONDS.toMillis(30));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("Awaiting checkpoint writer error", e);
+    }
+    List.copyOf(checkpoints.keySet()).forEach(this::close);
+  }
+
+  /**
+   * Writes the queued changes of every open checkpoint on each interval, and
+   * their snapshots once due, until the store is closed.
+   */
+  private void run() {
+    while (!closed) {
+      try {
+        Thread.sleep(flushMillis);
+      } catch (InterruptedException e) {
+        break;
+      }
+
+      for (CrawlCheckpoint checkpoint : checkpoints.values()) {
+        try {
+          checkpoint.flush();
+          if (checkpoint.isSnapshotDue(snapshotNanos)) {
+            checkpoint.snapshot();
+          }
+        } catch (IOException e) {
+          logger.error("Writing crawl checkpoint error", e);
+        }
+      }
+    }
+  }
+}
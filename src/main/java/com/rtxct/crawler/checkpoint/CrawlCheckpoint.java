@@ -0,0 +1,425 @@
+package com.rtxct.crawler.checkpoint;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import com.rtxct.crawler.bot.CrawlListener;
+import com.rtxct.crawler.bot.CrawledPage;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.frontier.CrawlBudget;
+import com.rtxct.crawler.frontier.FrontierEntry;
+import com.rtxct.crawler.frontier.FrontierJournal;
+
+public class CrawlCheckpoint implements FrontierJournal, CrawlListener {
+
+  /** Class properties. */
+  private static final Pattern FILE_NAME = Pattern.compile("(snapshot|log)-(\\d+)\\.bin(\\.tmp)?");
+
+  private static final String META_FILE = "crawl.meta";
+
+  /**
+   * First bytes of the meta file, followed by its format version. Meta files
+   * without them are of version 1, written before the crawl budget was kept.
+   */
+  private static final int META_MAGIC = 0x434B4D54;
+
+  private static final int META_VERSION = 2;
+
+  private final String id;
+
+  private final Path directory;
+
+  private final ConcurrentLinkedQueue<CheckpointRecord> records = new ConcurrentLinkedQueue<>();
+
+  private CheckpointLog log;
+
+  private int generation;
+
+  private int snapshotGeneration;
+
+  private long appended;
+
+  private long snapshotAt = System.nanoTime();
+
+  private boolean closed;
+
+  /**
+   * CrawlCheckpoint class constructor, appending to a new log file after the
+   * existing ones.
+   *
+   * @param id        Crawl identifier.
+   * @param directory Directory holding the checkpoint files of the crawl.
+   * @throws IOException If the log file could not be opened.
+   */
+  private CrawlCheckpoint(String id, Path directory) throws IOException {
+    this.id = id;
+    this.directory = directory;
+
+    Files.createDirectories(directory);
+    Files.deleteIfExists(directory.resolve(META_FILE + ".tmp"));
+    TreeMap<Integer, Path> snapshots = new TreeMap<>();
+    TreeMap<Integer, Path> logs = new TreeMap<>();
+    for (Path path : list(directory)) {
+      Matcher matcher = match(path);
+      if (matcher.group(3) != null) {
+        Files.delete(path);
+      } else {
+        (matcher.group(1).equals("snapshot") ? snapshots : logs).put(Integer.parseInt(matcher.group(2)), path);
+      }
+    }
+
+    if (!snapshots.isEmpty()) {
+      snapshotGeneration = snapshots.lastKey();
+      for (Path path : snapshots.headMap(snapshotGeneration).values()) {
+        Files.delete(path);
+      }
+      for (Path path : logs.headMap(snapshotGeneration).values()) {
+        Files.delete(path);
+      }
+    }
+
+    this.generation = logs.isEmpty() ? snapshotGeneration : Math.max(snapshotGeneration, logs.lastKey() + 1);
+    this.log = new CheckpointLog(logPath(generation));
+  }
+
+  /**
+   * Creates the checkpoint of a new crawl, writing its seed URLs and rules.
+   *
+   * @param directory   Directory holding the checkpoint files of the crawl.
+   * @param id          Crawl identifier.
+   * @param urls        Seed URLs of the crawl.
+   * @param breakpoint  Limit how deep in the URLs the crawl goes.
+   * @param budget      Pages, bytes and time after which the crawl stops.
+   * @param submittedAt When the crawl was submitted.
+   * @return Checkpoint receiving the changes of the crawl.
+   * @throws IOException If the files could not be written.
+   */
+  static CrawlCheckpoint create(Path directory, String id, List<String> urls, int breakpoint, CrawlBudget budget,
+      Instant submittedAt) throws IOException {
+    Files.createDirectories(directory);
+    Path temporary = directory.resolve(META_FILE + ".tmp");
+    try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(temporary))) {
+      output.writeInt(META_MAGIC);
+      output.writeInt(META_VERSION);
+      output.writeInt(breakpoint);
+      output.writeLong(submittedAt.getEpochSecond());
+      output.writeInt(submittedAt.getNano());
+      output.writeInt(urls.size());
+      for (String url : urls) {
+        output.writeUTF(url);
+      }
+      output.writeLong(budget.getMaxPages());
+      output.writeLong(budget.getMaxPagesPerHost());
+      output.writeLong(budget.getMaxBytes());
+      output.writeLong(budget.getMaxDuration().getSeconds());
+      output.writeInt(budget.getMaxDuration().getNano());
+    }
+    Files.move(temporary, directory.resolve(META_FILE), StandardCopyOption.ATOMIC_MOVE);
+    return new CrawlCheckpoint(id, directory);
+  }
+
+  /**
+   * Opens the checkpoint of a stopped crawl to go on recording its changes,
+   * after its state was loaded.
+   *
+   * @param directory Directory holding the checkpoint files of the crawl.
+   * @param id        Crawl identifier.
+   * @return Checkpoint receiving the changes of the crawl.
+   * @throws IOException If the log file could not be opened.
+   */
+  static CrawlCheckpoint open(Path directory, String id) throws IOException {
+    return new CrawlCheckpoint(id, directory);
+  }
+
+  /**
+   * Reads the state of a stopped crawl from its last snapshot and the logs
+   * written after it. A meta file of version 1 is read with an unlimited
+   * budget.
+   *
+   * @param directory Directory holding the checkpoint files of the crawl.
+   * @param id        Crawl identifier.
+   * @return Crawl state, or null if the crawl has no checkpoint.
+   * @throws IOException If the files could not be read, or were written in an
+   *                     unknown format version.
+   */
+  static CheckpointState load(Path directory, String id) throws IOException {
+    Path meta = directory.resolve(META_FILE);
+    if (!Files.isRegularFile(meta)) {
+      return null;
+    }
+
+    CheckpointState state;
+    try (DataInputStream input = new DataInputStream(Files.newInputStream(meta))) {
+      int version = 1;
+      int breakpoint = input.readInt();
+      if (breakpoint == META_MAGIC) {
+        version = input.readInt();
+        if (version < 2 || version > META_VERSION) {
+          throw new IOException("Checkpoint of crawl " + id + " has format version " + version
+              + ", this version only reads versions 1 to " + META_VERSION);
+        }
+        breakpoint = input.readInt();
+      }
+      Instant submittedAt = Instant.ofEpochSecond(input.readLong(), input.readInt());
+      List<String> urls = new ArrayList<>();
+      for (int i = input.readInt(); i > 0; i--) {
+        urls.add(input.readUTF());
+      }
+      CrawlBudget budget = version == 1 ? CrawlBudget.UNLIMITED : CrawlBudget.builder()
+          .maxPages(input.readLong())
+          .maxPagesPerHost(input.readLong())
+          .maxBytes(input.readLong())
+          .maxDuration(Duration.ofSeconds(input.readLong(), input.readInt()))
+          .build();
+      state = new CheckpointState(id, List.copyOf(urls), breakpoint, budget, submittedAt);
+    }
+
+    TreeMap<Integer, Path> snapshots = new TreeMap<>();
+    TreeMap<Integer, Path> logs = new TreeMap<>();
+    for (Path path : list(directory)) {
+      Matcher matcher = match(path);
+      if (matcher.group(3) == null) {
+        (matcher.group(1).equals("snapshot") ? snapshots : logs).put(Integer.parseInt(matcher.group(2)), path);
+      }
+    }
+
+    int snapshot = 0;
+    if (!snapshots.isEmpty()) {
+      snapshot = snapshots.lastKey();
+      CheckpointLog.replay(snapshots.lastEntry().getValue(), state::apply);
+    }
+    for (Path path : logs.tailMap(snapshot, true).values()) {
+      CheckpointLog.replay(path, state::apply);
+    }
+    state.replayed();
+    return state;
+  }
+
+  @Override
+  public void offered(String url, int depth) {
+    records.offer(CheckpointRecord.offered(url, depth));
+  }
+
+  @Override
+  public void seen(String url) {
+    records.offer(CheckpointRecord.seen(url));
+  }
+
+  @Override
+  public void completed(FrontierEntry entry) {
+    records.offer(CheckpointRecord.done(entry.getUrl(), entry.getDepth()));
+  }
+
+  @Override
+  public void onPage(PageDTO page) {
+    records.offer(CheckpointRecord.page(page));
+  }
+
+  @Override
+  public void onUnchanged(CrawledPage page) {
+    onPage(page.getPage());
+  }
+
+  /**
+   * Gets the crawl identifier.
+   *
+   * @return Crawl identifier.
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Appends the queued records to the current log and hands them to the
+   * operating system.
+   *
+   * @throws IOException If the records could not be written.
+   */
+  synchronized void flush() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    CheckpointRecord change;
+    while ((change = records.poll()) != null) {
+      log.append(change);
+      appended++;
+    }
+    log.flush();
+  }
+
+  /**
+   * Checks whether records were appended since the last snapshot and the given
+   * time passed since then.
+   *
+   * @param intervalNanos Minimum time between two snapshots.
+   * @return Boolean whether a snapshot is due or not.
+   */
+  synchronized boolean isSnapshotDue(long intervalNanos) {
+    return !closed && appended > 0 && System.nanoTime() - snapshotAt >= intervalNanos;
+  }
+
+  /**
+   * Writes a new snapshot from the previous one and the logs written since,
+   * then removes them. The crawl goes on appending to a new log meanwhile, as
+   * its records are only queued. Completed entries become plain seen URLs, so
+   * the snapshot holds one record per seen URL and scraped page, and its size
+   * does not grow with the number of changes.
+   *
+   * @throws IOException If the snapshot could not be written.
+   */
+  synchronized void snapshot() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    flush();
+    log.close();
+    int compacted = generation;
+    generation++;
+    log = new CheckpointLog(logPath(generation));
+
+    List<Path> logs = new ArrayList<>();
+    for (int i = snapshotGeneration; i <= compacted; i++) {
+      if (Files.exists(logPath(i))) {
+        logs.add(logPath(i));
+      }
+    }
+
+    Set<String> done = new HashSet<>();
+    for (Path path : logs) {
+      CheckpointLog.replay(path, change -> {
+        if (change.type == CheckpointRecord.Type.DONE) {
+          done.add(change.url);
+        }
+      });
+    }
+
+    Path previous = snapshotPath(snapshotGeneration);
+    Path temporary = directory.resolve("snapshot-" + generation + ".bin.tmp");
+    Files.deleteIfExists(temporary);
+    try (CheckpointLog output = new CheckpointLog(temporary)) {
+      int[] depth = { 0 };
+      Consumer<CheckpointRecord> copy = change -> {
+        try {
+          switch (change.type) {
+            case OFFERED -> output.append(done.contains(change.url) ? CheckpointRecord.seen(change.url) : change);
+            case DONE, DEPTH -> depth[0] = Math.max(depth[0], change.depth);
+            case SEEN, PAGE -> output.append(change);
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      };
+
+      try {
+        if (Files.exists(previous)) {
+          CheckpointLog.replay(previous, copy);
+        }
+        for (Path path : logs) {
+          CheckpointLog.replay(path, copy);
+        }
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      output.append(CheckpointRecord.depth(depth[0]));
+      output.sync();
+    }
+
+    Files.move(temporary, snapshotPath(generation), StandardCopyOption.ATOMIC_MOVE);
+    Files.deleteIfExists(previous);
+    for (Path path : logs) {
+      Files.delete(path);
+    }
+
+    snapshotGeneration = generation;
+    appended = 0;
+    snapshotAt = System.nanoTime();
+  }
+
+  /**
+   * Writes the queued records and a last snapshot, then stops recording, so
+   * the crawl can be resumed later.
+   *
+   * @throws IOException If the checkpoint could not be written.
+   */
+  synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    try {
+      flush();
+      if (appended > 0) {
+        snapshot();
+      }
+    } finally {
+      closed = true;
+      log.close();
+    }
+  }
+
+  /**
+   * Stops recording and removes the checkpoint files, once the crawl has
+   * nothing left to resume.
+   *
+   * @throws IOException If the files could not be removed.
+   */
+  synchronized void delete() throws IOException {
+    if (!closed) {
+      closed = true;
+      log.close();
+    }
+    records.clear();
+
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  /**
+   * Lists the snapshot and log files of a checkpoint directory.
+   */
+  private static List<Path> list(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(path -> FILE_NAME.matcher(path.getFileName().toString()).matches()).toList();
+    }
+  }
+
+  /**
+   * Matches the name of a snapshot or log file.
+   */
+  private static Matcher match(Path path) {
+    Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+    matcher.matches();
+    return matcher;
+  }
+
+  private Path logPath(int fileGeneration) {
+    return directory.resolve("log-" + fileGeneration + ".bin");
+  }
+
+  private Path snapshotPath(int fileGeneration) {
+    return directory.resolve("snapshot-" + fileGeneration + ".bin");
+  }
+}
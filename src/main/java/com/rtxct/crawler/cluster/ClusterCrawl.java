@@ -0,0 +1,281 @@
+package com.rtxct.crawler.cluster;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.LinkRouter;
+import com.rtxct.crawler.dto.PageDTO;
+
+/**
+ * Share of a crawl run by a node: a Bot crawling the URLs the node owns, and
+ * per node buffers of the links owned by the other nodes, sent in batches.
+ */
+class ClusterCrawl implements LinkRouter {
+
+  /** Class properties. */
+  private static final Logger logger = LoggerFactory.getLogger(ClusterCrawl.class.getName());
+
+  private final String crawlId;
+
+  private final int breakpoint;
+
+  private final Map<String, List<LinkBatch.Link>> buffers = new HashMap<>();
+
+  private final AtomicInteger sending = new AtomicInteger();
+
+  private final AtomicLong sent = new AtomicLong();
+
+  private final AtomicLong received = new AtomicLong();
+
+  /** Links received from the other nodes, waiting to be queued. */
+  private final Queue<LinkBatch.Link> inbox = new ConcurrentLinkedQueue<>();
+
+  private final AtomicBoolean draining = new AtomicBoolean();
+
+  /** Last time links were received or the status was read, in nanoseconds. */
+  private volatile long touchedAt = System.nanoTime();
+
+  private volatile Bot bot;
+
+  private volatile Executor executor;
+
+  private CompletableFuture<List<PageDTO>> pages;
+
+  private boolean finished;
+
+  /** Class Dependencies. */
+  private final ClusterNode node;
+
+  /**
+   * ClusterCrawl class constructor. The crawl is started by
+   * {@link #start(Bot, Executor, Function)}, the links received before being
+   * queued once it is.
+   *
+   * @param crawlId    Crawl identifier, shared by every node.
+   * @param breakpoint Depth limit of the crawl.
+   * @param node       Node running the crawl.
+   */
+  ClusterCrawl(String crawlId, int breakpoint, ClusterNode node) {
+    this.crawlId = crawlId;
+    this.breakpoint = breakpoint;
+    this.node = node;
+  }
+
+  /**
+   * Starts the local Bot, unless the crawl was finished first. Its frontier is
+   * retained, so the Bot keeps waiting for the links of the other nodes once it
+   * has nothing left to crawl, until the crawl is finished.
+   *
+   * @param bot      Bot crawling the local URLs, routing its links through this
+   *                 crawl.
+   * @param executor Executor queuing the received links in the Bot.
+   * @param runner   Runs the Bot without blocking, returning its pages.
+   */
+  synchronized void start(Bot bot, Executor executor, Function<Bot, CompletableFuture<List<PageDTO>>> runner) {
+    if (finished) {
+      return;
+    }
+
+    bot.getFrontier().retain();
+    this.pages = runner.apply(bot);
+    this.executor = executor;
+    this.bot = bot;
+    drain();
+  }
+
+  @Override
+  public boolean isLocal(String url) {
+    return node.getRing().ownerOf(url).equals(node.getNodeId());
+  }
+
+  @Override
+  public void forward(String url, int depth) {
+    String owner = node.getRing().ownerOf(url);
+    List<LinkBatch.Link> full = null;
+
+    synchronized (buffers) {
+      List<LinkBatch.Link> buffer = buffers.computeIfAbsent(owner, key -> new ArrayList<>());
+      buffer.add(new LinkBatch.Link(url, depth));
+      if (buffer.size() >= node.getBatchSize()) {
+        full = buffer;
+        buffers.remove(owner);
+        sending.incrementAndGet();
+      }
+    }
+
+    if (full != null) {
+      send(owner, full);
+    }
+  }
+
+  /**
+   * Queues an URL owned by this node, such as a seed of the crawl.
+   *
+   * @param url   Normalized absolute URL.
+   * @param depth Depth of the URL in the crawl.
+   */
+  void offer(String url, int depth) {
+    bot.offer(url, depth);
+  }
+
+  /**
+   * Hands the links received from another node to the executor, which queues
+   * them in the Bot, so their robots.txt checks do not hold the thread of the
+   * sender request.
+   *
+   * @param links Links owned by this node.
+   */
+  void receive(List<LinkBatch.Link> links) {
+    touchedAt = System.nanoTime();
+    inbox.addAll(links);
+    drain();
+  }
+
+  /**
+   * Sends every buffered link to its node.
+   */
+  void flush() {
+    Map<String, List<LinkBatch.Link>> batches;
+    synchronized (buffers) {
+      if (buffers.isEmpty()) {
+        return;
+      }
+      batches = new HashMap<>(buffers);
+      buffers.clear();
+      sending.addAndGet(batches.size());
+    }
+
+    batches.forEach(this::send);
+  }
+
+  /**
+   * Gets the progress of the crawl on this node, sending the buffered links
+   * first. The node is idle when its Bot has nothing queued nor in flight and
+   * no link is waiting to be sent.
+   *
+   * @return Node status.
+   */
+  NodeStatus status() {
+    touchedAt = System.nanoTime();
+    flush();
+
+    return NodeStatus.builder()
+        .nodeId(node.getNodeId())
+        .crawlId(crawlId)
+        .idle(isIdle())
+        .sent(sent.get())
+        .received(received.get())
+        .pages(bot == null ? 0 : bot.getStats().getSummary().getPages())
+        .build();
+  }
+
+  /**
+   * Checks whether the crawl is idle and neither received links nor had its
+   * status read since the given time.
+   *
+   * @param time Time in nanoseconds.
+   * @return Boolean whether the crawl is idle since then or not.
+   */
+  boolean isIdleSince(long time) {
+    return touchedAt - time < 0 && isIdle();
+  }
+
+  /**
+   * Releases the frontier so the Bot returns, and waits for its pages. A crawl
+   * not started yet is never started.
+   *
+   * @return Pages scraped by this node.
+   */
+  List<PageDTO> finish() {
+    synchronized (this) {
+      finished = true;
+      if (pages == null) {
+        return List.of();
+      }
+      bot.getFrontier().release();
+    }
+    return pages.join();
+  }
+
+  /**
+   * Checks whether the Bot has nothing queued nor in flight and no link is
+   * waiting to be sent. A crawl not started yet is not idle.
+   */
+  private boolean isIdle() {
+    Bot started = bot;
+    synchronized (buffers) {
+      return started != null && started.getFrontier().isIdle() && buffers.isEmpty() && sending.get() == 0;
+    }
+  }
+
+  /**
+   * Queues the received links on the executor, one task at a time, once the
+   * Bot is started.
+   */
+  private void drain() {
+    Executor target = executor;
+    if (target == null || inbox.isEmpty() || !draining.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      target.execute(this::offerReceived);
+    } catch (RejectedExecutionException e) {
+      draining.set(false);
+      logger.error("Queuing the links received for crawl {} error", crawlId, e);
+    }
+  }
+
+  /**
+   * Queues the received links in the Bot, then counts them, so the node is never
+   * seen idle with links received but not queued.
+   */
+  private void offerReceived() {
+    try {
+      LinkBatch.Link link;
+      while ((link = inbox.poll()) != null) {
+        bot.offer(link.getUrl(), link.getDepth());
+        received.incrementAndGet();
+      }
+    } finally {
+      draining.set(false);
+    }
+    drain();
+  }
+
+  /**
+   * Sends a batch to its node. Links of an unreachable node are dropped, as no
+   * other node may crawl them.
+   */
+  private void send(String owner, List<LinkBatch.Link> links) {
+    try {
+      node.getTransport().send(owner, LinkBatch.builder()
+          .crawlId(crawlId)
+          .sender(node.getNodeId())
+          .breakpoint(breakpoint)
+          .links(links)
+          .build());
+      sent.addAndGet(links.size());
+    } catch (IOException | RuntimeException e) {
+      logger.error("Dropping {} links of crawl {} owned by node {}", links.size(), crawlId, owner, e);
+    } finally {
+      sending.decrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,426 @@
+package com.rtxct.crawler.cluster;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.BotFactory;
+import com.rtxct.crawler.bot.LinkRouter;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.scheduler.CrawlScheduler;
+import com.rtxct.crawler.utils.UrlNormalizer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+@Getter
+@Component
+public class ClusterNode {
+
+  /** Class properties. */
+  private static final Logger logger = LoggerFactory.getLogger(ClusterNode.class.getName());
+
+  private final String nodeId;
+
+  private final HashRing ring;
+
+  private final int batchSize;
+
+  private final Duration flushInterval;
+
+  private final int maxInFlight;
+
+  private final int maxCrawls;
+
+  private final Duration idleTimeout;
+
+  @Getter(AccessLevel.NONE)
+  private final Map<String, ClusterCrawl> crawls = new ConcurrentHashMap<>();
+
+  /** Time each recently finished crawl ended at, in nanoseconds. */
+  @Getter(AccessLevel.NONE)
+  private final Map<String, Long> finished = new ConcurrentHashMap<>();
+
+  @Getter(AccessLevel.NONE)
+  private final ScheduledExecutorService flusher;
+
+  @Getter(AccessLevel.NONE)
+  private final UrlNormalizer urlNormalizer = new UrlNormalizer();
+
+  /** Class Dependencies. */
+  private final ClusterTransport transport;
+
+  @Getter(AccessLevel.NONE)
+  private final BiFunction<Integer, LinkRouter, Bot> bots;
+
+  @Getter(AccessLevel.NONE)
+  private final CrawlScheduler scheduler;
+
+  /**
+   * ClusterNode class constructor, configured from the application properties.
+   * Without other nodes, the node crawls the whole URL space by itself.
+   *
+   * @param botFactory    Factory of the Bots crawling the share of this node.
+   * @param scheduler     Shared scheduler running the crawls.
+   * @param objectMapper  Mapper of the messages exchanged with the other nodes.
+   * @param nodeId        Identifier of this node.
+   * @param nodes         Nodes of the cluster, as comma separated id=baseUrl
+   *                      pairs, including this node, or empty for a single node.
+   * @param virtualNodes  Number of points of each node on the hash ring.
+   * @param batchSize     Number of links forwarded to a node at once.
+   * @param flushInterval Longest time a link waits before being forwarded, and
+   *                      interval between two checks of the end of a crawl.
+   * @param maxInFlight   The maximum number of pages of a crawl processed at the
+   *                      same time on this node.
+   * @param maxCrawls     The maximum number of crawls this node has a share of
+   *                      at the same time.
+   * @param idleTimeout   Time after which an idle share no longer polled by its
+   *                      coordinator is dropped, and during which the batches of
+   *                      a finished crawl are refused.
+   */
+  @Autowired
+  public ClusterNode(BotFactory botFactory, CrawlScheduler scheduler, ObjectMapper objectMapper,
+      @Value("${crawler.cluster.node-id:local}") String nodeId,
+      @Value("${crawler.cluster.nodes:}") String nodes,
+      @Value("${crawler.cluster.virtual-nodes:" + HashRing.DEFAULT_VIRTUAL_NODES + "}") int virtualNodes,
+      @Value("${crawler.cluster.batch-size:256}") int batchSize,
+      @Value("${crawler.cluster.flush-interval:200ms}") Duration flushInterval,
+      @Value("${crawler.scheduler.max-in-flight:16}") int maxInFlight,
+      @Value("${crawler.cluster.max-crawls:16}") int maxCrawls,
+      @Value("${crawler.cluster.idle-timeout:10m}") Duration idleTimeout) {
+    this(nodeId, new HashRing(parseNodes(nodeId, nodes).keySet(), virtualNodes), transport(nodeId, nodes, objectMapper),
+        (breakpoint, router) -> botFactory.create(List.of(), breakpoint, router), scheduler, batchSize,
+        flushInterval, maxInFlight, maxCrawls, idleTimeout);
+  }
+
+  /**
+   * ClusterNode class constructor. The node runs once started by
+   * {@link #start()}.
+   *
+   * @param nodeId        Identifier of this node, one of the ring nodes.
+   * @param ring          Hash ring assigning the hosts to the nodes.
+   * @param transport     Transport reaching the other nodes.
+   * @param bots          Creates the Bot crawling the share of this node, from
+   *                      the depth limit and the router of its links.
+   * @param scheduler     Shared scheduler running the crawls.
+   * @param batchSize     Number of links forwarded to a node at once.
+   * @param flushInterval Longest time a link waits before being forwarded, and
+   *                      interval between two checks of the end of a crawl.
+   * @param maxInFlight   The maximum number of pages of a crawl processed at the
+   *                      same time on this node.
+   * @param maxCrawls     The maximum number of crawls this node has a share of
+   *                      at the same time.
+   * @param idleTimeout   Time after which an idle share no longer polled by its
+   *                      coordinator is dropped, and during which the batches of
+   *                      a finished crawl are refused.
+   */
+  public ClusterNode(String nodeId, HashRing ring, ClusterTransport transport,
+      BiFunction<Integer, LinkRouter, Bot> bots, CrawlScheduler scheduler, int batchSize, Duration flushInterval,
+      int maxInFlight, int maxCrawls, Duration idleTimeout) {
+    if (!ring.getNodes().contains(nodeId)) {
+      throw new IllegalArgumentException("Node " + nodeId + " is not part of the cluster " + ring.getNodes());
+    }
+
+    this.nodeId = nodeId;
+    this.ring = ring;
+    this.transport = transport;
+    this.bots = bots;
+    this.scheduler = scheduler;
+    this.batchSize = Math.max(batchSize, 1);
+    this.flushInterval = flushInterval;
+    this.maxInFlight = maxInFlight;
+    this.maxCrawls = maxCrawls;
+    this.idleTimeout = idleTimeout;
+    this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "cluster-flush-" + nodeId);
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Starts forwarding the buffered links and dropping the expired shares. A
+   * node given a loopback transport registers itself to it.
+   */
+  @PostConstruct
+  public void start() {
+    flusher.scheduleWithFixedDelay(this::flushAll, flushInterval.toMillis(), flushInterval.toMillis(),
+        TimeUnit.MILLISECONDS);
+
+    if (transport instanceof LoopbackTransport loopback) {
+      loopback.register(this);
+    }
+  }
+
+  /**
+   * Crawls the given URLs over the whole cluster: each URL is crawled by the
+   * node owning its host, links found by a node are forwarded in batches to
+   * their owner, and the crawl ends once every node is idle with no link in
+   * transit. Blocks until then.
+   *
+   * @param urls       List of URLs as Strings.
+   * @param breakpoint Limit how deep in the URLs the program should go.
+   * @return Pages scraped by every node.
+   * @throws IOException                If a node could not be reached while
+   *                                    waiting for the end of the crawl.
+   * @throws RejectedExecutionException If this node already runs as many
+   *                                    crawls as allowed.
+   */
+  public List<PageDTO> crawl(List<String> urls, int breakpoint) throws IOException {
+    String crawlId = UUID.randomUUID().toString();
+    ClusterCrawl local = crawlOf(crawlId, breakpoint);
+    if (local == null) {
+      throw new IllegalStateException("Crawl " + crawlId + " is already finished");
+    }
+
+    for (String url : urls) {
+      String seed = urlNormalizer.normalize(url);
+      if (seed == null) {
+        continue;
+      }
+      if (local.isLocal(seed)) {
+        local.offer(seed, 0);
+      } else {
+        local.forward(seed, 0);
+      }
+    }
+    local.flush();
+
+    List<PageDTO> pages = new ArrayList<>();
+    try {
+      awaitEnd(crawlId);
+    } finally {
+      for (String node : ring.getNodes()) {
+        try {
+          pages.addAll(node.equals(nodeId) ? finish(crawlId) : transport.finish(node, crawlId));
+        } catch (IOException | RuntimeException e) {
+          logger.error("Pages of crawl {} on node {} could not be gathered", crawlId, node, e);
+        }
+      }
+    }
+    return pages;
+  }
+
+  /**
+   * Receives links owned by this node, starting its share of the crawl on the
+   * first batch. The links of a recently finished crawl are dropped.
+   *
+   * @param batch Links found by another node.
+   * @return Boolean whether the links were accepted, false if the crawl is
+   *         finished.
+   * @throws RejectedExecutionException If the batch would start a crawl while
+   *                                    this node already runs as many crawls
+   *                                    as allowed.
+   */
+  public boolean receive(LinkBatch batch) {
+    ClusterCrawl crawl = crawlOf(batch.getCrawlId(), batch.getBreakpoint());
+    if (crawl == null) {
+      logger.warn("Dropping {} links of finished crawl {}", batch.getLinks().size(), batch.getCrawlId());
+      return false;
+    }
+
+    crawl.receive(batch.getLinks());
+    return true;
+  }
+
+  /**
+   * Gets the progress of this node on a crawl.
+   *
+   * @param crawlId Crawl identifier.
+   * @return Node status, idle if the node has no share of the crawl.
+   */
+  public NodeStatus status(String crawlId) {
+    ClusterCrawl crawl = crawls.get(crawlId);
+    if (crawl == null) {
+      return NodeStatus.builder().nodeId(nodeId).crawlId(crawlId).idle(true).build();
+    }
+    return crawl.status();
+  }
+
+  /**
+   * Ends the share of this node on a finished crawl. Its batches are refused
+   * from then on, until the idle timeout is over counted from the end of the
+   * share.
+   *
+   * @param crawlId Crawl identifier.
+   * @return Pages scraped by this node, empty if it had no share of the crawl.
+   */
+  public List<PageDTO> finish(String crawlId) {
+    finished.put(crawlId, System.nanoTime());
+    ClusterCrawl crawl = crawls.remove(crawlId);
+    try {
+      return crawl == null ? List.of() : crawl.finish();
+    } finally {
+      finished.put(crawlId, System.nanoTime());
+    }
+  }
+
+  /**
+   * Stops forwarding the buffered links.
+   */
+  @PreDestroy
+  public void shutdown() {
+    flusher.shutdownNow();
+  }
+
+  /**
+   * Waits until every node is idle and as many links were received as sent,
+   * twice in a row with the same counts, so no link was in transit between two
+   * nodes while their status was read.
+   *
+   * @param crawlId Crawl identifier.
+   * @throws IOException If a node could not be reached.
+   */
+  private void awaitEnd(String crawlId) throws IOException {
+    long previousSent = -1;
+    long previousReceived = -1;
+
+    while (true) {
+      try {
+        Thread.sleep(flushInterval.toMillis());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for crawl " + crawlId, e);
+      }
+
+      boolean idle = true;
+      long sent = 0;
+      long received = 0;
+      for (String node : ring.getNodes()) {
+        NodeStatus status = node.equals(nodeId) ? status(crawlId) : transport.status(node, crawlId);
+        idle &= status.isIdle();
+        sent += status.getSent();
+        received += status.getReceived();
+      }
+
+      if (idle && sent == received) {
+        if (sent == previousSent && received == previousReceived) {
+          return;
+        }
+        previousSent = sent;
+        previousReceived = received;
+      } else {
+        previousSent = -1;
+        previousReceived = -1;
+      }
+    }
+  }
+
+  /**
+   * Gets the share of this node on a crawl, starting it on the first call. A
+   * finished crawl is not started again. The share is registered before its Bot
+   * is created and started, so that work is not done while holding the lock of
+   * the map, and the links received meanwhile wait for the start.
+   *
+   * @param crawlId    Crawl identifier.
+   * @param breakpoint Depth limit of the crawl.
+   * @return Crawl share, null if the crawl is finished.
+   * @throws RejectedExecutionException If this node already runs as many
+   *                                    crawls as allowed.
+   */
+  private ClusterCrawl crawlOf(String crawlId, int breakpoint) {
+    ClusterCrawl crawl = crawls.get(crawlId);
+    if (crawl != null) {
+      return crawl;
+    }
+    if (finished.containsKey(crawlId)) {
+      return null;
+    }
+    if (crawls.size() >= maxCrawls) {
+      throw new RejectedExecutionException("Node " + nodeId + " already runs " + maxCrawls + " crawls");
+    }
+
+    ClusterCrawl created = new ClusterCrawl(crawlId, breakpoint, this);
+    crawl = crawls.putIfAbsent(crawlId, created);
+    if (crawl != null) {
+      return crawl;
+    }
+    if (finished.containsKey(crawlId)) {
+      crawls.remove(crawlId, created);
+      return null;
+    }
+
+    try {
+      created.start(bots.apply(breakpoint, created), scheduler, bot -> scheduler.submit(bot, maxInFlight));
+    } catch (RuntimeException e) {
+      crawls.remove(crawlId, created);
+      throw e;
+    }
+    return created;
+  }
+
+  /**
+   * Forwards the links buffered by every crawl, then drops the shares idle and
+   * no longer polled for longer than the idle timeout, as their coordinator is
+   * gone, and forgets the crawls finished before it.
+   */
+  private void flushAll() {
+    long expiredBefore = System.nanoTime() - idleTimeout.toNanos();
+
+    crawls.forEach((crawlId, crawl) -> {
+      try {
+        crawl.flush();
+        if (crawl.isIdleSince(expiredBefore)) {
+          logger.warn("Dropping idle share of crawl {}, no longer polled", crawlId);
+          finish(crawlId);
+        }
+      } catch (RuntimeException e) {
+        logger.error("Cluster flush error", e);
+      }
+    });
+    finished.values().removeIf(finishedAt -> finishedAt - expiredBefore < 0);
+  }
+
+  /**
+   * Parses the nodes of the cluster, as comma separated id=baseUrl pairs.
+   *
+   * @param nodeId Identifier of this node, the only node when none is given.
+   * @param nodes  Nodes property.
+   * @return Base URL of each node, by node identifier.
+   */
+  static Map<String, String> parseNodes(String nodeId, String nodes) {
+    Map<String, String> parsed = new LinkedHashMap<>();
+    for (String node : nodes.split(",")) {
+      String[] pair = node.trim().split("=", 2);
+      if (pair.length == 2 && !pair[0].isBlank()) {
+        parsed.put(pair[0].trim(), pair[1].trim().replaceAll("/+$", ""));
+      }
+    }
+    if (parsed.isEmpty()) {
+      parsed.put(nodeId, "");
+    }
+    return parsed;
+  }
+
+  /**
+   * Creates the transport to the other nodes: HTTP when there are some,
+   * loopback otherwise.
+   */
+  private static ClusterTransport transport(String nodeId, String nodes, ObjectMapper objectMapper) {
+    Map<String, String> parsed = parseNodes(nodeId, nodes);
+    if (parsed.size() == 1 && parsed.containsKey(nodeId)) {
+      return new LoopbackTransport();
+    }
+    return new HttpClusterTransport(parsed, objectMapper);
+  }
+}
@@ -0,0 +1,40 @@
+package com.rtxct.crawler.cluster;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.rtxct.crawler.dto.PageDTO;
+
+public interface ClusterTransport {
+
+  /**
+   * Delivers a batch of links to the node owning them, starting its share of
+   * the crawl on the first batch.
+   *
+   * @param nodeId Receiving node.
+   * @param batch  Links to be crawled.
+   * @throws IOException If the node could not be reached.
+   */
+  void send(String nodeId, LinkBatch batch) throws IOException;
+
+  /**
+   * Gets the progress of a node on a crawl, used to detect the end of the
+   * crawl.
+   *
+   * @param nodeId  Node to be queried.
+   * @param crawlId Crawl identifier.
+   * @return Node status, idle if the node has no share of the crawl.
+   * @throws IOException If the node could not be reached.
+   */
+  NodeStatus status(String nodeId, String crawlId) throws IOException;
+
+  /**
+   * Ends the share of a node on a finished crawl.
+   *
+   * @param nodeId  Node to be queried.
+   * @param crawlId Crawl identifier.
+   * @return Pages scraped by the node.
+   * @throws IOException If the node could not be reached.
+   */
+  List<PageDTO> finish(String nodeId, String crawlId) throws IOException;
+}
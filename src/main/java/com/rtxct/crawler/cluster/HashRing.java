@@ -0,0 +1,90 @@
+package com.rtxct.crawler.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import com.rtxct.crawler.frontier.Frontier;
+
+public class HashRing {
+
+  /** Class properties. */
+  public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+  private final NavigableMap<Long, String> ring = new TreeMap<>();
+
+  private final List<String> nodes;
+
+  /**
+   * HashRing class constructor, with the default number of virtual nodes.
+   *
+   * @param nodes Identifiers of the nodes.
+   */
+  public HashRing(Collection<String> nodes) {
+    this(nodes, DEFAULT_VIRTUAL_NODES);
+  }
+
+  /**
+   * HashRing class constructor. Each node is placed at several points of the
+   * ring, so the hosts are spread evenly, and adding or removing a node only
+   * moves the hosts of its own points.
+   *
+   * @param nodes        Identifiers of the nodes.
+   * @param virtualNodes Number of points of each node.
+   */
+  public HashRing(Collection<String> nodes, int virtualNodes) {
+    if (nodes.isEmpty()) {
+      throw new IllegalArgumentException("A hash ring needs at least one node");
+    }
+
+    this.nodes = List.copyOf(nodes);
+    for (String node : this.nodes) {
+      for (int i = 0; i < virtualNodes; i++) {
+        ring.put(hash(node + "#" + i), node);
+      }
+    }
+  }
+
+  /**
+   * Gets the node owning an URL, from the host of the URL, so every page of a
+   * host is crawled by the same node and its politeness rules hold.
+   *
+   * @param url Absolute URL.
+   * @return Node identifier.
+   */
+  public String ownerOf(String url) {
+    Map.Entry<Long, String> point = ring.ceilingEntry(hash(Frontier.hostOf(url)));
+    return point != null ? point.getValue() : ring.firstEntry().getValue();
+  }
+
+  /**
+   * Gets the nodes of the ring.
+   *
+   * @return Node identifiers.
+   */
+  public List<String> getNodes() {
+    return nodes;
+  }
+
+  /**
+   * Hashes a key with FNV-1a, then spreads its bits so close keys land far from
+   * each other on the ring.
+   */
+  static long hash(String key) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
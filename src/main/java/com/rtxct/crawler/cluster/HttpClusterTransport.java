@@ -0,0 +1,94 @@
+package com.rtxct.crawler.cluster;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rtxct.crawler.dto.PageDTO;
+
+public class HttpClusterTransport implements ClusterTransport {
+
+  /** Class properties. */
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+  private static final TypeReference<List<PageDTO>> PAGES = new TypeReference<>() {
+  };
+
+  private final Map<String, String> nodeUrls;
+
+  /** Class Dependencies. */
+  private final HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * HttpClusterTransport class constructor, reaching the other nodes through
+   * the cluster endpoints of their API.
+   *
+   * @param nodeUrls     Base URL of each node, by node identifier.
+   * @param objectMapper Mapper reading and writing the messages.
+   */
+  public HttpClusterTransport(Map<String, String> nodeUrls, ObjectMapper objectMapper) {
+    this.nodeUrls = Map.copyOf(nodeUrls);
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public void send(String nodeId, LinkBatch batch) throws IOException {
+    byte[] body = objectMapper.writeValueAsBytes(batch);
+    send(request(nodeId, batch.getCrawlId(), "/links")
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+        .build());
+  }
+
+  @Override
+  public NodeStatus status(String nodeId, String crawlId) throws IOException {
+    return objectMapper.readValue(send(request(nodeId, crawlId, "/status").GET().build()), NodeStatus.class);
+  }
+
+  @Override
+  public List<PageDTO> finish(String nodeId, String crawlId) throws IOException {
+    return objectMapper.readValue(send(request(nodeId, crawlId, "").DELETE().build()), PAGES);
+  }
+
+  /**
+   * Builds a request to the crawl resource of a node.
+   */
+  private HttpRequest.Builder request(String nodeId, String crawlId, String path) throws IOException {
+    String baseUrl = nodeUrls.get(nodeId);
+    if (baseUrl == null) {
+      throw new IOException("Unknown node: " + nodeId);
+    }
+
+    String crawl = URLEncoder.encode(crawlId, StandardCharsets.UTF_8);
+    return HttpRequest.newBuilder(URI.create(baseUrl + "/api/cluster/crawls/" + crawl + path))
+        .timeout(TIMEOUT)
+        .header("Accept", "application/json");
+  }
+
+  /**
+   * Sends a request, failing on any status but a success.
+   */
+  private byte[] send(HttpRequest request) throws IOException {
+    try {
+      HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+      if (response.statusCode() / 100 != 2) {
+        throw new IOException("Node answered " + response.statusCode() + " to " + request.uri());
+      }
+      return response.body();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while calling " + request.uri(), e);
+    }
+  }
+}
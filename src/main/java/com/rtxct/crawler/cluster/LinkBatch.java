@@ -0,0 +1,35 @@
+package com.rtxct.crawler.cluster;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LinkBatch {
+
+  private String crawlId;
+
+  /** Node the links were found by. */
+  private String sender;
+
+  /** Depth limit of the crawl, so the receiving node can start it. */
+  private int breakpoint;
+
+  private List<Link> links;
+
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor
+  public static class Link {
+
+    private String url;
+
+    private int depth;
+  }
+}
@@ -0,0 +1,51 @@
+package com.rtxct.crawler.cluster;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.rtxct.crawler.dto.PageDTO;
+
+public class LoopbackTransport implements ClusterTransport {
+
+  /** Class properties. */
+  private final Map<String, ClusterNode> nodes = new ConcurrentHashMap<>();
+
+  /**
+   * Adds a node running in this process, reached through direct calls.
+   *
+   * @param node Cluster node.
+   */
+  public void register(ClusterNode node) {
+    nodes.put(node.getNodeId(), node);
+  }
+
+  @Override
+  public void send(String nodeId, LinkBatch batch) throws IOException {
+    if (!node(nodeId).receive(batch)) {
+      throw new IOException("Crawl " + batch.getCrawlId() + " is finished on node " + nodeId);
+    }
+  }
+
+  @Override
+  public NodeStatus status(String nodeId, String crawlId) throws IOException {
+    return node(nodeId).status(crawlId);
+  }
+
+  @Override
+  public List<PageDTO> finish(String nodeId, String crawlId) throws IOException {
+    return node(nodeId).finish(crawlId);
+  }
+
+  /**
+   * Gets a registered node.
+   */
+  private ClusterNode node(String nodeId) throws IOException {
+    ClusterNode node = nodes.get(nodeId);
+    if (node == null) {
+      throw new IOException("Unknown node: " + nodeId);
+    }
+    return node;
+  }
+}
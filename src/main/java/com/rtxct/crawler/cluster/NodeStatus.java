@@ -0,0 +1,28 @@
+package com.rtxct.crawler.cluster;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NodeStatus {
+
+  private String nodeId;
+
+  private String crawlId;
+
+  /** Whether the node has no queued, in flight nor buffered links. */
+  private boolean idle;
+
+  /** Number of links forwarded to other nodes. */
+  private long sent;
+
+  /** Number of links received from other nodes. */
+  private long received;
+
+  private long pages;
+}
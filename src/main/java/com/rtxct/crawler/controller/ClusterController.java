@@ -0,0 +1,84 @@
+package com.rtxct.crawler.controller;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.rtxct.crawler.cluster.ClusterNode;
+import com.rtxct.crawler.cluster.LinkBatch;
+import com.rtxct.crawler.cluster.NodeStatus;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.model.BotModel;
+
+@RestController
+@RequestMapping("/api/cluster")
+public class ClusterController {
+
+  /** Class Dependencies. */
+  private final ClusterNode clusterNode;
+
+  /**
+   * ClusterController class constructor.
+   *
+   * @param clusterNode Node of the cluster served by this application.
+   */
+  public ClusterController(ClusterNode clusterNode) {
+    this.clusterNode = clusterNode;
+  }
+
+  @PostMapping("/")
+  public ResponseEntity<List<PageDTO>> crawl(@RequestBody BotModel botModel) throws IOException {
+    return crawlBreak(botModel, 1);
+  }
+
+  @PostMapping("/breakpoint/{breakpoint}")
+  public ResponseEntity<List<PageDTO>> crawlBreak(@RequestBody BotModel botModel, @PathVariable Integer breakpoint)
+      throws IOException {
+    if (!botModel.toBudget().isUnlimited()) {
+      return ResponseEntity.badRequest().build();
+    }
+
+    try {
+      return ResponseEntity.ok(clusterNode.crawl(botModel.getUrls(), breakpoint));
+    } catch (RejectedExecutionException e) {
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+    }
+  }
+
+  @PostMapping("/crawls/{id}/links")
+  public ResponseEntity<Void> receive(@PathVariable String id, @RequestBody LinkBatch batch) {
+    batch.setCrawlId(id);
+    try {
+      if (!clusterNode.receive(batch)) {
+        return ResponseEntity.status(HttpStatus.GONE).build();
+      }
+      return ResponseEntity.noContent().build();
+    } catch (RejectedExecutionException e) {
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+    }
+  }
+
+  @GetMapping("/crawls/{id}/status")
+  @ResponseBody
+  public NodeStatus status(@PathVariable String id) {
+    return clusterNode.status(id);
+  }
+
+  @DeleteMapping("/crawls/{id}")
+  @ResponseBody
+  public List<PageDTO> finish(@PathVariable String id) {
+    return clusterNode.finish(id);
+  }
+}
@@ -0,0 +1,90 @@
+package com.rtxct.crawler.controller;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.job.CrawlJob;
+import com.rtxct.crawler.job.JobService;
+import com.rtxct.crawler.model.BotModel;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+
+  /** Class Dependencies. */
+  private final JobService jobService;
+
+  /**
+   * JobController class constructor.
+   *
+   * @param jobService Service running the crawl jobs.
+   */
+  public JobController(JobService jobService) {
+    this.jobService = jobService;
+  }
+
+  @PostMapping("/")
+  public ResponseEntity<CrawlJob> submit(@RequestBody BotModel botModel) {
+    return submitBreak(botModel, 1);
+  }
+
+  @PostMapping("/breakpoint/{breakpoint}")
+  public ResponseEntity<CrawlJob> submitBreak(@RequestBody BotModel botModel, @PathVariable Integer breakpoint) {
+    try {
+      CrawlJob job = jobService.submit(botModel.getUrls(), breakpoint, botModel.toBudget());
+      return ResponseEntity.accepted().location(URI.create("/api/jobs/" + job.getId())).body(job);
+    } catch (RejectedExecutionException e) {
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+    }
+  }
+
+  @PostMapping("/{id}/resume")
+  public ResponseEntity<CrawlJob> resume(@PathVariable String id) {
+    try {
+      return jobService.resume(id)
+          .map(job -> ResponseEntity.accepted().location(URI.create("/api/jobs/" + job.getId())).body(job))
+          .orElse(ResponseEntity.notFound().build());
+    } catch (RejectedExecutionException e) {
+      return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+    }
+  }
+
+  @GetMapping("/")
+  @ResponseBody
+  public List<CrawlJob> list() {
+    return jobService.list();
+  }
+
+  @GetMapping("/{id}")
+  public ResponseEntity<CrawlJob> get(@PathVariable String id) {
+    return ResponseEntity.of(jobService.get(id));
+  }
+
+  @GetMapping("/{id}/pages")
+  public ResponseEntity<List<PageDTO>> pages(@PathVariable String id,
+      @RequestParam(defaultValue = "0") Integer offset, @RequestParam(defaultValue = "100") Integer limit) {
+    return ResponseEntity.of(jobService.getPages(id, offset, limit));
+  }
+
+  @DeleteMapping("/{id}")
+  public ResponseEntity<Void> cancel(@PathVariable String id) {
+    if (!jobService.cancel(id)) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.noContent().build();
+  }
+}
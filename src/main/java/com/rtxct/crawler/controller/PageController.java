@@ -1,50 +1,244 @@
 package com.rtxct.crawler.controller;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.BotFactory;
+import com.rtxct.crawler.bot.CallbackResultSink;
+import com.rtxct.crawler.dto.ActiveCrawlDTO;
 import com.rtxct.crawler.dto.PageDTO;
 import com.rtxct.crawler.model.BotModel;
+import com.rtxct.crawler.scheduler.CrawlScheduler;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 @RequestMapping("/api/crawler")
 public class PageController {
 
+  /** Class properties. */
+  private static final Logger logger = LoggerFactory.getLogger(PageController.class.getName());
+
+  /** Response header holding the identifier of a streamed crawl. */
+  public static final String CRAWL_ID_HEADER = "X-Crawl-Id";
+
+  @Value("${crawler.virtual.max-in-flight:" + Bot.DEFAULT_MAX_IN_FLIGHT + "}")
+  private Integer maxInFlight;
+
+  @Value("${crawler.nonblocking.max-in-flight:1024}")
+  private Integer nonBlockingMaxInFlight;
+
+  @Value("${crawler.scheduler.max-in-flight:16}")
+  private Integer schedulerMaxInFlight;
+
+  /** Class Dependencies. */
+  private final CrawlScheduler crawlScheduler;
+
+  private final BotFactory botFactory;
+
+  private final ObjectMapper objectMapper;
+
+  /**
+   * PageController class constructor.
+   *
+   * @param crawlScheduler Shared scheduler running the asynchronous crawls.
+   * @param botFactory     Factory of Bots configured from the properties.
+   * @param objectMapper   Mapper writing the streamed pages.
+   */
+  public PageController(CrawlScheduler crawlScheduler, BotFactory botFactory, ObjectMapper objectMapper) {
+    this.crawlScheduler = crawlScheduler;
+    this.botFactory = botFactory;
+    this.objectMapper = objectMapper;
+  }
+
   @PostMapping("/")
   @ResponseBody
   public List<PageDTO> crawler(@RequestBody BotModel botModel) {
-    return new Bot(botModel.getUrls()).crawlSync();
+    return botFactory.create(botModel.getUrls(), botModel.toBudget()).crawlSync();
   }
 
   @PostMapping("/breakpoint/{breakpoint}")
   @ResponseBody
   public List<PageDTO> crawlerBreak(@RequestBody BotModel botModel, @PathVariable Integer breakpoint) {
-    return new Bot(botModel.getUrls(), breakpoint).crawlSync();
+    return botFactory.create(botModel.getUrls(), breakpoint, botModel.toBudget()).crawlSync();
   }
 
   @PostMapping("/async")
   @ResponseBody
   public List<PageDTO> asyncCrawling(@RequestBody BotModel botModel) {
-    return new Bot(botModel.getUrls()).crawlAsync();
+    return crawlScheduler.crawl(botFactory.create(botModel.getUrls(), botModel.toBudget()), schedulerMaxInFlight);
   }
 
   @PostMapping("/async/breakpoint/{breakpoint}")
   @ResponseBody
   public List<PageDTO> asyncCrawlingBreak(@RequestBody BotModel botModel, @PathVariable Integer breakpoint) {
-    return new Bot(botModel.getUrls(), breakpoint).crawlAsync();
+    return crawlScheduler.crawl(botFactory.create(botModel.getUrls(), breakpoint, botModel.toBudget()),
+        schedulerMaxInFlight);
   }
 
   @PostMapping("/async/breakpoint/{breakpoint}/cores/{cores}")
+  public ResponseEntity<List<PageDTO>> asyncCrawlingBreakAndCors(@RequestBody BotModel botModel,
+      @PathVariable Integer breakpoint, @PathVariable Integer cores) {
+    if (cores < 1) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(
+        crawlScheduler.crawl(botFactory.create(botModel.getUrls(), breakpoint, botModel.toBudget()), cores));
+  }
+
+  @PostMapping("/virtual")
   @ResponseBody
-  public List<PageDTO> asyncCrawlingBreakAndCors(@RequestBody BotModel botModel, @PathVariable Integer breakpoint,
-      @PathVariable Integer cores) {
-    return new Bot(botModel.getUrls(), breakpoint).crawlAsync(cores);
+  public List<PageDTO> virtualCrawling(@RequestBody BotModel botModel) {
+    return crawlScheduler.crawlVirtual(botFactory.create(botModel.getUrls(), botModel.toBudget()), maxInFlight);
+  }
+
+  @PostMapping("/virtual/breakpoint/{breakpoint}")
+  @ResponseBody
+  public List<PageDTO> virtualCrawlingBreak(@RequestBody BotModel botModel, @PathVariable Integer breakpoint) {
+    return crawlScheduler.crawlVirtual(botFactory.create(botModel.getUrls(), breakpoint, botModel.toBudget()),
+        maxInFlight);
+  }
+
+  @PostMapping("/virtual/breakpoint/{breakpoint}/permits/{permits}")
+  public ResponseEntity<List<PageDTO>> virtualCrawlingBreakAndPermits(@RequestBody BotModel botModel,
+      @PathVariable Integer breakpoint, @PathVariable Integer permits) {
+    if (permits < 1) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(
+        crawlScheduler.crawlVirtual(botFactory.create(botModel.getUrls(), breakpoint, botModel.toBudget()), permits));
+  }
+
+  @PostMapping("/nonblocking")
+  @ResponseBody
+  public List<PageDTO> nonBlockingCrawling(@RequestBody BotModel botModel) {
+    return crawlScheduler.crawlNonBlocking(botFactory.create(botModel.getUrls(), botModel.toBudget()),
+        nonBlockingMaxInFlight);
+  }
+
+  @PostMapping("/nonblocking/breakpoint/{breakpoint}")
+  @ResponseBody
+  public List<PageDTO> nonBlockingCrawlingBreak(@RequestBody BotModel botModel, @PathVariable Integer breakpoint) {
+    return crawlScheduler.crawlNonBlocking(botFactory.create(botModel.getUrls(), breakpoint, botModel.toBudget()),
+        nonBlockingMaxInFlight);
+  }
+
+  @PostMapping("/nonblocking/breakpoint/{breakpoint}/permits/{permits}")
+  public ResponseEntity<List<PageDTO>> nonBlockingCrawlingBreakAndPermits(@RequestBody BotModel botModel,
+      @PathVariable Integer breakpoint, @PathVariable Integer permits) {
+    if (permits < 1) {
+      return ResponseEntity.badRequest().build();
+    }
+    return ResponseEntity.ok(crawlScheduler
+        .crawlNonBlocking(botFactory.create(botModel.getUrls(), breakpoint, botModel.toBudget()), permits));
+  }
+
+  @PostMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<ResponseBodyEmitter> streamCrawling(@RequestBody BotModel botModel) {
+    return streamCrawlingBreak(botModel, 1);
+  }
+
+  @PostMapping(value = "/stream/breakpoint/{breakpoint}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<ResponseBodyEmitter> streamCrawlingBreak(@RequestBody BotModel botModel,
+      @PathVariable Integer breakpoint) {
+    ResponseBodyEmitter emitter = new ResponseBodyEmitter(0L);
+
+    String id = stream(emitter, botModel, breakpoint,
+        page -> emitter.send(objectMapper.writeValueAsString(page) + "\n", MediaType.APPLICATION_NDJSON));
+    return ResponseEntity.ok().header(CRAWL_ID_HEADER, id).contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+  }
+
+  @PostMapping(value = "/sse", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> sseCrawling(@RequestBody BotModel botModel) {
+    return sseCrawlingBreak(botModel, 1);
+  }
+
+  @PostMapping(value = "/sse/breakpoint/{breakpoint}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public ResponseEntity<SseEmitter> sseCrawlingBreak(@RequestBody BotModel botModel, @PathVariable Integer breakpoint) {
+    SseEmitter emitter = new SseEmitter(0L);
+
+    String id = stream(emitter, botModel, breakpoint,
+        page -> emitter.send(SseEmitter.event().name("page").data(page, MediaType.APPLICATION_JSON)));
+    return ResponseEntity.ok().header(CRAWL_ID_HEADER, id).body(emitter);
+  }
+
+  @GetMapping("/active")
+  @ResponseBody
+  public List<ActiveCrawlDTO> activeCrawls() {
+    return crawlScheduler.getActiveCrawls();
+  }
+
+  @DeleteMapping("/{id}")
+  public ResponseEntity<Void> cancelCrawl(@PathVariable String id) {
+    if (!crawlScheduler.cancel(id)) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.noContent().build();
+  }
+
+  /**
+   * Runs the crawl on the shared scheduler, sending each page to the client as
+   * soon as it is scraped. Pages are not kept, and the crawl is cancelled once
+   * the client disconnects.
+   *
+   * @param emitter    Response the pages are written to.
+   * @param botModel   Crawl request.
+   * @param breakpoint Limit how deep in the URLs the crawl should go.
+   * @param writer     Writes a single page to the emitter.
+   * @return Identifier of the crawl, to be handed to the client.
+   */
+  private String stream(ResponseBodyEmitter emitter, BotModel botModel, Integer breakpoint, PageWriter writer) {
+    String id = crawlScheduler.newId();
+    AtomicReference<Bot> crawl = new AtomicReference<>();
+    CallbackResultSink results = new CallbackResultSink(page -> {
+      try {
+        writer.write(page);
+      } catch (IOException | IllegalStateException e) {
+        logger.debug("Streaming client gone, cancelling crawl", e);
+        crawl.get().cancel();
+      }
+    });
+
+    Bot bot = botFactory.create(botModel.getUrls(), breakpoint, results, botModel.toBudget());
+    crawl.set(bot);
+
+    emitter.onTimeout(bot::cancel);
+    emitter.onError(error -> bot.cancel());
+    emitter.onCompletion(bot::cancel);
+
+    crawlScheduler.submit(id, bot, schedulerMaxInFlight).whenComplete((pages, error) -> {
+      if (error != null) {
+        emitter.completeWithError(error);
+      } else {
+        emitter.complete();
+      }
+    });
+    return id;
+  }
+
+  /**
+   * Writes a scraped page to a streaming response.
+   */
+  private interface PageWriter {
+
+    void write(PageDTO page) throws IOException;
   }
 }
@@ -0,0 +1,38 @@
+package com.rtxct.crawler.controller;
+
+import java.util.List;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.rtxct.crawler.dto.SearchResultDTO;
+import com.rtxct.crawler.index.InvertedIndex;
+
+@RestController
+@RequestMapping("/api/search")
+public class SearchController {
+
+  /** Class properties. */
+  private static final int MAX_LIMIT = 100;
+
+  /** Class Dependencies. */
+  private final InvertedIndex index;
+
+  /**
+   * SearchController class constructor.
+   *
+   * @param index Index of the crawled pages.
+   */
+  public SearchController(InvertedIndex index) {
+    this.index = index;
+  }
+
+  @GetMapping
+  @ResponseBody
+  public List<SearchResultDTO> search(@RequestParam String q, @RequestParam(defaultValue = "10") Integer limit) {
+    return index.search(q, Math.min(limit, MAX_LIMIT));
+  }
+}
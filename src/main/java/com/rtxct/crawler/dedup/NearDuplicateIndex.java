@@ -0,0 +1,145 @@
+package com.rtxct.crawler.dedup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.rtxct.crawler.index.Tokenizer;
+
+public class NearDuplicateIndex {
+
+  /** Class properties. */
+  public static final int DEFAULT_MAX_DISTANCE = 3;
+
+  public static final int DEFAULT_MIN_TERMS = 50;
+
+  private final int maxDistance;
+
+  private final int minTerms;
+
+  private final int bands;
+
+  private final List<Map<Long, List<Fingerprint>>> buckets;
+
+  private int size;
+
+  /** Class Dependencies. */
+  private final Tokenizer tokenizer;
+
+  /**
+   * Fingerprint of an indexed page.
+   */
+  private static final class Fingerprint {
+    private final long value;
+
+    private final String url;
+
+    private Fingerprint(long value, String url) {
+      this.value = value;
+      this.url = url;
+    }
+  }
+
+  /**
+   * NearDuplicateIndex class constructor, with the default distance and minimum
+   * number of terms.
+   */
+  public NearDuplicateIndex() {
+    this(DEFAULT_MAX_DISTANCE, DEFAULT_MIN_TERMS);
+  }
+
+  /**
+   * NearDuplicateIndex class constructor. The fingerprints are split in one
+   * more band than the maximum distance, so two fingerprints within the
+   * distance share at least one identical band, and only the pages sharing a
+   * band are compared.
+   *
+   * @param maxDistance Maximum number of differing fingerprint bits for two
+   *                    pages to be near duplicates, from 0 to 63.
+   * @param minTerms    Minimum number of terms for a page to be checked, as
+   *                    short pages such as error pages look alike.
+   */
+  public NearDuplicateIndex(int maxDistance, int minTerms) {
+    if (maxDistance < 0 || maxDistance > 63) {
+      throw new IllegalArgumentException("maxDistance must be between 0 and 63: " + maxDistance);
+    }
+
+    this.maxDistance = maxDistance;
+    this.minTerms = minTerms;
+    this.bands = maxDistance + 1;
+    this.buckets = new ArrayList<>(bands);
+    for (int i = 0; i < bands; i++) {
+      buckets.add(new HashMap<>());
+    }
+    this.tokenizer = new Tokenizer();
+  }
+
+  /**
+   * Looks up a page near duplicate of the given text, and adds the text when
+   * there is none, so the first page seen of a group of near duplicates is
+   * kept and the following ones are reported.
+   *
+   * @param url  Page URL.
+   * @param text Visible text of the page.
+   * @return URL of the page the text duplicates, or null if there is none or
+   *         the text is too short to be checked.
+   */
+  public String findOrAdd(String url, String text) {
+    List<String> terms = tokenizer.tokenize(text);
+    if (terms.size() < minTerms) {
+      return null;
+    }
+    return findOrAdd(url, SimHash.fingerprint(terms));
+  }
+
+  /**
+   * Looks up a page whose fingerprint is within the maximum distance of the
+   * given one, and adds the fingerprint when there is none.
+   *
+   * @param url         Page URL.
+   * @param fingerprint SimHash of the page text.
+   * @return URL of the page the fingerprint duplicates, or null if there is
+   *         none.
+   */
+  public synchronized String findOrAdd(String url, long fingerprint) {
+    for (int band = 0; band < bands; band++) {
+      List<Fingerprint> candidates = buckets.get(band).get(bandKey(fingerprint, band));
+      if (candidates == null) {
+        continue;
+      }
+
+      for (Fingerprint candidate : candidates) {
+        if (SimHash.distance(candidate.value, fingerprint) <= maxDistance) {
+          return candidate.url;
+        }
+      }
+    }
+
+    Fingerprint added = new Fingerprint(fingerprint, url);
+    for (int band = 0; band < bands; band++) {
+      buckets.get(band).computeIfAbsent(bandKey(fingerprint, band), key -> new ArrayList<>(1)).add(added);
+    }
+    size++;
+    return null;
+  }
+
+  /**
+   * Gets the number of fingerprints added.
+   *
+   * @return Number of distinct pages.
+   */
+  public synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Extracts the bits of a band from the fingerprint.
+   */
+  private long bandKey(long fingerprint, int band) {
+    int from = band * 64 / bands;
+    int to = (band + 1) * 64 / bands;
+    long mask = to - from == 64 ? -1L : (1L << (to - from)) - 1;
+    return (fingerprint >>> from) & mask;
+  }
+}
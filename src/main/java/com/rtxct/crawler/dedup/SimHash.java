@@ -0,0 +1,95 @@
+package com.rtxct.crawler.dedup;
+
+import java.util.List;
+
+public class SimHash {
+
+  /** Class properties. */
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+  /** Number of consecutive terms hashed together as one feature. */
+  public static final int SHINGLE_SIZE = 3;
+
+  private SimHash() {
+  }
+
+  /**
+   * Computes the 64 bits SimHash of a text: each shingle of consecutive terms
+   * is hashed, and each bit of the fingerprint is set when it is set in most of
+   * the shingle hashes. Texts sharing most of their shingles get fingerprints
+   * differing by a few bits only.
+   *
+   * @param terms Terms of the text, in the order they appear.
+   * @return Fingerprint, 0 if there are no terms.
+   */
+  public static long fingerprint(List<String> terms) {
+    if (terms.isEmpty()) {
+      return 0;
+    }
+
+    long[] hashes = new long[terms.size()];
+    for (int i = 0; i < hashes.length; i++) {
+      hashes[i] = hash(terms.get(i));
+    }
+
+    int[] weights = new int[64];
+    int shingles = Math.max(1, hashes.length - SHINGLE_SIZE + 1);
+    for (int i = 0; i < shingles; i++) {
+      long shingle = 0;
+      for (int j = i; j < Math.min(i + SHINGLE_SIZE, hashes.length); j++) {
+        shingle = Long.rotateLeft(shingle, 21) ^ hashes[j];
+      }
+      shingle = mix(shingle);
+
+      for (int bit = 0; bit < 64; bit++) {
+        weights[bit] += ((shingle >>> bit) & 1) != 0 ? 1 : -1;
+      }
+    }
+
+    long fingerprint = 0;
+    for (int bit = 0; bit < 64; bit++) {
+      if (weights[bit] > 0) {
+        fingerprint |= 1L << bit;
+      }
+    }
+    return fingerprint;
+  }
+
+  /**
+   * Counts the bits differing between two fingerprints.
+   *
+   * @param first  First fingerprint.
+   * @param second Second fingerprint.
+   * @return Hamming distance, from 0 to 64.
+   */
+  public static int distance(long first, long second) {
+    return Long.bitCount(first ^ second);
+  }
+
+  /**
+   * Hashes the term characters straight from the String.
+   */
+  private static long hash(String term) {
+    long hash = FNV_OFFSET;
+    for (int i = 0; i < term.length(); i++) {
+      hash ^= term.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /**
+   * Spreads the bits of a hash, so each bit of the result is set with the same
+   * probability.
+   */
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,27 @@
+package com.rtxct.crawler.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ActiveCrawlDTO {
+
+  private String id;
+
+  private List<String> seeds;
+
+  private Integer breakpoint;
+
+  private Instant startedAt;
+
+  /** Pages scraped so far. */
+  private long pages;
+}
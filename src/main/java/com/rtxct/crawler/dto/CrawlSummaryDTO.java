@@ -0,0 +1,38 @@
+package com.rtxct.crawler.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CrawlSummaryDTO {
+
+  private long pages;
+
+  private long fetches;
+
+  private long bytes;
+
+  private long errors;
+
+  private long duplicates;
+
+  private long unchanged;
+
+  private long elapsedMillis;
+
+  private double pagesPerSecond;
+
+  private double bytesPerSecond;
+
+  /** Average time per page spent in each stage, in milliseconds. */
+  private Map<String, Double> stageMillis;
+
+  private Map<String, Long> errorsByType;
+}
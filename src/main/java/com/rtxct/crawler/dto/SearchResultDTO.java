@@ -0,0 +1,21 @@
+package com.rtxct.crawler.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SearchResultDTO {
+
+  private String title;
+
+  private String desc;
+
+  private String url;
+
+  private float score;
+}
@@ -0,0 +1,35 @@
+package com.rtxct.crawler.extract;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import com.rtxct.crawler.fetch.FetchResult;
+
+public class DomExtractor implements PageExtractor {
+
+  @Override
+  public ExtractedPage extract(FetchResult result) throws IOException {
+    Document doc = result.parse();
+    Element description = doc.selectFirst("meta[name=description]");
+    Element canonicalLink = doc.selectFirst("link[rel=canonical][href]");
+    String canonical = canonicalLink != null ? canonicalLink.absUrl("href") : "";
+
+    Elements anchors = doc.select("a[href]");
+    List<String> links = new ArrayList<>(anchors.size());
+    anchors.forEach(anchor -> links.add(anchor.attr("href")));
+
+    return ExtractedPage.builder()
+        .title(doc.title())
+        .description(description != null ? description.attr("content") : "")
+        .canonical(canonical.isEmpty() ? null : canonical)
+        .baseUrl(doc.baseUri())
+        .links(links)
+        .document(doc)
+        .build();
+  }
+}
@@ -0,0 +1,37 @@
+package com.rtxct.crawler.extract;
+
+import java.util.List;
+
+import org.jsoup.nodes.Document;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class ExtractedPage {
+
+  /** Class properties. */
+  private String title;
+
+  private String description;
+
+  /** Absolute URL of the canonical link, null if the page has none. */
+  private String canonical;
+
+  /** URL the links are relative to, either the page URL or its base tag. */
+  private String baseUrl;
+
+  /** Raw href attributes of the anchors, in the order they appear. */
+  @Builder.Default
+  private List<String> links = List.of();
+
+  /** Visible body text, null if it was not extracted. */
+  private String text;
+
+  /** Parsed page, null if the page was not parsed into a tree. */
+  private Document document;
+
+  /** Whether the body was cut at the size limit. */
+  private boolean truncated;
+}
@@ -0,0 +1,19 @@
+package com.rtxct.crawler.extract;
+
+import java.io.IOException;
+
+import com.rtxct.crawler.fetch.FetchResult;
+
+public interface PageExtractor {
+
+  /**
+   * Extracts the title, description, canonical link and anchors of a fetched
+   * page. Implementations are shared by the crawl threads, so they must be
+   * thread safe.
+   *
+   * @param result Successful fetch result, holding the body.
+   * @return Extracted page data.
+   * @throws IOException If the body could not be decoded.
+   */
+  ExtractedPage extract(FetchResult result) throws IOException;
+}
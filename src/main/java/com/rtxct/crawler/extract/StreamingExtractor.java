@@ -0,0 +1,617 @@
+package com.rtxct.crawler.extract;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jsoup.nodes.Entities;
+import org.jsoup.parser.Parser;
+
+import com.rtxct.crawler.fetch.FetchResult;
+
+public class StreamingExtractor implements PageExtractor {
+
+  /** Class properties. */
+  public static final int DEFAULT_MAX_BYTES = 4 << 20;
+
+  private static final int CHARSET_SNIFF_BYTES = 1024;
+
+  /** Elements not breaking the text flow, any other one separates words. */
+  private static final String[] INLINE_TAGS = { "a", "abbr", "b", "bdi", "bdo", "cite", "code", "data", "dfn", "em",
+      "font", "i", "kbd", "label", "mark", "q", "s", "samp", "small", "span", "strong", "sub", "sup", "time", "u",
+      "var" };
+
+  /** Tags the extraction reads, followed by the inline ones. */
+  private static final String[] KNOWN_TAGS = { "a", "base", "body", "head", "link", "meta", "noscript", "script",
+      "style", "template", "textarea", "title", "abbr", "b", "bdi", "bdo", "cite", "code", "data", "dfn", "em",
+      "font", "i", "kbd", "label", "mark", "q", "s", "samp", "small", "span", "strong", "sub", "sup", "time", "u",
+      "var" };
+
+  private final int maxBytes;
+
+  private final boolean collectText;
+
+  /**
+   * StreamingExtractor class constructor, extracting the body text of the first
+   * {@link #DEFAULT_MAX_BYTES} bytes.
+   */
+  public StreamingExtractor() {
+    this(DEFAULT_MAX_BYTES, true);
+  }
+
+  /**
+   * StreamingExtractor class constructor.
+   *
+   * @param maxBytes    Number of body bytes read at most, the rest of the page
+   *                    is ignored.
+   * @param collectText Whether the visible body text is extracted, for the
+   *                    index and the near duplicates detection.
+   */
+  public StreamingExtractor(int maxBytes, boolean collectText) {
+    this.maxBytes = maxBytes;
+    this.collectText = collectText;
+  }
+
+  /**
+   * Extracts the page data in a single pass over the markup, without building a
+   * tree. Only the attributes of the base, link, meta and anchor tags are read,
+   * and entities are only decoded in the values that hold some.
+   */
+  @Override
+  public ExtractedPage extract(FetchResult result) {
+    byte[] body = result.getBody();
+    int length = Math.min(body.length, maxBytes);
+    String html = new String(body, 0, length, charset(result.getCharset(), body, length));
+    return new Scan(html, result.getFinalUrl()).run().truncated(length < body.length).build();
+  }
+
+  /**
+   * State of the extraction of a single page.
+   */
+  private final class Scan {
+    private final String html;
+
+    private final String pageUrl;
+
+    private final List<String> links = new ArrayList<>();
+
+    private final StringBuilder text;
+
+    private String title;
+
+    private String description;
+
+    private String canonical;
+
+    private String base;
+
+    private boolean inHead;
+
+    /** Name bounds and value of the attribute just read. */
+    private int nameStart;
+
+    private int nameEnd;
+
+    private String value;
+
+    private Scan(String html, String pageUrl) {
+      this.html = html;
+      this.pageUrl = pageUrl;
+      this.text = collectText ? new StringBuilder(Math.min(html.length(), 1 << 16)) : null;
+    }
+
+    /**
+     * Reads the markup up to its end, a tag or comment cut by the size limit
+     * ending the scan.
+     */
+    private ExtractedPage.ExtractedPageBuilder run() {
+      int i = 0;
+      int length = html.length();
+      int textStart = 0;
+
+      while (i < length) {
+        int open = html.indexOf('<', i);
+        if (open < 0 || open + 1 >= length) {
+          appendText(textStart, length);
+          break;
+        }
+
+        char next = html.charAt(open + 1);
+        if (next == '!' && html.startsWith("<!--", open)) {
+          appendText(textStart, open);
+          int close = html.indexOf("-->", open + 4);
+          i = textStart = close < 0 ? length : close + 3;
+        } else if (next == '!' || next == '?') {
+          appendText(textStart, open);
+          int close = html.indexOf('>', open);
+          i = textStart = close < 0 ? length : close + 1;
+        } else if (next == '/' && open + 2 < length && isLetter(html.charAt(open + 2))) {
+          appendText(textStart, open);
+          int nameEnd = tagNameEnd(open + 2);
+          endTag(open + 2, nameEnd);
+          int close = html.indexOf('>', nameEnd);
+          i = textStart = close < 0 ? length : close + 1;
+        } else if (isLetter(next)) {
+          appendText(textStart, open);
+          i = textStart = startTag(open + 1);
+        } else {
+          i = open + 1;
+        }
+      }
+
+      return ExtractedPage.builder()
+          .title(title != null ? title : "")
+          .description(description != null ? description : "")
+          .canonical(canonical)
+          .baseUrl(base != null ? base : pageUrl)
+          .links(links)
+          .text(text != null ? decode(text.toString().strip(), false) : null);
+    }
+
+    /**
+     * Reads a start tag and its attributes, and skips the content of the raw
+     * text elements.
+     *
+     * @param nameStart Index of the first letter of the tag name.
+     * @return Index following the tag, or its raw text content.
+     */
+    private int startTag(int nameStart) {
+      int nameEnd = tagNameEnd(nameStart);
+      String tag = knownTag(html, nameStart, nameEnd);
+      if (tag == null) {
+        separateText();
+        return skipAttributes(nameEnd, null);
+      }
+
+      int end = skipAttributes(nameEnd, tag);
+      switch (tag) {
+        case "head":
+          inHead = true;
+          break;
+        case "body":
+          inHead = false;
+          separateText();
+          break;
+        case "title":
+          int close = endTagIndex(end, "title");
+          if (title == null) {
+            title = normalizeSpace(decode(html.substring(end, close), false));
+          }
+          return skipEndTag(close);
+        case "script":
+        case "style":
+        case "textarea":
+        case "noscript":
+        case "template":
+          return skipEndTag(endTagIndex(end, tag));
+        default:
+          if (!isInline(tag)) {
+            separateText();
+          }
+      }
+      return end;
+    }
+
+    /**
+     * Updates the state on the end tags that matter to the extraction.
+     */
+    private void endTag(int nameStart, int nameEnd) {
+      String tag = knownTag(html, nameStart, nameEnd);
+      if ("head".equals(tag)) {
+        inHead = false;
+      } else if (tag == null || !isInline(tag)) {
+        separateText();
+      }
+    }
+
+    /**
+     * Reads the attributes of a tag up to its closing bracket, keeping the ones
+     * used by the extraction. A tag cut by the size limit is ignored.
+     *
+     * @param i   Index following the tag name.
+     * @param tag Known tag name, or null.
+     * @return Index following the tag.
+     */
+    private int skipAttributes(int i, String tag) {
+      boolean keep = tag != null && (tag.equals("a") || tag.equals("meta") || tag.equals("link")
+          || tag.equals("base"));
+      String href = null;
+      String rel = null;
+      String name = null;
+      String content = null;
+      int length = html.length();
+      boolean closed = false;
+
+      while (i < length) {
+        char c = html.charAt(i);
+        if (c == '>') {
+          closed = true;
+          i++;
+          break;
+        }
+        if (Character.isWhitespace(c) || c == '/') {
+          i++;
+          continue;
+        }
+
+        i = readAttribute(i, keep);
+        if (keep && value != null) {
+          if (isName("href")) {
+            href = value;
+          } else if (isName("rel")) {
+            rel = value;
+          } else if (isName("name")) {
+            name = value;
+          } else if (isName("content")) {
+            content = value;
+          }
+        }
+      }
+
+      if (keep && closed) {
+        keepAttributes(tag, href, rel, name, content);
+      }
+      return i;
+    }
+
+    /**
+     * Records the data held by the attributes of a base, link, meta or anchor
+     * tag.
+     */
+    private void keepAttributes(String tag, String href, String rel, String name, String content) {
+      switch (tag) {
+        case "a":
+          if (href != null) {
+            links.add(decode(href, true));
+          }
+          break;
+        case "meta":
+          if (description == null && name != null && name.equalsIgnoreCase("description")) {
+            description = content != null ? decode(content, true) : "";
+          }
+          break;
+        case "link":
+          if (canonical == null && href != null && rel != null && hasToken(rel, "canonical")) {
+            canonical = resolve(base != null ? base : pageUrl, decode(href.strip(), true));
+          }
+          break;
+        case "base":
+          if (base == null && href != null) {
+            base = resolve(pageUrl, decode(href.strip(), true));
+          }
+          break;
+        default:
+      }
+    }
+
+    /**
+     * Reads an attribute name and its value, quoted, unquoted or missing.
+     *
+     * @param i    Index of the first character of the name.
+     * @param keep Whether the value is kept as a String.
+     * @return Index following the attribute.
+     */
+    private int readAttribute(int i, boolean keep) {
+      int length = html.length();
+      nameStart = i;
+      while (i < length) {
+        char c = html.charAt(i);
+        if (c == '=' || c == '>' || c == '/' || Character.isWhitespace(c)) {
+          break;
+        }
+        i++;
+      }
+      nameEnd = i;
+      value = keep ? "" : null;
+
+      while (i < length && Character.isWhitespace(html.charAt(i))) {
+        i++;
+      }
+      if (i >= length || html.charAt(i) != '=') {
+        return i;
+      }
+      i++;
+      while (i < length && Character.isWhitespace(html.charAt(i))) {
+        i++;
+      }
+      if (i >= length) {
+        return i;
+      }
+
+      char quote = html.charAt(i);
+      int valueStart;
+      int valueEnd;
+      if (quote == '"' || quote == '\'') {
+        valueStart = i + 1;
+        valueEnd = html.indexOf(quote, valueStart);
+        if (valueEnd < 0) {
+          valueEnd = length;
+        }
+        i = Math.min(valueEnd + 1, length);
+      } else {
+        valueStart = i;
+        while (i < length && html.charAt(i) != '>' && !Character.isWhitespace(html.charAt(i))) {
+          i++;
+        }
+        valueEnd = i;
+      }
+
+      if (keep) {
+        value = html.substring(valueStart, valueEnd);
+      }
+      return i;
+    }
+
+    /**
+     * Checks whether the attribute just read has the given lowercase name.
+     */
+    private boolean isName(String name) {
+      return nameEnd - nameStart == name.length() && html.regionMatches(true, nameStart, name, 0, name.length());
+    }
+
+    /**
+     * Appends the text between two tags, when the body text is collected.
+     */
+    private void appendText(int from, int to) {
+      if (text == null || inHead || from >= to) {
+        return;
+      }
+
+      for (int i = from; i < to; i++) {
+        char c = html.charAt(i);
+        if (Character.isWhitespace(c)) {
+          separateText();
+        } else {
+          text.append(c);
+        }
+      }
+    }
+
+    /**
+     * Separates the next words from the collected ones.
+     */
+    private void separateText() {
+      if (text != null && text.length() > 0 && text.charAt(text.length() - 1) != ' ') {
+        text.append(' ');
+      }
+    }
+
+    /**
+     * Finds the end of a tag name.
+     */
+    private int tagNameEnd(int i) {
+      while (i < html.length()) {
+        char c = html.charAt(i);
+        if (c == '>' || c == '/' || Character.isWhitespace(c)) {
+          break;
+        }
+        i++;
+      }
+      return i;
+    }
+
+    /**
+     * Finds the end tag of a raw text element, ignoring the case.
+     *
+     * @return Index of the end tag, or the end of the markup if it is missing.
+     */
+    private int endTagIndex(int from, String tag) {
+      int i = from;
+      while ((i = html.indexOf("</", i)) >= 0) {
+        if (html.regionMatches(true, i + 2, tag, 0, tag.length())) {
+          return i;
+        }
+        i += 2;
+      }
+      return html.length();
+    }
+
+    /**
+     * Skips an end tag starting at the given index.
+     */
+    private int skipEndTag(int i) {
+      int close = html.indexOf('>', i);
+      return close < 0 ? html.length() : close + 1;
+    }
+  }
+
+  /**
+   * Picks the charset of the body: the one of the response, or the one declared
+   * by a meta tag at the start of the body, or UTF-8.
+   *
+   * @param declared Charset of the Content-Type header, may be null.
+   * @param body     Response body.
+   * @param length   Number of bytes read.
+   * @return Charset to decode the body with.
+   */
+  static Charset charset(String declared, byte[] body, int length) {
+    Charset charset = forName(declared);
+    if (charset != null) {
+      return charset;
+    }
+
+    String head = new String(body, 0, Math.min(length, CHARSET_SNIFF_BYTES), StandardCharsets.ISO_8859_1);
+    int index = head.toLowerCase().indexOf("charset=");
+    if (index >= 0) {
+      int start = index + "charset=".length();
+      while (start < head.length() && (head.charAt(start) == '"' || head.charAt(start) == '\'')) {
+        start++;
+      }
+      int end = start;
+      while (end < head.length() && (Character.isLetterOrDigit(head.charAt(end)) || head.charAt(end) == '-'
+          || head.charAt(end) == '_')) {
+        end++;
+      }
+      charset = forName(head.substring(start, end));
+    }
+    return charset != null ? charset : StandardCharsets.UTF_8;
+  }
+
+  /**
+   * Looks up a charset by name.
+   *
+   * @return Charset, or null if the name is empty or not supported.
+   */
+  private static Charset forName(String name) {
+    if (name == null || name.isEmpty()) {
+      return null;
+    }
+
+    try {
+      return Charset.forName(name);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns the constant of a tag name the extraction cares about, ignoring the
+   * case, so tags are matched without allocating their name.
+   *
+   * @return Lowercase tag name, or null if the tag does not matter.
+   */
+  private static String knownTag(String html, int from, int to) {
+    int length = to - from;
+    for (String tag : KNOWN_TAGS) {
+      if (tag.length() == length && html.regionMatches(true, from, tag, 0, length)) {
+        return tag;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Checks whether a known tag is an inline one.
+   */
+  private static boolean isInline(String tag) {
+    for (String inline : INLINE_TAGS) {
+      if (inline.equals(tag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether a space separated attribute value holds the given token,
+   * ignoring the case.
+   */
+  private static boolean hasToken(String value, String token) {
+    for (String part : value.split("\\s+")) {
+      if (part.equalsIgnoreCase(token)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Resolves a URL against a base one.
+   *
+   * @return Absolute URL, or null if it could not be resolved.
+   */
+  private static String resolve(String base, String href) {
+    try {
+      return URI.create(base).resolve(href).toString();
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Decodes the character references of a text, if it holds some. References
+   * ended by a semicolon are decoded in place, the text is handed to the Jsoup
+   * decoder only when it holds legacy ones.
+   *
+   * @param text        Raw text.
+   * @param inAttribute Whether the text is an attribute value, where references
+   *                    not ended by a semicolon are kept as is.
+   * @return Decoded text.
+   */
+  private static String decode(String text, boolean inAttribute) {
+    int amp = text.indexOf('&');
+    if (amp < 0) {
+      return text;
+    }
+
+    StringBuilder decoded = new StringBuilder(text.length());
+    int from = 0;
+    while (amp >= 0) {
+      decoded.append(text, from, amp);
+      int semicolon = text.indexOf(';', amp + 1);
+      String reference = semicolon > amp + 1 && semicolon - amp <= 32 ? reference(text, amp + 1, semicolon) : null;
+      if (reference != null) {
+        decoded.append(reference);
+        from = semicolon + 1;
+      } else if (inAttribute) {
+        decoded.append('&');
+        from = amp + 1;
+      } else {
+        return Parser.unescapeEntities(text, false);
+      }
+      amp = text.indexOf('&', from);
+    }
+    return decoded.append(text, from, text.length()).toString();
+  }
+
+  /**
+   * Resolves a numeric or named character reference.
+   *
+   * @param text Text holding the reference.
+   * @param from Index following the ampersand.
+   * @param to   Index of the semicolon.
+   * @return Referenced characters, or null if the reference is not valid.
+   */
+  private static String reference(String text, int from, int to) {
+    if (text.charAt(from) == '#') {
+      boolean hex = from + 1 < to && (text.charAt(from + 1) == 'x' || text.charAt(from + 1) == 'X');
+      try {
+        int codePoint = Integer.parseInt(text, hex ? from + 2 : from + 1, to, hex ? 16 : 10);
+        return Character.isValidCodePoint(codePoint) && codePoint != 0 ? Character.toString(codePoint) : "\uFFFD";
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    String name = text.substring(from, to);
+    switch (name) {
+      case "amp":
+        return "&";
+      case "lt":
+        return "<";
+      case "gt":
+        return ">";
+      case "quot":
+        return "\"";
+      case "apos":
+        return "'";
+      case "nbsp":
+        return "\u00A0";
+      default:
+        String value = Entities.getByName(name);
+        return value.isEmpty() ? null : value;
+    }
+  }
+
+  /**
+   * Collapses the whitespace runs of a text into single spaces.
+   */
+  private static String normalizeSpace(String text) {
+    StringBuilder builder = new StringBuilder(text.length());
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (!Character.isWhitespace(c)) {
+        builder.append(c);
+      } else if (builder.length() > 0 && builder.charAt(builder.length() - 1) != ' ') {
+        builder.append(' ');
+      }
+    }
+    return builder.toString().strip();
+  }
+
+  private static boolean isLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+}
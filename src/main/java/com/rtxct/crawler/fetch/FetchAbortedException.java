@@ -0,0 +1,51 @@
+package com.rtxct.crawler.fetch;
+
+import java.io.IOException;
+
+import lombok.Getter;
+
+@Getter
+public class FetchAbortedException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Why the body of a response was not downloaded.
+   */
+  public enum Reason {
+    /** The content type can not be parsed as a page. */
+    UNSUPPORTED_CONTENT_TYPE,
+
+    /** The body is larger than the limit. */
+    BODY_TOO_LARGE,
+
+    /** The body is downloaded slower than the minimum rate. */
+    TOO_SLOW,
+
+    /** The response is not received before the fetch deadline. */
+    TIMED_OUT;
+
+    /**
+     * Gets the name of the reason as used in the metrics tags.
+     *
+     * @return Reason name, in lowercase.
+     */
+    public String getTag() {
+      return name().toLowerCase();
+    }
+  }
+
+  /** Class properties. */
+  private final Reason reason;
+
+  /**
+   * FetchAbortedException class constructor.
+   *
+   * @param reason  Why the body was not downloaded.
+   * @param message Detail message.
+   */
+  public FetchAbortedException(Reason reason, String message) {
+    super(message);
+    this.reason = reason;
+  }
+}
@@ -0,0 +1,36 @@
+package com.rtxct.crawler.fetch;
+
+import java.time.Duration;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class FetchLimits {
+
+  /** Class properties. */
+  public static final FetchLimits DEFAULT = FetchLimits.builder().build();
+
+  /** Largest body downloaded, larger responses are aborted. */
+  @Builder.Default
+  private long maxBodySize = 10 * 1024 * 1024;
+
+  /**
+   * Slowest transfer rate accepted in bytes per second, once the grace period
+   * is over. 0 disables the check.
+   */
+  @Builder.Default
+  private long minThroughput = 1024;
+
+  /** Time given to a body to reach the minimum rate. */
+  @Builder.Default
+  private Duration throughputGracePeriod = Duration.ofSeconds(5);
+
+  /**
+   * Time given to a body to be received once the request timeout is over, after
+   * which the fetch fails whatever its transfer rate.
+   */
+  @Builder.Default
+  private Duration bodyTimeout = Duration.ofSeconds(30);
+}
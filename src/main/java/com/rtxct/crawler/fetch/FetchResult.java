@@ -0,0 +1,139 @@
+package com.rtxct.crawler.fetch;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder(toBuilder = true)
+public class FetchResult {
+
+  /** Class properties. */
+  private String url;
+
+  private String finalUrl;
+
+  private int statusCode;
+
+  @Builder.Default
+  private Map<String, String> headers = Collections.emptyMap();
+
+  private String contentType;
+
+  private String charset;
+
+  private byte[] body;
+
+  private long fetchTimeMillis;
+
+  private Exception error;
+
+  /**
+   * Creates a result for a request that could not be completed.
+   *
+   * @param url   Requested URL.
+   * @param error Cause of the failure.
+   * @return Failed fetch result.
+   */
+  public static FetchResult failed(String url, Exception error) {
+    return FetchResult.builder().url(url).finalUrl(url).error(error).build();
+  }
+
+  /**
+   * Creates the result of a request that failed asynchronously, unwrapping the
+   * error of the completion stage.
+   *
+   * @param url   Requested URL.
+   * @param error Error completing the request.
+   * @return Failed fetch result.
+   */
+  public static FetchResult failed(String url, Throwable error) {
+    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    return failed(url, cause instanceof Exception exception ? exception : new ExecutionException(cause));
+  }
+
+  /**
+   * Checks whether the response is a successful one, holding a body that can be
+   * parsed.
+   *
+   * @return Boolean whether the page is available or not.
+   */
+  public boolean isOk() {
+    return error == null && statusCode == 200 && body != null;
+  }
+
+  /**
+   * Checks whether the server answered a conditional request with 304, meaning
+   * the page did not change since the given validators.
+   *
+   * @return Boolean whether the page was not modified or not.
+   */
+  public boolean isNotModified() {
+    return error == null && statusCode == 304;
+  }
+
+  /**
+   * Computes a fingerprint of the body, detecting changed pages on servers that
+   * do not send validators.
+   *
+   * @return SHA-256 of the body as hexadecimal, or null if there is no body.
+   */
+  public String contentHash() {
+    if (body == null) {
+      return null;
+    }
+
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Checks whether the request was redirected to another location.
+   *
+   * @return Boolean whether the final URL differs from the requested one.
+   */
+  public boolean isRedirected() {
+    return finalUrl != null && !finalUrl.equals(url);
+  }
+
+  /**
+   * Gets a response header, ignoring the header name case.
+   *
+   * @param name Header name.
+   * @return Header value, or null if not present.
+   */
+  public String header(String name) {
+    for (Map.Entry<String, String> entry : headers.entrySet()) {
+      if (entry.getKey().equalsIgnoreCase(name)) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Parses the already downloaded body into a Document, without issuing a new
+   * request.
+   *
+   * @return Parsed document.
+   * @throws IOException If the body could not be decoded.
+   */
+  public Document parse() throws IOException {
+    return Jsoup.parse(new ByteArrayInputStream(body), charset, finalUrl);
+  }
+}
@@ -0,0 +1,44 @@
+package com.rtxct.crawler.fetch;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public interface Fetcher {
+
+  /**
+   * Issues a single request to the given URL, returning status, headers and body
+   * together.
+   *
+   * @param url URL to be fetched.
+   * @return Fetch result, never null. Failures are reported through the result.
+   */
+  FetchResult fetch(String url);
+
+  /**
+   * Issues a single request to the given URL with extra request headers, such
+   * as the If-None-Match and If-Modified-Since ones of a conditional request.
+   * Ignores the headers by default.
+   *
+   * @param url     URL to be fetched.
+   * @param headers Request headers, by name.
+   * @return Fetch result, never null. Failures are reported through the result.
+   */
+  default FetchResult fetch(String url, Map<String, String> headers) {
+    return fetch(url);
+  }
+
+  /**
+   * Issues a single request to the given URL without blocking the calling
+   * thread. Runs the blocking {@link #fetch(String, Map)} on a virtual thread
+   * by default, so fetchers without a non-blocking client still free the
+   * caller.
+   *
+   * @param url     URL to be fetched.
+   * @param headers Request headers, by name.
+   * @return Future completed with the fetch result, never failed. Failures are
+   *         reported through the result.
+   */
+  default CompletableFuture<FetchResult> fetchAsync(String url, Map<String, String> headers) {
+    return CompletableFuture.supplyAsync(() -> fetch(url, headers), Thread::startVirtualThread);
+  }
+}
@@ -0,0 +1,271 @@
+package com.rtxct.crawler.fetch;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.rtxct.crawler.fetch.FetchAbortedException.Reason;
+
+public class HttpClientFetcher implements Fetcher {
+
+  /** Class properties. */
+  public static final Duration DEFAULT_TIMEOUT = Duration.ofMillis(JsoupFetcher.DEFAULT_TIMEOUT);
+
+  private static final String USER_AGENT = "Mozilla/5.0 (compatible; rtxct-crawler)";
+
+  private static final HttpClient SHARED_CLIENT = newClient(DEFAULT_TIMEOUT);
+
+  /** How often the transfer rate of a body is checked, in milliseconds. */
+  private static final long THROUGHPUT_CHECK_INTERVAL = 250;
+
+  /** Checks the transfer rate of the bodies being received, on a single thread. */
+  private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofPlatform().name("fetch-watchdog").daemon().factory());
+
+  private final HttpClient client;
+
+  private final Duration timeout;
+
+  private final FetchLimits limits;
+
+  /**
+   * HttpClientFetcher class constructor. Uses a client shared by every crawl, so
+   * kept alive connections are reused across crawls of the same hosts.
+   */
+  public HttpClientFetcher() {
+    this(FetchLimits.DEFAULT);
+  }
+
+  /**
+   * HttpClientFetcher class constructor, using the client shared by every crawl.
+   *
+   * @param limits Size and rate limits of the response bodies.
+   */
+  public HttpClientFetcher(FetchLimits limits) {
+    this(SHARED_CLIENT, DEFAULT_TIMEOUT, limits);
+  }
+
+  /**
+   * HttpClientFetcher class constructor.
+   *
+   * @param client  HTTP client, holding the connection pool.
+   * @param timeout Request timeout.
+   */
+  public HttpClientFetcher(HttpClient client, Duration timeout) {
+    this(client, timeout, FetchLimits.DEFAULT);
+  }
+
+  /**
+   * HttpClientFetcher class constructor.
+   *
+   * @param client  HTTP client, holding the connection pool.
+   * @param timeout Request timeout, until the response headers are received.
+   * @param limits  Size and rate limits of the response bodies.
+   */
+  public HttpClientFetcher(HttpClient client, Duration timeout, FetchLimits limits) {
+    this.client = client;
+    this.timeout = timeout;
+    this.limits = limits;
+  }
+
+  /**
+   * Creates an HTTP/1.1 client following redirects. The client keeps a pool of
+   * open connections per host, reused by the following requests.
+   *
+   * @param connectTimeout Connection timeout.
+   * @return HTTP client.
+   */
+  public static HttpClient newClient(Duration connectTimeout) {
+    return newClient(connectTimeout, HttpClient.Version.HTTP_1_1);
+  }
+
+  /**
+   * Creates a client following redirects. With HTTP/2, the requests to a host
+   * are multiplexed over a single connection when the server supports it, and
+   * sent over HTTP/1.1 otherwise.
+   *
+   * @param connectTimeout Connection timeout.
+   * @param version        Preferred HTTP version.
+   * @return HTTP client.
+   */
+  public static HttpClient newClient(Duration connectTimeout, HttpClient.Version version) {
+    return HttpClient.newBuilder()
+        .version(version)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .connectTimeout(connectTimeout)
+        .build();
+  }
+
+  /**
+   * Fetches the given URL with a single GET request over a pooled connection.
+   *
+   * @param url URL to be fetched.
+   * @return Fetch result.
+   */
+  @Override
+  public FetchResult fetch(String url) {
+    return fetch(url, Map.of());
+  }
+
+  /**
+   * Fetches the given URL with a single GET request over a pooled connection,
+   * adding the given request headers. Bodies that can not be parsed, too large
+   * or downloaded too slowly are not kept, and their download is stopped.
+   *
+   * @param url     URL to be fetched.
+   * @param headers Request headers, by name.
+   * @return Fetch result.
+   */
+  @Override
+  public FetchResult fetch(String url, Map<String, String> headers) {
+    CompletableFuture<FetchResult> result = fetchAsync(url, headers);
+
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result.cancel(true);
+      return FetchResult.failed(url, e);
+    } catch (ExecutionException e) {
+      return FetchResult.failed(url, e.getCause());
+    }
+  }
+
+  /**
+   * Fetches the given URL with a single GET request without blocking the
+   * calling thread, the response being received by the client selector. The
+   * transfer rate of the body is checked every interval by a shared watchdog,
+   * as a stalled transfer never times out by itself, and the fetch fails once
+   * the request and body timeouts are over. Cancelling the future stops the
+   * download.
+   *
+   * @param url     URL to be fetched.
+   * @param headers Request headers, by name.
+   * @return Future completed with the fetch result, never failed.
+   */
+  @Override
+  public CompletableFuture<FetchResult> fetchAsync(String url, Map<String, String> headers) {
+    long start = System.currentTimeMillis();
+
+    HttpRequest request;
+    try {
+      HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+          .timeout(timeout)
+          .header("User-Agent", USER_AGENT)
+          .header("Accept", "text/html,application/xhtml+xml;q=0.9,*/*;q=0.8")
+          .GET();
+      headers.forEach(builder::header);
+      request = builder.build();
+    } catch (Exception e) {
+      return CompletableFuture.completedFuture(FetchResult.failed(url, e));
+    }
+
+    LimitedBodyHandler body = new LimitedBodyHandler(limits);
+    CompletableFuture<HttpResponse<byte[]>> response = client.sendAsync(request, body);
+    CompletableFuture<FetchResult> result = response.handle((received, error) -> error == null
+        ? toResult(url, received, start)
+        : FetchResult.failed(url, error));
+
+    ScheduledFuture<?> watchdog = limits.getMinThroughput() <= 0 ? null
+        : WATCHDOG.scheduleWithFixedDelay(body::checkThroughput, THROUGHPUT_CHECK_INTERVAL,
+            THROUGHPUT_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    Duration deadline = timeout.plus(limits.getBodyTimeout());
+    ScheduledFuture<?> expiry = WATCHDOG.schedule(() -> {
+      FetchAbortedException error = new FetchAbortedException(Reason.TIMED_OUT,
+          "Response not received within " + deadline.toMillis() + " ms");
+      body.abort(error);
+      if (result.complete(FetchResult.failed(url, error))) {
+        response.cancel(true);
+      }
+    }, deadline.toMillis(), TimeUnit.MILLISECONDS);
+
+    result.whenComplete((done, error) -> {
+      if (watchdog != null) {
+        watchdog.cancel(false);
+      }
+      expiry.cancel(false);
+      if (result.isCancelled()) {
+        body.abort(new CancellationException("Fetch cancelled"));
+        response.cancel(true);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Converts the client response into a fetch result.
+   *
+   * @param url      Requested URL.
+   * @param response Client response.
+   * @param start    Request start time in milliseconds.
+   * @return Fetch result.
+   */
+  static FetchResult toResult(String url, HttpResponse<byte[]> response, long start) {
+    String contentType = response.headers().firstValue("Content-Type").orElse(null);
+    Map<String, String> headers = new LinkedHashMap<>();
+    response.headers().map().forEach((name, values) -> headers.put(name, String.join(", ", values)));
+
+    return FetchResult.builder()
+        .url(url)
+        .finalUrl(response.uri().toString())
+        .statusCode(response.statusCode())
+        .headers(headers)
+        .contentType(contentType)
+        .charset(charsetOf(contentType))
+        .body(response.body())
+        .fetchTimeMillis(System.currentTimeMillis() - start)
+        .build();
+  }
+
+  /**
+   * Checks whether the content type is a text or a markup one, as accepted by
+   * the Jsoup parser.
+   *
+   * @param contentType Content-Type header value.
+   * @return Boolean whether the content can be parsed or not.
+   */
+  static boolean isParsable(String contentType) {
+    String type = contentType.toLowerCase();
+    return type.startsWith("text/") || type.startsWith("application/xml") || type.startsWith("application/xhtml+xml")
+        || type.contains("+xml");
+  }
+
+  /**
+   * Extracts the charset parameter from a Content-Type header.
+   *
+   * @param contentType Content-Type header value.
+   * @return Charset name, or null if not present.
+   */
+  static String charsetOf(String contentType) {
+    if (contentType == null) {
+      return null;
+    }
+
+    for (String param : List.of(contentType.split(";"))) {
+      String[] pair = param.trim().split("=", 2);
+      if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset")) {
+        String charset = pair[1].trim().replace("\"", "");
+        try {
+          return Charset.isSupported(charset) ? charset : null;
+        } catch (IllegalCharsetNameException e) {
+          return null;
+        }
+      }
+    }
+    return null;
+  }
+}
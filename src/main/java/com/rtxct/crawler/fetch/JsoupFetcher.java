@@ -0,0 +1,78 @@
+package com.rtxct.crawler.fetch;
+
+import java.util.Map;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+
+public class JsoupFetcher implements Fetcher {
+
+  /** Class properties. */
+  public static final int DEFAULT_TIMEOUT = 5000;
+
+  private final int timeout;
+
+  /**
+   * JsoupFetcher class constructor.
+   */
+  public JsoupFetcher() {
+    this(DEFAULT_TIMEOUT);
+  }
+
+  /**
+   * JsoupFetcher class constructor.
+   *
+   * @param timeout Connect and read timeout in milliseconds.
+   */
+  public JsoupFetcher(int timeout) {
+    this.timeout = timeout;
+  }
+
+  /**
+   * Fetches the given URL with a single GET request. HTTP errors do not throw,
+   * so the status code can be inspected by the caller, and redirects are
+   * followed.
+   *
+   * @param url URL to be fetched.
+   * @return Fetch result.
+   */
+  @Override
+  public FetchResult fetch(String url) {
+    return fetch(url, Map.of());
+  }
+
+  /**
+   * Fetches the given URL with a single GET request, adding the given request
+   * headers.
+   *
+   * @param url     URL to be fetched.
+   * @param headers Request headers, by name.
+   * @return Fetch result.
+   */
+  @Override
+  public FetchResult fetch(String url, Map<String, String> headers) {
+    long start = System.currentTimeMillis();
+
+    try {
+      Connection.Response response = Jsoup.connect(url)
+          .headers(headers)
+          .timeout(timeout)
+          .ignoreHttpErrors(true)
+          .followRedirects(true)
+          .execute();
+
+      return FetchResult.builder()
+          .url(url)
+          .finalUrl(response.url().toString())
+          .statusCode(response.statusCode())
+          .headers(response.headers())
+          .contentType(response.contentType())
+          .charset(response.charset())
+          .body(response.bodyAsBytes())
+          .fetchTimeMillis(System.currentTimeMillis() - start)
+          .build();
+    } catch (Exception e) {
+      return FetchResult.failed(url, e);
+    }
+  }
+}
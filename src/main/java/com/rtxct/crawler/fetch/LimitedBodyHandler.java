@@ -0,0 +1,151 @@
+package com.rtxct.crawler.fetch;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.rtxct.crawler.fetch.FetchAbortedException.Reason;
+
+class LimitedBodyHandler implements HttpResponse.BodyHandler<byte[]>, HttpResponse.BodySubscriber<byte[]> {
+
+  /** Class properties. */
+  private final FetchLimits limits;
+
+  private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+
+  private final List<ByteBuffer> buffers = new ArrayList<>();
+
+  private final AtomicLong received = new AtomicLong();
+
+  private volatile long startedAt;
+
+  private volatile Flow.Subscription subscription;
+
+  private volatile FetchAbortedException rejection;
+
+  /**
+   * LimitedBodyHandler class constructor, downloading the body of a single
+   * response. The headers are checked before the body is read, so unparsable
+   * or oversized responses are dropped without downloading them, and the
+   * download is aborted as soon as it goes over the size limit or under the
+   * minimum rate.
+   *
+   * @param limits Size and rate limits of the body.
+   */
+  LimitedBodyHandler(FetchLimits limits) {
+    this.limits = limits;
+  }
+
+  @Override
+  public HttpResponse.BodySubscriber<byte[]> apply(HttpResponse.ResponseInfo info) {
+    String contentType = info.headers().firstValue("Content-Type").orElse(null);
+    OptionalLong contentLength = info.headers().firstValueAsLong("Content-Length");
+
+    if (contentType != null && !HttpClientFetcher.isParsable(contentType)) {
+      rejection = new FetchAbortedException(Reason.UNSUPPORTED_CONTENT_TYPE, "Unhandled content type: " + contentType);
+    } else if (contentLength.isPresent() && contentLength.getAsLong() > limits.getMaxBodySize()) {
+      rejection = new FetchAbortedException(Reason.BODY_TOO_LARGE,
+          "Content length " + contentLength.getAsLong() + " over the limit of " + limits.getMaxBodySize());
+    }
+    return this;
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    this.subscription = subscription;
+    if (rejection != null) {
+      abort(rejection);
+      return;
+    }
+
+    startedAt = System.nanoTime();
+    subscription.request(1);
+  }
+
+  @Override
+  public void onNext(List<ByteBuffer> items) {
+    long total = received.get();
+    for (ByteBuffer item : items) {
+      total += item.remaining();
+      buffers.add(item);
+    }
+    received.set(total);
+
+    if (total > limits.getMaxBodySize()) {
+      abort(new FetchAbortedException(Reason.BODY_TOO_LARGE,
+          "Body over the limit of " + limits.getMaxBodySize() + " bytes"));
+      return;
+    }
+    subscription.request(1);
+  }
+
+  @Override
+  public void onError(Throwable error) {
+    body.completeExceptionally(error);
+  }
+
+  @Override
+  public void onComplete() {
+    byte[] bytes = new byte[(int) received.get()];
+    int offset = 0;
+    for (ByteBuffer buffer : buffers) {
+      int length = buffer.remaining();
+      buffer.get(bytes, offset, length);
+      offset += length;
+    }
+    buffers.clear();
+    body.complete(bytes);
+  }
+
+  @Override
+  public CompletionStage<byte[]> getBody() {
+    return body;
+  }
+
+  /**
+   * Aborts the download if the body is received slower than the minimum rate,
+   * once the grace period is over. Called periodically by the thread waiting
+   * for the response, as a stalled transfer delivers no data to check.
+   *
+   * @return Boolean whether the download was aborted or not.
+   */
+  boolean checkThroughput() {
+    long started = startedAt;
+    if (limits.getMinThroughput() <= 0 || started == 0 || body.isDone()) {
+      return false;
+    }
+
+    long elapsed = System.nanoTime() - started;
+    if (elapsed < limits.getThroughputGracePeriod().toNanos()) {
+      return false;
+    }
+
+    double rate = received.get() * 1e9 / elapsed;
+    if (rate >= limits.getMinThroughput()) {
+      return false;
+    }
+    abort(new FetchAbortedException(Reason.TOO_SLOW,
+        String.format("Body received at %.0f bytes/s, under the minimum of %d", rate, limits.getMinThroughput())));
+    return true;
+  }
+
+  /**
+   * Fails the body and stops the download, closing the connection. The body is
+   * failed first, so the error raised by the closed connection is ignored.
+   *
+   * @param error Cause of the abort.
+   */
+  void abort(Exception error) {
+    body.completeExceptionally(error);
+    Flow.Subscription current = subscription;
+    if (current != null) {
+      current.cancel();
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package com.rtxct.crawler.frontier;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public abstract class AbstractBloomSeenUrlStore implements SeenUrlStore {
+
+  /** Class properties. */
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private static final long FIRST_SEED = 0xcbf29ce484222325L;
+
+  private static final long SECOND_SEED = 0x9e3779b97f4a7c15L;
+
+  protected final long numBits;
+
+  protected final int numHashes;
+
+  protected final LongAdder count = new LongAdder();
+
+  /**
+   * AbstractBloomSeenUrlStore class constructor.
+   *
+   * @param numBits   Size of the bit set.
+   * @param numHashes Number of bits set per URL.
+   */
+  protected AbstractBloomSeenUrlStore(long numBits, int numHashes) {
+    this.numBits = numBits;
+    this.numHashes = numHashes;
+  }
+
+  /**
+   * Calculates the bit set size needed to hold the expected number of URLs
+   * within the given false positive rate.
+   *
+   * @param expectedUrls      Expected number of URLs.
+   * @param falsePositiveRate Accepted false positive rate, between 0 and 1.
+   * @return Number of bits.
+   */
+  public static long optimalBits(long expectedUrls, double falsePositiveRate) {
+    if (expectedUrls <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("Expected URLs must be positive and the false positive rate between 0 and 1");
+    }
+    double bits = -expectedUrls * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+    return Math.max(Long.SIZE, (long) Math.ceil(bits));
+  }
+
+  /**
+   * Calculates the number of hash functions that minimizes the false positive
+   * rate for the given bit set size.
+   *
+   * @param expectedUrls Expected number of URLs.
+   * @param numBits      Size of the bit set.
+   * @return Number of hash functions.
+   */
+  public static int optimalHashes(long expectedUrls, long numBits) {
+    return Math.max(1, (int) Math.round((double) numBits / expectedUrls * Math.log(2)));
+  }
+
+  @Override
+  public boolean add(String url) {
+    long first = hash(url, FIRST_SEED);
+    long second = hash(url, SECOND_SEED);
+    boolean changed = false;
+
+    for (int i = 0; i < numHashes; i++) {
+      changed |= setBit(Math.floorMod(first + i * second, numBits));
+    }
+
+    if (changed) {
+      count.increment();
+    }
+    return changed;
+  }
+
+  @Override
+  public boolean contains(String url) {
+    long first = hash(url, FIRST_SEED);
+    long second = hash(url, SECOND_SEED);
+
+    for (int i = 0; i < numHashes; i++) {
+      if (!getBit(Math.floorMod(first + i * second, numBits))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public long size() {
+    return count.sum();
+  }
+
+  /**
+   * Sets a bit of the filter.
+   *
+   * @param index Bit index.
+   * @return Boolean whether the bit was clear before the call.
+   */
+  protected abstract boolean setBit(long index);
+
+  /**
+   * Reads a bit of the filter.
+   *
+   * @param index Bit index.
+   * @return Boolean whether the bit is set.
+   */
+  protected abstract boolean getBit(long index);
+
+  /**
+   * Hashes the URL characters straight from the String, without encoding it
+   * into a byte array first.
+   *
+   * @param url  URL to be hashed.
+   * @param seed Hash seed.
+   * @return 64 bits hash.
+   */
+  private static long hash(String url, long seed) {
+    long hash = seed;
+    for (int i = 0; i < url.length(); i++) {
+      hash ^= url.charAt(i);
+      hash *= FNV_PRIME;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
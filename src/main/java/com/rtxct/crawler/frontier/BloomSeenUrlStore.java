@@ -0,0 +1,57 @@
+package com.rtxct.crawler.frontier;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class BloomSeenUrlStore extends AbstractBloomSeenUrlStore {
+
+  /** Class properties. */
+  private final AtomicLongArray words;
+
+  /**
+   * BloomSeenUrlStore class constructor. Memory usage is fixed by the expected
+   * number of URLs and the false positive rate, regardless of how many URLs are
+   * actually added.
+   *
+   * @param expectedUrls      Expected number of URLs.
+   * @param falsePositiveRate Accepted false positive rate, between 0 and 1.
+   */
+  public BloomSeenUrlStore(long expectedUrls, double falsePositiveRate) {
+    this(optimalBits(expectedUrls, falsePositiveRate), expectedUrls);
+  }
+
+  /**
+   * BloomSeenUrlStore class constructor.
+   *
+   * @param numBits      Size of the bit set.
+   * @param expectedUrls Expected number of URLs.
+   */
+  private BloomSeenUrlStore(long numBits, long expectedUrls) {
+    super(numBits, optimalHashes(expectedUrls, numBits));
+
+    long numWords = (numBits + Long.SIZE - 1) / Long.SIZE;
+    if (numWords > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Bloom filter is too large to be held in memory");
+    }
+    this.words = new AtomicLongArray((int) numWords);
+  }
+
+  @Override
+  protected boolean setBit(long index) {
+    int word = (int) (index >>> 6);
+    long mask = 1L << index;
+
+    long current;
+    do {
+      current = words.get(word);
+      if ((current & mask) != 0) {
+        return false;
+      }
+    } while (!words.compareAndSet(word, current, current | mask));
+    return true;
+  }
+
+  @Override
+  protected boolean getBit(long index) {
+    return (words.get((int) (index >>> 6)) & (1L << index)) != 0;
+  }
+}
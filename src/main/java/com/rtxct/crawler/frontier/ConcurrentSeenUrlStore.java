@@ -0,0 +1,25 @@
+package com.rtxct.crawler.frontier;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ConcurrentSeenUrlStore implements SeenUrlStore {
+
+  /** Class properties. */
+  private final Set<String> urls = ConcurrentHashMap.newKeySet();
+
+  @Override
+  public boolean add(String url) {
+    return urls.add(url);
+  }
+
+  @Override
+  public boolean contains(String url) {
+    return urls.contains(url);
+  }
+
+  @Override
+  public long size() {
+    return urls.size();
+  }
+}
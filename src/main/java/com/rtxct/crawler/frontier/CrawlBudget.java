@@ -0,0 +1,40 @@
+package com.rtxct.crawler.frontier;
+
+import java.time.Duration;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class CrawlBudget {
+
+  /** Class properties. */
+  public static final CrawlBudget UNLIMITED = CrawlBudget.builder().build();
+
+  /** Pages fetched at most by the crawl. */
+  @Builder.Default
+  private long maxPages = Long.MAX_VALUE;
+
+  /** Pages fetched at most from a single host. */
+  @Builder.Default
+  private long maxPagesPerHost = Long.MAX_VALUE;
+
+  /** Bytes downloaded by the crawl after which no more pages are fetched. */
+  @Builder.Default
+  private long maxBytes = Long.MAX_VALUE;
+
+  /** Time after which no more pages are fetched, zero for no limit. */
+  @Builder.Default
+  private Duration maxDuration = Duration.ZERO;
+
+  /**
+   * Checks whether the budget sets no limit.
+   *
+   * @return Boolean whether the budget is unlimited or not.
+   */
+  public boolean isUnlimited() {
+    return maxPages == Long.MAX_VALUE && maxPagesPerHost == Long.MAX_VALUE && maxBytes == Long.MAX_VALUE
+        && maxDuration.isZero();
+  }
+}
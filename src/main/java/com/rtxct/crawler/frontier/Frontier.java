@@ -0,0 +1,579 @@
+package com.rtxct.crawler.frontier;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public class Frontier {
+
+  /** Class properties. */
+  private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+  private final ConcurrentHashMap<String, HostQueue> hosts = new ConcurrentHashMap<>();
+
+  private final ConcurrentLinkedQueue<HostQueue> rotation = new ConcurrentLinkedQueue<>();
+
+  private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+  private final ConcurrentHashMap<Integer, DepthCounter> depths = new ConcurrentHashMap<>();
+
+  private final AtomicInteger rotationSize = new AtomicInteger();
+
+  private final AtomicInteger queued = new AtomicInteger();
+
+  private final AtomicInteger pending = new AtomicInteger();
+
+  private final AtomicInteger holds = new AtomicInteger();
+
+  private final AtomicLong dispatched = new AtomicLong();
+
+  private final LongAdder bytes = new LongAdder();
+
+  private final SeenUrlStore seenUrls;
+
+  private final HostPoliteness politeness;
+
+  private final UrlPriority priority;
+
+  private final CrawlBudget budget;
+
+  private volatile long deadlineNanos;
+
+  private volatile boolean started;
+
+  private volatile FrontierJournal journal;
+
+  private volatile boolean budgetSpent;
+
+  private volatile boolean closed;
+
+  /**
+   * Frontier class constructor.
+   */
+  public Frontier() {
+    this(new ConcurrentSeenUrlStore());
+  }
+
+  /**
+   * Frontier class constructor.
+   *
+   * @param seenUrls Store used to reject URLs that were already enqueued.
+   */
+  public Frontier(SeenUrlStore seenUrls) {
+    this(seenUrls, HostPoliteness.UNLIMITED);
+  }
+
+  /**
+   * Frontier class constructor.
+   *
+   * @param seenUrls   Store used to reject URLs that were already enqueued.
+   * @param politeness Per host concurrency and delay rules.
+   */
+  public Frontier(SeenUrlStore seenUrls, HostPoliteness politeness) {
+    this(seenUrls, politeness, UrlPriority.NONE, CrawlBudget.UNLIMITED);
+  }
+
+  /**
+   * Frontier class constructor.
+   *
+   * @param seenUrls   Store used to reject URLs that were already enqueued.
+   * @param politeness Per host concurrency and delay rules.
+   * @param priority   Scores ordering the URLs of each host.
+   * @param budget     Limits after which no more URLs are handed out.
+   */
+  public Frontier(SeenUrlStore seenUrls, HostPoliteness politeness, UrlPriority priority, CrawlBudget budget) {
+    this.seenUrls = seenUrls;
+    this.politeness = politeness;
+    this.priority = priority;
+    this.budget = budget;
+  }
+
+  /**
+   * Frontier class constructor.
+   *
+   * @param seeds Initial URLs, enqueued at depth zero.
+   */
+  public Frontier(Collection<String> seeds) {
+    this(seeds, new ConcurrentSeenUrlStore());
+  }
+
+  /**
+   * Frontier class constructor.
+   *
+   * @param seeds    Initial URLs, enqueued at depth zero.
+   * @param seenUrls Store used to reject URLs that were already enqueued.
+   */
+  public Frontier(Collection<String> seeds, SeenUrlStore seenUrls) {
+    this(seeds, seenUrls, HostPoliteness.UNLIMITED);
+  }
+
+  /**
+   * Frontier class constructor.
+   *
+   * @param seeds      Initial URLs, enqueued at depth zero.
+   * @param seenUrls   Store used to reject URLs that were already enqueued.
+   * @param politeness Per host concurrency and delay rules.
+   */
+  public Frontier(Collection<String> seeds, SeenUrlStore seenUrls, HostPoliteness politeness) {
+    this(seenUrls, politeness);
+    seeds.forEach(url -> offer(url, 0));
+  }
+
+  /**
+   * Enqueues an URL at the given depth and wakes up any waiting consumer. URLs
+   * already seen by the frontier are discarded, so an URL is never queued
+   * twice, but count as one more link to it when still queued. URLs of hosts
+   * that handed out all the pages of their budget are discarded too.
+   *
+   * @param url   URL to be enqueued.
+   * @param depth Depth where the URL was found.
+   * @return Boolean whether the URL was enqueued or not.
+   */
+  public final boolean offer(String url, int depth) {
+    if (closed || url == null) {
+      return false;
+    }
+
+    String host = hostOf(url);
+    HostQueue hostQueue = hosts.get(host);
+    if (hostQueue != null && hostQueue.isSpent()) {
+      return false;
+    }
+    if (!seenUrls.add(url)) {
+      if (hostQueue != null) {
+        hostQueue.linked(url);
+      }
+      return false;
+    }
+    if (hostQueue == null) {
+      hostQueue = hostQueue(host);
+    }
+
+    FrontierJournal current = journal;
+    if (current != null) {
+      current.offered(url, depth);
+    }
+
+    pending.incrementAndGet();
+    depthCounter(depth).enqueued.increment();
+    hostQueue.add(new FrontierEntry(url, depth, host));
+    queued.incrementAndGet();
+    schedule(hostQueue);
+    signal();
+    return true;
+  }
+
+  /**
+   * Retrieves the next URL without waiting, going round robin over the hosts
+   * that have a free connection and whose delay has passed, so hosts get their
+   * turn whatever the scores of their URLs. Each host hands out its URL with
+   * the highest score first. The entry counts as in flight until
+   * {@link #complete(FrontierEntry)} is called for it. Once the pages, bytes
+   * or time of the budget are spent, the frontier is closed.
+   *
+   * @return Next entry, or null if no host is currently ready or the frontier
+   *         was closed.
+   */
+  public FrontierEntry poll() {
+    if (closed) {
+      return null;
+    }
+
+    long now = System.nanoTime();
+    if (!started) {
+      startBudget(now);
+    }
+    if ((deadlineNanos != 0 && now - deadlineNanos >= 0) || dispatched.get() >= budget.getMaxPages()) {
+      spendBudget();
+      return null;
+    }
+    int attempts = rotationSize.get();
+
+    for (int i = 0; i < attempts; i++) {
+      HostQueue hostQueue = rotation.poll();
+      if (hostQueue == null) {
+        return null;
+      }
+      rotationSize.decrementAndGet();
+
+      FrontierEntry entry = hostQueue.poll(now);
+      if (entry == null) {
+        hostQueue.dropIfSpent().forEach(this::drop);
+      }
+
+      hostQueue.scheduled.set(false);
+      if (!hostQueue.isEmpty()) {
+        schedule(hostQueue);
+      }
+
+      if (entry != null) {
+        queued.decrementAndGet();
+        if (dispatched.incrementAndGet() > budget.getMaxPages()) {
+          complete(entry);
+          spendBudget();
+          return null;
+        }
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Retrieves the next URL, waiting while no host is ready but entries are
+   * queued or still in flight, since they may discover new URLs.
+   *
+   * @return Next entry, or null when the frontier is exhausted or closed.
+   */
+  public FrontierEntry take() {
+    while (true) {
+      FrontierEntry entry = poll();
+      if (entry != null) {
+        return entry;
+      }
+      if (isExhausted()) {
+        return null;
+      }
+
+      Thread current = Thread.currentThread();
+      waiters.add(current);
+      try {
+        entry = poll();
+        if (entry != null) {
+          return entry;
+        }
+        if (isExhausted()) {
+          return null;
+        }
+        LockSupport.parkNanos(this, PARK_NANOS);
+        if (current.isInterrupted()) {
+          return null;
+        }
+      } finally {
+        waiters.remove(current);
+      }
+    }
+  }
+
+  /**
+   * Marks a polled entry as processed, freeing its host connection. Must be
+   * called after the links found in the entry were offered, so the frontier is
+   * not seen as exhausted too early.
+   *
+   * @param entry Polled entry.
+   */
+  public void complete(FrontierEntry entry) {
+    HostQueue hostQueue = hosts.get(entry.getHost());
+    if (hostQueue != null) {
+      hostQueue.release();
+    }
+
+    FrontierJournal current = journal;
+    if (current != null && !closed) {
+      current.completed(entry);
+    }
+
+    depthCounter(entry.getDepth()).completed.increment();
+    pending.decrementAndGet();
+    signal();
+  }
+
+  /**
+   * Counts the bytes downloaded for an entry, closing the frontier once the
+   * bytes of the budget are spent.
+   *
+   * @param size Number of bytes downloaded.
+   */
+  public void charge(long size) {
+    if (budget.getMaxBytes() == Long.MAX_VALUE) {
+      return;
+    }
+
+    bytes.add(size);
+    if (bytes.sum() >= budget.getMaxBytes()) {
+      spendBudget();
+    }
+  }
+
+  /**
+   * Checks whether the frontier was closed because its budget was spent.
+   *
+   * @return Boolean whether the crawl budget is spent or not.
+   */
+  public boolean isBudgetSpent() {
+    return budgetSpent;
+  }
+
+  /**
+   * Sets the minimum delay between two fetches of the same host, such as the
+   * one asked by its Crawl-delay rule. Delays shorter than the default one are
+   * ignored.
+   *
+   * @param host  Host name, as in {@link FrontierEntry#getHost()}.
+   * @param delay Delay between fetches.
+   */
+  public void setCrawlDelay(String host, Duration delay) {
+    hostQueue(host).delayAtLeast(delay.toNanos());
+  }
+
+  /**
+   * Closes the frontier, so no more entries are handed out nor accepted. Entries
+   * already in flight can still be completed.
+   */
+  public void close() {
+    closed = true;
+    signal();
+  }
+
+  /**
+   * Checks whether the frontier was closed.
+   *
+   * @return Boolean whether the frontier is closed or not.
+   */
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /**
+   * Records an URL as seen without enqueuing it, such as the final location of a
+   * redirect.
+   *
+   * @param url URL to be recorded.
+   */
+  public void markSeen(String url) {
+    if (url != null && seenUrls.add(url)) {
+      FrontierJournal current = journal;
+      if (current != null) {
+        current.seen(url);
+      }
+    }
+  }
+
+  /**
+   * Sets the journal notified of the changes of the frontier, such as a crawl
+   * checkpoint. Changes made before it is set are not reported.
+   *
+   * @param journal Frontier journal, or null to stop reporting.
+   */
+  public void setJournal(FrontierJournal journal) {
+    this.journal = journal;
+  }
+
+  /**
+   * Gets the store holding every URL seen by the frontier.
+   *
+   * @return Seen URL store.
+   */
+  public SeenUrlStore getSeenUrls() {
+    return seenUrls;
+  }
+
+  /**
+   * Keeps the frontier from being exhausted while it is empty, as URLs may
+   * still be offered from outside the crawl, such as by the other nodes of a
+   * cluster. Consumers keep waiting until {@link #release()} is called.
+   */
+  public void retain() {
+    holds.incrementAndGet();
+  }
+
+  /**
+   * Releases a hold taken by {@link #retain()}, waking up the consumers so they
+   * return once the frontier is empty.
+   */
+  public void release() {
+    holds.decrementAndGet();
+    signal();
+  }
+
+  /**
+   * Checks whether there are no queued nor in flight entries, or the frontier
+   * was closed, and it is not retained.
+   *
+   * @return Boolean whether the crawl frontier is exhausted or not.
+   */
+  public boolean isExhausted() {
+    return closed || (pending.get() == 0 && holds.get() == 0);
+  }
+
+  /**
+   * Checks whether there are no queued nor in flight entries, whether the
+   * frontier is retained or not.
+   *
+   * @return Boolean whether the frontier has no work left or not.
+   */
+  public boolean isIdle() {
+    return pending.get() == 0;
+  }
+
+  /**
+   * Gets the number of queued entries, not counting the ones in flight.
+   *
+   * @return Number of queued entries.
+   */
+  public int size() {
+    return queued.get();
+  }
+
+  /**
+   * Gets the number of hosts known by the frontier.
+   *
+   * @return Number of hosts.
+   */
+  public int hostCount() {
+    return hosts.size();
+  }
+
+  /**
+   * Gets the number of entries that were enqueued at the given depth and were
+   * not completed yet.
+   *
+   * @param depth Crawl depth.
+   * @return Number of outstanding entries at that depth.
+   */
+  public long outstanding(int depth) {
+    DepthCounter counter = depths.get(depth);
+    if (counter == null) {
+      return 0;
+    }
+    return counter.enqueued.sum() - counter.completed.sum();
+  }
+
+  /**
+   * Gets the number of entries completed at the given depth.
+   *
+   * @param depth Crawl depth.
+   * @return Number of completed entries at that depth.
+   */
+  public long completed(int depth) {
+    DepthCounter counter = depths.get(depth);
+    return counter == null ? 0 : counter.completed.sum();
+  }
+
+  /**
+   * Gets the host part of an URL, lowercased and keeping the port, which is
+   * the unit politeness rules apply to.
+   *
+   * @param url Absolute URL.
+   * @return Host, or an empty String if the URL has none.
+   */
+  public static String hostOf(String url) {
+    int start = url.indexOf("://");
+    if (start < 0) {
+      return "";
+    }
+    start += 3;
+
+    int end = start;
+    while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+      end++;
+    }
+
+    int userInfo = url.lastIndexOf('@', end - 1);
+    if (userInfo >= start) {
+      start = userInfo + 1;
+    }
+    return url.substring(start, end).toLowerCase();
+  }
+
+  /**
+   * Gets the queue of a host, creating it on the first usage.
+   *
+   * @param host Host name.
+   * @return Host queue.
+   */
+  private HostQueue hostQueue(String host) {
+    return hosts.computeIfAbsent(host, key -> new HostQueue(key, politeness, priority, budget.getMaxPagesPerHost()));
+  }
+
+  /**
+   * Starts the time of the budget, on the first poll of the crawl.
+   *
+   * @param now Current time in nanoseconds.
+   */
+  private synchronized void startBudget(long now) {
+    if (started) {
+      return;
+    }
+
+    if (!budget.getMaxDuration().isZero()) {
+      long deadline = now + budget.getMaxDuration().toNanos();
+      deadlineNanos = deadline == 0 ? 1 : deadline;
+    }
+    started = true;
+  }
+
+  /**
+   * Closes the frontier once its budget is spent, the entries in flight being
+   * completed as usual.
+   */
+  private void spendBudget() {
+    budgetSpent = true;
+    close();
+  }
+
+  /**
+   * Removes a queued entry from the crawl without handing it out, such as the
+   * entries left of a host that spent its budget. The entry is reported as
+   * completed, so it is not queued again by a resumed crawl.
+   *
+   * @param entry Queued entry.
+   */
+  private void drop(FrontierEntry entry) {
+    FrontierJournal current = journal;
+    if (current != null && !closed) {
+      current.completed(entry);
+    }
+
+    queued.decrementAndGet();
+    depthCounter(entry.getDepth()).completed.increment();
+    pending.decrementAndGet();
+  }
+
+  /**
+   * Adds the host to the round robin rotation, unless it is already there.
+   *
+   * @param hostQueue Host queue.
+   */
+  private void schedule(HostQueue hostQueue) {
+    if (hostQueue.scheduled.compareAndSet(false, true)) {
+      rotation.offer(hostQueue);
+      rotationSize.incrementAndGet();
+    }
+  }
+
+  /**
+   * Gets the per depth counter, creating it on the first usage.
+   *
+   * @param depth Crawl depth.
+   * @return Depth counter.
+   */
+  private DepthCounter depthCounter(int depth) {
+    return depths.computeIfAbsent(depth, key -> new DepthCounter());
+  }
+
+  /**
+   * Wakes up the consumers waiting on {@link #take()}.
+   */
+  private void signal() {
+    for (Thread waiter : waiters) {
+      LockSupport.unpark(waiter);
+    }
+  }
+
+  /**
+   * Enqueued and completed counters of a single depth.
+   */
+  private static class DepthCounter {
+
+    private final LongAdder enqueued = new LongAdder();
+
+    private final LongAdder completed = new LongAdder();
+  }
+}
@@ -0,0 +1,15 @@
+package com.rtxct.crawler.frontier;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FrontierEntry {
+
+  private String url;
+
+  private int depth;
+
+  private String host;
+}
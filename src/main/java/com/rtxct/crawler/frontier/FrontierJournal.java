@@ -0,0 +1,30 @@
+package com.rtxct.crawler.frontier;
+
+public interface FrontierJournal {
+
+  /**
+   * Called when an URL is enqueued, before it can be polled, from the thread
+   * offering it, so implementations must be thread safe.
+   *
+   * @param url   Enqueued URL.
+   * @param depth Depth where the URL was found.
+   */
+  void offered(String url, int depth);
+
+  /**
+   * Called when an URL is recorded as seen without being enqueued, such as the
+   * final location of a redirect.
+   *
+   * @param url Seen URL.
+   */
+  void seen(String url);
+
+  /**
+   * Called when a polled entry is completed, after the links found in it were
+   * offered. Entries completed after the frontier was closed are not reported,
+   * as their links were dropped.
+   *
+   * @param entry Completed entry.
+   */
+  void completed(FrontierEntry entry);
+}
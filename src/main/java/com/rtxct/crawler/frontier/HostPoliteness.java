@@ -0,0 +1,20 @@
+package com.rtxct.crawler.frontier;
+
+import java.time.Duration;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class HostPoliteness {
+
+  /** Class properties. */
+  public static final HostPoliteness UNLIMITED = HostPoliteness.builder().build();
+
+  @Builder.Default
+  private int maxConnectionsPerHost = Integer.MAX_VALUE;
+
+  @Builder.Default
+  private Duration delay = Duration.ZERO;
+}
@@ -0,0 +1,219 @@
+package com.rtxct.crawler.frontier;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Entries of a single host, along with the host politeness state. The state is
+ * guarded by the instance lock, so hosts never contend with each other.
+ * Entries are kept in a heap ordered by their score, the oldest entry coming
+ * first among equal scores.
+ */
+class HostQueue {
+
+  /** Class properties. */
+  final String host;
+
+  final AtomicBoolean scheduled = new AtomicBoolean();
+
+  private final PriorityQueue<Node> entries = new PriorityQueue<>();
+
+  /** Queued entries by URL, when their score depends on their in-links. */
+  private final Map<String, Node> queued;
+
+  private final UrlPriority priority;
+
+  private final int maxConnections;
+
+  private final long maxPages;
+
+  private long sequence;
+
+  private long taken;
+
+  private int size;
+
+  private long delayNanos;
+
+  private int inFlight;
+
+  private long nextFetchNanos;
+
+  /**
+   * HostQueue class constructor.
+   *
+   * @param host       Host name, with the port when not the default one.
+   * @param politeness Default politeness rules.
+   * @param priority   Scores of the entries.
+   * @param maxPages   Entries taken at most from the host.
+   */
+  HostQueue(String host, HostPoliteness politeness, UrlPriority priority, long maxPages) {
+    this.host = host;
+    this.priority = priority;
+    this.queued = priority.countsInLinks() ? new HashMap<>() : null;
+    this.maxPages = maxPages;
+    this.maxConnections = politeness.getMaxConnectionsPerHost();
+    this.delayNanos = politeness.getDelay().toNanos();
+    this.nextFetchNanos = System.nanoTime();
+  }
+
+  /**
+   * Queues a new entry.
+   *
+   * @param entry Frontier entry.
+   */
+  synchronized void add(FrontierEntry entry) {
+    Node node = new Node(entry, priority.score(entry.getUrl(), entry.getDepth(), 1), 1, sequence++);
+    entries.add(node);
+    if (queued != null) {
+      queued.put(entry.getUrl(), node);
+    }
+    size++;
+  }
+
+  /**
+   * Counts a new link found to a queued URL, moving it up the queue. A new node
+   * is added with the new score, the previous one being skipped once polled.
+   *
+   * @param url URL already seen by the frontier.
+   */
+  synchronized void linked(String url) {
+    Node node = queued == null ? null : queued.get(url);
+    if (node == null) {
+      return;
+    }
+
+    FrontierEntry entry = node.entry;
+    int inLinks = node.inLinks + 1;
+    Node moved = new Node(entry, priority.score(entry.getUrl(), entry.getDepth(), inLinks), inLinks, node.sequence);
+    queued.put(url, moved);
+    if (moved.score != node.score) {
+      entries.add(moved);
+    }
+  }
+
+  /**
+   * Takes the next entry if the host has a free connection and its delay since
+   * the last fetch has passed.
+   *
+   * @param now Current time in nanoseconds.
+   * @return Next entry, or null if the host is empty or not ready.
+   */
+  synchronized FrontierEntry poll(long now) {
+    if (inFlight >= maxConnections || now - nextFetchNanos < 0 || isSpent()) {
+      return null;
+    }
+
+    Node node;
+    while ((node = entries.poll()) != null) {
+      if (queued == null) {
+        break;
+      }
+      Node current = queued.get(node.entry.getUrl());
+      if (current != null && current.score == node.score) {
+        queued.remove(node.entry.getUrl());
+        break;
+      }
+    }
+    if (node == null) {
+      return null;
+    }
+
+    size--;
+    taken++;
+    inFlight++;
+    nextFetchNanos = now + delayNanos;
+    return node.entry;
+  }
+
+  /**
+   * Removes the queued entries once the host handed out all its pages.
+   *
+   * @return Removed entries, empty if the host may still hand out pages.
+   */
+  synchronized List<FrontierEntry> dropIfSpent() {
+    if (!isSpent() || size == 0) {
+      return List.of();
+    }
+
+    List<FrontierEntry> dropped = new ArrayList<>(size);
+    if (queued != null) {
+      queued.values().forEach(node -> dropped.add(node.entry));
+      queued.clear();
+    } else {
+      entries.forEach(node -> dropped.add(node.entry));
+    }
+    entries.clear();
+    size = 0;
+    return dropped;
+  }
+
+  /**
+   * Checks whether the host has no queued entries.
+   *
+   * @return Boolean whether the host is empty or not.
+   */
+  synchronized boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Checks whether the host handed out as many entries as its budget allows.
+   *
+   * @return Boolean whether the host budget is spent or not.
+   */
+  synchronized boolean isSpent() {
+    return taken >= maxPages;
+  }
+
+  /**
+   * Frees the connection held by a completed entry.
+   */
+  synchronized void release() {
+    inFlight--;
+  }
+
+  /**
+   * Raises the delay between fetches, such as the one asked by the host
+   * Crawl-delay rule.
+   *
+   * @param nanos Delay in nanoseconds.
+   */
+  synchronized void delayAtLeast(long nanos) {
+    if (nanos > delayNanos) {
+      nextFetchNanos += nanos - delayNanos;
+      delayNanos = nanos;
+    }
+  }
+
+  /**
+   * Queued entry along with its score.
+   */
+  private static class Node implements Comparable<Node> {
+
+    private final FrontierEntry entry;
+
+    private final double score;
+
+    private final int inLinks;
+
+    private final long sequence;
+
+    Node(FrontierEntry entry, double score, int inLinks, long sequence) {
+      this.entry = entry;
+      this.score = score;
+      this.inLinks = inLinks;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(Node other) {
+      int order = Double.compare(other.score, score);
+      return order != 0 ? order : Long.compare(sequence, other.sequence);
+    }
+  }
+}
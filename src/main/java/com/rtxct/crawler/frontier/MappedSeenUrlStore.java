@@ -0,0 +1,191 @@
+package com.rtxct.crawler.frontier;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MappedSeenUrlStore extends AbstractBloomSeenUrlStore {
+
+  /** Class properties. */
+  private static final int MAGIC = 0x5345454E;
+
+  private static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 32;
+
+  private static final int COUNT_OFFSET = 24;
+
+  private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+      ByteOrder.nativeOrder());
+
+  private final FileChannel channel;
+
+  private final MappedByteBuffer buffer;
+
+  /** File removed once the store is closed, null to keep the file. */
+  private Path temporaryFile;
+
+  /**
+   * Opens the filter stored in the given file. The file keeps only the bit set
+   * and a small header, so it is reloaded without rehashing any URL.
+   *
+   * @param file Filter file.
+   * @return Reloaded store.
+   * @throws IOException If the file is missing or is not a valid filter.
+   */
+  public static MappedSeenUrlStore open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+      header.order(ByteOrder.nativeOrder());
+      if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+        throw new IOException("Not a seen URL store file: " + file);
+      }
+      return new MappedSeenUrlStore(channel, header.getLong(8), header.getInt(16), header.getLong(COUNT_OFFSET));
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens the filter stored in the given file, or creates a new one sized for
+   * the expected number of URLs when the file does not exist.
+   *
+   * @param file              Filter file.
+   * @param expectedUrls      Expected number of URLs.
+   * @param falsePositiveRate Accepted false positive rate, between 0 and 1.
+   * @return Store backed by the file.
+   * @throws IOException If the file could not be created or mapped.
+   */
+  public static MappedSeenUrlStore openOrCreate(Path file, long expectedUrls, double falsePositiveRate)
+      throws IOException {
+    if (Files.exists(file) && Files.size(file) > 0) {
+      return open(file);
+    }
+
+    long numBits = optimalBits(expectedUrls, falsePositiveRate);
+    int numHashes = optimalHashes(expectedUrls, numBits);
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      MappedSeenUrlStore store = new MappedSeenUrlStore(channel, numBits, numHashes, 0);
+      store.buffer.putInt(0, MAGIC);
+      store.buffer.putInt(4, VERSION);
+      store.buffer.putLong(8, numBits);
+      store.buffer.putInt(16, numHashes);
+      store.flush();
+      return store;
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Creates a filter in a new file of the given directory, sized for the
+   * expected number of URLs. The file is removed once the store is closed, so
+   * it only holds the URLs of a single crawl off the heap.
+   *
+   * @param directory         Directory of the filter file.
+   * @param expectedUrls      Expected number of URLs.
+   * @param falsePositiveRate Accepted false positive rate, between 0 and 1.
+   * @return Store backed by the new file.
+   * @throws IOException If the file could not be created or mapped.
+   */
+  public static MappedSeenUrlStore createTemporary(Path directory, long expectedUrls, double falsePositiveRate)
+      throws IOException {
+    Files.createDirectories(directory);
+    Path file = Files.createTempFile(directory, "seen-", ".bin");
+    try {
+      MappedSeenUrlStore store = openOrCreate(file, expectedUrls, falsePositiveRate);
+      store.temporaryFile = file;
+      return store;
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(file);
+      throw e;
+    }
+  }
+
+  /**
+   * MappedSeenUrlStore class constructor.
+   *
+   * @param channel   Open channel of the filter file.
+   * @param numBits   Size of the bit set.
+   * @param numHashes Number of bits set per URL.
+   * @param count     Number of URLs already recorded in the file.
+   * @throws IOException If the file could not be mapped.
+   */
+  private MappedSeenUrlStore(FileChannel channel, long numBits, int numHashes, long count) throws IOException {
+    super(numBits, numHashes);
+
+    long size = HEADER_SIZE + ((numBits + Long.SIZE - 1) / Long.SIZE) * Long.BYTES;
+    if (size > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Bloom filter is too large to be mapped");
+    }
+
+    this.channel = channel;
+    this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    this.buffer.order(ByteOrder.nativeOrder());
+    this.count.add(count);
+  }
+
+  /**
+   * Writes the URL count into the header and forces the mapped pages to disk.
+   */
+  public void flush() {
+    buffer.putLong(COUNT_OFFSET, size());
+    buffer.force();
+  }
+
+  @Override
+  public void close() {
+    try {
+      if (temporaryFile == null) {
+        flush();
+      }
+      channel.close();
+      if (temporaryFile != null) {
+        Files.deleteIfExists(temporaryFile);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Closing seen URL store error", e);
+    }
+  }
+
+  @Override
+  protected boolean setBit(long index) {
+    int offset = wordOffset(index);
+    long mask = 1L << index;
+
+    long current;
+    do {
+      current = (long) LONGS.getVolatile(buffer, offset);
+      if ((current & mask) != 0) {
+        return false;
+      }
+    } while (!LONGS.compareAndSet(buffer, offset, current, current | mask));
+    return true;
+  }
+
+  @Override
+  protected boolean getBit(long index) {
+    return ((long) LONGS.getVolatile(buffer, wordOffset(index)) & (1L << index)) != 0;
+  }
+
+  /**
+   * Gets the buffer offset of the word holding the given bit.
+   *
+   * @param index Bit index.
+   * @return Byte offset inside the mapped file.
+   */
+  private static int wordOffset(long index) {
+    return HEADER_SIZE + (int) (index >>> 6) * Long.BYTES;
+  }
+}
@@ -0,0 +1,34 @@
+package com.rtxct.crawler.frontier;
+
+public interface SeenUrlStore extends AutoCloseable {
+
+  /**
+   * Records the given URL as seen.
+   *
+   * @param url URL to be recorded.
+   * @return Boolean whether the URL was new, false if it was already seen.
+   */
+  boolean add(String url);
+
+  /**
+   * Checks whether the given URL was already seen.
+   *
+   * @param url URL to be checked.
+   * @return Boolean whether the URL was seen or not.
+   */
+  boolean contains(String url);
+
+  /**
+   * Gets the number of recorded URLs. Probabilistic stores return an estimate.
+   *
+   * @return Number of seen URLs.
+   */
+  long size();
+
+  /**
+   * Releases the resources held by the store.
+   */
+  @Override
+  default void close() {
+  }
+}
@@ -0,0 +1,108 @@
+package com.rtxct.crawler.frontier;
+
+import java.util.regex.Pattern;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class UrlPriority {
+
+  /** Class properties. */
+  public static final UrlPriority DEFAULT = UrlPriority.builder().build();
+
+  /** Scores every URL the same, so the URLs of a host are taken in order. */
+  public static final UrlPriority NONE = UrlPriority.builder()
+      .depthWeight(0)
+      .inLinkWeight(0)
+      .pathSegmentWeight(0)
+      .queryWeight(0)
+      .lowValueWeight(0)
+      .build();
+
+  private static final Pattern LOW_VALUE = Pattern.compile(
+      "(?i)[/?&=._-](login|logout|signin|signup|register|account|cart|checkout|print|share|calendar|sort|"
+          + "replytocom|sessionid|sid)([/?&=._-]|$)");
+
+  /** Score lost per level of depth, so pages close to the seeds come first. */
+  @Builder.Default
+  private double depthWeight = 4;
+
+  /**
+   * Score gained per doubling of the links found to the URL, so the pages
+   * linked from many others come first.
+   */
+  @Builder.Default
+  private double inLinkWeight = 2;
+
+  /** Score lost per path segment, deep paths being less often index pages. */
+  @Builder.Default
+  private double pathSegmentWeight = 0.5;
+
+  /** Score lost by URLs with a query, often filters of the same content. */
+  @Builder.Default
+  private double queryWeight = 2;
+
+  /**
+   * Score lost by URLs matching a low value pattern, such as login, cart or
+   * print pages.
+   */
+  @Builder.Default
+  private double lowValueWeight = 8;
+
+  /**
+   * Scores an URL, the URLs with the highest score of a host being taken first.
+   *
+   * @param url     Absolute URL.
+   * @param depth   Depth where the URL was found.
+   * @param inLinks Number of links found to the URL so far.
+   * @return URL score.
+   */
+  public double score(String url, int depth, int inLinks) {
+    double score = -depthWeight * depth;
+    if (inLinkWeight != 0) {
+      score += inLinkWeight * (31 - Integer.numberOfLeadingZeros(Math.max(inLinks, 1)));
+    }
+    if (pathSegmentWeight == 0 && queryWeight == 0 && lowValueWeight == 0) {
+      return score;
+    }
+
+    int start = url.indexOf("://");
+    int path = start < 0 ? -1 : url.indexOf('/', start + 3);
+    if (path < 0) {
+      return score;
+    }
+
+    int segments = 0;
+    int end = url.length();
+    for (int i = path; i < url.length(); i++) {
+      char c = url.charAt(i);
+      if (c == '?' || c == '#') {
+        end = i;
+        break;
+      }
+      if (c == '/' && i + 1 < url.length() && "/?#".indexOf(url.charAt(i + 1)) < 0) {
+        segments++;
+      }
+    }
+    score -= pathSegmentWeight * segments;
+    if (end < url.length() && url.charAt(end) == '?') {
+      score -= queryWeight;
+    }
+    if (lowValueWeight != 0 && LOW_VALUE.matcher(url).region(path, url.length()).find()) {
+      score -= lowValueWeight;
+    }
+    return score;
+  }
+
+  /**
+   * Checks whether the score depends on the links found to the URL, which
+   * requires tracking the queued URLs.
+   *
+   * @return Boolean whether in-links change the score or not.
+   */
+  public boolean countsInLinks() {
+    return inLinkWeight != 0;
+  }
+}
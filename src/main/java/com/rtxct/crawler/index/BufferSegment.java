@@ -0,0 +1,118 @@
+package com.rtxct.crawler.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.rtxct.crawler.dto.PageDTO;
+
+/**
+ * Segment receiving the new documents, kept on the heap until it is flushed to
+ * disk.
+ */
+class BufferSegment extends Segment {
+
+  /** Class properties. */
+  private final Map<String, PostingList> postings = new HashMap<>();
+
+  private final Map<String, Integer> urls = new HashMap<>();
+
+  private final List<PageDTO> documents = new ArrayList<>();
+
+  private int[] lengths = new int[1024];
+
+  private long totalLength;
+
+  /**
+   * BufferSegment class constructor.
+   *
+   * @param generation Unique number of the segment, naming its files.
+   */
+  BufferSegment(long generation) {
+    super(generation);
+  }
+
+  /**
+   * Adds a document to the segment.
+   *
+   * @param page        Page data.
+   * @param length      Weighted number of terms of the page.
+   * @param frequencies Weighted frequency of each term of the page.
+   * @return Document identifier.
+   */
+  int add(PageDTO page, int length, Map<String, Integer> frequencies) {
+    int document = documents.size();
+    documents.add(page);
+    if (document == lengths.length) {
+      lengths = Arrays.copyOf(lengths, lengths.length * 2);
+    }
+    lengths[document] = length;
+    totalLength += length;
+    urls.put(page.getUrl(), document);
+
+    for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+      postings.computeIfAbsent(entry.getKey(), key -> new PostingList()).add(document, entry.getValue());
+    }
+    return document;
+  }
+
+  @Override
+  int documentCount() {
+    return documents.size();
+  }
+
+  @Override
+  PageDTO document(int document) {
+    return documents.get(document);
+  }
+
+  @Override
+  int length(int document) {
+    return lengths[document];
+  }
+
+  @Override
+  long totalLength() {
+    return totalLength;
+  }
+
+  @Override
+  int find(String url) {
+    Integer document = urls.get(url);
+    return document == null || isDeleted(document) ? -1 : document;
+  }
+
+  @Override
+  int documentFrequency(String term) {
+    PostingList list = postings.get(term);
+    return list == null ? 0 : list.getDocumentFrequency();
+  }
+
+  @Override
+  PostingCursor postings(String term) {
+    PostingList list = postings.get(term);
+    return list == null ? null : list.cursor();
+  }
+
+  @Override
+  Iterator<String> terms() {
+    return postings.keySet().stream().sorted().iterator();
+  }
+
+  @Override
+  int termCount() {
+    return postings.size();
+  }
+
+  @Override
+  long postingsSizeInBytes() {
+    long bytes = 0;
+    for (PostingList list : postings.values()) {
+      bytes += list.sizeInBytes();
+    }
+    return bytes;
+  }
+}
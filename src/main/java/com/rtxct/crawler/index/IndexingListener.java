@@ -0,0 +1,30 @@
+package com.rtxct.crawler.index;
+
+import com.rtxct.crawler.bot.CrawlListener;
+import com.rtxct.crawler.bot.CrawledPage;
+import com.rtxct.crawler.dto.PageDTO;
+
+public class IndexingListener implements CrawlListener {
+
+  /** Class Dependencies. */
+  private final InvertedIndex index;
+
+  /**
+   * IndexingListener class constructor.
+   *
+   * @param index Index the scraped pages are added to.
+   */
+  public IndexingListener(InvertedIndex index) {
+    this.index = index;
+  }
+
+  @Override
+  public void onPage(PageDTO page) {
+    index.add(page, null);
+  }
+
+  @Override
+  public void onCrawled(CrawledPage page) {
+    index.add(page.getPage(), page.getText());
+  }
+}
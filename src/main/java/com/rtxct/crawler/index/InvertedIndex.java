@@ -0,0 +1,807 @@
+package com.rtxct.crawler.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.dto.SearchResultDTO;
+
+import jakarta.annotation.PreDestroy;
+
+@Component
+public class InvertedIndex {
+
+  /** Class properties. */
+  public static final int TITLE_WEIGHT = 3;
+
+  public static final int DESC_WEIGHT = 2;
+
+  private static final Logger logger = LoggerFactory.getLogger(InvertedIndex.class.getName());
+
+  private static final float K1 = 1.2f;
+
+  private static final float B = 0.75f;
+
+  private static final String MANIFEST = "segments";
+
+  private static final Pattern FILE_NAME = Pattern.compile("(segment|wal)-(\\d+)\\.(seg|del|log)(\\.tmp)?");
+
+  private static final ThreadLocal<Accumulator> ACCUMULATORS = ThreadLocal.withInitial(Accumulator::new);
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private final List<MappedSegment> segments = new ArrayList<>();
+
+  private final List<BufferSegment> flushing = new ArrayList<>();
+
+  private final Path directory;
+
+  private final int flushThreshold;
+
+  private final int mergeFactor;
+
+  private final ExecutorService merger;
+
+  private BufferSegment buffer;
+
+  private WriteAheadLog log;
+
+  private long nextGeneration;
+
+  private long totalLength;
+
+  private int liveDocuments;
+
+  /** Class Dependencies. */
+  private final Tokenizer tokenizer;
+
+  /**
+   * InvertedIndex class constructor, kept in memory with the default
+   * tokenizer.
+   */
+  public InvertedIndex() {
+    this(new Tokenizer());
+  }
+
+  /**
+   * InvertedIndex class constructor, kept in memory.
+   *
+   * @param tokenizer Tokenizer applied to the pages and the queries.
+   */
+  public InvertedIndex(Tokenizer tokenizer) {
+    this.tokenizer = tokenizer;
+    this.directory = null;
+    this.flushThreshold = Integer.MAX_VALUE;
+    this.mergeFactor = Integer.MAX_VALUE;
+    this.merger = null;
+    this.buffer = new BufferSegment(0);
+  }
+
+  /**
+   * InvertedIndex class constructor.
+   *
+   * @param directory      Directory holding the index files, or empty to keep
+   *                       the index in memory.
+   * @param flushThreshold Number of pages buffered on the heap before they are
+   *                       written as a segment.
+   * @param mergeFactor    Number of segments above which the smallest ones are
+   *                       merged.
+   * @throws IOException If the index files could not be read.
+   */
+  @Autowired
+  public InvertedIndex(@Value("${crawler.index.directory:}") String directory,
+      @Value("${crawler.index.flush-threshold:10000}") int flushThreshold,
+      @Value("${crawler.index.merge-factor:10}") int mergeFactor) throws IOException {
+    this(directory.isBlank() ? null : Path.of(directory), flushThreshold, mergeFactor);
+  }
+
+  /**
+   * InvertedIndex class constructor. Pages are buffered on the heap and logged
+   * to a write ahead log, then written as immutable memory mapped segments by a
+   * background thread, which also merges them. Pages logged but not written
+   * when the process stopped are indexed again on opening.
+   *
+   * @param directory      Directory holding the index files, or null to keep
+   *                       the index in memory.
+   * @param flushThreshold Number of pages buffered on the heap before they are
+   *                       written as a segment.
+   * @param mergeFactor    Number of segments above which the smallest ones are
+   *                       merged, at least 2.
+   * @throws IOException If the index files could not be read.
+   */
+  public InvertedIndex(Path directory, int flushThreshold, int mergeFactor) throws IOException {
+    this.tokenizer = new Tokenizer();
+    this.directory = directory;
+    this.flushThreshold = directory == null ? Integer.MAX_VALUE : Math.max(flushThreshold, 1);
+    this.mergeFactor = directory == null ? Integer.MAX_VALUE : Math.max(mergeFactor, 2);
+
+    if (directory == null) {
+      this.merger = null;
+      this.buffer = new BufferSegment(0);
+      return;
+    }
+
+    this.merger = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("index-merge").daemon().factory());
+    try {
+      recover();
+    } catch (IOException | RuntimeException e) {
+      merger.shutdownNow();
+      throw e;
+    }
+  }
+
+  /**
+   * Indexes a page. The text is tokenized before taking the index lock, and
+   * the title and description terms count {@link #TITLE_WEIGHT} and
+   * {@link #DESC_WEIGHT} times as much as the body ones. A page already indexed
+   * under the same URL is replaced.
+   *
+   * @param page Page data.
+   * @param text Body text of the page, may be null.
+   */
+  public void add(PageDTO page, String text) {
+    Map<String, Integer> frequencies = new HashMap<>();
+    int length = frequencies(frequencies, page, text);
+
+    lock.writeLock().lock();
+    try {
+      if (log != null) {
+        try {
+          log.append(page, text);
+        } catch (IOException e) {
+          logger.error("Index write ahead log error", e);
+        }
+      }
+
+      insert(page, length, frequencies);
+      if (buffer.documentCount() >= flushThreshold) {
+        rotate();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Searches the pages holding any of the query terms, ranked by BM25. Every
+   * segment is scored apart with the document frequencies of the whole index,
+   * and their best results are merged. Replaced pages are skipped but still
+   * count in the document frequencies until their segment is merged.
+   *
+   * @param query Free text query.
+   * @param limit Maximum number of results.
+   * @return Best results first.
+   */
+  public List<SearchResultDTO> search(String query, int limit) {
+    List<SearchResultDTO> results = new ArrayList<>();
+    if (limit <= 0) {
+      return results;
+    }
+
+    lock.readLock().lock();
+    try {
+      if (liveDocuments == 0) {
+        return results;
+      }
+
+      List<Segment> all = searchable();
+      List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenizer.tokenize(query)));
+      float[] idfs = new float[terms.size()];
+      for (int i = 0; i < terms.size(); i++) {
+        int frequency = 0;
+        for (Segment segment : all) {
+          frequency += segment.documentFrequency(terms.get(i));
+        }
+        idfs[i] = (float) Math.max(Math.log(1 + (liveDocuments - frequency + 0.5) / (frequency + 0.5)),
+            Float.MIN_NORMAL);
+      }
+
+      Accumulator accumulator = ACCUMULATORS.get();
+      float averageLength = Math.max((float) totalLength / liveDocuments, 1f);
+
+      for (Segment segment : all) {
+        if (segment.documentCount() == 0) {
+          continue;
+        }
+
+        accumulator.ensureCapacity(segment.documentCount());
+        boolean deletions = !segment.deleted.isEmpty();
+        for (int i = 0; i < terms.size(); i++) {
+          PostingCursor cursor = segment.postings(terms.get(i));
+          if (cursor == null) {
+            continue;
+          }
+
+          while (cursor.next()) {
+            int document = cursor.document();
+            if (deletions && segment.isDeleted(document)) {
+              continue;
+            }
+
+            float tf = cursor.frequency();
+            float norm = K1 * (1 - B + B * segment.length(document) / averageLength);
+            accumulator.add(document, idfs[i] * tf * (K1 + 1) / (tf + norm));
+          }
+        }
+
+        PriorityQueue<Integer> best = accumulator.top(limit);
+        List<SearchResultDTO> segmentResults = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+          int document = best.poll();
+          PageDTO page = segment.document(document);
+          segmentResults.add(new SearchResultDTO(page.getTitle(), page.getDesc(), page.getUrl(),
+              accumulator.scores[document]));
+        }
+        accumulator.clear();
+        results.addAll(segmentResults.reversed());
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    results.sort(Comparator.comparing(SearchResultDTO::getScore).reversed());
+    return results.size() > limit ? new ArrayList<>(results.subList(0, limit)) : results;
+  }
+
+  /**
+   * Writes the buffered pages as a segment, and waits until they are written
+   * and the segments merged. Does nothing when the index is kept in memory.
+   */
+  public void flush() {
+    if (merger == null) {
+      return;
+    }
+
+    lock.writeLock().lock();
+    try {
+      if (buffer.documentCount() > 0) {
+        rotate();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    try {
+      merger.submit(() -> {
+      }).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("Awaiting index flush error", e);
+    } catch (ExecutionException e) {
+      logger.error("Index flush error", e);
+    }
+  }
+
+  /**
+   * Writes the buffered pages and stops the background thread.
+   */
+  @PreDestroy
+  public void close() {
+    if (merger == null) {
+      return;
+    }
+
+    flush();
+    merger.shutdown();
+    try {
+      if (!merger.awaitTermination(30, TimeUnit.SECONDS)) {
+        merger.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("Awaiting index merge thread error", e);
+    }
+
+    lock.writeLock().lock();
+    try {
+      log.close();
+      log = null;
+    } catch (IOException e) {
+      logger.error("Index write ahead log error", e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the number of searchable pages.
+   *
+   * @return Number of pages.
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return liveDocuments;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the number of distinct terms of each segment, summed. Terms held by
+   * several segments are counted once per segment.
+   *
+   * @return Number of terms.
+   */
+  public int termCount() {
+    lock.readLock().lock();
+    try {
+      int terms = 0;
+      for (Segment segment : searchable()) {
+        terms += segment.termCount();
+      }
+      return terms;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the size of the encoded posting lists, on the heap and on disk.
+   *
+   * @return Size in bytes.
+   */
+  public long postingsSizeInBytes() {
+    lock.readLock().lock();
+    try {
+      long bytes = 0;
+      for (Segment segment : searchable()) {
+        bytes += segment.postingsSizeInBytes();
+      }
+      return bytes;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Gets the number of segments written to disk.
+   *
+   * @return Number of segments.
+   */
+  public int segmentCount() {
+    lock.readLock().lock();
+    try {
+      return segments.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Adds a page to the heap buffer, deleting the previous page stored under the
+   * same URL. Must be called holding the write lock.
+   *
+   * @param page        Page data.
+   * @param length      Weighted number of terms of the page.
+   * @param frequencies Weighted frequency of each term of the page.
+   */
+  private void insert(PageDTO page, int length, Map<String, Integer> frequencies) {
+    List<Segment> all = searchable();
+    for (int i = all.size() - 1; i >= 0; i--) {
+      Segment segment = all.get(i);
+      int previous = segment.find(page.getUrl());
+      if (previous >= 0) {
+        segment.delete(previous);
+        totalLength -= segment.length(previous);
+        liveDocuments--;
+        break;
+      }
+    }
+
+    buffer.add(page, length, frequencies);
+    totalLength += length;
+    liveDocuments++;
+  }
+
+  /**
+   * Hands the full buffer to the background thread and starts a new one, with
+   * its own write ahead log. Must be called holding the write lock.
+   */
+  private void rotate() {
+    BufferSegment full = buffer;
+    WriteAheadLog fullLog = log;
+    long generation = nextGeneration++;
+
+    try {
+      log = new WriteAheadLog(walPath(generation));
+    } catch (IOException e) {
+      logger.error("Index write ahead log error", e);
+      log = null;
+    }
+    buffer = new BufferSegment(generation);
+    flushing.add(full);
+
+    merger.execute(() -> {
+      try {
+        if (fullLog != null) {
+          fullLog.close();
+        }
+        writeBuffer(full);
+        if (fullLog != null) {
+          Files.deleteIfExists(fullLog.getPath());
+        }
+        merge();
+      } catch (IOException e) {
+        logger.error("Index flush error", e);
+      }
+    });
+  }
+
+  /**
+   * Writes a buffer as a segment, and swaps it in once written. Deletions made
+   * while writing are carried over to the new segment. Runs on the background
+   * thread, or while opening the index.
+   *
+   * @param full Buffer to be written, already in the flushing list.
+   * @throws IOException If the segment could not be written.
+   */
+  private void writeBuffer(BufferSegment full) throws IOException {
+    BitSet snapshot;
+    lock.readLock().lock();
+    try {
+      snapshot = (BitSet) full.deleted.clone();
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    Path path = segmentPath(full.generation);
+    int[][] mapping = MappedSegment.write(path, List.of(full), List.of(snapshot));
+    MappedSegment segment = MappedSegment.open(path, full.generation);
+
+    lock.writeLock().lock();
+    try {
+      carryDeletions(full, snapshot, mapping[0], segment);
+      flushing.remove(full);
+      segments.add(segment);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    commit();
+  }
+
+  /**
+   * Merges the run of consecutive segments with the fewest documents, while
+   * there are more segments than the merge factor. Segments are kept in the
+   * order their pages were indexed, which breaks the ties between results.
+   * Runs on the background thread.
+   *
+   * @throws IOException If a segment could not be written.
+   */
+  private void merge() throws IOException {
+    while (true) {
+      List<MappedSegment> sources;
+      List<BitSet> snapshots = new ArrayList<>();
+      long generation;
+
+      lock.writeLock().lock();
+      try {
+        if (segments.size() <= mergeFactor) {
+          return;
+        }
+
+        int start = 0;
+        long smallest = Long.MAX_VALUE;
+        for (int i = 0; i + mergeFactor <= segments.size(); i++) {
+          long documents = 0;
+          for (int j = i; j < i + mergeFactor; j++) {
+            documents += segments.get(j).liveCount();
+          }
+          if (documents < smallest) {
+            smallest = documents;
+            start = i;
+          }
+        }
+
+        sources = new ArrayList<>(segments.subList(start, start + mergeFactor));
+        for (MappedSegment source : sources) {
+          snapshots.add((BitSet) source.deleted.clone());
+        }
+        generation = nextGeneration++;
+      } finally {
+        lock.writeLock().unlock();
+      }
+
+      Path path = segmentPath(generation);
+      int[][] mapping = MappedSegment.write(path, sources, snapshots);
+      MappedSegment merged = MappedSegment.open(path, generation);
+
+      lock.writeLock().lock();
+      try {
+        for (int i = 0; i < sources.size(); i++) {
+          carryDeletions(sources.get(i), snapshots.get(i), mapping[i], merged);
+        }
+        int start = segments.indexOf(sources.get(0));
+        segments.subList(start, start + sources.size()).clear();
+        segments.add(start, merged);
+      } finally {
+        lock.writeLock().unlock();
+      }
+
+      commit();
+      for (MappedSegment source : sources) {
+        try {
+          source.deleteFiles();
+        } catch (IOException e) {
+          logger.error("Index segment deletion error", e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Applies to a new segment the deletions made to its source after the
+   * snapshot it was written from. Must be called holding the write lock.
+   */
+  private static void carryDeletions(Segment source, BitSet snapshot, int[] mapping, MappedSegment target) {
+    for (int document = source.deleted.nextSetBit(0); document >= 0;
+        document = source.deleted.nextSetBit(document + 1)) {
+      if (!snapshot.get(document) && mapping[document] >= 0) {
+        target.delete(mapping[document]);
+      }
+    }
+  }
+
+  /**
+   * Writes the changed deletion files, then the list of segments, which is
+   * replaced at once so the index is always opened from a complete state.
+   *
+   * @throws IOException If a file could not be written.
+   */
+  private void commit() throws IOException {
+    List<MappedSegment> dirty = new ArrayList<>();
+    List<BitSet> deletions = new ArrayList<>();
+    List<Long> versions = new ArrayList<>();
+    List<String> generations = new ArrayList<>();
+
+    lock.readLock().lock();
+    try {
+      for (MappedSegment segment : segments) {
+        generations.add(Long.toString(segment.generation));
+        if (segment.needsDeletionsWrite(segment.getDeletionVersion())) {
+          dirty.add(segment);
+          deletions.add((BitSet) segment.deleted.clone());
+          versions.add(segment.getDeletionVersion());
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    for (int i = 0; i < dirty.size(); i++) {
+      dirty.get(i).writeDeletions(deletions.get(i), versions.get(i));
+    }
+
+    Path manifest = directory.resolve(MANIFEST);
+    Path temporary = directory.resolve(MANIFEST + ".tmp");
+    Files.write(temporary, generations);
+    Files.move(temporary, manifest, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+  }
+
+  /**
+   * Opens the segments listed in the manifest, removes the files left by an
+   * interrupted flush or merge, and indexes again the pages of the write ahead
+   * logs that were not written as a segment.
+   *
+   * @throws IOException If the index files could not be read.
+   */
+  private void recover() throws IOException {
+    Files.createDirectories(directory);
+
+    List<Long> listed = new ArrayList<>();
+    Path manifest = directory.resolve(MANIFEST);
+    if (Files.exists(manifest)) {
+      for (String line : Files.readAllLines(manifest)) {
+        if (!line.isBlank()) {
+          listed.add(Long.parseLong(line.strip()));
+        }
+      }
+    }
+
+    TreeSet<Long> logs = new TreeSet<>();
+    long maxGeneration = listed.stream().mapToLong(Long::longValue).max().orElse(-1);
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+        if (!matcher.matches()) {
+          continue;
+        }
+
+        long generation = Long.parseLong(matcher.group(2));
+        maxGeneration = Math.max(maxGeneration, generation);
+        if (matcher.group(4) != null) {
+          Files.delete(file);
+        } else if (matcher.group(1).equals("wal")) {
+          logs.add(generation);
+        } else if (!listed.contains(generation)) {
+          Files.delete(file);
+        }
+      }
+    }
+    Files.deleteIfExists(directory.resolve(MANIFEST + ".tmp"));
+    nextGeneration = maxGeneration + 1;
+
+    for (long generation : listed) {
+      MappedSegment segment = MappedSegment.open(segmentPath(generation), generation);
+      segments.add(segment);
+      for (int document = 0; document < segment.documentCount(); document++) {
+        if (!segment.isDeleted(document)) {
+          totalLength += segment.length(document);
+          liveDocuments++;
+        }
+      }
+    }
+
+    BufferSegment current = new BufferSegment(nextGeneration++);
+    buffer = current;
+
+    for (long generation : logs) {
+      Path path = walPath(generation);
+      if (listed.contains(generation)) {
+        Files.delete(path);
+        continue;
+      }
+
+      BufferSegment recovered = new BufferSegment(generation);
+      lock.writeLock().lock();
+      try {
+        buffer = recovered;
+        int count = WriteAheadLog.replay(path, (page, text) -> {
+          Map<String, Integer> frequencies = new HashMap<>();
+          insert(page, frequencies(frequencies, page, text), frequencies);
+        });
+        logger.info("Recovered {} pages from the index write ahead log {}", count, path);
+        flushing.add(recovered);
+        buffer = current;
+      } finally {
+        lock.writeLock().unlock();
+      }
+
+      if (recovered.documentCount() > 0) {
+        writeBuffer(recovered);
+      } else {
+        flushing.remove(recovered);
+        commit();
+      }
+      Files.delete(path);
+    }
+
+    log = new WriteAheadLog(walPath(current.generation));
+    merge();
+  }
+
+  /**
+   * Lists the segments in the order their pages were indexed: the segments on
+   * disk, the buffers being written and the current buffer. Must be called
+   * holding the lock.
+   *
+   * @return Searchable segments.
+   */
+  private List<Segment> searchable() {
+    List<Segment> all = new ArrayList<>(segments.size() + flushing.size() + 1);
+    all.addAll(segments);
+    all.addAll(flushing);
+    all.add(buffer);
+    return all;
+  }
+
+  /**
+   * Counts the weighted term frequencies of a page.
+   *
+   * @return Weighted number of terms of the page.
+   */
+  private int frequencies(Map<String, Integer> frequencies, PageDTO page, String text) {
+    return count(frequencies, page.getTitle(), TITLE_WEIGHT)
+        + count(frequencies, page.getDesc(), DESC_WEIGHT)
+        + count(frequencies, text, 1);
+  }
+
+  /**
+   * Counts the weighted term frequencies of a field.
+   *
+   * @return Weighted number of terms in the field.
+   */
+  private int count(Map<String, Integer> frequencies, String field, int weight) {
+    List<String> terms = tokenizer.tokenize(field);
+    for (String term : terms) {
+      frequencies.merge(term, weight, Integer::sum);
+    }
+    return terms.size() * weight;
+  }
+
+  private Path segmentPath(long generation) {
+    return directory.resolve("segment-" + generation + ".seg");
+  }
+
+  private Path walPath(long generation) {
+    return directory.resolve("wal-" + generation + ".log");
+  }
+
+  /**
+   * Per thread score table, reused between queries. Only the touched documents
+   * are reset after a query.
+   */
+  private static class Accumulator {
+
+    private float[] scores = new float[0];
+
+    private int[] touched = new int[64];
+
+    private int touchedCount;
+
+    private void ensureCapacity(int documents) {
+      if (scores.length < documents) {
+        scores = new float[Math.max(documents, scores.length * 2)];
+      }
+    }
+
+    private void add(int document, float score) {
+      if (scores[document] == 0) {
+        if (touchedCount == touched.length) {
+          touched = Arrays.copyOf(touched, touched.length * 2);
+        }
+        touched[touchedCount++] = document;
+      }
+      scores[document] += score;
+    }
+
+    /**
+     * Selects the best documents with a min heap, the worst one on top. Ties go
+     * to the document indexed first.
+     */
+    private PriorityQueue<Integer> top(int limit) {
+      PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, (first, second) -> {
+        int compare = Float.compare(scores[first], scores[second]);
+        return compare != 0 ? compare : Integer.compare(second, first);
+      });
+
+      float threshold = 0;
+      for (int i = 0; i < touchedCount; i++) {
+        int document = touched[i];
+        if (heap.size() < limit) {
+          heap.offer(document);
+          threshold = scores[heap.peek()];
+        } else if (scores[document] >= threshold && heap.comparator().compare(document, heap.peek()) > 0) {
+          heap.poll();
+          heap.offer(document);
+          threshold = scores[heap.peek()];
+        }
+      }
+      return heap;
+    }
+
+    private void clear() {
+      for (int i = 0; i < touchedCount; i++) {
+        scores[touched[i]] = 0;
+      }
+      touchedCount = 0;
+    }
+  }
+}
@@ -0,0 +1,594 @@
+package com.rtxct.crawler.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+import com.rtxct.crawler.dto.PageDTO;
+
+/**
+ * Immutable segment read from a memory mapped file, so its postings and stored
+ * fields take no heap. The file holds, after a fixed header:
+ * <ul>
+ * <li>the stored fields of each document (URL, title and description);</li>
+ * <li>each term followed by its postings, as document gaps and frequencies
+ * encoded as variable length integers;</li>
+ * <li>the document table: record offset and length of each document;</li>
+ * <li>the term table, sorted by term: term offset, postings offset, postings
+ * size and document frequency;</li>
+ * <li>the URL table: document identifiers sorted by URL.</li>
+ * </ul>
+ * Deletions are kept apart, in a small bit set file rewritten on commit.
+ */
+class MappedSegment extends Segment {
+
+  /** Class properties. */
+  private static final int MAGIC = 0x53454753;
+
+  private static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 40;
+
+  private static final int DOCUMENT_ENTRY = 8;
+
+  private static final int TERM_ENTRY = 16;
+
+  private final Path path;
+
+  private final MappedByteBuffer buffer;
+
+  private final int documentCount;
+
+  private final int termCount;
+
+  private final long totalLength;
+
+  private final int documentTable;
+
+  private final int termTable;
+
+  private final int urlTable;
+
+  private final int postingsSize;
+
+  private long deletionVersion;
+
+  private long persistedVersion;
+
+  /**
+   * Maps the segment stored in the given file, along with its deletions.
+   *
+   * @param path       Segment file.
+   * @param generation Unique number of the segment.
+   * @return Opened segment.
+   * @throws IOException If the file is missing or is not a valid segment.
+   */
+  static MappedSegment open(Path path, long generation) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+        throw new IOException("Not an index segment file: " + path);
+      }
+
+      MappedSegment segment = new MappedSegment(path, generation, buffer);
+      Path deletions = deletionsPath(path);
+      if (Files.exists(deletions)) {
+        segment.deleted.or(BitSet.valueOf(Files.readAllBytes(deletions)));
+      }
+      return segment;
+    }
+  }
+
+  /**
+   * Writes the live documents of the given segments into a new segment file,
+   * numbering them in order. Deleted documents and terms left without postings
+   * are dropped. The file is written aside and moved in place once complete.
+   *
+   * @param path      Segment file to be created.
+   * @param sources   Segments to be written, such as a full buffer or the
+   *                  segments being merged.
+   * @param deletions Deletions of each source to apply, as they may change
+   *                  while writing.
+   * @return Mapping of each source document to its new identifier, or -1 if
+   *         it was dropped.
+   * @throws IOException If the file could not be written.
+   */
+  static int[][] write(Path path, List<? extends Segment> sources, List<BitSet> deletions) throws IOException {
+    int[][] mapping = new int[sources.size()][];
+    int count = 0;
+    for (int i = 0; i < sources.size(); i++) {
+      mapping[i] = new int[sources.get(i).documentCount()];
+      for (int document = 0; document < mapping[i].length; document++) {
+        mapping[i][document] = deletions.get(i).get(document) ? -1 : count++;
+      }
+    }
+
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    int[] recordOffsets = new int[count];
+    int[] lengths = new int[count];
+    String[] urls = new String[count];
+    long totalLength = 0;
+    IntList terms = new IntList();
+    int documentTable;
+    int termTable;
+    int urlTable;
+    long postingsSize = 0;
+
+    try (DataOutputStream output = new DataOutputStream(
+        new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+      output.write(new byte[HEADER_SIZE]);
+
+      for (int i = 0; i < sources.size(); i++) {
+        Segment source = sources.get(i);
+        for (int document = 0; document < mapping[i].length; document++) {
+          int target = mapping[i][document];
+          if (target < 0) {
+            continue;
+          }
+
+          PageDTO page = source.document(document);
+          recordOffsets[target] = output.size();
+          writeString(output, page.getUrl());
+          writeString(output, page.getTitle());
+          writeString(output, page.getDesc());
+          lengths[target] = source.length(document);
+          urls[target] = page.getUrl();
+          totalLength += lengths[target];
+        }
+      }
+
+      PriorityQueue<TermSource> queue = new PriorityQueue<>(
+          Comparator.comparing((TermSource source) -> source.term).thenComparingInt(source -> source.index));
+      for (int i = 0; i < sources.size(); i++) {
+        TermSource source = new TermSource(i, sources.get(i).terms());
+        if (source.advance()) {
+          queue.add(source);
+        }
+      }
+
+      List<TermSource> holders = new ArrayList<>();
+      while (!queue.isEmpty()) {
+        String term = queue.peek().term;
+        holders.clear();
+        while (!queue.isEmpty() && queue.peek().term.equals(term)) {
+          holders.add(queue.poll());
+        }
+
+        int termOffset = output.size();
+        writeString(output, term);
+        int postingsOffset = output.size();
+        int frequency = 0;
+        int last = -1;
+
+        for (TermSource holder : holders) {
+          PostingCursor cursor = sources.get(holder.index).postings(term);
+          while (cursor.next()) {
+            int target = mapping[holder.index][cursor.document()];
+            if (target < 0) {
+              continue;
+            }
+            writeVarInt(output, target - last);
+            writeVarInt(output, cursor.frequency());
+            last = target;
+            frequency++;
+          }
+          if (holder.advance()) {
+            queue.add(holder);
+          }
+        }
+
+        if (frequency > 0) {
+          terms.add(termOffset);
+          terms.add(postingsOffset);
+          terms.add(output.size() - postingsOffset);
+          terms.add(frequency);
+          postingsSize += output.size() - postingsOffset;
+        }
+      }
+
+      documentTable = output.size();
+      for (int document = 0; document < count; document++) {
+        output.writeInt(recordOffsets[document]);
+        output.writeInt(lengths[document]);
+      }
+
+      termTable = output.size();
+      for (int i = 0; i < terms.size(); i++) {
+        output.writeInt(terms.get(i));
+      }
+
+      urlTable = output.size();
+      int[] byUrl = IntStream.range(0, count).boxed()
+          .sorted(Comparator.comparing(document -> urls[document]))
+          .mapToInt(Integer::intValue)
+          .toArray();
+      for (int document : byUrl) {
+        output.writeInt(document);
+      }
+
+      if (output.size() == Integer.MAX_VALUE) {
+        throw new IOException("Index segment is too large to be mapped");
+      }
+    }
+
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(terms.size() / 4).putLong(totalLength)
+          .putInt(documentTable).putInt(termTable).putInt(urlTable).putInt((int) postingsSize);
+      header.flip();
+      channel.write(header, 0);
+      channel.force(true);
+    }
+
+    Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    return mapping;
+  }
+
+  /**
+   * MappedSegment class constructor.
+   *
+   * @param path       Segment file.
+   * @param generation Unique number of the segment.
+   * @param buffer     Mapped file content.
+   */
+  private MappedSegment(Path path, long generation, MappedByteBuffer buffer) {
+    super(generation);
+    this.path = path;
+    this.buffer = buffer;
+    this.documentCount = buffer.getInt(8);
+    this.termCount = buffer.getInt(12);
+    this.totalLength = buffer.getLong(16);
+    this.documentTable = buffer.getInt(24);
+    this.termTable = buffer.getInt(28);
+    this.urlTable = buffer.getInt(32);
+    this.postingsSize = buffer.getInt(36);
+  }
+
+  @Override
+  int documentCount() {
+    return documentCount;
+  }
+
+  @Override
+  PageDTO document(int document) {
+    int offset = buffer.getInt(documentTable + document * DOCUMENT_ENTRY);
+    String url = readString(offset);
+    offset += Integer.BYTES + Math.max(buffer.getInt(offset), 0);
+    String title = readString(offset);
+    offset += Integer.BYTES + Math.max(buffer.getInt(offset), 0);
+    return new PageDTO(title, readString(offset), url);
+  }
+
+  @Override
+  int length(int document) {
+    return buffer.getInt(documentTable + document * DOCUMENT_ENTRY + Integer.BYTES);
+  }
+
+  @Override
+  long totalLength() {
+    return totalLength;
+  }
+
+  @Override
+  int find(String url) {
+    int low = 0;
+    int high = documentCount;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (urlAt(middle).compareTo(url) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    for (int i = low; i < documentCount && urlAt(i).equals(url); i++) {
+      int document = buffer.getInt(urlTable + i * Integer.BYTES);
+      if (!isDeleted(document)) {
+        return document;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  int documentFrequency(String term) {
+    int entry = findTerm(term);
+    return entry < 0 ? 0 : buffer.getInt(entry + 12);
+  }
+
+  @Override
+  PostingCursor postings(String term) {
+    int entry = findTerm(term);
+    if (entry < 0) {
+      return null;
+    }
+
+    int offset = buffer.getInt(entry + 4);
+    return new Cursor(buffer, offset, offset + buffer.getInt(entry + 8));
+  }
+
+  @Override
+  Iterator<String> terms() {
+    return new Iterator<>() {
+      private int index;
+
+      @Override
+      public boolean hasNext() {
+        return index < termCount;
+      }
+
+      @Override
+      public String next() {
+        if (index >= termCount) {
+          throw new NoSuchElementException();
+        }
+        return readString(buffer.getInt(termTable + index++ * TERM_ENTRY));
+      }
+    };
+  }
+
+  @Override
+  int termCount() {
+    return termCount;
+  }
+
+  @Override
+  long postingsSizeInBytes() {
+    return postingsSize;
+  }
+
+  @Override
+  void delete(int document) {
+    super.delete(document);
+    deletionVersion++;
+  }
+
+  /**
+   * Gets the number of deletions applied to the segment, so the index knows
+   * when its deletions file must be rewritten.
+   *
+   * @return Deletions version.
+   */
+  long getDeletionVersion() {
+    return deletionVersion;
+  }
+
+  /**
+   * Checks whether the deletions file is older than the given version.
+   *
+   * @param version Deletions version.
+   * @return Boolean whether the deletions must be written or not.
+   */
+  boolean needsDeletionsWrite(long version) {
+    return version > persistedVersion;
+  }
+
+  /**
+   * Writes the deletions file, replacing the previous one at once.
+   *
+   * @param deletions Deletions to be written.
+   * @param version   Deletions version they belong to.
+   * @throws IOException If the file could not be written.
+   */
+  void writeDeletions(BitSet deletions, long version) throws IOException {
+    Path target = deletionsPath(path);
+    Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+    Files.write(temporary, deletions.toByteArray());
+    Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    persistedVersion = version;
+  }
+
+  /**
+   * Deletes the segment files, once the segment was merged into another one.
+   * The mapping stays readable until it is garbage collected.
+   *
+   * @throws IOException If a file could not be deleted.
+   */
+  void deleteFiles() throws IOException {
+    Files.deleteIfExists(deletionsPath(path));
+    Files.deleteIfExists(path);
+  }
+
+  /**
+   * Gets the deletions file of a segment file.
+   *
+   * @param path Segment file.
+   * @return Deletions file.
+   */
+  static Path deletionsPath(Path path) {
+    String name = path.getFileName().toString();
+    return path.resolveSibling(name.substring(0, name.lastIndexOf('.')) + ".del");
+  }
+
+  /**
+   * Finds the entry of a term in the term table, through a binary search.
+   *
+   * @param term Index term.
+   * @return Entry offset, or -1 if not found.
+   */
+  private int findTerm(String term) {
+    int low = 0;
+    int high = termCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int entry = termTable + middle * TERM_ENTRY;
+      int compare = readString(buffer.getInt(entry)).compareTo(term);
+      if (compare == 0) {
+        return entry;
+      } else if (compare < 0) {
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Gets the URL at the given position of the URL table.
+   */
+  private String urlAt(int position) {
+    int document = buffer.getInt(urlTable + position * Integer.BYTES);
+    return readString(buffer.getInt(documentTable + document * DOCUMENT_ENTRY));
+  }
+
+  /**
+   * Reads a length prefixed UTF-8 String, a negative length standing for null.
+   */
+  private String readString(int offset) {
+    int length = buffer.getInt(offset);
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(offset + Integer.BYTES, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes a length prefixed UTF-8 String, null being written as a negative
+   * length.
+   */
+  static void writeString(DataOutputStream output, String value) throws IOException {
+    if (value == null) {
+      output.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * Writes an unsigned variable length integer, 7 bits per byte.
+   */
+  private static void writeVarInt(DataOutputStream output, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      output.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    output.writeByte(value);
+  }
+
+  /**
+   * Decodes the postings of a term from the mapped file.
+   */
+  private static class Cursor implements PostingCursor {
+
+    private final ByteBuffer buffer;
+
+    private final int end;
+
+    private int position;
+
+    private int document = -1;
+
+    private int frequency;
+
+    private Cursor(ByteBuffer buffer, int position, int end) {
+      this.buffer = buffer;
+      this.position = position;
+      this.end = end;
+    }
+
+    @Override
+    public boolean next() {
+      if (position >= end) {
+        return false;
+      }
+      document += readVarInt();
+      frequency = readVarInt();
+      return true;
+    }
+
+    @Override
+    public int document() {
+      return document;
+    }
+
+    @Override
+    public int frequency() {
+      return frequency;
+    }
+
+    private int readVarInt() {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = buffer.get(position++);
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      return value;
+    }
+  }
+
+  /**
+   * Sorted terms of a source segment, during a merge.
+   */
+  private static class TermSource {
+
+    private final int index;
+
+    private final Iterator<String> terms;
+
+    private String term;
+
+    private TermSource(int index, Iterator<String> terms) {
+      this.index = index;
+      this.terms = terms;
+    }
+
+    private boolean advance() {
+      if (!terms.hasNext()) {
+        return false;
+      }
+      term = terms.next();
+      return true;
+    }
+  }
+
+  /**
+   * Growable list of primitive ints.
+   */
+  private static class IntList {
+
+    private int[] values = new int[256];
+
+    private int size;
+
+    private void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    private int get(int index) {
+      return values[index];
+    }
+
+    private int size() {
+      return size;
+    }
+  }
+}
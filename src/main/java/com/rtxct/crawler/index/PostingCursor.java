@@ -0,0 +1,25 @@
+package com.rtxct.crawler.index;
+
+public interface PostingCursor {
+
+  /**
+   * Moves to the next posting.
+   *
+   * @return Boolean whether there was a next posting or not.
+   */
+  boolean next();
+
+  /**
+   * Gets the document of the current posting.
+   *
+   * @return Document identifier.
+   */
+  int document();
+
+  /**
+   * Gets the term frequency of the current posting.
+   *
+   * @return Term frequency.
+   */
+  int frequency();
+}
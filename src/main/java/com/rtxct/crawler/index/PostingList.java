@@ -0,0 +1,136 @@
+package com.rtxct.crawler.index;
+
+import java.util.Arrays;
+
+public class PostingList {
+
+  /** Class properties. */
+  private byte[] data = new byte[8];
+
+  private int size;
+
+  private int lastDocument = -1;
+
+  private int documentFrequency;
+
+  /**
+   * Appends a posting. Documents must be added in increasing order, as only the
+   * gap to the previous one is stored, followed by the term frequency, both as
+   * variable length integers.
+   *
+   * @param document  Document identifier, greater than the previous one.
+   * @param frequency Term frequency in the document.
+   */
+  public void add(int document, int frequency) {
+    if (document <= lastDocument) {
+      throw new IllegalArgumentException("Documents must be added in increasing order");
+    }
+
+    ensureCapacity(10);
+    writeVarInt(document - lastDocument);
+    writeVarInt(frequency);
+    lastDocument = document;
+    documentFrequency++;
+  }
+
+  /**
+   * Gets the number of documents holding the term.
+   *
+   * @return Document frequency.
+   */
+  public int getDocumentFrequency() {
+    return documentFrequency;
+  }
+
+  /**
+   * Gets the size of the encoded postings.
+   *
+   * @return Size in bytes.
+   */
+  public int sizeInBytes() {
+    return size;
+  }
+
+  /**
+   * Creates a cursor over the postings, in document order. The cursor sees the
+   * postings added before its creation.
+   *
+   * @return Posting cursor.
+   */
+  public Cursor cursor() {
+    return new Cursor(data, size);
+  }
+
+  /**
+   * Writes an unsigned variable length integer, 7 bits per byte.
+   */
+  private void writeVarInt(int value) {
+    while ((value & ~0x7F) != 0) {
+      data[size++] = (byte) ((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    data[size++] = (byte) value;
+  }
+
+  /**
+   * Grows the buffer so it can hold the given number of extra bytes.
+   */
+  private void ensureCapacity(int extra) {
+    if (size + extra > data.length) {
+      data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+    }
+  }
+
+  /**
+   * Decodes the postings one at a time.
+   */
+  public static class Cursor implements PostingCursor {
+
+    private final byte[] data;
+
+    private final int size;
+
+    private int position;
+
+    private int document = -1;
+
+    private int frequency;
+
+    private Cursor(byte[] data, int size) {
+      this.data = data;
+      this.size = size;
+    }
+
+    @Override
+    public boolean next() {
+      if (position >= size) {
+        return false;
+      }
+      document += readVarInt();
+      frequency = readVarInt();
+      return true;
+    }
+
+    @Override
+    public int document() {
+      return document;
+    }
+
+    @Override
+    public int frequency() {
+      return frequency;
+    }
+
+    private int readVarInt() {
+      int value = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = data[position++];
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      return value;
+    }
+  }
+}
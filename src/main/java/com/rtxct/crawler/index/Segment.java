@@ -0,0 +1,130 @@
+package com.rtxct.crawler.index;
+
+import java.util.BitSet;
+import java.util.Iterator;
+
+import com.rtxct.crawler.dto.PageDTO;
+
+/**
+ * Part of the index holding its own documents, numbered from zero. Deletions
+ * are kept in a bit set, guarded by the index lock.
+ */
+abstract class Segment {
+
+  /** Class properties. */
+  protected final long generation;
+
+  protected final BitSet deleted = new BitSet();
+
+  /**
+   * Segment class constructor.
+   *
+   * @param generation Unique number of the segment, naming its files.
+   */
+  protected Segment(long generation) {
+    this.generation = generation;
+  }
+
+  /**
+   * Gets the number of documents, deleted ones included.
+   *
+   * @return Number of documents.
+   */
+  abstract int documentCount();
+
+  /**
+   * Gets the stored fields of a document.
+   *
+   * @param document Document identifier.
+   * @return Page data.
+   */
+  abstract PageDTO document(int document);
+
+  /**
+   * Gets the weighted number of terms of a document.
+   *
+   * @param document Document identifier.
+   * @return Document length.
+   */
+  abstract int length(int document);
+
+  /**
+   * Gets the weighted number of terms of every document, deleted ones included.
+   *
+   * @return Total length.
+   */
+  abstract long totalLength();
+
+  /**
+   * Finds the live document stored under the given URL.
+   *
+   * @param url Page URL.
+   * @return Document identifier, or -1 if not found or deleted.
+   */
+  abstract int find(String url);
+
+  /**
+   * Gets the number of documents holding the term, deleted ones included.
+   *
+   * @param term Index term.
+   * @return Document frequency.
+   */
+  abstract int documentFrequency(String term);
+
+  /**
+   * Creates a cursor over the postings of a term.
+   *
+   * @param term Index term.
+   * @return Posting cursor, or null if the term is not in the segment.
+   */
+  abstract PostingCursor postings(String term);
+
+  /**
+   * Iterates over the terms of the segment in their natural order.
+   *
+   * @return Sorted terms.
+   */
+  abstract Iterator<String> terms();
+
+  /**
+   * Gets the number of distinct terms.
+   *
+   * @return Number of terms.
+   */
+  abstract int termCount();
+
+  /**
+   * Gets the size of the encoded postings.
+   *
+   * @return Size in bytes.
+   */
+  abstract long postingsSizeInBytes();
+
+  /**
+   * Marks a document as deleted.
+   *
+   * @param document Document identifier.
+   */
+  void delete(int document) {
+    deleted.set(document);
+  }
+
+  /**
+   * Checks whether a document was deleted.
+   *
+   * @param document Document identifier.
+   * @return Boolean whether the document is deleted or not.
+   */
+  boolean isDeleted(int document) {
+    return deleted.get(document);
+  }
+
+  /**
+   * Gets the number of documents that were not deleted.
+   *
+   * @return Number of live documents.
+   */
+  int liveCount() {
+    return documentCount() - deleted.cardinality();
+  }
+}
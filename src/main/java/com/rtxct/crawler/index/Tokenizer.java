@@ -0,0 +1,104 @@
+package com.rtxct.crawler.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class Tokenizer {
+
+  /** Class properties. */
+  public static final Set<String> DEFAULT_STOP_WORDS = Set.of("a", "an", "and", "are", "as", "at", "be", "by",
+      "for", "from", "has", "in", "is", "it", "its", "of", "on", "or", "that", "the", "to", "was", "were", "will",
+      "with");
+
+  public static final int MAX_TOKEN_LENGTH = 64;
+
+  private final Set<String> stopWords;
+
+  /**
+   * Tokenizer class constructor, dropping the default English stop words.
+   */
+  public Tokenizer() {
+    this(DEFAULT_STOP_WORDS);
+  }
+
+  /**
+   * Tokenizer class constructor.
+   *
+   * @param stopWords Lowercase terms to be dropped.
+   */
+  public Tokenizer(Set<String> stopWords) {
+    this.stopWords = stopWords;
+  }
+
+  /**
+   * Splits the text into terms: runs of letters and digits, lowercased and
+   * without accents. Stop words and terms longer than
+   * {@link #MAX_TOKEN_LENGTH} are dropped.
+   *
+   * @param text Text to be tokenized, may be null.
+   * @return Terms in the order they appear.
+   */
+  public List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    if (text == null || text.isEmpty()) {
+      return tokens;
+    }
+
+    String folded = fold(text);
+    StringBuilder token = new StringBuilder();
+    for (int i = 0; i < folded.length(); i++) {
+      char c = folded.charAt(i);
+      if (Character.isLetterOrDigit(c)) {
+        token.append(Character.toLowerCase(c));
+      } else if (token.length() > 0) {
+        addToken(tokens, token);
+      }
+    }
+    if (token.length() > 0) {
+      addToken(tokens, token);
+    }
+    return tokens;
+  }
+
+  /**
+   * Adds the buffered token to the list, unless it is a stop word or too long,
+   * and clears the buffer.
+   */
+  private void addToken(List<String> tokens, StringBuilder token) {
+    if (token.length() <= MAX_TOKEN_LENGTH) {
+      String term = token.toString();
+      if (!stopWords.contains(term)) {
+        tokens.add(term);
+      }
+    }
+    token.setLength(0);
+  }
+
+  /**
+   * Removes the accents of the text. Plain ASCII text is returned as is.
+   *
+   * @param text Text to be folded.
+   * @return Text without combining marks.
+   */
+  private static String fold(String text) {
+    boolean ascii = true;
+    for (int i = 0; i < text.length() && ascii; i++) {
+      ascii = text.charAt(i) < 0x80;
+    }
+    if (ascii) {
+      return text;
+    }
+
+    String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+    StringBuilder builder = new StringBuilder(decomposed.length());
+    for (int i = 0; i < decomposed.length(); i++) {
+      char c = decomposed.charAt(i);
+      if (Character.getType(c) != Character.NON_SPACING_MARK) {
+        builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+}
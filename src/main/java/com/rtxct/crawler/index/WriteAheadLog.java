@@ -0,0 +1,164 @@
+package com.rtxct.crawler.index;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import com.rtxct.crawler.dto.PageDTO;
+
+/**
+ * Append only log of the pages added to the heap buffer, so they can be
+ * indexed again when the process stops before the buffer is flushed. Each
+ * record is written as its size, a CRC32 checksum and the page fields, and is
+ * handed to the operating system before the page becomes searchable.
+ */
+class WriteAheadLog implements Closeable {
+
+  /** Class properties. */
+  private static final int MAX_RECORD_SIZE = 64 << 20;
+
+  private final Path path;
+
+  private final OutputStream output;
+
+  private final ByteArrayOutputStream record = new ByteArrayOutputStream(4096);
+
+  private final CRC32 checksum = new CRC32();
+
+  /**
+   * Callback receiving the replayed pages.
+   */
+  interface Replay {
+    void accept(PageDTO page, String text);
+  }
+
+  /**
+   * WriteAheadLog class constructor, appending to the file if it already
+   * exists.
+   *
+   * @param path Log file.
+   * @throws IOException If the file could not be opened.
+   */
+  WriteAheadLog(Path path) throws IOException {
+    this.path = path;
+    this.output = Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+  }
+
+  /**
+   * Appends a page to the log.
+   *
+   * @param page Page data.
+   * @param text Body text of the page, may be null.
+   * @throws IOException If the record could not be written.
+   */
+  void append(PageDTO page, String text) throws IOException {
+    record.reset();
+    record.write(new byte[8]);
+    DataOutputStream fields = new DataOutputStream(record);
+    MappedSegment.writeString(fields, page.getUrl());
+    MappedSegment.writeString(fields, page.getTitle());
+    MappedSegment.writeString(fields, page.getDesc());
+    MappedSegment.writeString(fields, text);
+
+    byte[] bytes = record.toByteArray();
+    int size = bytes.length - 8;
+    checksum.reset();
+    checksum.update(bytes, 8, size);
+    writeInt(bytes, 0, size);
+    writeInt(bytes, 4, (int) checksum.getValue());
+
+    output.write(bytes);
+    output.flush();
+  }
+
+  /**
+   * Gets the log file.
+   *
+   * @return Log file.
+   */
+  Path getPath() {
+    return path;
+  }
+
+  @Override
+  public void close() throws IOException {
+    output.close();
+  }
+
+  /**
+   * Reads the pages of a log in the order they were appended. Reading stops at
+   * the first truncated or corrupted record, such as one cut by a crash.
+   *
+   * @param path   Log file.
+   * @param replay Callback receiving each page.
+   * @return Number of replayed pages.
+   * @throws IOException If the file could not be read.
+   */
+  static int replay(Path path, Replay replay) throws IOException {
+    int count = 0;
+    CRC32 checksum = new CRC32();
+
+    try (DataInputStream input = new DataInputStream(Files.newInputStream(path))) {
+      while (true) {
+        int size;
+        int expected;
+        byte[] bytes;
+        try {
+          size = input.readInt();
+          expected = input.readInt();
+          if (size < 0 || size > MAX_RECORD_SIZE) {
+            return count;
+          }
+          bytes = input.readNBytes(size);
+        } catch (EOFException e) {
+          return count;
+        }
+
+        checksum.reset();
+        checksum.update(bytes);
+        if (bytes.length != size || (int) checksum.getValue() != expected) {
+          return count;
+        }
+
+        DataInputStream fields = new DataInputStream(new ByteArrayInputStream(bytes));
+        String url = readString(fields);
+        String title = readString(fields);
+        String desc = readString(fields);
+        replay.accept(new PageDTO(title, desc, url), readString(fields));
+        count++;
+      }
+    }
+  }
+
+  /**
+   * Reads a length prefixed UTF-8 String, a negative length standing for null.
+   */
+  private static String readString(DataInputStream fields) throws IOException {
+    int length = fields.readInt();
+    if (length < 0) {
+      return null;
+    }
+    return new String(fields.readNBytes(length), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes a big endian int into the array.
+   */
+  private static void writeInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte) (value >>> 24);
+    bytes[offset + 1] = (byte) (value >>> 16);
+    bytes[offset + 2] = (byte) (value >>> 8);
+    bytes[offset + 3] = (byte) value;
+  }
+}
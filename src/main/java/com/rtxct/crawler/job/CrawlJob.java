@@ -0,0 +1,62 @@
+package com.rtxct.crawler.job;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.rtxct.crawler.dto.CrawlSummaryDTO;
+import com.rtxct.crawler.frontier.CrawlBudget;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Builder
+public class CrawlJob {
+
+  /** Class properties. */
+  private final String id;
+
+  private final List<String> urls;
+
+  private final int breakpoint;
+
+  /** Pages, bytes and time after which the crawl stops. */
+  @Builder.Default
+  private final CrawlBudget budget = CrawlBudget.UNLIMITED;
+
+  private final Instant submittedAt;
+
+  @Setter
+  private volatile JobStatus status;
+
+  @Setter
+  private volatile Instant startedAt;
+
+  @Setter
+  private volatile Instant finishedAt;
+
+  @Setter
+  private volatile String error;
+
+  /** Number of pages scraped so far. */
+  @Builder.Default
+  private final AtomicLong pagesFetched = new AtomicLong();
+
+  /** Number of pages that could not be fetched. */
+  @Builder.Default
+  private final AtomicLong errors = new AtomicLong();
+
+  /** Number of URLs waiting in the frontier. */
+  @Setter
+  private volatile int frontierSize;
+
+  /** Deepest depth with a scraped page. */
+  @Setter
+  private volatile int depth;
+
+  /** Throughput, time per stage and errors by type of the crawl. */
+  @Setter
+  private volatile CrawlSummaryDTO summary;
+}
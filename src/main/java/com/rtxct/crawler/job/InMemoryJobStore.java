@@ -0,0 +1,69 @@
+package com.rtxct.crawler.job;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+
+import com.rtxct.crawler.dto.PageDTO;
+
+@Component
+public class InMemoryJobStore implements JobStore {
+
+  /** Class properties. */
+  private final Map<String, CrawlJob> jobs = new ConcurrentHashMap<>();
+
+  private final Map<String, List<PageDTO>> pages = new ConcurrentHashMap<>();
+
+  @Override
+  public void save(CrawlJob job) {
+    jobs.put(job.getId(), job);
+    pages.putIfAbsent(job.getId(), new ArrayList<>());
+  }
+
+  @Override
+  public Optional<CrawlJob> find(String id) {
+    return Optional.ofNullable(jobs.get(id));
+  }
+
+  @Override
+  public Collection<CrawlJob> findAll() {
+    return List.copyOf(jobs.values());
+  }
+
+  @Override
+  public void addPage(String id, PageDTO page) {
+    List<PageDTO> results = pages.get(id);
+    if (results == null) {
+      return;
+    }
+
+    synchronized (results) {
+      results.add(page);
+    }
+  }
+
+  @Override
+  public List<PageDTO> getPages(String id, int offset, int limit) {
+    List<PageDTO> results = pages.get(id);
+    if (results == null) {
+      return List.of();
+    }
+
+    synchronized (results) {
+      int from = Math.min(Math.max(offset, 0), results.size());
+      int to = (int) Math.min((long) from + Math.max(limit, 0), results.size());
+      return List.copyOf(results.subList(from, to));
+    }
+  }
+
+  @Override
+  public void delete(String id) {
+    jobs.remove(id);
+    pages.remove(id);
+  }
+}
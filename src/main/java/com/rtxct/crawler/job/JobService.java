@@ -0,0 +1,462 @@
+package com.rtxct.crawler.job;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.BotFactory;
+import com.rtxct.crawler.bot.CrawlListener;
+import com.rtxct.crawler.bot.CrawledPage;
+import com.rtxct.crawler.checkpoint.CheckpointState;
+import com.rtxct.crawler.checkpoint.CheckpointStore;
+import com.rtxct.crawler.checkpoint.CrawlCheckpoint;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.frontier.CrawlBudget;
+import com.rtxct.crawler.frontier.Frontier;
+import com.rtxct.crawler.scheduler.CrawlScheduler;
+
+import jakarta.annotation.PreDestroy;
+
+@Component
+public class JobService {
+
+  /** Class properties. */
+  private static final Logger logger = LoggerFactory.getLogger(JobService.class.getName());
+
+  private final ThreadPoolExecutor executor;
+
+  private final Semaphore admissions;
+
+  private final Map<String, Bot> bots = new ConcurrentHashMap<>();
+
+  private final Map<String, Runnable> queuedTasks = new ConcurrentHashMap<>();
+
+  private final Set<String> cancelled = ConcurrentHashMap.newKeySet();
+
+  private final int maxRetained;
+
+  private final int maxInFlight;
+
+  /** Class Dependencies. */
+  private final JobStore store;
+
+  private final BotFactory botFactory;
+
+  private final CrawlScheduler crawlScheduler;
+
+  private final CheckpointStore checkpoints;
+
+  /**
+   * JobService class constructor.
+   *
+   * @param store          Store holding the jobs state and results.
+   * @param botFactory     Factory of Bots configured from the properties.
+   * @param crawlScheduler Shared scheduler fetching the pages of the jobs.
+   * @param checkpoints    Store of the job checkpoints, to resume them after a
+   *                       restart.
+   * @param maxRunning     Number of jobs crawling at the same time.
+   * @param maxQueued      Number of jobs waiting to run before new ones are
+   *                       rejected.
+   * @param maxRetained    Number of finished jobs kept, the oldest ones being
+   *                       removed first.
+   * @param maxInFlight    The maximum number of pages of a job processed at the
+   *                       same time.
+   */
+  public JobService(JobStore store, BotFactory botFactory, CrawlScheduler crawlScheduler, CheckpointStore checkpoints,
+      @Value("${crawler.jobs.max-running:4}") int maxRunning,
+      @Value("${crawler.jobs.max-queued:16}") int maxQueued,
+      @Value("${crawler.jobs.max-retained:100}") int maxRetained,
+      @Value("${crawler.scheduler.max-in-flight:16}") int maxInFlight) {
+    this.store = store;
+    this.botFactory = botFactory;
+    this.crawlScheduler = crawlScheduler;
+    this.checkpoints = checkpoints;
+    this.maxRetained = maxRetained;
+    this.maxInFlight = maxInFlight;
+
+    this.admissions = new Semaphore(maxRunning + maxQueued);
+    this.executor = new ThreadPoolExecutor(maxRunning, maxRunning, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        Thread.ofPlatform().name("crawler-job-", 0).daemon().factory());
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * Queues a crawl job and returns right away.
+   *
+   * @param urls       List of URLs as Strings.
+   * @param breakpoint Limit how deep in the URLs the crawl should go.
+   * @return The queued job.
+   * @throws RejectedExecutionException When the maximum number of queued jobs
+   *                                    is reached.
+   */
+  public CrawlJob submit(List<String> urls, int breakpoint) {
+    return submit(urls, breakpoint, CrawlBudget.UNLIMITED);
+  }
+
+  /**
+   * Queues a crawl job stopping once its budget is spent, and returns right
+   * away. The budget is kept in the job checkpoint, so a resumed job stops at
+   * the same limits.
+   *
+   * @param urls       List of URLs as Strings.
+   * @param breakpoint Limit how deep in the URLs the crawl should go.
+   * @param budget     Pages, bytes and time after which the crawl stops.
+   * @return The queued job.
+   * @throws RejectedExecutionException When the maximum number of queued jobs
+   *                                    is reached.
+   */
+  public CrawlJob submit(List<String> urls, int breakpoint, CrawlBudget budget) {
+    if (!admissions.tryAcquire()) {
+      throw new RejectedExecutionException("Too many crawl jobs");
+    }
+
+    CrawlJob job = CrawlJob.builder()
+        .id(UUID.randomUUID().toString())
+        .urls(List.copyOf(urls))
+        .breakpoint(breakpoint)
+        .budget(budget)
+        .submittedAt(Instant.now())
+        .status(JobStatus.QUEUED)
+        .build();
+
+    CrawlCheckpoint checkpoint = checkpoints.create(job.getId(), job.getUrls(), breakpoint, budget,
+        job.getSubmittedAt());
+    Bot bot = botFactory.create(urls, breakpoint, listener(job, checkpoint), checkpoint, budget);
+    store.save(job);
+    start(job, bot);
+    return job;
+  }
+
+  /**
+   * Queues again a job stopped by a restart or a failure, from its last
+   * checkpoint. Its pages scraped so far are restored, and the crawl goes on
+   * with the URLs that were queued or in flight.
+   *
+   * @param id Job identifier.
+   * @return The resumed job, the job itself if it is not stopped, or empty if
+   *         it has no checkpoint.
+   * @throws RejectedExecutionException When the maximum number of queued jobs
+   *                                    is reached.
+   */
+  public synchronized Optional<CrawlJob> resume(String id) {
+    Optional<CrawlJob> found = store.find(id);
+    if (found.isPresent() && (found.get().getStatus() != JobStatus.FAILED || found.get().getFinishedAt() == null)) {
+      return found.map(this::refresh);
+    }
+
+    Optional<CheckpointState> loaded = checkpoints.load(id);
+    if (loaded.isEmpty()) {
+      return Optional.empty();
+    }
+    if (!admissions.tryAcquire()) {
+      throw new RejectedExecutionException("Too many crawl jobs");
+    }
+
+    CheckpointState state = loaded.get();
+    CrawlJob job = CrawlJob.builder()
+        .id(id)
+        .urls(state.getUrls())
+        .breakpoint(state.getBreakpoint())
+        .budget(state.getBudget())
+        .submittedAt(state.getSubmittedAt())
+        .status(JobStatus.QUEUED)
+        .pagesFetched(new AtomicLong(state.getPages().size()))
+        .depth(state.getDepth())
+        .build();
+
+    store.delete(id);
+    store.save(job);
+    state.getPages().forEach(page -> store.addPage(id, page));
+
+    CrawlCheckpoint checkpoint = checkpoints.resume(state);
+    Bot bot = botFactory.create(List.of(), state.getBreakpoint(), listener(job, checkpoint), null,
+        remaining(state.getBudget(), state.getPages().size()));
+    state.restore(bot.getFrontier());
+    bot.getFrontier().setJournal(checkpoint);
+    start(job, bot);
+    return Optional.of(job);
+  }
+
+  /**
+   * Gets a job with its progress up to date.
+   *
+   * @param id Job identifier.
+   * @return The job, or empty if not found.
+   */
+  public Optional<CrawlJob> get(String id) {
+    return store.find(id).map(this::refresh);
+  }
+
+  /**
+   * Gets every job, the most recent first.
+   *
+   * @return Stored jobs.
+   */
+  public List<CrawlJob> list() {
+    return store.findAll().stream()
+        .map(this::refresh)
+        .sorted(Comparator.comparing(CrawlJob::getSubmittedAt).reversed())
+        .toList();
+  }
+
+  /**
+   * Gets a range of the pages scraped by a job so far.
+   *
+   * @param id     Job identifier.
+   * @param offset Index of the first page.
+   * @param limit  Maximum number of pages.
+   * @return Pages in the range, or empty if the job is not found.
+   */
+  public Optional<List<PageDTO>> getPages(String id, int offset, int limit) {
+    return store.find(id).map(job -> store.getPages(id, offset, limit));
+  }
+
+  /**
+   * Cancels a job. A queued job is removed from the queue, freeing its slot,
+   * while a running one stops dispatching pages and keeps the ones scraped so
+   * far.
+   *
+   * @param id Job identifier.
+   * @return Boolean whether the job was found or not.
+   */
+  public boolean cancel(String id) {
+    Optional<CrawlJob> found = store.find(id);
+    if (found.isEmpty()) {
+      return false;
+    }
+
+    CrawlJob job = found.get();
+    synchronized (job) {
+      if (job.getStatus() == JobStatus.QUEUED) {
+        job.setStatus(JobStatus.CANCELLED);
+        job.setFinishedAt(Instant.now());
+        bots.remove(id);
+        checkpoints.delete(id);
+
+        Runnable task = queuedTasks.remove(id);
+        if (task != null) {
+          executor.remove(task);
+        }
+        admissions.release();
+        return true;
+      }
+    }
+
+    Bot bot = bots.get(id);
+    if (bot != null) {
+      cancelled.add(id);
+      bot.cancel();
+    }
+    return true;
+  }
+
+  /**
+   * Cancels the running jobs and stops the executor.
+   */
+  @PreDestroy
+  public void shutdown() {
+    bots.values().forEach(Bot::cancel);
+    executor.shutdown();
+
+    try {
+      if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("Awaiting job threads error", e);
+    }
+  }
+
+  /**
+   * Queues the crawl of a job on the executor.
+   *
+   * @param job Queued job.
+   * @param bot Crawl of the job.
+   * @throws RejectedExecutionException When the executor does not accept it.
+   */
+  private void start(CrawlJob job, Bot bot) {
+    bots.put(job.getId(), bot);
+
+    Runnable task = () -> run(job, bot);
+    queuedTasks.put(job.getId(), task);
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      queuedTasks.remove(job.getId());
+      bots.remove(job.getId());
+      checkpoints.close(job.getId());
+      store.delete(job.getId());
+      admissions.release();
+      throw e;
+    }
+
+    removeExpired();
+  }
+
+  /**
+   * Runs the crawl of a job on the calling executor thread, while its pages are
+   * fetched on the shared scheduler. The final status is only set once the
+   * checkpoint was removed or closed, so a failed job is never resumed while
+   * its checkpoint is still being written.
+   *
+   * @param job Job to be run.
+   * @param bot Crawl of the job.
+   */
+  private void run(CrawlJob job, Bot bot) {
+    queuedTasks.remove(job.getId());
+
+    synchronized (job) {
+      if (job.getStatus() != JobStatus.QUEUED) {
+        return;
+      }
+      job.setStatus(JobStatus.RUNNING);
+      job.setStartedAt(Instant.now());
+    }
+
+    JobStatus status = JobStatus.FAILED;
+    try {
+      crawlScheduler.crawl(bot, maxInFlight);
+      status = bot.isCancelled() ? JobStatus.CANCELLED : JobStatus.COMPLETED;
+    } catch (Exception e) {
+      logger.error("Crawl job error", e);
+      job.setError(e.getMessage());
+    } finally {
+      refresh(job, bot);
+      bots.remove(job.getId());
+      if (status == JobStatus.COMPLETED || cancelled.remove(job.getId())) {
+        checkpoints.delete(job.getId());
+      } else {
+        checkpoints.close(job.getId());
+      }
+      job.setStatus(status);
+      job.setFinishedAt(Instant.now());
+      admissions.release();
+    }
+  }
+
+  /**
+   * Creates the listener storing the pages of a job and counting its progress,
+   * then recording them in its checkpoint.
+   *
+   * @param job        Job being crawled.
+   * @param checkpoint Checkpoint of the job, may be null.
+   * @return Crawl listener.
+   */
+  private CrawlListener listener(CrawlJob job, CrawlCheckpoint checkpoint) {
+    return checkpoint == null ? listener(job) : listener(job).andThen(checkpoint);
+  }
+
+  /**
+   * Creates the listener storing the pages of a job and counting its progress.
+   *
+   * @param job Job being crawled.
+   * @return Crawl listener.
+   */
+  private CrawlListener listener(CrawlJob job) {
+    return new CrawlListener() {
+      @Override
+      public void onPage(PageDTO page) {
+        store.addPage(job.getId(), page);
+        job.getPagesFetched().incrementAndGet();
+      }
+
+      @Override
+      public void onUnchanged(CrawledPage page) {
+        onPage(page.getPage());
+      }
+
+      @Override
+      public void onFailure(FetchResult result) {
+        job.getErrors().incrementAndGet();
+      }
+    };
+  }
+
+  /**
+   * Updates the frontier size, depth and summary of a job, if it is still
+   * running.
+   *
+   * @param job Stored job.
+   * @return The given job.
+   */
+  private CrawlJob refresh(CrawlJob job) {
+    Bot bot = bots.get(job.getId());
+    if (bot != null) {
+      refresh(job, bot);
+    }
+    return job;
+  }
+
+  /**
+   * Updates the frontier size, depth and summary of a job from its crawl.
+   *
+   * @param job Job to be updated.
+   * @param bot Crawl of the job.
+   */
+  private void refresh(CrawlJob job, Bot bot) {
+    Frontier frontier = bot.getFrontier();
+    job.setFrontierSize(frontier.size());
+    job.setSummary(bot.getStats().getSummary());
+
+    for (int depth = job.getBreakpoint(); depth > job.getDepth(); depth--) {
+      if (frontier.completed(depth) > 0) {
+        job.setDepth(depth);
+        break;
+      }
+    }
+  }
+
+  /**
+   * Removes the oldest finished jobs beyond the retention limit.
+   */
+  private void removeExpired() {
+    List<CrawlJob> finished = store.findAll().stream()
+        .filter(job -> job.getStatus().isFinished() && job.getFinishedAt() != null)
+        .sorted(Comparator.comparing(CrawlJob::getFinishedAt))
+        .toList();
+
+    for (int i = 0; i < finished.size() - maxRetained; i++) {
+      store.delete(finished.get(i).getId());
+    }
+  }
+
+  /**
+   * Gets the budget left to a resumed job, its restored pages counting against
+   * its page limit. Its bytes and time limits start over, as they are not
+   * recorded by the checkpoint.
+   *
+   * @param budget Budget of the job.
+   * @param pages  Number of pages restored from the checkpoint.
+   * @return Budget of the resumed crawl.
+   */
+  private static CrawlBudget remaining(CrawlBudget budget, long pages) {
+    if (budget.getMaxPages() == Long.MAX_VALUE) {
+      return budget;
+    }
+    return CrawlBudget.builder()
+        .maxPages(Math.max(0, budget.getMaxPages() - pages))
+        .maxPagesPerHost(budget.getMaxPagesPerHost())
+        .maxBytes(budget.getMaxBytes())
+        .maxDuration(budget.getMaxDuration())
+        .build();
+  }
+}
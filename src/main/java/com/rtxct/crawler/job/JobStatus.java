@@ -0,0 +1,18 @@
+package com.rtxct.crawler.job;
+
+public enum JobStatus {
+  QUEUED,
+  RUNNING,
+  COMPLETED,
+  CANCELLED,
+  FAILED;
+
+  /**
+   * Checks whether the job reached a final state.
+   *
+   * @return Boolean whether the job is finished or not.
+   */
+  public boolean isFinished() {
+    return this == COMPLETED || this == CANCELLED || this == FAILED;
+  }
+}
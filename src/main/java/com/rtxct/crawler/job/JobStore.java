@@ -0,0 +1,58 @@
+package com.rtxct.crawler.job;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import com.rtxct.crawler.dto.PageDTO;
+
+public interface JobStore {
+
+  /**
+   * Saves a job, replacing any job with the same identifier.
+   *
+   * @param job Job to be saved.
+   */
+  void save(CrawlJob job);
+
+  /**
+   * Finds a job by its identifier.
+   *
+   * @param id Job identifier.
+   * @return The job, or empty if not found.
+   */
+  Optional<CrawlJob> find(String id);
+
+  /**
+   * Gets every stored job.
+   *
+   * @return Stored jobs.
+   */
+  Collection<CrawlJob> findAll();
+
+  /**
+   * Appends a scraped page to the results of a job. Called concurrently by the
+   * threads of the crawl.
+   *
+   * @param id   Job identifier.
+   * @param page Scraped page.
+   */
+  void addPage(String id, PageDTO page);
+
+  /**
+   * Gets a range of the results of a job, in the order they were scraped.
+   *
+   * @param id     Job identifier.
+   * @param offset Index of the first page.
+   * @param limit  Maximum number of pages.
+   * @return Pages in the range, empty if the job is unknown.
+   */
+  List<PageDTO> getPages(String id, int offset, int limit);
+
+  /**
+   * Removes a job and its results.
+   *
+   * @param id Job identifier.
+   */
+  void delete(String id);
+}
@@ -0,0 +1,275 @@
+package com.rtxct.crawler.metrics;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.rtxct.crawler.cache.CachingFetcher;
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.frontier.Frontier;
+import com.rtxct.crawler.scheduler.CrawlScheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+@Component
+public class CrawlMetrics {
+
+  /** Class properties. */
+  public static final String OTHER_HOSTS = "other";
+
+  private final int maxHosts;
+
+  private final AtomicInteger activeFetches = new AtomicInteger();
+
+  private final Set<Frontier> frontiers = ConcurrentHashMap.newKeySet();
+
+  private final Map<CrawlStage, Timer> stages = new EnumMap<>(CrawlStage.class);
+
+  private final Map<String, Timer> hostLatencies = new ConcurrentHashMap<>();
+
+  private final Map<String, Counter> errors = new ConcurrentHashMap<>();
+
+  private final Counter pages;
+
+  private final Counter bytes;
+
+  private final Counter duplicates;
+
+  private final Counter unchanged;
+
+  /** Class Dependencies. */
+  private final MeterRegistry registry;
+
+  /**
+   * CrawlMetrics class constructor, registering the crawl meters shared by all
+   * the crawls of the application.
+   *
+   * @param registry  Registry the meters are published to.
+   * @param scheduler Shared crawl pool whose queue and threads are measured,
+   *                  may be null.
+   * @param maxHosts  Maximum number of hosts with their own latency histogram,
+   *                  the following ones being gathered under
+   *                  {@link #OTHER_HOSTS}.
+   */
+  public CrawlMetrics(MeterRegistry registry, CrawlScheduler scheduler,
+      @Value("${crawler.metrics.max-hosts:100}") int maxHosts) {
+    this.registry = registry;
+    this.maxHosts = maxHosts;
+
+    this.pages = Counter.builder("crawler.pages")
+        .description("Pages scraped")
+        .register(registry);
+    this.bytes = Counter.builder("crawler.bytes")
+        .description("Response bytes downloaded")
+        .baseUnit("bytes")
+        .register(registry);
+    this.duplicates = Counter.builder("crawler.duplicates")
+        .description("Pages skipped as near duplicates")
+        .register(registry);
+    this.unchanged = Counter.builder("crawler.unchanged")
+        .description("Pages unchanged since the previous crawl")
+        .register(registry);
+
+    for (CrawlStage stage : CrawlStage.values()) {
+      stages.put(stage, Timer.builder("crawler.stage")
+          .description("Time spent in each stage of a page")
+          .tag("stage", stage.getTag())
+          .register(registry));
+    }
+
+    Gauge.builder("crawler.fetches.active", activeFetches, AtomicInteger::get)
+        .description("Requests in flight")
+        .register(registry);
+    Gauge.builder("crawler.frontier.size", frontiers, CrawlMetrics::frontierSize)
+        .description("URLs waiting in the frontiers of the running crawls")
+        .register(registry);
+    Gauge.builder("crawler.crawls.active", frontiers, Set::size)
+        .description("Running crawls")
+        .register(registry);
+    if (scheduler != null) {
+      Gauge.builder("crawler.executor.queue", scheduler, CrawlScheduler::getQueueSize)
+          .description("Pages waiting for a thread of the shared pool")
+          .register(registry);
+      Gauge.builder("crawler.executor.active", scheduler, CrawlScheduler::getActiveCount)
+          .description("Threads of the shared pool processing pages")
+          .register(registry);
+    }
+  }
+
+  /**
+   * Registers the meters of the response cache shared by the crawls.
+   *
+   * @param cache Response cache.
+   */
+  public void monitor(CachingFetcher cache) {
+    FunctionCounter.builder("crawler.cache.hits", cache, CachingFetcher::getHits)
+        .description("Requests served from the response cache")
+        .register(registry);
+    FunctionCounter.builder("crawler.cache.misses", cache, CachingFetcher::getMisses)
+        .description("Requests missing the response cache")
+        .register(registry);
+    FunctionCounter.builder("crawler.cache.coalesced", cache, CachingFetcher::getCoalesced)
+        .description("Requests waiting for the same request in flight")
+        .register(registry);
+    FunctionCounter.builder("crawler.cache.bytes.saved", cache, CachingFetcher::getBytesSaved)
+        .description("Response bytes not downloaded thanks to the cache")
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("crawler.cache.hit.ratio", cache, CachingFetcher::getHitRatio)
+        .description("Share of the requests not sent")
+        .register(registry);
+    Gauge.builder("crawler.cache.size", cache, CachingFetcher::getSize)
+        .description("Size of the responses cached in memory")
+        .baseUnit("bytes")
+        .tag("tier", "memory")
+        .register(registry);
+    Gauge.builder("crawler.cache.size", cache, CachingFetcher::getDiskSize)
+        .description("Size of the responses cached on disk")
+        .baseUnit("bytes")
+        .tag("tier", "disk")
+        .register(registry);
+  }
+
+  /**
+   * Adds the frontier of a crawl to the frontier size gauge.
+   *
+   * @param frontier Frontier of the starting crawl.
+   */
+  public void crawlStarted(Frontier frontier) {
+    frontiers.add(frontier);
+  }
+
+  /**
+   * Removes the frontier of a crawl from the frontier size gauge.
+   *
+   * @param frontier Frontier of the finished crawl.
+   */
+  public void crawlFinished(Frontier frontier) {
+    frontiers.remove(frontier);
+  }
+
+  /**
+   * Counts a request being sent.
+   */
+  public void fetchStarted() {
+    activeFetches.incrementAndGet();
+  }
+
+  /**
+   * Records a completed request: its latency per host and the downloaded bytes.
+   *
+   * @param result Fetch result.
+   * @param nanos  Time spent fetching.
+   */
+  public void fetched(FetchResult result, long nanos) {
+    activeFetches.decrementAndGet();
+    stages.get(CrawlStage.FETCH).record(nanos, TimeUnit.NANOSECONDS);
+    hostLatency(result.getUrl()).record(nanos, TimeUnit.NANOSECONDS);
+    if (result.getBody() != null) {
+      bytes.increment(result.getBody().length);
+    }
+  }
+
+  /**
+   * Records the time spent in a stage other than the fetch.
+   *
+   * @param stage Stage of the page.
+   * @param nanos Time spent.
+   */
+  public void stage(CrawlStage stage, long nanos) {
+    stages.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Counts a scraped page.
+   */
+  public void scraped() {
+    pages.increment();
+  }
+
+  /**
+   * Counts a page skipped as a near duplicate.
+   */
+  public void duplicate() {
+    duplicates.increment();
+  }
+
+  /**
+   * Counts a page unchanged since the previous crawl.
+   */
+  public void unchanged() {
+    unchanged.increment();
+  }
+
+  /**
+   * Counts a failed page by the type of failure.
+   *
+   * @param type Error type, see {@link CrawlStats#errorType(FetchResult)}.
+   */
+  public void failed(String type) {
+    errors.computeIfAbsent(type, key -> Counter.builder("crawler.errors")
+        .description("Pages that could not be fetched or scraped")
+        .tag("type", key)
+        .register(registry))
+        .increment();
+  }
+
+  /**
+   * Gets the latency timer of the host of a URL. Each host gets its own
+   * histogram up to the maximum number of hosts, so the number of series stays
+   * bounded on wide crawls.
+   */
+  private Timer hostLatency(String url) {
+    String host = host(url);
+    Timer timer = hostLatencies.get(host);
+    if (timer != null) {
+      return timer;
+    }
+
+    if (hostLatencies.size() >= maxHosts) {
+      host = OTHER_HOSTS;
+    }
+    return hostLatencies.computeIfAbsent(host, key -> Timer.builder("crawler.fetch.latency")
+        .description("Response time per host")
+        .tag("host", key)
+        .publishPercentileHistogram()
+        .minimumExpectedValue(Duration.ofMillis(1))
+        .maximumExpectedValue(Duration.ofSeconds(30))
+        .register(registry));
+  }
+
+  /**
+   * Gets the host of a URL, in lowercase.
+   */
+  private static String host(String url) {
+    try {
+      String host = url == null ? null : URI.create(url).getHost();
+      return host == null ? OTHER_HOSTS : host.toLowerCase();
+    } catch (IllegalArgumentException e) {
+      return OTHER_HOSTS;
+    }
+  }
+
+  /**
+   * Sums the sizes of the frontiers of the running crawls.
+   */
+  private static double frontierSize(Set<Frontier> frontiers) {
+    long size = 0;
+    for (Frontier frontier : frontiers) {
+      size += frontier.size();
+    }
+    return size;
+  }
+}
@@ -0,0 +1,28 @@
+package com.rtxct.crawler.metrics;
+
+/**
+ * Stages a page goes through, each one timed separately.
+ */
+public enum CrawlStage {
+  FETCH("fetch"),
+  EXTRACT("extract"),
+  LINKS("links"),
+  DEDUP("dedup"),
+  ENQUEUE("enqueue");
+
+  /** Class properties. */
+  private final String tag;
+
+  CrawlStage(String tag) {
+    this.tag = tag;
+  }
+
+  /**
+   * Gets the name of the stage, as used in the metric tags.
+   *
+   * @return Lowercase stage name.
+   */
+  public String getTag() {
+    return tag;
+  }
+}
@@ -0,0 +1,227 @@
+package com.rtxct.crawler.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.rtxct.crawler.dto.CrawlSummaryDTO;
+import com.rtxct.crawler.fetch.FetchAbortedException;
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.frontier.Frontier;
+
+public class CrawlStats {
+
+  /** Class properties. */
+  private final LongAdder pages = new LongAdder();
+
+  private final LongAdder bytes = new LongAdder();
+
+  private final LongAdder errors = new LongAdder();
+
+  private final LongAdder duplicates = new LongAdder();
+
+  private final LongAdder unchanged = new LongAdder();
+
+  private final Map<CrawlStage, LongAdder> stageCounts = new EnumMap<>(CrawlStage.class);
+
+  private final Map<CrawlStage, LongAdder> stageNanos = new EnumMap<>(CrawlStage.class);
+
+  private final Map<String, LongAdder> errorTypes = new ConcurrentHashMap<>();
+
+  private volatile long startedAt;
+
+  private volatile long finishedAt;
+
+  /** Class Dependencies. */
+  private final CrawlMetrics metrics;
+
+  /**
+   * CrawlStats class constructor.
+   *
+   * @param metrics Application meters also updated by the crawl, may be null.
+   */
+  public CrawlStats(CrawlMetrics metrics) {
+    this.metrics = metrics;
+    for (CrawlStage stage : CrawlStage.values()) {
+      stageCounts.put(stage, new LongAdder());
+      stageNanos.put(stage, new LongAdder());
+    }
+  }
+
+  /**
+   * Marks the start of the crawl.
+   *
+   * @param frontier Frontier of the crawl.
+   */
+  public void started(Frontier frontier) {
+    startedAt = System.nanoTime();
+    finishedAt = 0;
+    if (metrics != null) {
+      metrics.crawlStarted(frontier);
+    }
+  }
+
+  /**
+   * Marks the end of the crawl.
+   *
+   * @param frontier Frontier of the crawl.
+   */
+  public void finished(Frontier frontier) {
+    finishedAt = System.nanoTime();
+    if (metrics != null) {
+      metrics.crawlFinished(frontier);
+    }
+  }
+
+  /**
+   * Counts a request being sent.
+   *
+   * @return Start time of the request, to be handed to
+   *         {@link #fetched(FetchResult, long)}.
+   */
+  public long fetchStarted() {
+    if (metrics != null) {
+      metrics.fetchStarted();
+    }
+    return System.nanoTime();
+  }
+
+  /**
+   * Records a completed request.
+   *
+   * @param result    Fetch result.
+   * @param startedAt Start time returned by {@link #fetchStarted()}.
+   */
+  public void fetched(FetchResult result, long startedAt) {
+    long nanos = System.nanoTime() - startedAt;
+    add(CrawlStage.FETCH, nanos);
+    if (result.getBody() != null) {
+      bytes.add(result.getBody().length);
+    }
+    if (metrics != null) {
+      metrics.fetched(result, nanos);
+    }
+  }
+
+  /**
+   * Records the time spent in a stage other than the fetch.
+   *
+   * @param stage     Stage of the page.
+   * @param startedAt Start time of the stage, from {@link System#nanoTime()}.
+   */
+  public void stage(CrawlStage stage, long startedAt) {
+    long nanos = System.nanoTime() - startedAt;
+    add(stage, nanos);
+    if (metrics != null) {
+      metrics.stage(stage, nanos);
+    }
+  }
+
+  /**
+   * Counts a scraped page.
+   */
+  public void scraped() {
+    pages.increment();
+    if (metrics != null) {
+      metrics.scraped();
+    }
+  }
+
+  /**
+   * Counts a page skipped as a near duplicate.
+   */
+  public void duplicate() {
+    duplicates.increment();
+    if (metrics != null) {
+      metrics.duplicate();
+    }
+  }
+
+  /**
+   * Counts a page unchanged since the previous crawl.
+   */
+  public void unchanged() {
+    unchanged.increment();
+    if (metrics != null) {
+      metrics.unchanged();
+    }
+  }
+
+  /**
+   * Counts a page that could not be fetched or scraped.
+   *
+   * @param result Failed fetch result.
+   */
+  public void failed(FetchResult result) {
+    String type = errorType(result);
+    errors.increment();
+    errorTypes.computeIfAbsent(type, key -> new LongAdder()).increment();
+    if (metrics != null) {
+      metrics.failed(type);
+    }
+  }
+
+  /**
+   * Gets the figures of the crawl so far.
+   *
+   * @return Crawl summary.
+   */
+  public CrawlSummaryDTO getSummary() {
+    long end = finishedAt != 0 ? finishedAt : System.nanoTime();
+    long elapsed = startedAt == 0 ? 0 : end - startedAt;
+    double seconds = elapsed / 1e9;
+
+    Map<String, Double> stageMillis = new TreeMap<>();
+    for (CrawlStage stage : CrawlStage.values()) {
+      long count = stageCounts.get(stage).sum();
+      if (count > 0) {
+        stageMillis.put(stage.getTag(), stageNanos.get(stage).sum() / 1e6 / count);
+      }
+    }
+    Map<String, Long> errorsByType = new TreeMap<>();
+    errorTypes.forEach((type, count) -> errorsByType.put(type, count.sum()));
+
+    long pageCount = pages.sum();
+    long byteCount = bytes.sum();
+    return CrawlSummaryDTO.builder()
+        .pages(pageCount)
+        .fetches(stageCounts.get(CrawlStage.FETCH).sum())
+        .bytes(byteCount)
+        .errors(errors.sum())
+        .duplicates(duplicates.sum())
+        .unchanged(unchanged.sum())
+        .elapsedMillis(elapsed / 1_000_000)
+        .pagesPerSecond(seconds > 0 ? pageCount / seconds : 0)
+        .bytesPerSecond(seconds > 0 ? byteCount / seconds : 0)
+        .stageMillis(stageMillis)
+        .errorsByType(errorsByType)
+        .build();
+  }
+
+  /**
+   * Names the type of a failure: the reason of aborted downloads, the exception
+   * class for requests that could not be completed, the status code otherwise.
+   *
+   * @param result Failed fetch result.
+   * @return Error type, such as "http_404", "too_slow" or "ConnectException".
+   */
+  public static String errorType(FetchResult result) {
+    if (result.getError() instanceof FetchAbortedException aborted) {
+      return aborted.getReason().getTag();
+    }
+    if (result.getError() != null) {
+      return result.getError().getClass().getSimpleName();
+    }
+    return result.getStatusCode() == 200 ? "unparsable" : "http_" + result.getStatusCode();
+  }
+
+  /**
+   * Adds the time spent in a stage.
+   */
+  private void add(CrawlStage stage, long nanos) {
+    stageCounts.get(stage).increment();
+    stageNanos.get(stage).add(nanos);
+  }
+}
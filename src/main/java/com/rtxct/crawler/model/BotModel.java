@@ -1,14 +1,49 @@
 package com.rtxct.crawler.model;
 
+import java.time.Duration;
 import java.util.List;
 
-import jakarta.persistence.Entity;
+import com.rtxct.crawler.frontier.CrawlBudget;
+
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
 @NoArgsConstructor
-@Entity
 public class BotModel {
   private List<String> urls;
+
+  /** Pages fetched at most, no limit when not set. */
+  private Long maxPages;
+
+  /** Pages fetched at most from a single host, no limit when not set. */
+  private Long maxPagesPerHost;
+
+  /** Bytes downloaded after which the crawl stops, no limit when not set. */
+  private Long maxBytes;
+
+  /** Time after which the crawl stops, such as "PT30S", no limit when not set. */
+  private Duration maxDuration;
+
+  /**
+   * Creates the budget of the crawl from the limits of the request. Missing or
+   * non positive limits set no limit.
+   *
+   * @return Crawl budget.
+   */
+  public CrawlBudget toBudget() {
+    return CrawlBudget.builder()
+        .maxPages(limit(maxPages))
+        .maxPagesPerHost(limit(maxPagesPerHost))
+        .maxBytes(limit(maxBytes))
+        .maxDuration(maxDuration == null || maxDuration.isNegative() ? Duration.ZERO : maxDuration)
+        .build();
+  }
+
+  /**
+   * Maps a missing or non positive limit to no limit.
+   */
+  private static long limit(Long value) {
+    return value == null || value <= 0 ? Long.MAX_VALUE : value;
+  }
 }
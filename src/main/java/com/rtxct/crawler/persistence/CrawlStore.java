@@ -0,0 +1,47 @@
+package com.rtxct.crawler.persistence;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CrawlStore {
+
+  /**
+   * Saves a batch of pages along with their links, replacing the pages already
+   * stored under the same URLs. The batch is written at once, so it is either
+   * fully stored or not at all.
+   *
+   * @param pages Pages to be saved.
+   */
+  void saveAll(List<PageRecord> pages);
+
+  /**
+   * Finds a page by its URL.
+   *
+   * @param url Page URL.
+   * @return The page, without its links, or empty if not found.
+   */
+  Optional<PageRecord> findPage(String url);
+
+  /**
+   * Gets the links found in a page.
+   *
+   * @param url Page URL.
+   * @return Target URLs, in no particular order.
+   */
+  List<String> findLinks(String url);
+
+  /**
+   * Gets the pages linking to the given URL.
+   *
+   * @param url Target URL.
+   * @return Source URLs, in no particular order.
+   */
+  List<String> findBacklinks(String url);
+
+  /**
+   * Gets the number of stored pages.
+   *
+   * @return Number of pages.
+   */
+  long countPages();
+}
@@ -0,0 +1,197 @@
+package com.rtxct.crawler.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+@Component
+public class CrawlWriter {
+
+  /** Class properties. */
+  private static final Logger logger = LoggerFactory.getLogger(CrawlWriter.class.getName());
+
+  private static final long POLL_MILLIS = 100;
+
+  private final BlockingQueue<PageRecord> queue;
+
+  private final int batchSize;
+
+  private final Thread writer;
+
+  private final Object monitor = new Object();
+
+  private final AtomicLong pending = new AtomicLong();
+
+  private final AtomicLong written = new AtomicLong();
+
+  private final AtomicLong failed = new AtomicLong();
+
+  private final AtomicLong dropped = new AtomicLong();
+
+  private volatile boolean closed;
+
+  /** Class Dependencies. */
+  private final CrawlStore store;
+
+  /**
+   * CrawlWriter class constructor. Pages are queued by the crawl threads and
+   * written in batches by a single background thread, so the crawl never waits
+   * on the database. While a batch is written the next one builds up, so the
+   * batches grow with the load.
+   *
+   * @param store         Store the pages are written to.
+   * @param queueCapacity Number of pages waiting to be written before new ones
+   *                      are dropped.
+   * @param batchSize     Maximum number of pages written in a single
+   *                      transaction.
+   */
+  public CrawlWriter(CrawlStore store,
+      @Value("${crawler.persistence.queue-capacity:65536}") int queueCapacity,
+      @Value("${crawler.persistence.batch-size:500}") int batchSize) {
+    this.store = store;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.batchSize = batchSize;
+    this.writer = Thread.ofPlatform().name("crawl-writer").daemon().start(this::run);
+  }
+
+  /**
+   * Queues a page to be written, without waiting. The page is dropped when the
+   * queue is full or the writer was closed.
+   *
+   * @param page Page to be written.
+   * @return Boolean whether the page was queued or not.
+   */
+  public boolean submit(PageRecord page) {
+    if (!closed) {
+      pending.incrementAndGet();
+      if (queue.offer(page)) {
+        return true;
+      }
+      complete(1);
+    }
+
+    if (dropped.incrementAndGet() % 10_000 == 1) {
+      logger.warn("Crawl writer queue full, {} pages dropped so far", dropped.get());
+    }
+    return false;
+  }
+
+  /**
+   * Waits until every queued page is written.
+   *
+   * @param timeout Maximum time to wait, in milliseconds.
+   * @return Boolean whether every page was written or the time ran out.
+   * @throws InterruptedException If interrupted while waiting.
+   */
+  public boolean flush(long timeout) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + timeout;
+
+    synchronized (monitor) {
+      while (pending.get() > 0) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+          return false;
+        }
+        monitor.wait(remaining);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the number of pages written to the store.
+   *
+   * @return Number of pages.
+   */
+  public long getWritten() {
+    return written.get();
+  }
+
+  /**
+   * Gets the number of pages whose batch could not be written.
+   *
+   * @return Number of pages.
+   */
+  public long getFailed() {
+    return failed.get();
+  }
+
+  /**
+   * Gets the number of pages dropped because the queue was full.
+   *
+   * @return Number of pages.
+   */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  /**
+   * Stops accepting pages and waits for the queued ones to be written.
+   */
+  @PreDestroy
+  public void close() {
+    closed = true;
+
+    try {
+      writer.join(TimeUnit.SECONDS.toMillis(30));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("Awaiting crawl writer error", e);
+    }
+  }
+
+  /**
+   * Takes the queued pages in batches and writes them, until the writer is
+   * closed and the queue drained.
+   */
+  private void run() {
+    List<PageRecord> batch = new ArrayList<>(batchSize);
+
+    while (!closed || !queue.isEmpty()) {
+      try {
+        PageRecord first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+
+      queue.drainTo(batch, batchSize - 1);
+      try {
+        store.saveAll(batch);
+        written.addAndGet(batch.size());
+      } catch (Exception e) {
+        failed.addAndGet(batch.size());
+        logger.error("Crawl store write error", e);
+      }
+      complete(batch.size());
+      batch.clear();
+    }
+  }
+
+  /**
+   * Marks pages as no longer pending, waking up the flushing threads.
+   *
+   * @param count Number of pages.
+   */
+  private void complete(int count) {
+    if (pending.addAndGet(-count) == 0) {
+      synchronized (monitor) {
+        monitor.notifyAll();
+      }
+    }
+  }
+}
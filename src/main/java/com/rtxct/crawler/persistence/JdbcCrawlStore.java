@@ -0,0 +1,172 @@
+package com.rtxct.crawler.persistence;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Component
+public class JdbcCrawlStore implements CrawlStore {
+
+  /** Class properties. */
+  private static final String[] SCHEMA = {
+      "CREATE TABLE IF NOT EXISTS page (url VARCHAR PRIMARY KEY, final_url VARCHAR, title VARCHAR,"
+          + " description VARCHAR, depth INT, status_code INT, content_type VARCHAR, content_length BIGINT,"
+          + " fetched_at TIMESTAMP WITH TIME ZONE, fetch_time_millis BIGINT, etag VARCHAR, last_modified VARCHAR,"
+          + " error VARCHAR)",
+      "CREATE TABLE IF NOT EXISTS link (source VARCHAR, target VARCHAR, PRIMARY KEY (source, target))",
+      "CREATE INDEX IF NOT EXISTS link_target ON link (target)",
+      "ALTER TABLE page ADD COLUMN IF NOT EXISTS content_hash VARCHAR",
+      "ALTER TABLE page ADD COLUMN IF NOT EXISTS changed_at TIMESTAMP WITH TIME ZONE",
+      "ALTER TABLE page ADD COLUMN IF NOT EXISTS revisit_seconds BIGINT",
+      "ALTER TABLE page ADD COLUMN IF NOT EXISTS next_visit_at TIMESTAMP WITH TIME ZONE" };
+
+  private static final String MERGE_PAGE = "MERGE INTO page (url, final_url, title, description, depth, status_code,"
+      + " content_type, content_length, fetched_at, fetch_time_millis, etag, last_modified, error, content_hash,"
+      + " changed_at, revisit_seconds, next_visit_at)"
+      + " KEY (url) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String SELECT_PAGE = "SELECT url, final_url, title, description, depth, status_code,"
+      + " content_type, content_length, fetched_at, fetch_time_millis, etag, last_modified, error, content_hash,"
+      + " changed_at, revisit_seconds, next_visit_at FROM page";
+
+  /** Class Dependencies. */
+  private final JdbcTemplate jdbc;
+
+  private final TransactionTemplate transaction;
+
+  /**
+   * JdbcCrawlStore class constructor, creating the tables if needed.
+   *
+   * @param dataSource Database the pages are stored in.
+   */
+  public JdbcCrawlStore(DataSource dataSource) {
+    this.jdbc = new JdbcTemplate(dataSource);
+    this.transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+    for (String statement : SCHEMA) {
+      jdbc.execute(statement);
+    }
+  }
+
+  @Override
+  public void saveAll(List<PageRecord> pages) {
+    if (pages.isEmpty()) {
+      return;
+    }
+
+    List<Object[]> sources = new ArrayList<>();
+    List<Object[]> links = new ArrayList<>();
+    for (PageRecord page : pages) {
+      if (page.getLinks() != null) {
+        sources.add(new Object[] { page.getUrl() });
+        for (String link : page.getLinks()) {
+          links.add(new Object[] { page.getUrl(), link });
+        }
+      }
+    }
+
+    transaction.executeWithoutResult(status -> {
+      jdbc.batchUpdate(MERGE_PAGE, pages, pages.size(), JdbcCrawlStore::setPage);
+      if (!sources.isEmpty()) {
+        jdbc.batchUpdate("DELETE FROM link WHERE source = ?", sources);
+      }
+      if (!links.isEmpty()) {
+        jdbc.batchUpdate("MERGE INTO link (source, target) KEY (source, target) VALUES (?, ?)", links);
+      }
+    });
+  }
+
+  @Override
+  public Optional<PageRecord> findPage(String url) {
+    return jdbc.query(SELECT_PAGE + " WHERE url = ?", JdbcCrawlStore::mapPage, url).stream().findFirst();
+  }
+
+  @Override
+  public List<String> findLinks(String url) {
+    return jdbc.queryForList("SELECT target FROM link WHERE source = ?", String.class, url);
+  }
+
+  @Override
+  public List<String> findBacklinks(String url) {
+    return jdbc.queryForList("SELECT source FROM link WHERE target = ?", String.class, url);
+  }
+
+  @Override
+  public long countPages() {
+    Long count = jdbc.queryForObject("SELECT COUNT(*) FROM page", Long.class);
+    return count == null ? 0 : count;
+  }
+
+  /**
+   * Binds the columns of a page to the merge statement.
+   */
+  private static void setPage(PreparedStatement statement, PageRecord page) throws SQLException {
+    statement.setString(1, page.getUrl());
+    statement.setString(2, page.getFinalUrl());
+    statement.setString(3, page.getTitle());
+    statement.setString(4, page.getDesc());
+    statement.setObject(5, page.getDepth(), Types.INTEGER);
+    statement.setInt(6, page.getStatusCode());
+    statement.setString(7, page.getContentType());
+    statement.setLong(8, page.getContentLength());
+    statement.setTimestamp(9, timestamp(page.getFetchedAt()));
+    statement.setLong(10, page.getFetchTimeMillis());
+    statement.setString(11, page.getEtag());
+    statement.setString(12, page.getLastModified());
+    statement.setString(13, page.getError());
+    statement.setString(14, page.getContentHash());
+    statement.setTimestamp(15, timestamp(page.getChangedAt()));
+    statement.setObject(16, page.getRevisitInterval() == null ? null : page.getRevisitInterval().toSeconds(),
+        Types.BIGINT);
+    statement.setTimestamp(17, timestamp(page.getNextVisitAt()));
+  }
+
+  /**
+   * Reads a page from the current row.
+   */
+  private static PageRecord mapPage(ResultSet row, int index) throws SQLException {
+    Long revisitSeconds = row.getObject("revisit_seconds", Long.class);
+
+    return PageRecord.builder()
+        .url(row.getString("url"))
+        .finalUrl(row.getString("final_url"))
+        .title(row.getString("title"))
+        .desc(row.getString("description"))
+        .depth(row.getObject("depth", Integer.class))
+        .statusCode(row.getInt("status_code"))
+        .contentType(row.getString("content_type"))
+        .contentLength(row.getLong("content_length"))
+        .fetchedAt(instant(row.getTimestamp("fetched_at")))
+        .fetchTimeMillis(row.getLong("fetch_time_millis"))
+        .etag(row.getString("etag"))
+        .lastModified(row.getString("last_modified"))
+        .error(row.getString("error"))
+        .contentHash(row.getString("content_hash"))
+        .changedAt(instant(row.getTimestamp("changed_at")))
+        .revisitInterval(revisitSeconds == null ? null : Duration.ofSeconds(revisitSeconds))
+        .nextVisitAt(instant(row.getTimestamp("next_visit_at")))
+        .build();
+  }
+
+  private static Timestamp timestamp(Instant instant) {
+    return instant == null ? null : Timestamp.from(instant);
+  }
+
+  private static Instant instant(Timestamp timestamp) {
+    return timestamp == null ? null : timestamp.toInstant();
+  }
+}
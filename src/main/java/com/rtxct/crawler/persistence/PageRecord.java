@@ -0,0 +1,62 @@
+package com.rtxct.crawler.persistence;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder(toBuilder = true)
+public class PageRecord {
+
+  /** Class properties. */
+  private final String url;
+
+  private final String finalUrl;
+
+  private final String title;
+
+  private final String desc;
+
+  /** Depth of the page in the crawl, null if unknown. */
+  private final Integer depth;
+
+  /** Response status code, 0 if no response was received. */
+  private final int statusCode;
+
+  private final String contentType;
+
+  /** Size of the downloaded body in bytes, -1 if there was none. */
+  private final long contentLength;
+
+  private final Instant fetchedAt;
+
+  private final long fetchTimeMillis;
+
+  private final String etag;
+
+  private final String lastModified;
+
+  /** Failure message, when the page could not be fetched or parsed. */
+  private final String error;
+
+  /** SHA-256 of the body, detecting changes when there are no validators. */
+  private final String contentHash;
+
+  /** Last time the page was found changed. */
+  private final Instant changedAt;
+
+  /** Interval between the last visit and the next one. */
+  private final Duration revisitInterval;
+
+  /** Time from which the page is due to be fetched again. */
+  private final Instant nextVisitAt;
+
+  /**
+   * Links found in the page, replacing the stored edges from the page URL. Null
+   * when the links were not extracted, keeping the stored edges.
+   */
+  private final Collection<String> links;
+}
@@ -0,0 +1,119 @@
+package com.rtxct.crawler.persistence;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import com.rtxct.crawler.bot.CrawlListener;
+import com.rtxct.crawler.bot.CrawledPage;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.fetch.FetchResult;
+
+public class PersistingListener implements CrawlListener {
+
+  /** Class Dependencies. */
+  private final CrawlWriter writer;
+
+  private final RevisitPolicy revisitPolicy;
+
+  /**
+   * PersistingListener class constructor, with the default revisit policy.
+   *
+   * @param writer Writer the scraped and failed pages are queued to.
+   */
+  public PersistingListener(CrawlWriter writer) {
+    this(writer, RevisitPolicy.DEFAULT);
+  }
+
+  /**
+   * PersistingListener class constructor.
+   *
+   * @param writer        Writer the scraped and failed pages are queued to.
+   * @param revisitPolicy Policy scheduling the next visit of each page.
+   */
+  public PersistingListener(CrawlWriter writer, RevisitPolicy revisitPolicy) {
+    this.writer = writer;
+    this.revisitPolicy = revisitPolicy;
+  }
+
+  @Override
+  public void onPage(PageDTO page) {
+    writer.submit(PageRecord.builder()
+        .url(page.getUrl())
+        .title(page.getTitle())
+        .desc(page.getDesc())
+        .fetchedAt(Instant.now())
+        .contentLength(-1)
+        .build());
+  }
+
+  @Override
+  public void onCrawled(CrawledPage page) {
+    FetchResult result = page.getResult();
+    if (result == null) {
+      onPage(page.getPage());
+      return;
+    }
+
+    Instant now = Instant.now();
+    PageRecord previous = page.getPrevious();
+    Duration interval = revisitPolicy.nextInterval(previous != null ? previous.getRevisitInterval() : null, true);
+
+    writer.submit(fromResult(result, now)
+        .title(page.getPage().getTitle())
+        .desc(page.getPage().getDesc())
+        .depth(page.getDepth())
+        .links(page.getLinks())
+        .contentHash(page.getContentHash() != null ? page.getContentHash() : result.contentHash())
+        .changedAt(now)
+        .revisitInterval(interval)
+        .nextVisitAt(now.plus(interval))
+        .build());
+  }
+
+  @Override
+  public void onUnchanged(CrawledPage page) {
+    Instant now = Instant.now();
+    PageRecord previous = page.getPrevious();
+    FetchResult result = page.getResult();
+    Duration interval = revisitPolicy.nextInterval(previous.getRevisitInterval(), false);
+
+    writer.submit(previous.toBuilder()
+        .depth(page.getDepth())
+        .fetchedAt(now)
+        .fetchTimeMillis(result.getFetchTimeMillis())
+        .etag(result.header("ETag") != null ? result.header("ETag") : previous.getEtag())
+        .lastModified(result.header("Last-Modified") != null ? result.header("Last-Modified")
+            : previous.getLastModified())
+        .revisitInterval(interval)
+        .nextVisitAt(now.plus(interval))
+        .links(null)
+        .build());
+  }
+
+  @Override
+  public void onFailure(FetchResult result) {
+    writer.submit(fromResult(result, Instant.now())
+        .error(result.getError() != null ? String.valueOf(result.getError().getMessage()) : null)
+        .build());
+  }
+
+  /**
+   * Creates a record builder holding the fetch metadata.
+   *
+   * @param result    Fetch result.
+   * @param fetchedAt Time of the fetch.
+   * @return Record builder.
+   */
+  private static PageRecord.PageRecordBuilder fromResult(FetchResult result, Instant fetchedAt) {
+    return PageRecord.builder()
+        .url(result.getUrl())
+        .finalUrl(result.getFinalUrl())
+        .statusCode(result.getStatusCode())
+        .contentType(result.getContentType())
+        .contentLength(result.getBody() != null ? result.getBody().length : -1)
+        .fetchedAt(fetchedAt)
+        .fetchTimeMillis(result.getFetchTimeMillis())
+        .etag(result.header("ETag"))
+        .lastModified(result.header("Last-Modified"));
+  }
+}
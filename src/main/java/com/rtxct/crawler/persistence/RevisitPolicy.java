@@ -0,0 +1,56 @@
+package com.rtxct.crawler.persistence;
+
+import java.time.Duration;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class RevisitPolicy {
+
+  /** Class properties. */
+  public static final RevisitPolicy DEFAULT = RevisitPolicy.builder().build();
+
+  /** Interval before the first revisit of a page. */
+  @Builder.Default
+  private Duration initialInterval = Duration.ofDays(1);
+
+  @Builder.Default
+  private Duration minInterval = Duration.ofHours(1);
+
+  @Builder.Default
+  private Duration maxInterval = Duration.ofDays(30);
+
+  /**
+   * Factor the interval is divided by when the page changed, and multiplied by
+   * when it did not.
+   */
+  @Builder.Default
+  private double backoff = 2;
+
+  /**
+   * Computes the interval until the next visit of a page, so pages changing
+   * often are revisited sooner and stable ones later.
+   *
+   * @param previous Interval used for the visit that was just made, or null for
+   *                 the first visit.
+   * @param changed  Whether the page changed since the previous visit.
+   * @return Interval until the next visit, between the minimum and the maximum.
+   */
+  public Duration nextInterval(Duration previous, boolean changed) {
+    if (previous == null) {
+      return clamp(initialInterval.toSeconds());
+    }
+
+    double seconds = changed ? previous.toSeconds() / backoff : previous.toSeconds() * backoff;
+    return clamp((long) Math.min(seconds, Long.MAX_VALUE));
+  }
+
+  /**
+   * Bounds an interval by the minimum and the maximum ones.
+   */
+  private Duration clamp(long seconds) {
+    return Duration.ofSeconds(Math.max(minInterval.toSeconds(), Math.min(maxInterval.toSeconds(), seconds)));
+  }
+}
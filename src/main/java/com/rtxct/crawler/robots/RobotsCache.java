@@ -0,0 +1,240 @@
+package com.rtxct.crawler.robots;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.fetch.Fetcher;
+
+public class RobotsCache {
+
+  /** Class properties. */
+  public static final Duration DEFAULT_TTL = Duration.ofHours(24);
+
+  public static final int DEFAULT_MAX_HOSTS = 10_000;
+
+  private static final Duration UNREACHABLE_TTL = Duration.ofMinutes(5);
+
+  private final Map<String, Entry> entries;
+
+  private final Map<String, CompletableFuture<RobotsRules>> loading = new ConcurrentHashMap<>();
+
+  private final RobotsParser parser = new RobotsParser();
+
+  private final Duration ttl;
+
+  /** Class Dependencies. */
+  private final Fetcher fetcher;
+
+  /**
+   * RobotsCache class constructor, with the default TTL and size.
+   *
+   * @param fetcher Fetcher used to download the robots.txt files.
+   */
+  public RobotsCache(Fetcher fetcher) {
+    this(fetcher, DEFAULT_TTL, DEFAULT_MAX_HOSTS);
+  }
+
+  /**
+   * RobotsCache class constructor.
+   *
+   * @param fetcher  Fetcher used to download the robots.txt files.
+   * @param ttl      How long the rules of a host are kept before being fetched
+   *                 again.
+   * @param maxHosts Maximum number of hosts kept, the least recently used ones
+   *                 being evicted first.
+   */
+  public RobotsCache(Fetcher fetcher, Duration ttl, int maxHosts) {
+    this.fetcher = fetcher;
+    this.ttl = ttl;
+    this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maxHosts;
+      }
+    });
+  }
+
+  /**
+   * Gets the rules that apply to the given URL, fetching the host robots.txt on
+   * the first call. Concurrent calls for the same host wait for a single fetch.
+   *
+   * @param url Absolute URL.
+   * @return Rules of the URL host.
+   */
+  public RobotsRules rulesFor(String url) {
+    String origin = originOf(url);
+    if (origin == null) {
+      return RobotsRules.ALLOW_ALL;
+    }
+
+    Entry entry = entries.get(origin);
+    if (entry != null && entry.expiresAt > System.nanoTime()) {
+      return entry.rules;
+    }
+
+    CompletableFuture<RobotsRules> created = new CompletableFuture<>();
+    CompletableFuture<RobotsRules> existing = loading.putIfAbsent(origin, created);
+    if (existing != null) {
+      return existing.join();
+    }
+
+    try {
+      RobotsRules rules = load(origin);
+      created.complete(rules);
+      return rules;
+    } catch (RuntimeException e) {
+      created.complete(RobotsRules.ALLOW_ALL);
+      throw e;
+    } finally {
+      loading.remove(origin);
+    }
+  }
+
+  /**
+   * Gets the rules that apply to the given URL without blocking, fetching the
+   * host robots.txt asynchronously on the first call. Concurrent calls for the
+   * same host share a single fetch.
+   *
+   * @param url Absolute URL.
+   * @return Future completed with the rules of the URL host.
+   */
+  public CompletableFuture<RobotsRules> rulesForAsync(String url) {
+    String origin = originOf(url);
+    if (origin == null) {
+      return CompletableFuture.completedFuture(RobotsRules.ALLOW_ALL);
+    }
+
+    RobotsRules rules = cachedRules(url);
+    if (rules != null) {
+      return CompletableFuture.completedFuture(rules);
+    }
+
+    CompletableFuture<RobotsRules> created = new CompletableFuture<>();
+    CompletableFuture<RobotsRules> existing = loading.putIfAbsent(origin, created);
+    if (existing != null) {
+      return existing;
+    }
+
+    fetcher.fetchAsync(origin + "/robots.txt", Map.of()).whenComplete((result, error) -> {
+      try {
+        created.complete(error == null ? store(origin, result) : RobotsRules.ALLOW_ALL);
+      } catch (RuntimeException e) {
+        created.complete(RobotsRules.ALLOW_ALL);
+      } finally {
+        loading.remove(origin);
+      }
+    });
+    return created;
+  }
+
+  /**
+   * Gets the cached rules that apply to the given URL, without fetching them.
+   *
+   * @param url Absolute URL.
+   * @return Rules of the URL host, or null if they are not cached or expired.
+   */
+  public RobotsRules cachedRules(String url) {
+    String origin = originOf(url);
+    if (origin == null) {
+      return RobotsRules.ALLOW_ALL;
+    }
+
+    Entry entry = entries.get(origin);
+    return entry != null && entry.expiresAt > System.nanoTime() ? entry.rules : null;
+  }
+
+  /**
+   * Checks whether the crawler may fetch the given URL.
+   *
+   * @param url Absolute URL.
+   * @return Boolean whether the URL is allowed or not.
+   */
+  public boolean isAllowed(String url) {
+    return rulesFor(url).isAllowed(url);
+  }
+
+  /**
+   * Gets the number of hosts in the cache.
+   *
+   * @return Number of hosts.
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Fetches and compiles the robots.txt of an origin. A missing file allows
+   * everything, while a server error or an unreachable host disallows
+   * everything for a short time, as the host may be overloaded.
+   *
+   * @param origin Scheme and authority of the host.
+   * @return Compiled rules.
+   */
+  private RobotsRules load(String origin) {
+    return store(origin, fetcher.fetch(origin + "/robots.txt"));
+  }
+
+  /**
+   * Compiles and caches the rules of an origin from its robots.txt response.
+   *
+   * @param origin Scheme and authority of the host.
+   * @param result Response to the robots.txt request.
+   * @return Compiled rules.
+   */
+  private RobotsRules store(String origin, FetchResult result) {
+    RobotsRules rules;
+    Duration expiry = ttl;
+    if (result.getError() == null && result.getStatusCode() >= 200 && result.getStatusCode() < 300) {
+      byte[] body = result.getBody() == null ? new byte[0] : result.getBody();
+      rules = parser.parse(new String(body, StandardCharsets.UTF_8));
+    } else if (result.getError() == null && result.getStatusCode() >= 400 && result.getStatusCode() < 500) {
+      rules = RobotsRules.ALLOW_ALL;
+    } else {
+      rules = RobotsRules.DISALLOW_ALL;
+      expiry = ttl.compareTo(UNREACHABLE_TTL) < 0 ? ttl : UNREACHABLE_TTL;
+    }
+
+    entries.put(origin, new Entry(rules, System.nanoTime() + expiry.toNanos()));
+    return rules;
+  }
+
+  /**
+   * Gets the scheme and authority of an URL, lowercased.
+   *
+   * @param url Absolute URL.
+   * @return Origin, or null if the URL is not absolute.
+   */
+  static String originOf(String url) {
+    int scheme = url.indexOf("://");
+    if (scheme <= 0) {
+      return null;
+    }
+
+    int end = scheme + 3;
+    while (end < url.length() && "/?#".indexOf(url.charAt(end)) < 0) {
+      end++;
+    }
+    return url.substring(0, end).toLowerCase();
+  }
+
+  /**
+   * Cached rules of a host, with their expiration time.
+   */
+  private static class Entry {
+
+    private final RobotsRules rules;
+
+    private final long expiresAt;
+
+    private Entry(RobotsRules rules, long expiresAt) {
+      this.rules = rules;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
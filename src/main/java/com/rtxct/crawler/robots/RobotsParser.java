@@ -0,0 +1,126 @@
+package com.rtxct.crawler.robots;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RobotsParser {
+
+  /** Class properties. */
+  public static final String USER_AGENT = "rtxct-crawler";
+
+  private final String userAgent;
+
+  /**
+   * RobotsParser class constructor, for the crawler user agent.
+   */
+  public RobotsParser() {
+    this(USER_AGENT);
+  }
+
+  /**
+   * RobotsParser class constructor.
+   *
+   * @param userAgent Product token the groups are matched against.
+   */
+  public RobotsParser(String userAgent) {
+    this.userAgent = userAgent.toLowerCase();
+  }
+
+  /**
+   * Parses a robots.txt file, keeping only the rules of the groups addressed to
+   * the crawler, or of the "*" groups when none is.
+   *
+   * @param content robots.txt content.
+   * @return Compiled rules.
+   */
+  public RobotsRules parse(String content) {
+    List<RobotsRules.Rule> specificRules = new ArrayList<>();
+    List<RobotsRules.Rule> wildcardRules = new ArrayList<>();
+    Duration specificDelay = null;
+    Duration wildcardDelay = null;
+    boolean specificFound = false;
+
+    boolean specificGroup = false;
+    boolean wildcardGroup = false;
+    boolean readingAgents = false;
+
+    for (String rawLine : content.split("\\r?\\n|\\r")) {
+      int comment = rawLine.indexOf('#');
+      String line = (comment < 0 ? rawLine : rawLine.substring(0, comment)).trim();
+      int colon = line.indexOf(':');
+      if (colon < 0) {
+        continue;
+      }
+
+      String key = line.substring(0, colon).trim().toLowerCase();
+      String value = line.substring(colon + 1).trim();
+
+      if (key.equals("user-agent")) {
+        if (!readingAgents) {
+          specificGroup = false;
+          wildcardGroup = false;
+          readingAgents = true;
+        }
+
+        String agent = value.toLowerCase();
+        if (agent.equals("*")) {
+          wildcardGroup = true;
+        } else if (!agent.isEmpty() && userAgent.contains(agent)) {
+          specificGroup = true;
+          specificFound = true;
+        }
+        continue;
+      }
+
+      readingAgents = false;
+      if (!specificGroup && !wildcardGroup) {
+        continue;
+      }
+
+      if (key.equals("allow") || key.equals("disallow")) {
+        if (value.isEmpty()) {
+          continue;
+        }
+        RobotsRules.Rule rule = new RobotsRules.Rule(value, key.equals("allow"));
+        if (specificGroup) {
+          specificRules.add(rule);
+        }
+        if (wildcardGroup) {
+          wildcardRules.add(rule);
+        }
+      } else if (key.equals("crawl-delay")) {
+        Duration delay = parseDelay(value);
+        if (specificGroup) {
+          specificDelay = delay;
+        }
+        if (wildcardGroup) {
+          wildcardDelay = delay;
+        }
+      }
+    }
+
+    if (specificFound) {
+      return new RobotsRules(specificRules, specificDelay);
+    }
+    return new RobotsRules(wildcardRules, wildcardDelay);
+  }
+
+  /**
+   * Parses a Crawl-delay value in seconds, which may be fractional.
+   *
+   * @param value Crawl-delay value.
+   * @return Delay, or null if the value is not a valid number.
+   */
+  private static Duration parseDelay(String value) {
+    try {
+      double seconds = Double.parseDouble(value);
+      if (seconds < 0 || Double.isNaN(seconds) || Double.isInfinite(seconds)) {
+        return null;
+      }
+      return Duration.ofMillis((long) (seconds * 1000));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
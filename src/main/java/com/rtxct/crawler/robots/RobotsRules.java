@@ -0,0 +1,145 @@
+package com.rtxct.crawler.robots;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class RobotsRules {
+
+  /** Class properties. */
+  public static final RobotsRules ALLOW_ALL = new RobotsRules(List.of(), null);
+
+  public static final RobotsRules DISALLOW_ALL = new RobotsRules(List.of(new Rule("/", false)), null);
+
+  private final Rule[] rules;
+
+  private final Duration crawlDelay;
+
+  /**
+   * RobotsRules class constructor. Rules are sorted so the first matching one
+   * is the most specific: longer patterns first and, for the same length, allow
+   * rules before disallow ones.
+   *
+   * @param rules      Allow and disallow rules of the group matching the crawler.
+   * @param crawlDelay Crawl-delay of the group, or null if not set.
+   */
+  public RobotsRules(List<Rule> rules, Duration crawlDelay) {
+    List<Rule> sorted = new ArrayList<>(rules);
+    sorted.sort(Comparator.comparingInt((Rule rule) -> rule.pattern.length()).reversed()
+        .thenComparing(rule -> !rule.allow));
+
+    this.rules = sorted.toArray(new Rule[0]);
+    this.crawlDelay = crawlDelay;
+  }
+
+  /**
+   * Checks whether the crawler may fetch the given URL.
+   *
+   * @param url Absolute URL.
+   * @return Boolean whether the URL is allowed or not.
+   */
+  public boolean isAllowed(String url) {
+    if (rules.length == 0) {
+      return true;
+    }
+
+    String path = pathOf(url);
+    for (Rule rule : rules) {
+      if (rule.matches(path)) {
+        return rule.allow;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the delay the host asks between two fetches.
+   *
+   * @return Crawl delay, or null if not set.
+   */
+  public Duration getCrawlDelay() {
+    return crawlDelay;
+  }
+
+  /**
+   * Gets the path and query of an absolute URL, which is what the rules match.
+   *
+   * @param url Absolute URL.
+   * @return Path with query, "/" when the URL has no path.
+   */
+  static String pathOf(String url) {
+    int scheme = url.indexOf("://");
+    int start = scheme < 0 ? 0 : url.indexOf('/', scheme + 3);
+    int fragment = url.indexOf('#');
+    int end = fragment < 0 ? url.length() : fragment;
+
+    if (start < 0 || start >= end) {
+      int query = url.indexOf('?', scheme < 0 ? 0 : scheme + 3);
+      return query < 0 || query >= end ? "/" : "/" + url.substring(query, end);
+    }
+    return url.substring(start, end);
+  }
+
+  /**
+   * A single Allow or Disallow rule, compiled into a prefix match when the
+   * pattern has no wildcard.
+   */
+  public static class Rule {
+
+    private final String pattern;
+
+    private final boolean allow;
+
+    private final boolean anchored;
+
+    private final String[] parts;
+
+    /**
+     * Rule class constructor.
+     *
+     * @param pattern Path pattern, supporting the "*" wildcard and the "$" end
+     *                anchor.
+     * @param allow   Whether the rule allows or disallows the matching paths.
+     */
+    public Rule(String pattern, boolean allow) {
+      this.pattern = pattern;
+      this.allow = allow;
+      this.anchored = pattern.endsWith("$");
+
+      String body = anchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+      this.parts = body.indexOf('*') < 0 ? new String[] { body } : body.split("\\*", -1);
+    }
+
+    /**
+     * Checks whether the rule applies to the given path.
+     *
+     * @param path Path with query.
+     * @return Boolean whether the path matches the pattern.
+     */
+    boolean matches(String path) {
+      if (parts.length == 1) {
+        return anchored ? path.equals(parts[0]) : path.startsWith(parts[0]);
+      }
+
+      if (!path.startsWith(parts[0])) {
+        return false;
+      }
+
+      int position = parts[0].length();
+      for (int i = 1; i < parts.length - 1; i++) {
+        int found = path.indexOf(parts[i], position);
+        if (found < 0) {
+          return false;
+        }
+        position = found + parts[i].length();
+      }
+
+      String last = parts[parts.length - 1];
+      if (anchored) {
+        return path.length() - last.length() >= position && path.endsWith(last);
+      }
+      return path.indexOf(last, position) >= 0;
+    }
+  }
+}
@@ -0,0 +1,371 @@
+package com.rtxct.crawler.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.dto.ActiveCrawlDTO;
+import com.rtxct.crawler.dto.PageDTO;
+
+import jakarta.annotation.PreDestroy;
+
+@Component
+public class CrawlScheduler implements Executor {
+
+  /** Class properties. */
+  private static final Logger logger = LoggerFactory.getLogger(CrawlScheduler.class.getName());
+
+  private final ThreadPoolExecutor pool;
+
+  private final ScheduledExecutorService timer;
+
+  private final ExecutorService dispatchers;
+
+  private final ExecutorService virtualThreads;
+
+  private final ThreadPoolExecutor parsers;
+
+  private final Semaphore slots;
+
+  private final Duration crawlTimeout;
+
+  private final Map<String, ActiveCrawl> activeCrawls = new ConcurrentHashMap<>();
+
+  /**
+   * CrawlScheduler class constructor. The pool is shared by every crawl served
+   * by the application and lives as long as the application context.
+   *
+   * @param poolSize      Number of threads fetching pages.
+   * @param queueCapacity Number of pages waiting for a thread before the crawls
+   *                      dispatching them are blocked.
+   * @param crawlTimeout  Maximum duration of a crawl, zero for no limit.
+   */
+  public CrawlScheduler(@Value("${crawler.scheduler.pool-size:64}") int poolSize,
+      @Value("${crawler.scheduler.queue-capacity:1024}") int queueCapacity,
+      @Value("${crawler.scheduler.crawl-timeout:0s}") Duration crawlTimeout) {
+    this.pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), threadFactory("crawler-"));
+    this.pool.allowCoreThreadTimeOut(true);
+    this.timer = Executors.newSingleThreadScheduledExecutor(threadFactory("crawler-timer-"));
+    this.dispatchers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("crawler-dispatch-", 0).factory());
+    this.virtualThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("crawler-virtual-", 0).factory());
+    int cores = Runtime.getRuntime().availableProcessors();
+    this.parsers = new ThreadPoolExecutor(cores, cores, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        threadFactory("crawler-parser-"));
+    this.parsers.allowCoreThreadTimeOut(true);
+    this.slots = new Semaphore(poolSize + queueCapacity);
+    this.crawlTimeout = crawlTimeout;
+  }
+
+  /**
+   * Runs the crawl on the shared pool, blocking the calling thread until it
+   * finishes, is cancelled or times out.
+   *
+   * @param bot         Crawl to be run.
+   * @param maxInFlight The maximum number of pages of this crawl processed at the
+   *                    same time.
+   * @return Pages scraped by the crawl.
+   */
+  public List<PageDTO> crawl(Bot bot, int maxInFlight) {
+    return crawl(newId(), bot, maxInFlight);
+  }
+
+  /**
+   * Runs the crawl on the shared pool under the given identifier, blocking the
+   * calling thread until it finishes, is cancelled or times out.
+   *
+   * @param id          Crawl identifier, as returned by {@link #newId()}.
+   * @param bot         Crawl to be run.
+   * @param maxInFlight The maximum number of pages of this crawl processed at the
+   *                    same time.
+   * @return Pages scraped by the crawl.
+   * @throws IllegalArgumentException When maxInFlight is lower than one.
+   */
+  public List<PageDTO> crawl(String id, Bot bot, int maxInFlight) {
+    checkMaxInFlight(maxInFlight);
+    return run(id, bot, () -> bot.crawlAsync(this, maxInFlight));
+  }
+
+  /**
+   * Runs the crawl with each fetch on its own virtual thread, blocking the
+   * calling thread until it finishes, is cancelled or times out. The crawl is
+   * listed and cancelled like the ones running on the shared pool.
+   *
+   * @param bot         Crawl to be run.
+   * @param maxInFlight The maximum number of requests of this crawl in flight.
+   * @return Pages scraped by the crawl.
+   * @throws IllegalArgumentException When maxInFlight is lower than one.
+   */
+  public List<PageDTO> crawlVirtual(Bot bot, int maxInFlight) {
+    checkMaxInFlight(maxInFlight);
+    return run(newId(), bot, () -> bot.crawlAsync(virtualThreads, maxInFlight));
+  }
+
+  /**
+   * Runs the crawl on the shared pool without blocking the calling thread. The
+   * crawl is dispatched from its own virtual thread, so it does not hold a pool
+   * thread while waiting for pages.
+   *
+   * @param bot         Crawl to be run.
+   * @param maxInFlight The maximum number of pages of this crawl processed at the
+   *                    same time.
+   * @return Future completed with the pages scraped by the crawl.
+   */
+  public CompletableFuture<List<PageDTO>> submit(Bot bot, int maxInFlight) {
+    return submit(newId(), bot, maxInFlight);
+  }
+
+  /**
+   * Runs the crawl on the shared pool under the given identifier without
+   * blocking the calling thread, so the caller can hand the identifier out
+   * before the crawl finishes.
+   *
+   * @param id          Crawl identifier, as returned by {@link #newId()}.
+   * @param bot         Crawl to be run.
+   * @param maxInFlight The maximum number of pages of this crawl processed at the
+   *                    same time.
+   * @return Future completed with the pages scraped by the crawl.
+   * @throws IllegalArgumentException When maxInFlight is lower than one.
+   */
+  public CompletableFuture<List<PageDTO>> submit(String id, Bot bot, int maxInFlight) {
+    checkMaxInFlight(maxInFlight);
+    CompletableFuture<List<PageDTO>> future = new CompletableFuture<>();
+
+    try {
+      dispatchers.execute(() -> {
+        try {
+          future.complete(crawl(id, bot, maxInFlight));
+        } catch (Exception e) {
+          future.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /**
+   * Cancels a running crawl.
+   *
+   * @param id Crawl identifier.
+   * @return Boolean whether the crawl was found or not.
+   */
+  public boolean cancel(String id) {
+    ActiveCrawl crawl = activeCrawls.get(id);
+    if (crawl == null) {
+      return false;
+    }
+
+    crawl.bot.cancel();
+    return true;
+  }
+
+  /**
+   * Creates a new crawl identifier.
+   *
+   * @return Crawl identifier.
+   */
+  public String newId() {
+    return UUID.randomUUID().toString();
+  }
+
+  /**
+   * Describes the running crawls, so that a client can find the identifier of
+   * its own crawl from the seeds it sent.
+   *
+   * @return Running crawls.
+   */
+  public List<ActiveCrawlDTO> getActiveCrawls() {
+    return activeCrawls.entrySet().stream()
+        .map(entry -> ActiveCrawlDTO.builder()
+            .id(entry.getKey())
+            .seeds(entry.getValue().bot.getSeeds())
+            .breakpoint(entry.getValue().bot.getBreakpoint())
+            .startedAt(entry.getValue().startedAt)
+            .pages(entry.getValue().bot.getStats().getSummary().getPages())
+            .build())
+        .toList();
+  }
+
+  /**
+   * Gets the number of pages waiting for a thread.
+   *
+   * @return Queue length.
+   */
+  public int getQueueSize() {
+    return pool.getQueue().size();
+  }
+
+  /**
+   * Gets the number of threads processing pages.
+   *
+   * @return Active threads.
+   */
+  public int getActiveCount() {
+    return pool.getActiveCount();
+  }
+
+  /**
+   * Runs the task on the shared pool. When the pool and its queue are full, the
+   * calling thread waits for a free slot instead of the task being rejected,
+   * which slows down the crawls dispatching pages.
+   *
+   * @param task Task to be run.
+   */
+  @Override
+  public void execute(Runnable task) {
+    try {
+      slots.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RejectedExecutionException("Interrupted while waiting for a free slot", e);
+    }
+
+    try {
+      pool.execute(() -> {
+        try {
+          task.run();
+        } finally {
+          slots.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      slots.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Cancels the running crawls and stops the pool.
+   */
+  @PreDestroy
+  public void shutdown() {
+    activeCrawls.values().forEach(crawl -> crawl.bot.cancel());
+    timer.shutdownNow();
+    dispatchers.shutdown();
+    virtualThreads.shutdown();
+    parsers.shutdown();
+    pool.shutdown();
+
+    try {
+      if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+        pool.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      logger.error("Awaiting crawler threads error", e);
+    }
+  }
+
+  /**
+   * Runs the crawl without blocking a thread per request, blocking the calling
+   * thread until it finishes, is cancelled or times out. The pages are parsed on
+   * a pool of one thread per core shared by every non blocking crawl, and the
+   * crawl is listed and cancelled like the ones running on the shared pool.
+   *
+   * @param bot         Crawl to be run.
+   * @param maxInFlight The maximum number of requests of this crawl in flight.
+   * @return Pages scraped by the crawl.
+   * @throws IllegalArgumentException When maxInFlight is lower than one.
+   */
+  public List<PageDTO> crawlNonBlocking(Bot bot, int maxInFlight) {
+    checkMaxInFlight(maxInFlight);
+    return run(newId(), bot, () -> bot.crawlNonBlocking(parsers, maxInFlight));
+  }
+
+  /**
+   * Runs a crawl on the calling thread, listing it under the given identifier
+   * and cancelling it once the crawl timeout is over.
+   *
+   * @param id    Crawl identifier.
+   * @param bot   Crawl to be run.
+   * @param crawl Runs the crawl and returns its pages.
+   * @return Pages scraped by the crawl.
+   */
+  private List<PageDTO> run(String id, Bot bot, Supplier<List<PageDTO>> crawl) {
+    activeCrawls.put(id, new ActiveCrawl(bot, Instant.now()));
+
+    ScheduledFuture<?> timeout = null;
+    if (!crawlTimeout.isZero()) {
+      timeout = timer.schedule(bot::cancel, crawlTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    try {
+      return crawl.get();
+    } finally {
+      if (timeout != null) {
+        timeout.cancel(false);
+      }
+      activeCrawls.remove(id);
+    }
+  }
+
+  /**
+   * Checks that a crawl may process at least one page at a time, as a crawl
+   * without any permit would wait forever for its first page.
+   *
+   * @param maxInFlight The maximum number of pages of a crawl processed at the
+   *                    same time.
+   * @throws IllegalArgumentException When maxInFlight is lower than one.
+   */
+  private static void checkMaxInFlight(int maxInFlight) {
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be at least 1: " + maxInFlight);
+    }
+  }
+
+  /**
+   * Creates a factory of daemon threads with the given name prefix.
+   *
+   * @param prefix Thread name prefix.
+   * @return Thread factory.
+   */
+  private static ThreadFactory threadFactory(String prefix) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Crawl running on the pool.
+   */
+  private static class ActiveCrawl {
+
+    private final Bot bot;
+
+    private final Instant startedAt;
+
+    private ActiveCrawl(Bot bot, Instant startedAt) {
+      this.bot = bot;
+      this.startedAt = startedAt;
+    }
+  }
+}
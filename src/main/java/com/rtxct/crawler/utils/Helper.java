@@ -1,6 +1,5 @@
 package com.rtxct.crawler.utils;
 
-import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.LinkedList;
@@ -8,12 +7,20 @@ import java.util.Queue;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import org.jsoup.Connection;
-import org.jsoup.Jsoup;
 import org.springframework.stereotype.Component;
 
+import com.rtxct.crawler.fetch.Fetcher;
+import com.rtxct.crawler.fetch.JsoupFetcher;
+
 @Component
 public class Helper {
+
+  /** Class properties. */
+  private static final Pattern URL_PATTERN = Pattern.compile("\\b(https|http):\\/\\/+[^\\s]+[\\\\w]*");
+
+  /** Class Dependencies. */
+  private Fetcher fetcher = new JsoupFetcher();
+
   /**
    * Connects to the given URL and returns a boolean indicating whether the
    * connection was successful or not.
@@ -22,19 +29,7 @@ public class Helper {
    * @return boolean indicating whether the connection was successful or not.
    */
   public boolean checkPageAvailability(String url) {
-    try {
-      Connection.Response page = Jsoup.connect(url).timeout(5000).execute();
-
-      if (page.statusCode() != 200) {
-        return false;
-      }
-      return true;
-
-    } catch (IOException e) {
-      return false;
-    } catch (Exception e) {
-      return false;
-    }
+    return fetcher.fetch(url).isOk();
   }
 
   /**
@@ -66,9 +61,7 @@ public class Helper {
    */
   public boolean validateURL(String url) {
     try {
-      String rgx = "\\b(https|http):\\/\\/+[^\\s]+[\\\\w]*";
-      Pattern pattern = Pattern.compile(rgx);
-      Matcher match = pattern.matcher(url);
+      Matcher match = URL_PATTERN.matcher(url);
 
       if (match.matches()) {
         return true;
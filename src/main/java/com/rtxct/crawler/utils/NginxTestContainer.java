@@ -129,7 +129,8 @@ public class NginxTestContainer {
   }
 
   /**
-   * Configures temporary html files for Nginx testContainer usage.
+   * Configures temporary html files for Nginx testContainer usage, along with a
+   * robots.txt disallowing the private page.
    */
   private void pagesConfig() {
     try {
@@ -162,10 +163,32 @@ public class NginxTestContainer {
           </head>
           <body>
             <a href="/">Link</a>
+            <a href="/private.html">Private</a>
           </body>
           </html>
           """;
 
+      File privateFile = new File(tmpDirectory, "private.html");
+      privateFile.deleteOnExit();
+      String privatePage = """
+          <!DOCTYPE html>
+          <html lang="en">
+          <head>
+            <meta charset="UTF-8">
+            <title>Private</title>
+            <meta name="description" content="Private description">
+          </head>
+          </html>
+          """;
+
+      File robotsFile = new File(tmpDirectory, "robots.txt");
+      robotsFile.deleteOnExit();
+      String robots = """
+          User-agent: *
+          Disallow: /private
+          Crawl-delay: 0.1
+          """;
+
       PrintStream printStreamIndex = new PrintStream(new FileOutputStream(indexFile));
       printStreamIndex.println(fmtIndex);
       printStreamIndex.close();
@@ -173,6 +196,14 @@ public class NginxTestContainer {
       PrintStream printStreamLink = new PrintStream(new FileOutputStream(linkFile));
       printStreamLink.println(link);
       printStreamLink.close();
+
+      PrintStream printStreamPrivate = new PrintStream(new FileOutputStream(privateFile));
+      printStreamPrivate.println(privatePage);
+      printStreamPrivate.close();
+
+      PrintStream printStreamRobots = new PrintStream(new FileOutputStream(robotsFile));
+      printStreamRobots.println(robots);
+      printStreamRobots.close();
     } catch (FileNotFoundException e) {
       this.stopContainer();
       e.printStackTrace();
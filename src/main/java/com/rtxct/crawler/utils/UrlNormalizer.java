@@ -0,0 +1,429 @@
+package com.rtxct.crawler.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class UrlNormalizer {
+
+  /** Class properties. */
+  public static final Set<String> DEFAULT_TRACKING_PARAMS = Set.of("gclid", "dclid", "fbclid", "msclkid", "yclid",
+      "igshid", "mc_cid", "mc_eid", "_ga", "_gl");
+
+  private static final String TRACKING_PREFIX = "utm_";
+
+  private final Set<String> trackingParams;
+
+  private final boolean sortQuery;
+
+  /**
+   * UrlNormalizer class constructor. Strips the default tracking parameters and
+   * sorts the remaining ones.
+   */
+  public UrlNormalizer() {
+    this(DEFAULT_TRACKING_PARAMS, true);
+  }
+
+  /**
+   * UrlNormalizer class constructor.
+   *
+   * @param trackingParams Query parameter names to be removed, besides the
+   *                       utm_ prefixed ones.
+   * @param sortQuery      Whether the query parameters should be sorted.
+   */
+  public UrlNormalizer(Set<String> trackingParams, boolean sortQuery) {
+    this.trackingParams = trackingParams;
+    this.sortQuery = sortQuery;
+  }
+
+  /**
+   * Normalizes an absolute URL.
+   *
+   * @param url Absolute URL.
+   * @return Canonical URL, or null if it is not a valid http(s) URL.
+   */
+  public String normalize(String url) {
+    return normalize(null, url);
+  }
+
+  /**
+   * Resolves a link against the page it was found in and normalizes it: the
+   * scheme and host are lowercased, the fragment and the default port are
+   * dropped, dot segments are removed and tracking parameters are stripped from
+   * the sorted query.
+   *
+   * @param base Absolute URL of the page holding the link, may be null when the
+   *             link is absolute.
+   * @param href Link as found in the page.
+   * @return Canonical URL, or null if the link does not point to a valid
+   *         http(s) URL.
+   */
+  public String normalize(String base, String href) {
+    if (href == null) {
+      return null;
+    }
+
+    String link = href.strip();
+    int fragment = link.indexOf('#');
+    if (fragment >= 0) {
+      link = link.substring(0, fragment);
+    }
+    if (link.isEmpty()) {
+      return null;
+    }
+
+    if (schemeEnd(link) < 0) {
+      link = resolve(base, link);
+      if (link == null) {
+        return null;
+      }
+    }
+    return canonicalize(link);
+  }
+
+  /**
+   * Checks whether the given URL is an absolute http(s) URL with a valid host.
+   *
+   * @param url URL to be validated.
+   * @return Boolean whether the URL is valid or not.
+   */
+  public boolean isValid(String url) {
+    return url != null && canonicalize(url) != null;
+  }
+
+  /**
+   * Resolves a relative link against an absolute base URL.
+   *
+   * @param base Absolute base URL.
+   * @param link Relative link, without fragment.
+   * @return Absolute URL, or null if the base is not absolute.
+   */
+  private String resolve(String base, String link) {
+    if (base == null) {
+      return null;
+    }
+
+    int schemeEnd = schemeEnd(base);
+    if (schemeEnd < 0 || !base.startsWith("//", schemeEnd + 1)) {
+      return null;
+    }
+
+    if (link.startsWith("//")) {
+      return base.substring(0, schemeEnd + 1) + link;
+    }
+
+    int authorityEnd = indexOfAny(base, schemeEnd + 3, "/?#");
+    if (link.charAt(0) == '/') {
+      return base.substring(0, authorityEnd) + link;
+    }
+
+    int pathEnd = indexOfAny(base, authorityEnd, "?#");
+    if (link.charAt(0) == '?') {
+      return base.substring(0, pathEnd) + link;
+    }
+
+    int lastSlash = base.lastIndexOf('/', pathEnd - 1);
+    if (lastSlash < authorityEnd) {
+      return base.substring(0, authorityEnd) + "/" + link;
+    }
+    return base.substring(0, lastSlash + 1) + link;
+  }
+
+  /**
+   * Builds the canonical form of an absolute URL.
+   *
+   * @param url Absolute URL.
+   * @return Canonical URL, or null if it is not a valid http(s) URL.
+   */
+  private String canonicalize(String url) {
+    int schemeEnd = schemeEnd(url);
+    if (schemeEnd < 0 || !url.startsWith("//", schemeEnd + 1)) {
+      return null;
+    }
+
+    String scheme;
+    int defaultPort;
+    if (schemeEnd == 4 && url.regionMatches(true, 0, "http", 0, 4)) {
+      scheme = "http";
+      defaultPort = 80;
+    } else if (schemeEnd == 5 && url.regionMatches(true, 0, "https", 0, 5)) {
+      scheme = "https";
+      defaultPort = 443;
+    } else {
+      return null;
+    }
+
+    int authorityStart = schemeEnd + 3;
+    int fragment = url.indexOf('#', authorityStart);
+    int end = fragment < 0 ? url.length() : fragment;
+    int authorityEnd = indexOfAny(url, authorityStart, "/?#");
+    int queryStart = url.indexOf('?', authorityEnd);
+    if (queryStart < 0 || queryStart > end) {
+      queryStart = end;
+    }
+
+    StringBuilder builder = new StringBuilder(end + 1);
+    builder.append(scheme).append("://");
+    if (!appendAuthority(builder, url, authorityStart, authorityEnd, defaultPort)) {
+      return null;
+    }
+
+    if (authorityEnd == queryStart) {
+      builder.append('/');
+    } else if (!appendPath(builder, url, authorityEnd, queryStart)) {
+      return null;
+    }
+
+    if (queryStart + 1 < end && !appendQuery(builder, url.substring(queryStart + 1, end))) {
+      return null;
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Appends the authority with the host lowercased and the default port
+   * omitted.
+   *
+   * @return Boolean whether the authority is valid or not.
+   */
+  private boolean appendAuthority(StringBuilder builder, String url, int start, int end, int defaultPort) {
+    int userInfo = url.lastIndexOf('@', end - 1);
+    if (userInfo >= start) {
+      builder.append(url, start, userInfo + 1);
+      start = userInfo + 1;
+    }
+
+    int hostEnd = end;
+    if (start < end && url.charAt(start) == '[') {
+      hostEnd = url.indexOf(']', start);
+      if (hostEnd < 0 || hostEnd >= end) {
+        return false;
+      }
+      hostEnd++;
+    } else {
+      int colon = url.indexOf(':', start);
+      if (colon >= 0 && colon < end) {
+        hostEnd = colon;
+      }
+    }
+
+    if (hostEnd > start && url.charAt(hostEnd - 1) == '.') {
+      hostEnd--;
+    }
+    if (hostEnd == start) {
+      return false;
+    }
+
+    boolean lowercase = true;
+    for (int i = start; i < hostEnd; i++) {
+      char c = url.charAt(i);
+      if (c >= 'A' && c <= 'Z') {
+        lowercase = false;
+      } else if (!((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-' || c == '.' || c == '_'
+          || c == '[' || c == ']' || c == ':' || c > 0x7f)) {
+        return false;
+      }
+    }
+
+    if (lowercase) {
+      builder.append(url, start, hostEnd);
+    } else {
+      for (int i = start; i < hostEnd; i++) {
+        char c = url.charAt(i);
+        builder.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+      }
+    }
+
+    int portStart = url.indexOf(':', hostEnd);
+    if (portStart < 0 || portStart >= end || portStart + 1 == end) {
+      return true;
+    }
+
+    int port = 0;
+    for (int i = portStart + 1; i < end; i++) {
+      char c = url.charAt(i);
+      if (c < '0' || c > '9' || port > 65535) {
+        return false;
+      }
+      port = port * 10 + (c - '0');
+    }
+    if (port > 65535) {
+      return false;
+    }
+    if (port != defaultPort) {
+      builder.append(':').append(port);
+    }
+    return true;
+  }
+
+  /**
+   * Appends the path without dot segments, encoding spaces.
+   *
+   * @return Boolean whether the path is valid or not.
+   */
+  private boolean appendPath(StringBuilder builder, String url, int start, int end) {
+    int dotSegment = url.indexOf("/.", start);
+    if (dotSegment >= 0 && dotSegment < end) {
+      return appendEncoded(builder, removeDotSegments(url.substring(start, end)), 0, -1);
+    }
+    return appendEncoded(builder, url, start, end);
+  }
+
+  /**
+   * Appends the query without tracking parameters and, if enabled, with the
+   * parameters sorted.
+   *
+   * @return Boolean whether the query is valid or not.
+   */
+  private boolean appendQuery(StringBuilder builder, String query) {
+    List<String> params = new ArrayList<>();
+    int start = 0;
+    while (start <= query.length()) {
+      int end = query.indexOf('&', start);
+      if (end < 0) {
+        end = query.length();
+      }
+      if (end > start && !isTrackingParam(query, start, end)) {
+        params.add(query.substring(start, end));
+      }
+      start = end + 1;
+    }
+
+    if (params.isEmpty()) {
+      return true;
+    }
+    if (sortQuery) {
+      Collections.sort(params);
+    }
+
+    builder.append('?');
+    for (int i = 0; i < params.size(); i++) {
+      if (i > 0) {
+        builder.append('&');
+      }
+      if (!appendEncoded(builder, params.get(i), 0, -1)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether the query parameter in the given range is a tracking one.
+   */
+  private boolean isTrackingParam(String query, int start, int end) {
+    int nameEnd = query.indexOf('=', start);
+    if (nameEnd < 0 || nameEnd > end) {
+      nameEnd = end;
+    }
+    if (query.regionMatches(true, start, TRACKING_PREFIX, 0, TRACKING_PREFIX.length())) {
+      return true;
+    }
+    for (String param : trackingParams) {
+      if (param.length() == nameEnd - start && query.regionMatches(true, start, param, 0, param.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Appends a range of the value encoding spaces, and rejecting any other
+   * control or whitespace character. The range is copied at once when nothing
+   * needs to be encoded.
+   *
+   * @param end End of the range, or -1 for the whole value.
+   * @return Boolean whether the value is valid or not.
+   */
+  private static boolean appendEncoded(StringBuilder builder, String value, int start, int end) {
+    if (end < 0) {
+      end = value.length();
+    }
+
+    int copied = start;
+    for (int i = start; i < end; i++) {
+      char c = value.charAt(i);
+      if (c == ' ') {
+        builder.append(value, copied, i).append("%20");
+        copied = i + 1;
+      } else if (c < 0x20 || c == 0x7f) {
+        return false;
+      }
+    }
+    builder.append(value, copied, end);
+    return true;
+  }
+
+  /**
+   * Removes the "." and ".." segments from a path.
+   *
+   * @param path Absolute path.
+   * @return Path without dot segments.
+   */
+  private static String removeDotSegments(String path) {
+    List<String> segments = new ArrayList<>();
+    boolean trailingSlash = path.endsWith("/") || path.endsWith("/.") || path.endsWith("/..");
+    int start = 1;
+
+    while (start <= path.length()) {
+      int end = path.indexOf('/', start);
+      if (end < 0) {
+        end = path.length();
+      }
+      String segment = path.substring(start, end);
+
+      if (segment.equals("..")) {
+        if (!segments.isEmpty()) {
+          segments.remove(segments.size() - 1);
+        }
+      } else if (!segment.equals(".") && (end < path.length() || !segment.isEmpty())) {
+        segments.add(segment);
+      }
+      start = end + 1;
+    }
+
+    StringBuilder builder = new StringBuilder(path.length());
+    for (String segment : segments) {
+      builder.append('/').append(segment);
+    }
+    if (trailingSlash || builder.length() == 0) {
+      builder.append('/');
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Finds the end of the URL scheme.
+   *
+   * @param url URL to be checked.
+   * @return Index of the colon ending the scheme, or -1 if there is none.
+   */
+  private static int schemeEnd(String url) {
+    for (int i = 0; i < url.length(); i++) {
+      char c = url.charAt(i);
+      if (c == ':') {
+        return i > 0 ? i : -1;
+      }
+      boolean letter = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+      if (!letter && (i == 0 || !((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.'))) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Finds the first occurrence of any of the given characters.
+   *
+   * @return Index of the first occurrence, or the string length if not found.
+   */
+  private static int indexOfAny(String value, int from, String chars) {
+    for (int i = from; i < value.length(); i++) {
+      if (chars.indexOf(value.charAt(i)) >= 0) {
+        return i;
+      }
+    }
+    return value.length();
+  }
+}
@@ -2,8 +2,12 @@ package com.rtxct.crawler;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Assert;
 import org.junit.jupiter.api.AfterAll;
@@ -14,7 +18,10 @@ import org.junit.jupiter.api.TestInstance.Lifecycle;
 import org.springframework.boot.test.context.TestComponent;
 
 import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.BotConfig;
 import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.frontier.CrawlBudget;
+import com.rtxct.crawler.utils.GeneratedSite;
 import com.rtxct.crawler.utils.NginxTestContainer;
 
 @TestComponent
@@ -156,4 +163,105 @@ public class BotTests {
     }
   }
 
+  /**
+   * Crawl a generated site, and assert that every page is handed to the
+   * listener while none is kept by the Bot.
+   */
+  @Test
+  public void testCrawlListener() {
+    Set<String> streamed = ConcurrentHashMap.newKeySet();
+    BotConfig config = BotConfig.builder()
+        .fetcher(GeneratedSite.tree())
+        .respectRobots(false)
+        .listener(page -> streamed.add(page.getTitle()))
+        .collectPages(false)
+        .build();
+
+    List<PageDTO> result = new Bot(Arrays.asList("http://site/p1"), 4, config).crawlVirtual(8);
+
+    Assert.assertTrue(result.isEmpty());
+    Assert.assertEquals(31, streamed.size());
+    Assert.assertTrue(streamed.contains("P31"));
+  }
+
+  /**
+   * Crawl a generated site without blocking a thread per request, parsing the
+   * pages on a single thread, and assert that every page is returned once.
+   */
+  @Test
+  public void testCrawlNonBlocking() {
+    BotConfig config = BotConfig.builder()
+        .fetcher(GeneratedSite.tree())
+        .respectRobots(false)
+        .build();
+    ExecutorService parser = Executors.newSingleThreadExecutor();
+
+    try {
+      List<PageDTO> result = new Bot(Arrays.asList("http://site/p1"), 4, config).crawlNonBlocking(parser, 16);
+
+      Assert.assertEquals(31, result.size());
+      Assert.assertEquals(31, result.stream().map(PageDTO::getTitle).distinct().count());
+    } finally {
+      parser.shutdown();
+    }
+  }
+
+  /**
+   * Crawl a generated site from many threads at once, and assert that no page
+   * is lost nor mixed up with another one.
+   */
+  @Test
+  public void testCrawlAsyncKeepsEveryPage() {
+    BotConfig config = BotConfig.builder()
+        .fetcher(GeneratedSite.tree())
+        .respectRobots(false)
+        .build();
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+
+    try {
+      List<PageDTO> result = new Bot(Arrays.asList("http://site/p1"), 8, config).crawlAsync(executor, 16);
+
+      Assert.assertEquals(511, result.size());
+      Assert.assertTrue(result.stream().allMatch(page -> page.getUrl().endsWith("/p" + page.getTitle().substring(1))));
+      Assert.assertEquals(511, result.stream().map(PageDTO::getUrl).distinct().count());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Crawl a generated site with a pages budget, and assert that the crawl stops
+   * once it is spent, returning the shallowest pages.
+   */
+  @Test
+  public void testCrawlBudget() {
+    BotConfig config = BotConfig.builder()
+        .fetcher(GeneratedSite.tree())
+        .respectRobots(false)
+        .budget(CrawlBudget.builder().maxPages(15).build())
+        .build();
+
+    List<PageDTO> result = new Bot(Arrays.asList("http://site/p1"), 8, config).crawlSync();
+
+    Assert.assertEquals(15, result.size());
+    Assert.assertTrue(result.stream().allMatch(page -> Integer.parseInt(page.getTitle().substring(1)) < 16));
+  }
+
+  /**
+   * Crawl a seed given in a non canonical form, and assert that it is fetched
+   * once and under its canonical URL.
+   */
+  @Test
+  public void testCanonicalSeeds() {
+    BotConfig config = BotConfig.builder()
+        .fetcher(GeneratedSite.tree())
+        .respectRobots(false)
+        .build();
+
+    List<PageDTO> result = new Bot(Arrays.asList("HTTP://SITE/p1#top", "http://site/p1", "not a url"), 0, config)
+        .crawlSync();
+
+    Assert.assertEquals(1, result.size());
+    Assert.assertEquals("http://site/p1", result.get(0).getUrl());
+  }
 }
@@ -0,0 +1,211 @@
+package com.rtxct.crawler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.rtxct.crawler.cache.CachePolicy;
+import com.rtxct.crawler.cache.CachingFetcher;
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.fetch.Fetcher;
+
+@TestComponent
+public class CacheTests {
+
+  /** Properties */
+  @TempDir
+  Path directory;
+
+  private final AtomicInteger fetches = new AtomicInteger();
+
+  /**
+   * Fetch the same page through URLs with the same canonical form, and assert
+   * that it is downloaded once.
+   */
+  @Test
+  void testCacheHit() {
+    CachingFetcher cache = new CachingFetcher(site(Map.of()));
+
+    FetchResult first = cache.fetch("http://site/page");
+    FetchResult second = cache.fetch("http://SITE/page#top");
+
+    Assert.assertEquals(1, fetches.get());
+    Assert.assertTrue(second.isOk());
+    Assert.assertEquals("http://SITE/page#top", second.getUrl());
+    Assert.assertArrayEquals(first.getBody(), second.getBody());
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+    Assert.assertEquals(first.getBody().length, cache.getBytesSaved());
+    Assert.assertEquals(0.5, cache.getHitRatio(), 0);
+  }
+
+  /**
+   * Assert that failures and no-store responses are not cached, and that
+   * expired responses are fetched again.
+   */
+  @Test
+  void testUncachedResponses() {
+    CachingFetcher noStore = new CachingFetcher(site(Map.of("Cache-Control", "no-store")));
+    noStore.fetch("http://site/page");
+    noStore.fetch("http://site/page");
+    Assert.assertEquals(2, fetches.get());
+
+    CachingFetcher failing = new CachingFetcher(url -> FetchResult.builder().url(url).statusCode(500).build());
+    failing.fetch("http://site/page");
+    failing.fetch("http://site/page");
+    Assert.assertEquals(2, failing.getMisses());
+
+    fetches.set(0);
+    CachePolicy noMinimum = CachePolicy.builder().minTtl(Duration.ZERO).build();
+    CachingFetcher expiring = new CachingFetcher(site(Map.of("Cache-Control", "max-age=0")), 1 << 20, noMinimum);
+    expiring.fetch("http://site/page");
+    expiring.fetch("http://site/page");
+    Assert.assertEquals(2, fetches.get());
+  }
+
+  /**
+   * Time to live read from the Cache-Control and Expires headers, bounded by
+   * the minimum and maximum ones.
+   */
+  @Test
+  void testCachePolicy() {
+    CachePolicy policy = CachePolicy.builder().minTtl(Duration.ofMinutes(1)).maxTtl(Duration.ofHours(1)).build();
+
+    Assert.assertEquals(Duration.ofMinutes(1), policy.ttlOf(page(Map.of())));
+    Assert.assertEquals(Duration.ofMinutes(5), policy.ttlOf(page(Map.of("Cache-Control", "public, max-age=300"))));
+    Assert.assertEquals(Duration.ofMinutes(10),
+        policy.ttlOf(page(Map.of("Cache-Control", "max-age=300, s-maxage=600"))));
+    Assert.assertEquals(Duration.ofMinutes(1), policy.ttlOf(page(Map.of("Cache-Control", "no-cache"))));
+    Assert.assertEquals(Duration.ofHours(1), policy.ttlOf(page(Map.of("Cache-Control", "max-age=31536000"))));
+    Assert.assertNull(policy.ttlOf(page(Map.of("Cache-Control", "private, no-store"))));
+    Assert.assertEquals(Duration.ofMinutes(30), policy.ttlOf(page(Map.of(
+        "Date", "Mon, 02 Oct 2023 10:00:00 GMT",
+        "Expires", "Mon, 02 Oct 2023 10:30:00 GMT"))));
+    Assert.assertEquals(Duration.ofMinutes(1), policy.ttlOf(page(Map.of("Expires", "0"))));
+  }
+
+  /**
+   * Assert that a conditional request matching the cached validators is
+   * answered with a 304 from the cache.
+   */
+  @Test
+  void testConditionalRequest() {
+    CachingFetcher cache = new CachingFetcher(site(Map.of("ETag", "\"v1\"")));
+    cache.fetch("http://site/page");
+
+    FetchResult matching = cache.fetch("http://site/page", Map.of("If-None-Match", "\"v1\""));
+    FetchResult stale = cache.fetch("http://site/page", Map.of("If-None-Match", "\"v0\""));
+
+    Assert.assertEquals(1, fetches.get());
+    Assert.assertTrue(matching.isNotModified());
+    Assert.assertTrue(stale.isOk());
+  }
+
+  /**
+   * Fill the memory tier, and assert that the evicted responses are served
+   * from disk, including by a new cache over the same directory.
+   */
+  @Test
+  void testDiskTier() throws IOException {
+    long entrySize = 512 + 1024;
+    CachingFetcher cache = new CachingFetcher(site(Map.of()), 2 * entrySize, CachePolicy.DEFAULT, directory,
+        1 << 20);
+
+    cache.fetch("http://site/a");
+    cache.fetch("http://site/b");
+    cache.fetch("http://site/c");
+    Assert.assertEquals(2 * entrySize, cache.getSize());
+    Assert.assertTrue(cache.getDiskSize() > 1024);
+
+    FetchResult fromDisk = cache.fetch("http://site/a");
+    Assert.assertEquals(3, fetches.get());
+    Assert.assertEquals("http://site/a", fromDisk.getUrl());
+    Assert.assertEquals(1024, fromDisk.getBody().length);
+    Assert.assertEquals("UTF-8", fromDisk.getCharset());
+
+    CachingFetcher restarted = new CachingFetcher(site(Map.of()), 2 * entrySize, CachePolicy.DEFAULT, directory,
+        1 << 20);
+    restarted.fetch("http://site/b");
+    Assert.assertEquals(3, fetches.get());
+    Assert.assertEquals(1, restarted.getHits());
+  }
+
+  /**
+   * Request the same page from several threads while its fetch is in flight,
+   * and assert that a single request is sent.
+   */
+  @Test
+  void testCoalescing() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    Fetcher site = site(Map.of("Cache-Control", "no-store"));
+    CachingFetcher cache = new CachingFetcher(url -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return site.fetch(url);
+    });
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<CompletableFuture<FetchResult>> results = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        results.add(CompletableFuture.supplyAsync(() -> cache.fetch("http://site/page"), executor));
+      }
+      while (cache.getMisses() + cache.getCoalesced() < 1) {
+        Thread.sleep(10);
+      }
+      Thread.sleep(200);
+      release.countDown();
+
+      for (CompletableFuture<FetchResult> result : results) {
+        Assert.assertTrue(result.get().isOk());
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    Assert.assertEquals(1, fetches.get());
+    Assert.assertEquals(7, cache.getCoalesced());
+  }
+
+  /**
+   * Stub site answering every URL with a 1KB page and the given headers,
+   * counting the fetches.
+   */
+  private Fetcher site(Map<String, String> headers) {
+    return url -> {
+      fetches.incrementAndGet();
+      return page(headers).toBuilder().url(url).finalUrl(url).build();
+    };
+  }
+
+  /**
+   * Builds a successful 1KB page with the given headers.
+   */
+  private static FetchResult page(Map<String, String> headers) {
+    return FetchResult.builder()
+        .url("http://site/page")
+        .finalUrl("http://site/page")
+        .statusCode(200)
+        .headers(headers)
+        .charset("UTF-8")
+        .body("a".repeat(1024).getBytes(StandardCharsets.UTF_8))
+        .build();
+  }
+}
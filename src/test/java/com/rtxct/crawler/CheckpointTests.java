@@ -0,0 +1,326 @@
+package com.rtxct.crawler;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.rtxct.crawler.bot.BotFactory;
+import com.rtxct.crawler.bot.CrawlerProperties;
+import com.rtxct.crawler.checkpoint.CheckpointState;
+import com.rtxct.crawler.checkpoint.CheckpointStore;
+import com.rtxct.crawler.checkpoint.CrawlCheckpoint;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.frontier.CrawlBudget;
+import com.rtxct.crawler.frontier.Frontier;
+import com.rtxct.crawler.frontier.FrontierEntry;
+import com.rtxct.crawler.index.InvertedIndex;
+import com.rtxct.crawler.job.CrawlJob;
+import com.rtxct.crawler.job.InMemoryJobStore;
+import com.rtxct.crawler.job.JobService;
+import com.rtxct.crawler.job.JobStatus;
+import com.rtxct.crawler.scheduler.CrawlScheduler;
+import com.rtxct.crawler.utils.GeneratedSite;
+import com.sun.net.httpserver.HttpServer;
+
+@TestComponent
+@TestInstance(Lifecycle.PER_CLASS)
+public class CheckpointTests {
+
+  /** Properties */
+  private String url;
+
+  @TempDir
+  Path directory;
+
+  /** Dependencies */
+  private HttpServer server;
+
+  private CrawlScheduler crawlScheduler;
+
+  /**
+   * Before all the tests, starts a local server where page N links to pages 2N
+   * and 2N + 1, each page taking a while to answer.
+   */
+  @BeforeAll
+  public void setup() throws IOException {
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable);
+      thread.setDaemon(true);
+      return thread;
+    }));
+    this.server.createContext("/", exchange -> {
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+
+      String path = exchange.getRequestURI().getPath();
+      GeneratedSite.respond(exchange, GeneratedSite.treePage(GeneratedSite.pageOf(path), "/site/"));
+    });
+    this.server.start();
+    this.url = "http://127.0.0.1:" + server.getAddress().getPort();
+    this.crawlScheduler = new CrawlScheduler(4, 16, Duration.ZERO);
+  }
+
+  /**
+   * After all the tests, stops the scheduler and the local server.
+   */
+  @AfterAll
+  public void cleanup() {
+    crawlScheduler.shutdown();
+    server.stop(0);
+  }
+
+  /**
+   * Record the changes of a frontier, reload them, resume from them and reload
+   * again, pages of in flight URLs being dropped as they are scraped again.
+   */
+  @Test
+  void testRecordAndResume() throws IOException {
+    Path root = directory.resolve("record");
+    CheckpointStore store = new CheckpointStore(root.toString(), Duration.ofHours(1), Duration.ofHours(1));
+    CrawlCheckpoint checkpoint = store.create("crawl", List.of("http://a.com/"), 2,
+        CrawlBudget.builder().maxPages(50).maxDuration(Duration.ofMillis(1500)).build(), Instant.ofEpochMilli(1000));
+
+    Frontier frontier = new Frontier();
+    frontier.setJournal(checkpoint);
+    frontier.offer("http://a.com/", 0);
+    frontier.offer("http://b.com/", 0);
+    FrontierEntry first = frontier.poll();
+    frontier.offer("http://c.com/", 1);
+    frontier.markSeen("http://d.com/");
+    checkpoint.onPage(new PageDTO("A", "", first.getUrl()));
+    frontier.complete(first);
+    checkpoint.onPage(new PageDTO("B", "", "http://b.com/"));
+    store.close("crawl");
+
+    try (Stream<Path> files = Files.list(root.resolve("crawl"))) {
+      Assert.assertEquals(3, files.count());
+    }
+
+    CheckpointState state = store.load("crawl").orElseThrow();
+    Assert.assertEquals(List.of("http://a.com/"), state.getUrls());
+    Assert.assertEquals(2, state.getBreakpoint());
+    Assert.assertEquals(50, state.getBudget().getMaxPages());
+    Assert.assertEquals(Long.MAX_VALUE, state.getBudget().getMaxBytes());
+    Assert.assertEquals(Duration.ofMillis(1500), state.getBudget().getMaxDuration());
+    Assert.assertEquals(Instant.ofEpochMilli(1000), state.getSubmittedAt());
+    Assert.assertEquals(Map.of("http://b.com/", 0, "http://c.com/", 1), state.getPending());
+    Assert.assertTrue(state.getSeen().containsAll(List.of("http://a.com/", "http://d.com/")));
+    Assert.assertEquals(List.of("A"), state.getPages().stream().map(PageDTO::getTitle).toList());
+
+    Frontier resumed = new Frontier();
+    state.restore(resumed);
+    resumed.setJournal(store.resume(state));
+    Assert.assertFalse(resumed.offer("http://a.com/", 1));
+    FrontierEntry entry = resumed.poll();
+    while (!entry.getUrl().equals("http://c.com/")) {
+      resumed.complete(entry);
+      entry = resumed.poll();
+    }
+    resumed.complete(entry);
+    store.shutdown();
+
+    state = new CheckpointStore(root.toString(), Duration.ofHours(1), Duration.ofHours(1)).load("crawl")
+        .orElseThrow();
+    Assert.assertTrue(state.getPending().isEmpty());
+    Assert.assertEquals(1, state.getDepth());
+    Assert.assertTrue(state.getSeen().containsAll(List.of("http://b.com/", "http://c.com/", "http://d.com/")));
+  }
+
+  /**
+   * Load a checkpoint written before its meta file had a format version, with
+   * an unlimited budget, and refuse one of an unknown version.
+   */
+  @Test
+  void testMetaVersions() throws IOException {
+    Path root = directory.resolve("versions");
+    Files.createDirectories(root.resolve("legacy"));
+    try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(root.resolve("legacy/crawl.meta")))) {
+      output.writeInt(3);
+      output.writeLong(1);
+      output.writeInt(0);
+      output.writeInt(1);
+      output.writeUTF("http://a.com/");
+    }
+    Files.createDirectories(root.resolve("future"));
+    try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(root.resolve("future/crawl.meta")))) {
+      output.writeInt(0x434B4D54);
+      output.writeInt(99);
+    }
+
+    CheckpointStore store = new CheckpointStore(root.toString(), Duration.ofHours(1), Duration.ofHours(1));
+    CheckpointState state = store.load("legacy").orElseThrow();
+    Assert.assertEquals(List.of("http://a.com/"), state.getUrls());
+    Assert.assertEquals(3, state.getBreakpoint());
+    Assert.assertEquals(Instant.ofEpochSecond(1), state.getSubmittedAt());
+    Assert.assertTrue(state.getBudget().isUnlimited());
+
+    Assert.assertTrue(store.load("future").isEmpty());
+    store.shutdown();
+  }
+
+  /**
+   * Reload the changes written before a crash, ignoring a truncated last
+   * record.
+   */
+  @Test
+  void testTruncatedLog() throws IOException, InterruptedException {
+    Path root = directory.resolve("truncated");
+    CheckpointStore store = new CheckpointStore(root.toString(), Duration.ofMillis(10), Duration.ofHours(1));
+    CrawlCheckpoint checkpoint = store.create("crawl", List.of("http://a.com/"), 1, CrawlBudget.UNLIMITED,
+        Instant.now());
+    checkpoint.offered("http://a.com/", 0);
+    checkpoint.offered("http://b.com/", 1);
+
+    Path log = root.resolve("crawl").resolve("log-0.bin");
+    for (int i = 0; i < 200 && Files.size(log) == 0; i++) {
+      Thread.sleep(10);
+    }
+    Files.write(log, new byte[] { 0, 0, 0, 40, 1, 2 }, StandardOpenOption.APPEND);
+
+    CheckpointState state = new CheckpointStore(root.toString(), Duration.ofHours(1), Duration.ofHours(1))
+        .load("crawl").orElseThrow();
+    Assert.assertEquals(Map.of("http://a.com/", 0, "http://b.com/", 1), state.getPending());
+
+    Assert.assertTrue(store.load("crawl").isEmpty());
+    Assert.assertTrue(store.load("unknown").isEmpty());
+    Assert.assertTrue(store.load("../truncated").isEmpty());
+    store.shutdown();
+  }
+
+  /**
+   * Stop the service in the middle of a job, as on a restart, resume the job
+   * from a new service and assert that every page is returned once, and that
+   * the checkpoint is removed once the job completed.
+   */
+  @Test
+  void testResumeJob() throws InterruptedException {
+    Path root = directory.resolve("jobs");
+    CheckpointStore store = new CheckpointStore(root.toString(), Duration.ofMillis(20), Duration.ofMillis(100));
+    JobService jobService = jobService(store);
+
+    CrawlJob job = jobService.submit(List.of(url + "/site/1"), 5);
+    for (int i = 0; i < 200 && job.getPagesFetched().get() < 10; i++) {
+      Thread.sleep(10);
+    }
+    jobService.shutdown();
+    store.shutdown();
+    Assert.assertEquals(JobStatus.CANCELLED, job.getStatus());
+    Assert.assertTrue(job.getPagesFetched().get() < 63);
+
+    store = new CheckpointStore(root.toString(), Duration.ofMillis(20), Duration.ofMillis(100));
+    jobService = jobService(store);
+    try {
+      Assert.assertTrue(jobService.resume("unknown").isEmpty());
+
+      CrawlJob resumed = jobService.resume(job.getId()).orElseThrow();
+      Assert.assertEquals(job.getSubmittedAt(), resumed.getSubmittedAt());
+      Assert.assertTrue(resumed.getPagesFetched().get() > 0);
+      Assert.assertSame(resumed, jobService.resume(job.getId()).orElseThrow());
+
+      CrawlJob finished = awaitFinished(jobService, job.getId());
+      Assert.assertEquals(JobStatus.COMPLETED, finished.getStatus());
+      Assert.assertEquals(63, finished.getPagesFetched().get());
+      Assert.assertEquals(5, finished.getDepth());
+
+      List<PageDTO> pages = jobService.getPages(job.getId(), 0, 100).orElseThrow();
+      Assert.assertEquals(63, pages.size());
+      Assert.assertEquals(63, pages.stream().map(PageDTO::getUrl).collect(Collectors.toSet()).size());
+      Assert.assertFalse(Files.exists(root.resolve(job.getId())));
+    } finally {
+      jobService.shutdown();
+      store.shutdown();
+    }
+  }
+
+  /**
+   * Stop the service in the middle of a job with a page budget, resume it and
+   * assert that its restored pages count against the budget.
+   */
+  @Test
+  void testResumeJobBudget() throws InterruptedException {
+    Path root = directory.resolve("budget");
+    CheckpointStore store = new CheckpointStore(root.toString(), Duration.ofMillis(20), Duration.ofMillis(100));
+    JobService jobService = jobService(store);
+
+    CrawlJob job = jobService.submit(List.of(url + "/site/1"), 5, CrawlBudget.builder().maxPages(30).build());
+    for (int i = 0; i < 200 && job.getPagesFetched().get() < 5; i++) {
+      Thread.sleep(10);
+    }
+    jobService.shutdown();
+    store.shutdown();
+    Assert.assertEquals(JobStatus.CANCELLED, job.getStatus());
+    Assert.assertTrue(job.getPagesFetched().get() < 30);
+
+    store = new CheckpointStore(root.toString(), Duration.ofMillis(20), Duration.ofMillis(100));
+    jobService = jobService(store);
+    try {
+      CrawlJob resumed = jobService.resume(job.getId()).orElseThrow();
+      Assert.assertEquals(30, resumed.getBudget().getMaxPages());
+
+      CrawlJob finished = awaitFinished(jobService, job.getId());
+      Assert.assertEquals(JobStatus.COMPLETED, finished.getStatus());
+      Assert.assertEquals(30, finished.getPagesFetched().get());
+      Assert.assertEquals(30, jobService.getPages(job.getId(), 0, 100).orElseThrow().size());
+    } finally {
+      jobService.shutdown();
+      store.shutdown();
+    }
+  }
+
+  /**
+   * Creates a job service running one job at a time.
+   */
+  private JobService jobService(CheckpointStore store) {
+    BotFactory botFactory;
+    try {
+      CrawlerProperties properties = new CrawlerProperties();
+      properties.getIndex().setEnabled(false);
+      properties.getPersistence().setEnabled(false);
+      properties.getRobots().setEnabled(false);
+      properties.getDedup().setEnabled(false);
+      properties.getMetrics().setEnabled(false);
+      properties.getCache().setEnabled(false);
+      botFactory = new BotFactory(properties, new InvertedIndex(), null, null, null);
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+    return new JobService(new InMemoryJobStore(), botFactory, crawlScheduler, store, 1, 1, 10, 2);
+  }
+
+  /**
+   * Polls a job until it reaches a final state.
+   */
+  private CrawlJob awaitFinished(JobService jobService, String id) throws InterruptedException {
+    for (int i = 0; i < 400; i++) {
+      CrawlJob job = jobService.get(id).orElseThrow();
+      if (job.getStatus().isFinished() && job.getFinishedAt() != null) {
+        return job;
+      }
+      Thread.sleep(50);
+    }
+    throw new AssertionError("Job did not finish");
+  }
+}
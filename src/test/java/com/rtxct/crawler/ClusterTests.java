@@ -0,0 +1,243 @@
+package com.rtxct.crawler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.BotConfig;
+import com.rtxct.crawler.cluster.ClusterNode;
+import com.rtxct.crawler.cluster.HashRing;
+import com.rtxct.crawler.cluster.LinkBatch;
+import com.rtxct.crawler.cluster.LoopbackTransport;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.fetch.Fetcher;
+import com.rtxct.crawler.frontier.Frontier;
+import com.rtxct.crawler.scheduler.CrawlScheduler;
+import com.rtxct.crawler.utils.GeneratedSite;
+
+@TestComponent
+public class ClusterTests {
+
+  /** Number of hosts of the stub site. */
+  private static final int HOSTS = 12;
+
+  /**
+   * Hosts are spread evenly over the nodes, and adding a node only moves hosts
+   * to the new node.
+   */
+  @Test
+  void testHashRing() {
+    HashRing ring = new HashRing(List.of("a", "b", "c"));
+    HashRing grown = new HashRing(List.of("a", "b", "c", "d"));
+    List<String> urls = IntStream.range(0, 10_000).mapToObj(i -> "http://host" + i + ".com/page").toList();
+
+    Map<String, Long> shares = urls.stream().collect(Collectors.groupingBy(ring::ownerOf, Collectors.counting()));
+    Assert.assertEquals(3, shares.size());
+    shares.values().forEach(share -> Assert.assertTrue(String.valueOf(shares), share > 2500 && share < 4200));
+
+    long moved = 0;
+    for (String url : urls) {
+      if (!ring.ownerOf(url).equals(grown.ownerOf(url))) {
+        Assert.assertEquals("d", grown.ownerOf(url));
+        moved++;
+      }
+    }
+    Assert.assertTrue(String.valueOf(moved), moved > 1500 && moved < 3500);
+    Assert.assertEquals(ring.ownerOf("http://host1.com/a"), ring.ownerOf("http://HOST1.com/b?c=d"));
+  }
+
+  /**
+   * Crawl a site spread over several hosts with three nodes over a loopback
+   * transport, and assert that every page is fetched once, by the node owning
+   * its host, and that the same pages as a single node crawl are returned.
+   */
+  @Test
+  void testClusterCrawl() throws Exception {
+    List<String> nodes = List.of("a", "b", "c");
+    HashRing ring = new HashRing(nodes);
+    LoopbackTransport transport = new LoopbackTransport();
+    CrawlScheduler scheduler = new CrawlScheduler(8, 64, Duration.ZERO);
+    Map<String, AtomicInteger> fetches = new ConcurrentHashMap<>();
+    Map<String, Set<String>> fetchedBy = new HashMap<>();
+
+    List<ClusterNode> cluster = new ArrayList<>();
+    for (String node : nodes) {
+      Set<String> fetched = ConcurrentHashMap.newKeySet();
+      fetchedBy.put(node, fetched);
+      Fetcher fetcher = url -> {
+        fetched.add(url);
+        fetches.computeIfAbsent(url, key -> new AtomicInteger()).incrementAndGet();
+        return site().fetch(url);
+      };
+
+      cluster.add(new ClusterNode(node, ring, transport, (breakpoint, router) -> new Bot(List.of(), breakpoint,
+          BotConfig.builder().fetcher(fetcher).respectRobots(false).linkRouter(router).build()), scheduler, 8,
+          Duration.ofMillis(20), 4, 4, Duration.ofMinutes(1)));
+    }
+    cluster.forEach(ClusterNode::start);
+
+    try {
+      List<PageDTO> pages = cluster.get(1).crawl(List.of("http://h0/p1"), 4);
+      List<PageDTO> expected = new Bot(List.of("http://h0/p1"), 4,
+          BotConfig.builder().fetcher(site()).respectRobots(false).build()).crawlSync();
+
+      Assert.assertEquals(urls(expected), urls(pages));
+      Assert.assertEquals(expected.size(), pages.size());
+      fetches.forEach((url, count) -> Assert.assertEquals(url, 1, count.get()));
+      fetchedBy.forEach((node, urls) -> {
+        Assert.assertFalse(node, urls.isEmpty());
+        urls.forEach(url -> Assert.assertEquals(url, node, ring.ownerOf(url)));
+      });
+    } finally {
+      cluster.forEach(ClusterNode::shutdown);
+      scheduler.shutdown();
+    }
+  }
+
+  /**
+   * Assert that the status of a node without a share of a crawl is idle, and
+   * that finishing it returns no pages.
+   */
+  @Test
+  void testUnknownCrawl() {
+    CrawlScheduler scheduler = new CrawlScheduler(1, 1, Duration.ZERO);
+    ClusterNode node = new ClusterNode("a", new HashRing(List.of("a")), new LoopbackTransport(),
+        (breakpoint, router) -> new Bot(List.of(), breakpoint), scheduler, 8, Duration.ofMillis(20), 1, 1,
+        Duration.ofMinutes(1));
+    node.start();
+
+    try {
+      Assert.assertTrue(node.status("unknown").isIdle());
+      Assert.assertTrue(node.finish("unknown").isEmpty());
+    } finally {
+      node.shutdown();
+      scheduler.shutdown();
+    }
+  }
+
+  /**
+   * Assert that the batches of a finished crawl are refused instead of starting
+   * it again, that a node refuses to start more crawls than allowed, and that a
+   * share no longer polled is dropped once idle.
+   */
+  @Test
+  void testRefusedAndExpiredCrawls() throws InterruptedException {
+    CrawlScheduler scheduler = new CrawlScheduler(2, 8, Duration.ZERO);
+    ClusterNode node = new ClusterNode("a", new HashRing(List.of("a")), new LoopbackTransport(),
+        (breakpoint, router) -> new Bot(List.of(), breakpoint,
+            BotConfig.builder().fetcher(site()).respectRobots(false).linkRouter(router).build()),
+        scheduler, 8, Duration.ofMillis(20), 1, 1, Duration.ofMillis(200));
+    node.start();
+
+    try {
+      Assert.assertTrue(node.receive(batch("first")));
+      Assert.assertThrows(RejectedExecutionException.class, () -> node.receive(batch("second")));
+
+      for (int i = 0; i < 100 && node.status("first").getPages() == 0; i++) {
+        Thread.sleep(20);
+      }
+      Assert.assertFalse(node.finish("first").isEmpty());
+      Assert.assertFalse(node.receive(batch("first")));
+      Assert.assertTrue(node.status("first").isIdle());
+      Assert.assertEquals(0, node.status("first").getPages());
+
+      Assert.assertTrue(node.receive(batch("abandoned")));
+      Thread.sleep(1000);
+      Assert.assertEquals(0, node.status("abandoned").getReceived());
+      Assert.assertTrue(node.receive(batch("next")));
+    } finally {
+      node.shutdown();
+      scheduler.shutdown();
+    }
+  }
+
+  /**
+   * Receive links of a host whose robots.txt is slow to answer, and assert that
+   * the batch is accepted right away, its links being queued once the rules are
+   * known.
+   */
+  @Test
+  void testReceiveWithoutWaitingForRobots() throws InterruptedException {
+    Fetcher site = site();
+    Fetcher slowRobots = url -> {
+      if (!url.endsWith("/robots.txt")) {
+        return site.fetch(url);
+      }
+      try {
+        Thread.sleep(1000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return FetchResult.builder().url(url).finalUrl(url).statusCode(404).build();
+    };
+    CrawlScheduler scheduler = new CrawlScheduler(2, 8, Duration.ZERO);
+    ClusterNode node = new ClusterNode("a", new HashRing(List.of("a")), new LoopbackTransport(),
+        (breakpoint, router) -> new Bot(List.of(), breakpoint,
+            BotConfig.builder().fetcher(slowRobots).linkRouter(router).build()),
+        scheduler, 8, Duration.ofMillis(20), 1, 1, Duration.ofMinutes(10));
+    node.start();
+
+    try {
+      long start = System.nanoTime();
+      Assert.assertTrue(node.receive(batch("slow")));
+      Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+      Assert.assertEquals(0, node.status("slow").getReceived());
+
+      for (int i = 0; i < 200 && node.status("slow").getPages() == 0; i++) {
+        Thread.sleep(20);
+      }
+      Assert.assertEquals(1, node.status("slow").getReceived());
+      Assert.assertEquals(List.of("http://h0/p1"), urls(node.finish("slow")));
+    } finally {
+      node.shutdown();
+      scheduler.shutdown();
+    }
+  }
+
+  /**
+   * Creates a batch holding the first page of the stub site.
+   */
+  private static LinkBatch batch(String crawlId) {
+    return LinkBatch.builder()
+        .crawlId(crawlId)
+        .sender("b")
+        .breakpoint(0)
+        .links(List.of(new LinkBatch.Link("http://h0/p1", 0)))
+        .build();
+  }
+
+  /**
+   * Gets the sorted URLs of pages.
+   */
+  private static List<String> urls(List<PageDTO> pages) {
+    return pages.stream().map(PageDTO::getUrl).sorted().toList();
+  }
+
+  /**
+   * Stub site: page M of host N links to pages 2M and 2M + 1 of the next hosts.
+   */
+  private static Fetcher site() {
+    return url -> {
+      int host = Integer.parseInt(Frontier.hostOf(url).substring(1));
+      int page = GeneratedSite.pageOf(url);
+      String html = GeneratedSite.html(url, "", "http://h" + (host + 1) % HOSTS + "/p" + page * 2,
+          "http://h" + (host + 2) % HOSTS + "/p" + (page * 2 + 1));
+      return GeneratedSite.response(url, html).build();
+    };
+  }
+}
@@ -0,0 +1,124 @@
+package com.rtxct.crawler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.BotConfig;
+import com.rtxct.crawler.bot.CrawlListener;
+import com.rtxct.crawler.bot.CrawledPage;
+import com.rtxct.crawler.dedup.NearDuplicateIndex;
+import com.rtxct.crawler.dedup.SimHash;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.index.Tokenizer;
+
+@TestComponent
+public class DedupTests {
+
+  /**
+   * Texts differing by a few words get close fingerprints, unrelated texts get
+   * distant ones.
+   */
+  @Test
+  void testSimHash() {
+    Tokenizer tokenizer = new Tokenizer();
+    String text = article(0);
+    long fingerprint = SimHash.fingerprint(tokenizer.tokenize(text));
+
+    Assert.assertEquals(fingerprint, SimHash.fingerprint(tokenizer.tokenize(text)));
+    Assert.assertTrue(SimHash.distance(fingerprint,
+        SimHash.fingerprint(tokenizer.tokenize(text + " Printed on 2023-10-02"))) <= 3);
+    Assert.assertTrue(SimHash.distance(fingerprint, SimHash.fingerprint(tokenizer.tokenize(article(1)))) > 10);
+    Assert.assertEquals(0, SimHash.fingerprint(List.of()));
+  }
+
+  /**
+   * Fingerprints within the maximum distance are found whatever bits differ,
+   * the first page of a group is kept, and short texts are not checked.
+   */
+  @Test
+  void testNearDuplicateIndex() {
+    NearDuplicateIndex index = new NearDuplicateIndex(3, 10);
+    long fingerprint = 0x0123456789abcdefL;
+
+    Assert.assertNull(index.findOrAdd("http://site/a", fingerprint));
+    Assert.assertEquals("http://site/a", index.findOrAdd("http://site/b", fingerprint ^ 0x8000_0000_0000_0001L));
+    Assert.assertEquals("http://site/a", index.findOrAdd("http://site/c", fingerprint ^ 0x0001_0001_0001_0000L));
+    Assert.assertNull(index.findOrAdd("http://site/d", fingerprint ^ 0x0001_0001_0001_0001L));
+    Assert.assertEquals(2, index.size());
+
+    Assert.assertNull(index.findOrAdd("http://site/e", "Not found"));
+    Assert.assertNull(index.findOrAdd("http://site/f", "Not found"));
+    Assert.assertNull(index.findOrAdd("http://site/g", article(0)));
+    Assert.assertEquals("http://site/g", index.findOrAdd("http://site/h", article(0)));
+  }
+
+  /**
+   * Crawl a site whose pages are reachable through several session ids, and
+   * assert that the mirrors are neither returned nor expanded.
+   */
+  @Test
+  void testSkipDuplicatePages() {
+    Set<String> fetched = ConcurrentHashMap.newKeySet();
+    List<String> duplicates = Collections.synchronizedList(new ArrayList<>());
+
+    BotConfig config = BotConfig.builder()
+        .fetcher(pageUrl -> {
+          fetched.add(pageUrl);
+          String path = pageUrl.substring(pageUrl.lastIndexOf('/') + 1);
+          int page = Integer.parseInt(path.substring(1, path.indexOf('?') > 0 ? path.indexOf('?') : path.length()));
+          String html = String.format("<title>P%d</title><body>%s <a href=\"/p%d?session=%d\">next</a>"
+              + " <a href=\"/p%d?session=%d\">next</a></body>", page, article(page), page + 1, page, page + 1,
+              page + 100);
+
+          return FetchResult.builder()
+              .url(pageUrl)
+              .finalUrl(pageUrl)
+              .statusCode(200)
+              .charset("UTF-8")
+              .body(html.getBytes(StandardCharsets.UTF_8))
+              .build();
+        })
+        .respectRobots(false)
+        .nearDuplicates(new NearDuplicateIndex())
+        .listener(new CrawlListener() {
+          @Override
+          public void onPage(PageDTO page) {
+          }
+
+          @Override
+          public void onDuplicate(CrawledPage page, String original) {
+            duplicates.add(page.getPage().getUrl());
+          }
+        })
+        .build();
+
+    List<PageDTO> pages = new Bot(Arrays.asList("http://site/p1"), 3, config).crawlSync();
+
+    Assert.assertEquals(List.of("P1", "P2", "P3", "P4"),
+        pages.stream().map(PageDTO::getTitle).sorted().collect(Collectors.toList()));
+    Assert.assertEquals(3, duplicates.size());
+    Assert.assertEquals(7, fetched.size());
+  }
+
+  /**
+   * Generates a long text, different for each seed.
+   */
+  private static String article(int seed) {
+    return IntStream.range(0, 120)
+        .mapToObj(i -> "word" + ((i * 7919 + seed * 104729) % 997))
+        .collect(Collectors.joining(" "));
+  }
+}
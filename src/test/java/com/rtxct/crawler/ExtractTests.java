@@ -0,0 +1,144 @@
+package com.rtxct.crawler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.BotConfig;
+import com.rtxct.crawler.extract.DomExtractor;
+import com.rtxct.crawler.extract.ExtractedPage;
+import com.rtxct.crawler.extract.PageExtractor;
+import com.rtxct.crawler.extract.StreamingExtractor;
+import com.rtxct.crawler.fetch.FetchResult;
+
+@TestComponent
+public class ExtractTests {
+
+  /** Properties */
+  private static final String PAGE = "<!DOCTYPE html>\n<HTML><Head>"
+      + "<meta charset=\"utf-8\"><TITLE>  Caf&eacute;   &amp; crawler </TITLE>"
+      + "<meta name=\"keywords\" content=\"none\">"
+      + "<META NAME=Description CONTENT='Pages &quot;about&quot; crawling'>"
+      + "<link rel=\"alternate canonical\" href=\"/articles/crawler\">"
+      + "<base href=\"http://site/docs/\">"
+      + "<script>var html = '<a href=\"/script\">no</a>';</script>"
+      + "<style>a > b { color: red }</style></head>"
+      + "<body><!-- <a href=\"/comment\">no</a> --><h1>Web&#x20;crawler</h1>"
+      + "<p>Read the <a href=\"intro.html\">intro</a>, the <A HREF='/faq?a=1&amp;b=2'>FAQ</A>"
+      + " and <a href=next.html>next <b>page</b></a>.</p>"
+      + "<a name=\"anchor\">no href</a><textarea><a href=\"/textarea\">no</a></textarea>"
+      + "<div>Last<br>line</div></body></HTML>";
+
+  /**
+   * The streaming extractor reads the same title, description, canonical link,
+   * base, anchors and text as the page tree, skipping scripts, styles and
+   * comments.
+   */
+  @Test
+  void testStreamingExtraction() throws IOException {
+    FetchResult result = result("http://site/page", PAGE);
+    ExtractedPage dom = new DomExtractor().extract(result);
+    ExtractedPage streaming = new StreamingExtractor().extract(result);
+
+    Assert.assertEquals("Café & crawler", streaming.getTitle());
+    Assert.assertEquals(dom.getTitle(), streaming.getTitle());
+    Assert.assertEquals("Pages \"about\" crawling", streaming.getDescription());
+    Assert.assertEquals(dom.getDescription(), streaming.getDescription());
+    Assert.assertEquals("http://site/articles/crawler", streaming.getCanonical());
+    Assert.assertEquals("http://site/docs/", streaming.getBaseUrl());
+    Assert.assertEquals(dom.getBaseUrl(), streaming.getBaseUrl());
+    Assert.assertEquals(List.of("intro.html", "/faq?a=1&b=2", "next.html"), streaming.getLinks());
+    Assert.assertEquals(dom.getLinks(), streaming.getLinks());
+    Assert.assertEquals("Web crawler Read the intro, the FAQ and next page. no href Last line", streaming.getText());
+    Assert.assertNull(streaming.getDocument());
+    Assert.assertFalse(streaming.isTruncated());
+  }
+
+  /**
+   * Pages are only read up to the size limit, links past it are ignored and a
+   * tag cut by the limit does not break the extraction.
+   */
+  @Test
+  void testStreamingLimit() throws IOException {
+    String html = "<title>Long</title><body><a href=\"/p1\">1</a><a href=\"/p2\">2</a><a href=\"/p3\">3</a></body>";
+    FetchResult result = result("http://site/", html);
+
+    ExtractedPage page = new StreamingExtractor(html.indexOf("/p2") + 2, false).extract(result);
+    Assert.assertEquals("Long", page.getTitle());
+    Assert.assertEquals(List.of("/p1"), page.getLinks());
+    Assert.assertTrue(page.isTruncated());
+    Assert.assertNull(page.getText());
+
+    ExtractedPage empty = new StreamingExtractor().extract(result("http://site/", "no markup"));
+    Assert.assertEquals("", empty.getTitle());
+    Assert.assertEquals("", empty.getDescription());
+    Assert.assertNull(empty.getCanonical());
+    Assert.assertEquals("no markup", empty.getText());
+  }
+
+  /**
+   * The charset declared by a meta tag is used when the response has none.
+   */
+  @Test
+  void testStreamingCharset() throws IOException {
+    byte[] body = "<meta charset=\"ISO-8859-1\"><title>Café</title>".getBytes(StandardCharsets.ISO_8859_1);
+    FetchResult result = FetchResult.builder().url("http://site/").finalUrl("http://site/").statusCode(200)
+        .body(body).build();
+
+    Assert.assertEquals("Café", new StreamingExtractor().extract(result).getTitle());
+  }
+
+  /**
+   * Crawl a generated site with both extractors, and assert that they return
+   * the same pages.
+   */
+  @Test
+  void testCrawlWithStreamingExtractor() {
+    List<String> dom = crawl(new DomExtractor());
+    List<String> streaming = crawl(new StreamingExtractor());
+
+    Assert.assertEquals(19, streaming.size());
+    Assert.assertEquals(dom, streaming);
+  }
+
+  /**
+   * Crawls a generated site, returning the sorted page titles and descriptions.
+   */
+  private static List<String> crawl(PageExtractor extractor) {
+    BotConfig config = BotConfig.builder()
+        .fetcher(pageUrl -> {
+          int page = Integer.parseInt(pageUrl.substring(pageUrl.lastIndexOf('/') + 2));
+          return result(pageUrl, String.format("<title>P%d</title><meta name=\"description\" content=\"D%d\">"
+              + "<body><a href=\"/p%d\">next</a> <a href=\"p%d\">relative</a></body>", page, page, page + 1,
+              page + 2));
+        })
+        .extractor(extractor)
+        .respectRobots(false)
+        .build();
+
+    return new Bot(Arrays.asList("http://site/p1"), 9, config).crawlSync().stream()
+        .map(page -> page.getTitle() + " " + page.getDesc())
+        .sorted()
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Creates a successful fetch result holding the given markup.
+   */
+  private static FetchResult result(String url, String html) {
+    return FetchResult.builder()
+        .url(url)
+        .finalUrl(url)
+        .statusCode(200)
+        .charset("UTF-8")
+        .body(html.getBytes(StandardCharsets.UTF_8))
+        .build();
+  }
+}
@@ -0,0 +1,206 @@
+package com.rtxct.crawler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.rtxct.crawler.fetch.FetchAbortedException;
+import com.rtxct.crawler.fetch.FetchAbortedException.Reason;
+import com.rtxct.crawler.fetch.FetchLimits;
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.fetch.HttpClientFetcher;
+import com.rtxct.crawler.metrics.CrawlStats;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+@TestComponent
+@TestInstance(Lifecycle.PER_CLASS)
+public class FetchTests {
+
+  /** Properties */
+  private String url;
+
+  /** Dependencies */
+  private HttpServer server;
+
+  private HttpClientFetcher fetcher = new HttpClientFetcher(FetchLimits.builder()
+      .maxBodySize(64 * 1024)
+      .minThroughput(1024)
+      .throughputGracePeriod(Duration.ofMillis(500))
+      .build());
+
+  /**
+   * Before all the tests, starts a local server serving a page, a PDF, a large
+   * page with and without its length, and a page trickling its body.
+   */
+  @BeforeAll
+  public void setup() throws IOException {
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable);
+      thread.setDaemon(true);
+      return thread;
+    }));
+    this.server.createContext("/page", exchange -> send(exchange, "text/html; charset=UTF-8", 1024, 1024, 0));
+    this.server.createContext("/file.pdf", exchange -> send(exchange, "application/pdf", 1 << 20, 1 << 20, 0));
+    this.server.createContext("/large", exchange -> send(exchange, "text/html", 1 << 20, 1 << 20, 0));
+    this.server.createContext("/chunked", exchange -> send(exchange, "text/html", 1 << 20, 0, 0));
+    this.server.createContext("/slow", exchange -> send(exchange, "text/html", 16 * 1024, 0, 2000));
+    this.server.start();
+    this.url = "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  /**
+   * After all the tests, stops the local server.
+   */
+  @AfterAll
+  public void cleanup() {
+    server.stop(0);
+  }
+
+  /**
+   * Fetch a page within the limits.
+   */
+  @Test
+  void testFetchPage() {
+    FetchResult result = fetcher.fetch(url + "/page");
+
+    Assert.assertTrue(String.valueOf(result.getError()), result.isOk());
+    Assert.assertEquals(1024, result.getBody().length);
+    Assert.assertEquals("UTF-8", result.getCharset());
+  }
+
+  /**
+   * Assert that a PDF is dropped from its headers, before its body is read.
+   */
+  @Test
+  void testSkipUnsupportedContentType() {
+    FetchResult result = fetcher.fetch(url + "/file.pdf");
+
+    Assert.assertFalse(result.isOk());
+    Assert.assertEquals(Reason.UNSUPPORTED_CONTENT_TYPE, reason(result));
+    Assert.assertEquals("unsupported_content_type", CrawlStats.errorType(result));
+  }
+
+  /**
+   * Assert that a page declaring a length over the limit is dropped from its
+   * headers, and that a page over the limit without a declared length is
+   * aborted once the limit is reached.
+   */
+  @Test
+  void testSkipLargeBody() {
+    FetchResult declared = fetcher.fetch(url + "/large");
+    Assert.assertEquals(Reason.BODY_TOO_LARGE, reason(declared));
+
+    FetchResult chunked = fetcher.fetch(url + "/chunked");
+    Assert.assertEquals(Reason.BODY_TOO_LARGE, reason(chunked));
+  }
+
+  /**
+   * Assert that a body received slower than the minimum rate is aborted once
+   * the grace period is over, instead of waiting for the whole body.
+   */
+  @Test
+  void testAbortSlowTransfer() {
+    long start = System.currentTimeMillis();
+    FetchResult result = fetcher.fetch(url + "/slow");
+
+    Assert.assertEquals(Reason.TOO_SLOW, reason(result));
+    Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+  }
+
+  /**
+   * Start many fetches at once without blocking a thread per request, and
+   * assert that every page is received.
+   */
+  @Test
+  void testFetchAsyncConcurrently() {
+    List<CompletableFuture<FetchResult>> futures = IntStream.range(0, 500)
+        .mapToObj(i -> fetcher.fetchAsync(url + "/page?i=" + i, Map.of()))
+        .toList();
+
+    for (CompletableFuture<FetchResult> future : futures) {
+      FetchResult result = future.join();
+      Assert.assertTrue(String.valueOf(result.getError()), result.isOk());
+      Assert.assertEquals(1024, result.getBody().length);
+    }
+  }
+
+  /**
+   * Assert that the limits also apply to non blocking fetches, a slow body
+   * being aborted once the grace period is over.
+   */
+  @Test
+  void testAbortSlowTransferAsync() {
+    long start = System.currentTimeMillis();
+    FetchResult result = fetcher.fetchAsync(url + "/slow", Map.of()).join();
+
+    Assert.assertEquals(Reason.TOO_SLOW, reason(result));
+    Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+    Assert.assertEquals(Reason.BODY_TOO_LARGE, reason(fetcher.fetchAsync(url + "/chunked", Map.of()).join()));
+  }
+
+  /**
+   * Assert that a slow body is abandoned once the request and body timeouts
+   * are over, even when the transfer rate is not checked.
+   */
+  @Test
+  void testBodyTimeout() {
+    HttpClientFetcher bounded = new HttpClientFetcher(HttpClientFetcher.newClient(Duration.ofSeconds(1)),
+        Duration.ofMillis(500), FetchLimits.builder().minThroughput(0).bodyTimeout(Duration.ofMillis(500)).build());
+
+    long start = System.currentTimeMillis();
+    FetchResult result = bounded.fetch(url + "/slow");
+
+    Assert.assertEquals(Reason.TIMED_OUT, reason(result));
+    Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+  }
+
+  /**
+   * Gets the reason of an aborted fetch.
+   */
+  private static Reason reason(FetchResult result) {
+    Assert.assertTrue(String.valueOf(result.getError()), result.getError() instanceof FetchAbortedException);
+    return ((FetchAbortedException) result.getError()).getReason();
+  }
+
+  /**
+   * Writes a body of the given size in chunks of 1KB, pausing between chunks.
+   *
+   * @param length Declared length, or 0 to send the body in chunks.
+   */
+  private void send(HttpExchange exchange, String contentType, int size, int length, long pause) throws IOException {
+    exchange.getResponseHeaders().add("Content-Type", contentType);
+    exchange.sendResponseHeaders(200, length);
+
+    byte[] chunk = "<p>crawler</p>".repeat(74).substring(0, 1024).getBytes(StandardCharsets.UTF_8);
+    try (OutputStream output = exchange.getResponseBody()) {
+      for (int sent = 0; sent < size; sent += chunk.length) {
+        output.write(chunk);
+        output.flush();
+        if (pause > 0) {
+          Thread.sleep(pause);
+        }
+      }
+    } catch (IOException e) {
+      // The client closed the connection
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,212 @@
+package com.rtxct.crawler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.rtxct.crawler.frontier.ConcurrentSeenUrlStore;
+import com.rtxct.crawler.frontier.CrawlBudget;
+import com.rtxct.crawler.frontier.Frontier;
+import com.rtxct.crawler.frontier.FrontierEntry;
+import com.rtxct.crawler.frontier.HostPoliteness;
+import com.rtxct.crawler.frontier.UrlPriority;
+
+@TestComponent
+public class FrontierTests {
+
+  /**
+   * Poll the seeds in insertion order, and keep the frontier open until every
+   * polled entry is completed.
+   */
+  @Test
+  void testPollAndComplete() {
+    Frontier frontier = new Frontier(Arrays.asList("http://a", "http://b"));
+
+    FrontierEntry first = frontier.poll();
+    FrontierEntry second = frontier.poll();
+
+    Assert.assertEquals("http://a", first.getUrl());
+    Assert.assertEquals("http://b", second.getUrl());
+    Assert.assertEquals(0, frontier.size());
+
+    frontier.complete(first);
+    Assert.assertFalse(frontier.isExhausted());
+    Assert.assertEquals(1, frontier.outstanding(0));
+
+    frontier.complete(second);
+    Assert.assertTrue(frontier.isExhausted());
+    Assert.assertNull(frontier.take());
+  }
+
+  /**
+   * Concurrent consumers expand every entry up to a fixed depth, and take must
+   * hand out each discovered URL exactly once before reporting exhaustion.
+   */
+  @Test
+  void testConcurrentExpansion() throws InterruptedException {
+    Frontier frontier = new Frontier(Arrays.asList("root"));
+    AtomicInteger processed = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    for (int i = 0; i < 4; i++) {
+      executor.execute(() -> {
+        FrontierEntry entry;
+        while ((entry = frontier.take()) != null) {
+          if (entry.getDepth() < 3) {
+            for (int j = 0; j < 4; j++) {
+              frontier.offer(entry.getUrl() + "/" + j, entry.getDepth() + 1);
+            }
+          }
+          processed.incrementAndGet();
+          frontier.complete(entry);
+        }
+      });
+    }
+
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    Assert.assertEquals(1 + 4 + 16 + 64, processed.get());
+    Assert.assertEquals(64, frontier.completed(3));
+    Assert.assertTrue(frontier.isExhausted());
+  }
+
+  /**
+   * Alternate between hosts, and hold a host back while its only connection is
+   * in flight or its delay has not passed.
+   */
+  @Test
+  void testHostPoliteness() throws InterruptedException {
+    HostPoliteness politeness = HostPoliteness.builder()
+        .maxConnectionsPerHost(1)
+        .delay(Duration.ofMillis(50))
+        .build();
+    Frontier frontier = new Frontier(
+        Arrays.asList("http://a.com/1", "http://a.com/2", "http://b.com/1"),
+        new ConcurrentSeenUrlStore(), politeness);
+
+    FrontierEntry first = frontier.poll();
+    FrontierEntry second = frontier.poll();
+
+    Assert.assertEquals("a.com", first.getHost());
+    Assert.assertEquals("b.com", second.getHost());
+    Assert.assertNull(frontier.poll());
+
+    frontier.complete(first);
+    Assert.assertNull(frontier.poll());
+
+    Thread.sleep(60);
+    Assert.assertEquals("http://a.com/2", frontier.poll().getUrl());
+  }
+
+  /**
+   * Hand out the URLs of a host by score: shallow, linked from many pages, and
+   * not matching a low value pattern first, the order they were found breaking
+   * ties.
+   */
+  @Test
+  void testPriorityOrder() {
+    Frontier frontier = new Frontier(new ConcurrentSeenUrlStore(), HostPoliteness.UNLIMITED, UrlPriority.DEFAULT,
+        CrawlBudget.UNLIMITED);
+    frontier.offer("http://a.com/login", 1);
+    frontier.offer("http://a.com/deep", 2);
+    frontier.offer("http://a.com/first", 1);
+    frontier.offer("http://a.com/second", 1);
+    frontier.offer("http://a.com/linked", 1);
+    for (int i = 0; i < 4; i++) {
+      Assert.assertFalse(frontier.offer("http://a.com/linked", 1));
+    }
+
+    List<String> order = new ArrayList<>();
+    FrontierEntry entry;
+    while ((entry = frontier.poll()) != null) {
+      order.add(entry.getUrl());
+      frontier.complete(entry);
+    }
+
+    Assert.assertEquals(List.of("http://a.com/linked", "http://a.com/first", "http://a.com/second",
+        "http://a.com/deep", "http://a.com/login"), order);
+    Assert.assertTrue(frontier.isExhausted());
+  }
+
+  /**
+   * Stop handing out the URLs of a host once its pages are spent, dropping the
+   * queued ones, and close the frontier once the pages of the crawl are spent.
+   */
+  @Test
+  void testPageBudget() {
+    CrawlBudget budget = CrawlBudget.builder().maxPages(3).maxPagesPerHost(2).build();
+    Frontier frontier = new Frontier(new ConcurrentSeenUrlStore(), HostPoliteness.UNLIMITED, UrlPriority.NONE,
+        budget);
+    Arrays.asList("http://a.com/1", "http://a.com/2", "http://a.com/3", "http://b.com/1", "http://b.com/2")
+        .forEach(url -> frontier.offer(url, 0));
+
+    List<String> polled = new ArrayList<>();
+    FrontierEntry entry;
+    while ((entry = frontier.poll()) != null) {
+      polled.add(entry.getUrl());
+      frontier.complete(entry);
+    }
+
+    Assert.assertEquals(List.of("http://a.com/1", "http://b.com/1", "http://a.com/2"), polled);
+    Assert.assertFalse(frontier.offer("http://a.com/4", 0));
+    Assert.assertTrue(frontier.isBudgetSpent());
+    Assert.assertTrue(frontier.isExhausted());
+  }
+
+  /**
+   * Drop the queued URLs of a host once its pages are spent, so the frontier
+   * is exhausted, and close the frontier once its bytes or time are spent.
+   */
+  @Test
+  void testHostBytesAndTimeBudget() throws InterruptedException {
+    Frontier perHost = new Frontier(new ConcurrentSeenUrlStore(), HostPoliteness.UNLIMITED, UrlPriority.NONE,
+        CrawlBudget.builder().maxPagesPerHost(1).build());
+    perHost.offer("http://a.com/1", 0);
+    perHost.offer("http://a.com/2", 0);
+    perHost.complete(perHost.take());
+    Assert.assertNull(perHost.take());
+    Assert.assertEquals(0, perHost.size());
+    Assert.assertFalse(perHost.isBudgetSpent());
+
+    Frontier bytes = new Frontier(new ConcurrentSeenUrlStore(), HostPoliteness.UNLIMITED, UrlPriority.NONE,
+        CrawlBudget.builder().maxBytes(1000).build());
+    bytes.offer("http://a.com/1", 0);
+    bytes.offer("http://a.com/2", 0);
+    FrontierEntry first = bytes.poll();
+    bytes.charge(600);
+    Assert.assertFalse(bytes.isBudgetSpent());
+    bytes.charge(600);
+    bytes.complete(first);
+    Assert.assertTrue(bytes.isBudgetSpent());
+    Assert.assertNull(bytes.take());
+
+    Frontier time = new Frontier(new ConcurrentSeenUrlStore(), HostPoliteness.UNLIMITED, UrlPriority.NONE,
+        CrawlBudget.builder().maxDuration(Duration.ofMillis(50)).build());
+    time.offer("http://a.com/1", 0);
+    time.offer("http://a.com/2", 0);
+    FrontierEntry entry = time.poll();
+    Assert.assertNotNull(entry);
+    Thread.sleep(60);
+    Assert.assertNull(time.poll());
+    Assert.assertTrue(time.isBudgetSpent());
+  }
+
+  /**
+   * Extract the politeness host from URLs, keeping non default ports.
+   */
+  @Test
+  void testHostOf() {
+    Assert.assertEquals("localhost:8080", Frontier.hostOf("http://user@LocalHost:8080/path?q=1"));
+    Assert.assertEquals("example.com", Frontier.hostOf("https://example.com"));
+  }
+}
@@ -0,0 +1,235 @@
+package com.rtxct.crawler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.BotConfig;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.dto.SearchResultDTO;
+import com.rtxct.crawler.index.IndexingListener;
+import com.rtxct.crawler.index.InvertedIndex;
+import com.rtxct.crawler.index.PostingList;
+import com.rtxct.crawler.index.Tokenizer;
+import com.rtxct.crawler.utils.GeneratedSite;
+
+@TestComponent
+public class IndexTests {
+
+  /** Properties */
+  @TempDir
+  Path directory;
+
+  /**
+   * Terms are lowercased and split on anything but letters and digits, accents
+   * are removed and stop words dropped.
+   */
+  @Test
+  void testTokenize() {
+    Tokenizer tokenizer = new Tokenizer();
+
+    Assert.assertEquals(Arrays.asList("java", "web", "crawler", "2023"),
+        tokenizer.tokenize("The Java web-crawler, 2023!"));
+    Assert.assertEquals(Arrays.asList("cafe", "creme", "brulee"), tokenizer.tokenize("Café crème brûlée"));
+    Assert.assertTrue(tokenizer.tokenize(null).isEmpty());
+    Assert.assertTrue(tokenizer.tokenize("of the and").isEmpty());
+  }
+
+  /**
+   * Postings are read back in order, with gaps and frequencies spanning several
+   * bytes, and out of order documents are rejected.
+   */
+  @Test
+  void testPostingList() {
+    PostingList list = new PostingList();
+    int[] documents = { 0, 1, 127, 128, 20_000, 5_000_000 };
+    for (int i = 0; i < documents.length; i++) {
+      list.add(documents[i], i * 100 + 1);
+    }
+
+    PostingList.Cursor cursor = list.cursor();
+    for (int i = 0; i < documents.length; i++) {
+      Assert.assertTrue(cursor.next());
+      Assert.assertEquals(documents[i], cursor.document());
+      Assert.assertEquals(i * 100 + 1, cursor.frequency());
+    }
+    Assert.assertFalse(cursor.next());
+    Assert.assertEquals(documents.length, list.getDocumentFrequency());
+    Assert.assertTrue(list.sizeInBytes() < documents.length * 8);
+
+    Assert.assertThrows(IllegalArgumentException.class, () -> list.add(5_000_000, 1));
+  }
+
+  /**
+   * Pages matching more query terms, rarer terms or in the title rank first.
+   */
+  @Test
+  void testRanking() {
+    InvertedIndex index = new InvertedIndex();
+    index.add(new PageDTO("Home", "", "http://site/"), "welcome to the site about java");
+    index.add(new PageDTO("Java crawler", "A web crawler", "http://site/crawler"), "crawling pages");
+    index.add(new PageDTO("Blog", "", "http://site/blog"), "notes about java and a crawler");
+    index.add(new PageDTO("Contact", "", "http://site/contact"), "write to us");
+
+    List<SearchResultDTO> results = index.search("java crawler", 10);
+    Assert.assertEquals(3, results.size());
+    Assert.assertEquals("http://site/crawler", results.get(0).getUrl());
+    Assert.assertEquals("http://site/blog", results.get(1).getUrl());
+    Assert.assertEquals("http://site/", results.get(2).getUrl());
+    Assert.assertTrue(results.get(0).getScore() > results.get(1).getScore());
+
+    Assert.assertEquals(1, index.search("java crawler", 1).size());
+    Assert.assertTrue(index.search("missing", 10).isEmpty());
+    Assert.assertTrue(index.search("", 10).isEmpty());
+  }
+
+  /**
+   * Indexing the same URL again replaces the previous page.
+   */
+  @Test
+  void testReplace() {
+    InvertedIndex index = new InvertedIndex();
+    index.add(new PageDTO("Old", "", "http://site/"), "first version");
+    index.add(new PageDTO("New", "", "http://site/"), "second version");
+
+    Assert.assertEquals(1, index.size());
+    Assert.assertTrue(index.search("first", 10).isEmpty());
+    Assert.assertEquals("New", index.search("version", 10).get(0).getTitle());
+  }
+
+  /**
+   * Pages added by concurrent writers are all searchable, while queries run at
+   * the same time.
+   */
+  @Test
+  void testConcurrentUpdates() throws InterruptedException {
+    InvertedIndex index = new InvertedIndex();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    for (int i = 0; i < 2000; i++) {
+      int page = i;
+      executor.execute(() -> {
+        index.add(new PageDTO("Page " + page, "", "http://site/" + page), "common term" + (page % 10));
+        index.search("common", 5);
+      });
+    }
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+    Assert.assertEquals(2000, index.size());
+    Assert.assertEquals(2000, index.search("common", 5000).size());
+    Assert.assertEquals(200, index.search("term3", 5000).size());
+  }
+
+  /**
+   * Crawl a generated site, and assert that the pages are searchable by their
+   * body text as soon as the crawl ends.
+   */
+  @Test
+  void testIndexCrawledPages() {
+    InvertedIndex index = new InvertedIndex();
+    BotConfig config = BotConfig.builder()
+        .fetcher(GeneratedSite.chain(page -> page % 2 == 0 ? "even page" : "odd page"))
+        .respectRobots(false)
+        .listener(new IndexingListener(index))
+        .build();
+
+    new Bot(Arrays.asList("http://site/p1"), 9, config).crawlSync();
+
+    Assert.assertEquals(10, index.size());
+    Assert.assertEquals(5, index.search("even", 10).size());
+    Assert.assertEquals("P7", index.search("p7", 10).get(0).getTitle());
+  }
+
+  /**
+   * Pages written as segments are searchable after reopening the index, and a
+   * page replaced after being written stays replaced.
+   */
+  @Test
+  void testReopenSegments() throws IOException {
+    InvertedIndex index = new InvertedIndex(directory, 2, 10);
+    index.add(new PageDTO("Old", "", "http://site/"), "first version");
+    index.add(new PageDTO("Java crawler", "A web crawler", "http://site/crawler"), "crawling pages");
+    index.add(new PageDTO("Blog", "", "http://site/blog"), "notes about java");
+    index.add(new PageDTO("New", "", "http://site/"), "second version");
+    index.flush();
+    Assert.assertEquals(2, index.segmentCount());
+    index.close();
+
+    InvertedIndex reopened = new InvertedIndex(directory, 2, 10);
+    Assert.assertEquals(3, reopened.size());
+    Assert.assertTrue(reopened.search("first", 10).isEmpty());
+    Assert.assertEquals("New", reopened.search("version", 10).get(0).getTitle());
+
+    List<SearchResultDTO> results = reopened.search("java", 10);
+    Assert.assertEquals(2, results.size());
+    Assert.assertEquals("Java crawler", results.get(0).getTitle());
+    Assert.assertEquals("A web crawler", results.get(0).getDesc());
+    reopened.close();
+  }
+
+  /**
+   * Pages never written as a segment are indexed again from the write ahead
+   * log, up to a record cut by a crash.
+   */
+  @Test
+  void testWriteAheadLogRecovery() throws IOException {
+    InvertedIndex index = new InvertedIndex(directory, 1000, 10);
+    index.add(new PageDTO("Home", null, "http://site/"), "welcome to the site");
+    index.add(new PageDTO("About", "", "http://site/about"), "about the site");
+    Assert.assertEquals(0, index.segmentCount());
+
+    try (var logs = Files.list(directory)) {
+      Path log = logs.filter(file -> file.getFileName().toString().startsWith("wal-")).findFirst().orElseThrow();
+      Files.write(log, new byte[] { 0, 0, 0, 40, 1, 2 }, StandardOpenOption.APPEND);
+    }
+
+    InvertedIndex recovered = new InvertedIndex(directory, 1000, 10);
+    Assert.assertEquals(2, recovered.size());
+    Assert.assertEquals(1, recovered.segmentCount());
+    Assert.assertEquals(2, recovered.search("site", 10).size());
+    Assert.assertNull(recovered.search("welcome", 10).get(0).getDesc());
+    recovered.close();
+  }
+
+  /**
+   * Merged segments give the same ranking as an index kept in memory.
+   */
+  @Test
+  void testMergeSegments() throws IOException {
+    InvertedIndex memory = new InvertedIndex();
+    InvertedIndex disk = new InvertedIndex(directory, 10, 3);
+
+    for (int i = 0; i < 200; i++) {
+      PageDTO page = new PageDTO("Page " + i, "", "http://site/" + i);
+      String text = "common term" + (i % 7) + (i % 3 == 0 ? " rare" : "");
+      memory.add(page, text);
+      disk.add(page, text);
+    }
+    disk.flush();
+
+    Assert.assertTrue(disk.segmentCount() <= 3);
+    Assert.assertEquals(memory.size(), disk.size());
+    for (String query : List.of("common", "rare term3", "page 42")) {
+      List<SearchResultDTO> expected = memory.search(query, 20);
+      List<SearchResultDTO> actual = disk.search(query, 20);
+      Assert.assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        Assert.assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 1e-4f);
+      }
+    }
+    disk.close();
+  }
+}
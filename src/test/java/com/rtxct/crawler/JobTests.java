@@ -0,0 +1,268 @@
+package com.rtxct.crawler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.BotConfig;
+import com.rtxct.crawler.bot.BotFactory;
+import com.rtxct.crawler.bot.CrawlerProperties;
+import com.rtxct.crawler.checkpoint.CheckpointStore;
+import com.rtxct.crawler.dto.ActiveCrawlDTO;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.index.InvertedIndex;
+import com.rtxct.crawler.job.CrawlJob;
+import com.rtxct.crawler.job.InMemoryJobStore;
+import com.rtxct.crawler.job.JobService;
+import com.rtxct.crawler.job.JobStatus;
+import com.rtxct.crawler.scheduler.CrawlScheduler;
+import com.rtxct.crawler.utils.GeneratedSite;
+import com.sun.net.httpserver.HttpServer;
+
+@TestComponent
+@TestInstance(Lifecycle.PER_CLASS)
+public class JobTests {
+
+  /** Properties */
+  private String url;
+
+  /** Dependencies */
+  private HttpServer server;
+
+  private CrawlScheduler crawlScheduler;
+
+  private JobService jobService;
+
+  /**
+   * Before all the tests, starts a local server where page N links to pages 2N
+   * and 2N + 1, and the pages under /slow take a while to answer.
+   */
+  @BeforeAll
+  public void setup() throws IOException {
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable);
+      thread.setDaemon(true);
+      return thread;
+    }));
+    this.server.createContext("/", exchange -> {
+      String path = exchange.getRequestURI().getPath();
+      if (path.startsWith("/slow")) {
+        try {
+          Thread.sleep(200);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      String prefix = path.substring(0, path.lastIndexOf('/') + 1);
+      GeneratedSite.respond(exchange, GeneratedSite.treePage(GeneratedSite.pageOf(path), prefix));
+    });
+    this.server.start();
+    this.url = "http://127.0.0.1:" + server.getAddress().getPort();
+
+    CrawlerProperties properties = new CrawlerProperties();
+    properties.getIndex().setEnabled(false);
+    properties.getPersistence().setEnabled(false);
+    properties.getRobots().setEnabled(false);
+    properties.getDedup().setEnabled(false);
+    properties.getMetrics().setEnabled(false);
+    properties.getCache().setEnabled(false);
+    BotFactory botFactory = new BotFactory(properties, new InvertedIndex(), null, null, null);
+    this.crawlScheduler = new CrawlScheduler(8, 16, Duration.ZERO);
+    this.jobService = new JobService(new InMemoryJobStore(), botFactory, crawlScheduler,
+        new CheckpointStore("", Duration.ofSeconds(1), Duration.ofMinutes(1)), 1, 1, 10, 4);
+  }
+
+  /**
+   * After all the tests, stops the jobs and the local server.
+   */
+  @AfterAll
+  public void cleanup() {
+    jobService.shutdown();
+    crawlScheduler.shutdown();
+    server.stop(0);
+  }
+
+  /**
+   * Submit a job, wait for it to complete and page through its results.
+   */
+  @Test
+  void testJobLifecycle() throws InterruptedException {
+    CrawlJob job = jobService.submit(Arrays.asList(url + "/site/1"), 3);
+    Assert.assertNotNull(job.getId());
+
+    CrawlJob finished = awaitFinished(job.getId());
+    Assert.assertEquals(JobStatus.COMPLETED, finished.getStatus());
+    Assert.assertEquals(15, finished.getPagesFetched().get());
+    Assert.assertEquals(0, finished.getErrors().get());
+    Assert.assertEquals(3, finished.getDepth());
+    Assert.assertNotNull(finished.getFinishedAt());
+
+    List<PageDTO> firstPage = jobService.getPages(job.getId(), 0, 10).orElseThrow();
+    List<PageDTO> secondPage = jobService.getPages(job.getId(), 10, 10).orElseThrow();
+    Assert.assertEquals(10, firstPage.size());
+    Assert.assertEquals(5, secondPage.size());
+    Assert.assertEquals("P1", firstPage.get(0).getTitle());
+
+    Assert.assertTrue(jobService.getPages("unknown", 0, 10).isEmpty());
+    Assert.assertFalse(jobService.cancel("unknown"));
+  }
+
+  /**
+   * With a single running and a single queued job, further jobs are rejected, a
+   * queued job is cancelled before running, freeing its slot, and a running
+   * one stops early.
+   */
+  @Test
+  void testAdmissionAndCancel() throws InterruptedException {
+    CrawlJob running = jobService.submit(Arrays.asList(url + "/slow/1"), 20);
+    CrawlJob queued = jobService.submit(Arrays.asList(url + "/slow/1"), 20);
+
+    Assert.assertThrows(RejectedExecutionException.class,
+        () -> jobService.submit(Arrays.asList(url + "/slow/1"), 20));
+
+    Assert.assertTrue(jobService.cancel(queued.getId()));
+    Assert.assertEquals(JobStatus.CANCELLED, jobService.get(queued.getId()).orElseThrow().getStatus());
+
+    CrawlJob replacement = jobService.submit(Arrays.asList(url + "/slow/1"), 20);
+    Assert.assertTrue(jobService.cancel(replacement.getId()));
+
+    Thread.sleep(500);
+    Assert.assertTrue(jobService.cancel(running.getId()));
+    CrawlJob cancelled = awaitFinished(running.getId());
+    Assert.assertEquals(JobStatus.CANCELLED, cancelled.getStatus());
+    Assert.assertTrue(cancelled.getPagesFetched().get() < 1000);
+    Assert.assertEquals(0, jobService.getPages(queued.getId(), 0, 10).orElseThrow().size());
+  }
+
+  /**
+   * Submit a crawl to the scheduler under a known id, assert that it is listed
+   * with its seeds while running, and cancel it through that id.
+   */
+  @Test
+  void testActiveCrawls() throws InterruptedException, ExecutionException, TimeoutException {
+    Bot bot = new Bot(Arrays.asList(url + "/slow/1"), 20, BotConfig.builder().respectRobots(false).build());
+    String id = crawlScheduler.newId();
+    CompletableFuture<List<PageDTO>> future = crawlScheduler.submit(id, bot, 2);
+
+    ActiveCrawlDTO active = null;
+    for (int i = 0; i < 100 && active == null; i++) {
+      active = crawlScheduler.getActiveCrawls().stream().filter(crawl -> crawl.getId().equals(id)).findFirst()
+          .orElse(null);
+      Thread.sleep(20);
+    }
+    Assert.assertNotNull(active);
+    Assert.assertEquals(Arrays.asList(url + "/slow/1"), active.getSeeds());
+    Assert.assertEquals(20, active.getBreakpoint().intValue());
+    Assert.assertNotNull(active.getStartedAt());
+
+    Assert.assertTrue(crawlScheduler.cancel(id));
+    future.get(10, TimeUnit.SECONDS);
+    Assert.assertTrue(crawlScheduler.getActiveCrawls().stream().noneMatch(crawl -> crawl.getId().equals(id)));
+    Assert.assertFalse(crawlScheduler.cancel("unknown"));
+  }
+
+  /**
+   * Run a crawl on virtual threads through the scheduler, assert that it is
+   * listed while running and cancel it through its id.
+   */
+  @Test
+  void testActiveVirtualCrawl() throws InterruptedException, ExecutionException, TimeoutException {
+    assertListedAndCancelled(bot -> crawlScheduler.crawlVirtual(bot, 2));
+    Assert.assertThrows(IllegalArgumentException.class, () -> crawlScheduler.crawlVirtual(newSlowBot(), 0));
+  }
+
+  /**
+   * Run a non blocking crawl through the scheduler, assert that it is listed
+   * while running and cancel it through its id.
+   */
+  @Test
+  void testActiveNonBlockingCrawl() throws InterruptedException, ExecutionException, TimeoutException {
+    assertListedAndCancelled(bot -> crawlScheduler.crawlNonBlocking(bot, 2));
+    Assert.assertThrows(IllegalArgumentException.class, () -> crawlScheduler.crawlNonBlocking(newSlowBot(), 0));
+  }
+
+  /**
+   * Run crawls without any page allowed in flight and assert that they are
+   * rejected right away instead of waiting forever for a permit.
+   */
+  @Test
+  void testRejectNoPermits() {
+    Bot bot = new Bot(Arrays.asList(url + "/site/1"), 1, BotConfig.builder().respectRobots(false).build());
+
+    Assert.assertThrows(IllegalArgumentException.class, () -> crawlScheduler.crawl(bot, 0));
+    Assert.assertThrows(IllegalArgumentException.class, () -> crawlScheduler.submit(bot, -1));
+    Assert.assertThrows(IllegalArgumentException.class, () -> bot.crawlAsync(crawlScheduler, 0));
+    Assert.assertTrue(crawlScheduler.getActiveCrawls().isEmpty());
+  }
+
+  /**
+   * Runs a crawl of the slow pages, asserts that it is listed while running,
+   * cancels it through its id and asserts that it is no longer listed.
+   *
+   * @param crawl Runs the crawl of the given Bot.
+   */
+  private void assertListedAndCancelled(Function<Bot, List<PageDTO>> crawl)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    Bot bot = newSlowBot();
+    CompletableFuture<List<PageDTO>> future = CompletableFuture.supplyAsync(() -> crawl.apply(bot));
+
+    ActiveCrawlDTO active = null;
+    for (int i = 0; i < 100 && active == null; i++) {
+      active = crawlScheduler.getActiveCrawls().stream()
+          .filter(running -> running.getSeeds().equals(Arrays.asList(url + "/slow/1"))).findFirst().orElse(null);
+      Thread.sleep(20);
+    }
+    Assert.assertNotNull(active);
+
+    Assert.assertTrue(crawlScheduler.cancel(active.getId()));
+    future.get(10, TimeUnit.SECONDS);
+    Assert.assertTrue(bot.isCancelled());
+    Assert.assertTrue(crawlScheduler.getActiveCrawls().isEmpty());
+  }
+
+  /**
+   * Creates a Bot crawling the slow pages deep enough to be cancelled first.
+   *
+   * @return New Bot.
+   */
+  private Bot newSlowBot() {
+    return new Bot(Arrays.asList(url + "/slow/1"), 20, BotConfig.builder().respectRobots(false).build());
+  }
+
+  /**
+   * Polls a job until it reaches a final state.
+   *
+   * @param id Job identifier.
+   * @return The finished job.
+   */
+  private CrawlJob awaitFinished(String id) throws InterruptedException {
+    for (int i = 0; i < 200; i++) {
+      CrawlJob job = jobService.get(id).orElseThrow();
+      if (job.getStatus().isFinished() && job.getFinishedAt() != null) {
+        return job;
+      }
+      Thread.sleep(50);
+    }
+    throw new AssertionError("Job did not finish");
+  }
+}
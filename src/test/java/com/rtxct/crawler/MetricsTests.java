@@ -0,0 +1,124 @@
+package com.rtxct.crawler;
+
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.BotConfig;
+import com.rtxct.crawler.dto.CrawlSummaryDTO;
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.fetch.Fetcher;
+import com.rtxct.crawler.metrics.CrawlMetrics;
+import com.rtxct.crawler.metrics.CrawlStats;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@TestComponent
+public class MetricsTests {
+
+  /**
+   * Crawl a site with missing and unreachable pages, and assert that the
+   * pages, bytes, errors by type and stage times are recorded both in the crawl
+   * summary and in the application meters.
+   */
+  @Test
+  void testCrawlMetrics() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    CrawlMetrics metrics = new CrawlMetrics(registry, null, 1);
+    BotConfig config = BotConfig.builder()
+        .fetcher(site())
+        .respectRobots(false)
+        .metrics(metrics)
+        .build();
+
+    Bot bot = new Bot(Arrays.asList("http://site/"), 1, config);
+    bot.crawlAsync(4);
+    CrawlSummaryDTO summary = bot.getStats().getSummary();
+
+    Assert.assertEquals(4, summary.getPages());
+    Assert.assertEquals(7, summary.getFetches());
+    Assert.assertEquals(3, summary.getErrors());
+    Assert.assertEquals(Long.valueOf(2), summary.getErrorsByType().get("http_404"));
+    Assert.assertEquals(Long.valueOf(1), summary.getErrorsByType().get("ConnectException"));
+    Assert.assertTrue(summary.getBytes() > 0);
+    Assert.assertTrue(summary.getStageMillis().containsKey("fetch"));
+    Assert.assertTrue(summary.getStageMillis().containsKey("extract"));
+    Assert.assertTrue(summary.getStageMillis().containsKey("links"));
+    Assert.assertTrue(summary.getStageMillis().containsKey("enqueue"));
+    Assert.assertFalse(summary.getStageMillis().containsKey("dedup"));
+
+    Assert.assertEquals(4, registry.get("crawler.pages").counter().count(), 0);
+    Assert.assertEquals(summary.getBytes(), registry.get("crawler.bytes").counter().count(), 0);
+    Assert.assertEquals(2, registry.get("crawler.errors").tag("type", "http_404").counter().count(), 0);
+    Assert.assertEquals(7, registry.get("crawler.stage").tag("stage", "fetch").timer().count());
+    Assert.assertEquals(0, registry.get("crawler.fetches.active").gauge().value(), 0);
+    Assert.assertEquals(0, registry.get("crawler.crawls.active").gauge().value(), 0);
+
+    Assert.assertEquals(6, registry.get("crawler.fetch.latency").tag("host", "site").timer().count());
+    Assert.assertEquals(1, registry.get("crawler.fetch.latency").tag("host", CrawlMetrics.OTHER_HOSTS)
+        .timer().count());
+  }
+
+  /**
+   * Assert that a crawl without application meters still keeps its summary.
+   */
+  @Test
+  void testCrawlSummaryWithoutMetrics() {
+    BotConfig config = BotConfig.builder()
+        .fetcher(site())
+        .respectRobots(false)
+        .build();
+
+    Bot bot = new Bot(Arrays.asList("http://site/"), 1, config);
+    bot.crawlSync();
+    CrawlSummaryDTO summary = bot.getStats().getSummary();
+
+    Assert.assertEquals(4, summary.getPages());
+    Assert.assertEquals(3, summary.getErrors());
+    Assert.assertTrue(summary.getElapsedMillis() >= 0);
+    Assert.assertTrue(summary.getPagesPerSecond() > 0);
+  }
+
+  /**
+   * Assert that failures are named by their exception, or by their status.
+   */
+  @Test
+  void testErrorType() {
+    Assert.assertEquals("ConnectException",
+        CrawlStats.errorType(FetchResult.failed("http://site/", new ConnectException())));
+    Assert.assertEquals("http_503",
+        CrawlStats.errorType(FetchResult.builder().url("http://site/").statusCode(503).build()));
+  }
+
+  /**
+   * Stub site: the home page links to three pages, two missing pages and an
+   * unreachable host.
+   */
+  private static Fetcher site() {
+    return url -> {
+      if (url.startsWith("http://down/")) {
+        return FetchResult.failed(url, new ConnectException("Connection refused"));
+      }
+      if (url.contains("missing")) {
+        return FetchResult.builder().url(url).finalUrl(url).statusCode(404).build();
+      }
+
+      String html = url.equals("http://site/")
+          ? "<title>Home</title><a href=\"/a\">a</a><a href=\"/b\">b</a><a href=\"/c\">c</a>"
+              + "<a href=\"/missing1\">m</a><a href=\"/missing2\">m</a><a href=\"http://down/\">d</a>"
+          : "<title>" + url + "</title><p>Page</p>";
+      return FetchResult.builder()
+          .url(url)
+          .finalUrl(url)
+          .statusCode(200)
+          .charset("UTF-8")
+          .body(html.getBytes(StandardCharsets.UTF_8))
+          .build();
+    };
+  }
+}
@@ -0,0 +1,339 @@
+package com.rtxct.crawler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.BotConfig;
+import com.rtxct.crawler.bot.CrawlListener;
+import com.rtxct.crawler.bot.CrawledPage;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.fetch.Fetcher;
+import com.rtxct.crawler.persistence.CrawlStore;
+import com.rtxct.crawler.persistence.CrawlWriter;
+import com.rtxct.crawler.persistence.JdbcCrawlStore;
+import com.rtxct.crawler.persistence.PageRecord;
+import com.rtxct.crawler.persistence.PersistingListener;
+import com.rtxct.crawler.persistence.RevisitPolicy;
+import com.rtxct.crawler.utils.GeneratedSite;
+
+@TestComponent
+public class PersistenceTests {
+
+  /**
+   * Pages and their links are read back, saving a page again replaces it along
+   * with its links, and a page saved without extracted links keeps the stored
+   * ones.
+   */
+  @Test
+  void testStorePages() {
+    CrawlStore store = new JdbcCrawlStore(dataSource());
+
+    store.saveAll(List.of(
+        PageRecord.builder().url("http://site/").title("Home").statusCode(200).etag("\"v1\"")
+            .links(List.of("http://site/a", "http://site/b")).build(),
+        PageRecord.builder().url("http://site/a").title("A").statusCode(200)
+            .links(List.of("http://site/b")).build()));
+
+    Assert.assertEquals(2, store.countPages());
+    Assert.assertEquals("\"v1\"", store.findPage("http://site/").get().getEtag());
+    Assert.assertEquals(List.of("http://site/a", "http://site/b"),
+        store.findLinks("http://site/").stream().sorted().toList());
+    Assert.assertEquals(List.of("http://site/", "http://site/a"),
+        store.findBacklinks("http://site/b").stream().sorted().toList());
+
+    store.saveAll(List.of(
+        PageRecord.builder().url("http://site/").title("New home").statusCode(200)
+            .links(List.of("http://site/c")).build(),
+        PageRecord.builder().url("http://site/a").title("A").statusCode(200).build()));
+
+    Assert.assertEquals(2, store.countPages());
+    Assert.assertEquals("New home", store.findPage("http://site/").get().getTitle());
+    Assert.assertNull(store.findPage("http://site/").get().getEtag());
+    Assert.assertEquals(List.of("http://site/c"), store.findLinks("http://site/"));
+    Assert.assertEquals(List.of("http://site/b"), store.findLinks("http://site/a"));
+    Assert.assertEquals(Optional.empty(), store.findPage("http://site/missing"));
+  }
+
+  /**
+   * Pages submitted by concurrent threads while the store is slow are all
+   * written, grouped in batches.
+   */
+  @Test
+  void testWriterBatches() throws InterruptedException {
+    List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+    CrawlWriter writer = new CrawlWriter(stubStore(pages -> {
+      batches.add(pages.size());
+      sleep(20);
+    }), 10_000, 100);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int i = 0; i < 2000; i++) {
+      int page = i;
+      executor.execute(() -> writer.submit(PageRecord.builder().url("http://site/" + page).build()));
+    }
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    Assert.assertTrue(writer.flush(10_000));
+
+    Assert.assertEquals(2000, writer.getWritten());
+    Assert.assertEquals(2000, batches.stream().mapToInt(Integer::intValue).sum());
+    Assert.assertTrue(batches.size() < 2000);
+    Assert.assertTrue(batches.stream().allMatch(size -> size <= 100));
+    writer.close();
+  }
+
+  /**
+   * Pages are dropped instead of blocking the crawl when the queue is full.
+   */
+  @Test
+  void testWriterQueueFull() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    CrawlWriter writer = new CrawlWriter(stubStore(pages -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }), 2, 1);
+
+    int accepted = 0;
+    for (int i = 0; i < 10; i++) {
+      if (writer.submit(PageRecord.builder().url("http://site/" + i).build())) {
+        accepted++;
+      }
+    }
+
+    Assert.assertTrue(accepted <= 3);
+    Assert.assertEquals(10 - accepted, writer.getDropped());
+    release.countDown();
+    Assert.assertTrue(writer.flush(10_000));
+    Assert.assertEquals(accepted, writer.getWritten());
+    writer.close();
+  }
+
+  /**
+   * Crawl a generated site, and assert that the pages, their fetch metadata,
+   * their links and the failed fetches are stored.
+   */
+  @Test
+  void testPersistCrawl() throws InterruptedException {
+    CrawlStore store = new JdbcCrawlStore(dataSource());
+    CrawlWriter writer = new CrawlWriter(store, 1000, 50);
+
+    BotConfig config = BotConfig.builder()
+        .fetcher(pageUrl -> {
+          int page = GeneratedSite.pageOf(pageUrl);
+          if (page == 5) {
+            return FetchResult.builder().url(pageUrl).finalUrl(pageUrl).statusCode(404).build();
+          }
+
+          return GeneratedSite.response(pageUrl, GeneratedSite.chainPage(page, "/p", ""))
+              .headers(Map.of("ETag", "\"p" + page + "\"", "Last-Modified", "Mon, 02 Oct 2023 10:00:00 GMT"))
+              .contentType("text/html")
+              .fetchTimeMillis(3)
+              .build();
+        })
+        .respectRobots(false)
+        .listener(new PersistingListener(writer))
+        .build();
+
+    new Bot(Arrays.asList("http://site/p1"), 9, config).crawlSync();
+    Assert.assertTrue(writer.flush(10_000));
+
+    Assert.assertEquals(5, store.countPages());
+    PageRecord page = store.findPage("http://site/p2").get();
+    Assert.assertEquals("P2", page.getTitle());
+    Assert.assertEquals(200, page.getStatusCode());
+    Assert.assertEquals(Integer.valueOf(1), page.getDepth());
+    Assert.assertEquals("\"p2\"", page.getEtag());
+    Assert.assertEquals("Mon, 02 Oct 2023 10:00:00 GMT", page.getLastModified());
+    Assert.assertTrue(page.getContentLength() > 0);
+    Assert.assertNotNull(page.getFetchedAt());
+    Assert.assertEquals(List.of("http://site/p3"), store.findLinks("http://site/p2"));
+    Assert.assertEquals(404, store.findPage("http://site/p5").get().getStatusCode());
+    writer.close();
+  }
+
+  /**
+   * Recrawl a generated site, and assert that pages answered with 304 or with
+   * the same body are not scraped again but their stored links are followed,
+   * that their revisit interval grows, and that pages not due are not fetched.
+   */
+  @Test
+  void testIncrementalRecrawl() throws InterruptedException {
+    CrawlStore store = new JdbcCrawlStore(dataSource());
+    CrawlWriter writer = new CrawlWriter(store, 1000, 50);
+    RevisitPolicy policy = RevisitPolicy.builder()
+        .initialInterval(Duration.ofMinutes(10))
+        .minInterval(Duration.ofMinutes(1))
+        .maxInterval(Duration.ofHours(1))
+        .build();
+
+    AtomicInteger version = new AtomicInteger(1);
+    AtomicInteger fetches = new AtomicInteger();
+    AtomicInteger crawled = new AtomicInteger();
+    AtomicInteger unchanged = new AtomicInteger();
+
+    Fetcher fetcher = new Fetcher() {
+      @Override
+      public FetchResult fetch(String url) {
+        return fetch(url, Map.of());
+      }
+
+      @Override
+      public FetchResult fetch(String url, Map<String, String> headers) {
+        fetches.incrementAndGet();
+        int page = GeneratedSite.pageOf(url);
+        if (page == 1 && "\"p1\"".equals(headers.get("If-None-Match"))) {
+          return FetchResult.builder().url(url).finalUrl(url).statusCode(304).build();
+        }
+
+        String text = page == 3 ? "version " + version.get() : "static";
+        return GeneratedSite.response(url, GeneratedSite.chainPage(page, "/p", text))
+            .headers(page == 1 ? Map.of("ETag", "\"p1\"") : Map.of())
+            .build();
+      }
+    };
+
+    CrawlListener counter = new CrawlListener() {
+      @Override
+      public void onPage(PageDTO page) {
+        crawled.incrementAndGet();
+      }
+
+      @Override
+      public void onUnchanged(CrawledPage page) {
+        unchanged.incrementAndGet();
+      }
+    };
+
+    Supplier<BotConfig> config = () -> BotConfig.builder()
+        .fetcher(fetcher)
+        .respectRobots(false)
+        .history(store)
+        .listener(new PersistingListener(writer, policy).andThen(counter))
+        .build();
+
+    Assert.assertEquals(3, new Bot(Arrays.asList("http://site/p1"), 2, config.get()).crawlSync().size());
+    Assert.assertTrue(writer.flush(10_000));
+    Assert.assertEquals(3, crawled.get());
+    Assert.assertEquals(Duration.ofMinutes(10), store.findPage("http://site/p1").get().getRevisitInterval());
+
+    expire(store, "http://site/p1", "http://site/p2", "http://site/p3");
+    version.incrementAndGet();
+    List<PageDTO> pages = new Bot(Arrays.asList("http://site/p1"), 2, config.get()).crawlSync();
+    Assert.assertTrue(writer.flush(10_000));
+
+    Assert.assertEquals(3, pages.size());
+    Assert.assertEquals(6, fetches.get());
+    Assert.assertEquals(4, crawled.get());
+    Assert.assertEquals(2, unchanged.get());
+    PageRecord stable = store.findPage("http://site/p2").get();
+    Assert.assertEquals(Duration.ofMinutes(20), stable.getRevisitInterval());
+    Assert.assertEquals("P2", stable.getTitle());
+    Assert.assertEquals(List.of("http://site/p3"), store.findLinks("http://site/p2"));
+    Assert.assertEquals(Duration.ofMinutes(5), store.findPage("http://site/p3").get().getRevisitInterval());
+    Assert.assertEquals("\"p1\"", store.findPage("http://site/p1").get().getEtag());
+
+    new Bot(Arrays.asList("http://site/p1"), 2, config.get()).crawlSync();
+    Assert.assertEquals(6, fetches.get());
+    writer.close();
+  }
+
+  /**
+   * The revisit interval is halved when a page changed, doubled when it did
+   * not, and kept between the minimum and the maximum.
+   */
+  @Test
+  void testRevisitPolicy() {
+    RevisitPolicy policy = RevisitPolicy.builder()
+        .initialInterval(Duration.ofHours(4))
+        .minInterval(Duration.ofHours(1))
+        .maxInterval(Duration.ofHours(12))
+        .build();
+
+    Assert.assertEquals(Duration.ofHours(4), policy.nextInterval(null, true));
+    Assert.assertEquals(Duration.ofHours(8), policy.nextInterval(Duration.ofHours(4), false));
+    Assert.assertEquals(Duration.ofHours(12), policy.nextInterval(Duration.ofHours(8), false));
+    Assert.assertEquals(Duration.ofHours(2), policy.nextInterval(Duration.ofHours(4), true));
+    Assert.assertEquals(Duration.ofHours(1), policy.nextInterval(Duration.ofHours(1), true));
+  }
+
+  /**
+   * Creates a new in-memory database.
+   */
+  private static DriverManagerDataSource dataSource() {
+    return new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+  }
+
+  /**
+   * Makes the stored pages due to be fetched again, as if their revisit
+   * interval elapsed.
+   */
+  private static void expire(CrawlStore store, String... urls) {
+    store.saveAll(Arrays.stream(urls)
+        .map(url -> store.findPage(url).get().toBuilder().nextVisitAt(Instant.now()).links(null).build())
+        .toList());
+  }
+
+  /**
+   * Creates a store handing the batches to the given consumer.
+   */
+  private static CrawlStore stubStore(Consumer<List<PageRecord>> consumer) {
+    return new CrawlStore() {
+      @Override
+      public void saveAll(List<PageRecord> pages) {
+        consumer.accept(List.copyOf(pages));
+      }
+
+      @Override
+      public Optional<PageRecord> findPage(String url) {
+        return Optional.empty();
+      }
+
+      @Override
+      public List<String> findLinks(String url) {
+        return List.of();
+      }
+
+      @Override
+      public List<String> findBacklinks(String url) {
+        return List.of();
+      }
+
+      @Override
+      public long countPages() {
+        return 0;
+      }
+    };
+  }
+
+  private static void sleep(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
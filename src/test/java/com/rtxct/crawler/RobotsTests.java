@@ -0,0 +1,235 @@
+package com.rtxct.crawler;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.dto.PageDTO;
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.fetch.Fetcher;
+import com.rtxct.crawler.fetch.HttpClientFetcher;
+import com.rtxct.crawler.robots.RobotsCache;
+import com.rtxct.crawler.robots.RobotsParser;
+import com.rtxct.crawler.robots.RobotsRules;
+import com.rtxct.crawler.utils.NginxTestContainer;
+
+@TestComponent
+@TestInstance(Lifecycle.PER_CLASS)
+public class RobotsTests {
+
+  /** Properties */
+  private String url;
+
+  /** Dependencies */
+  private NginxTestContainer nginx;
+
+  private RobotsParser parser = new RobotsParser();
+
+  /**
+   * Before all the tests, starts the local testContainer nginx server serving
+   * the robots.txt file.
+   */
+  @BeforeAll
+  public void setup() {
+    try {
+      CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+        this.nginx = new NginxTestContainer();
+      });
+
+      future.get();
+
+      this.url = nginx.getServerPort();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * After all the tests, stop the nginx testContainer server.
+   */
+  @AfterAll
+  public void cleanup() {
+    try {
+      this.nginx.stopContainer();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * The longest matching rule wins, and an allow rule wins over a disallow rule
+   * of the same length.
+   */
+  @Test
+  void testLongestMatch() {
+    RobotsRules rules = parser.parse("""
+        User-agent: *
+        Disallow: /shop
+        Allow: /shop/public
+        Disallow: /page
+        Allow: /page
+        """);
+
+    Assert.assertFalse(rules.isAllowed("http://host/shop/cart"));
+    Assert.assertTrue(rules.isAllowed("http://host/shop/public/item"));
+    Assert.assertTrue(rules.isAllowed("http://host/page"));
+    Assert.assertTrue(rules.isAllowed("http://host/"));
+    Assert.assertTrue(rules.isAllowed("http://host"));
+  }
+
+  /**
+   * Wildcards match any sequence of characters, and "$" anchors the pattern at
+   * the end of the path.
+   */
+  @Test
+  void testWildcards() {
+    RobotsRules rules = parser.parse("""
+        User-agent: *
+        Disallow: /*.pdf$
+        Disallow: /*?session=
+        Disallow: /a*/b*/c
+        """);
+
+    Assert.assertFalse(rules.isAllowed("http://host/docs/file.pdf"));
+    Assert.assertTrue(rules.isAllowed("http://host/docs/file.pdf?download"));
+    Assert.assertFalse(rules.isAllowed("http://host/list?session=1"));
+    Assert.assertFalse(rules.isAllowed("http://host/ax/bx/c"));
+    Assert.assertTrue(rules.isAllowed("http://host/ax/c/b"));
+    Assert.assertFalse(rules.isAllowed("http://host?session=1"));
+  }
+
+  /**
+   * The group naming the crawler is used instead of the "*" one, along with its
+   * Crawl-delay, and comments or empty disallow rules are ignored.
+   */
+  @Test
+  void testUserAgentGroups() {
+    String content = """
+        # Comment
+        User-agent: *
+        Disallow: /
+
+        User-agent: other-bot
+        User-agent: rtxct-crawler
+        Disallow: # nothing
+        Disallow: /private
+        Crawl-delay: 1.5
+        """;
+
+    RobotsRules rules = parser.parse(content);
+    Assert.assertTrue(rules.isAllowed("http://host/page"));
+    Assert.assertFalse(rules.isAllowed("http://host/private/page"));
+    Assert.assertEquals(Duration.ofMillis(1500), rules.getCrawlDelay());
+
+    RobotsRules otherRules = new RobotsParser("unknown-bot").parse(content);
+    Assert.assertFalse(otherRules.isAllowed("http://host/page"));
+    Assert.assertNull(otherRules.getCrawlDelay());
+  }
+
+  /**
+   * Concurrent lookups of the same host issue a single robots.txt fetch, a
+   * missing file allows everything and a server error disallows everything.
+   */
+  @Test
+  void testCacheFetchesOnce() throws InterruptedException {
+    AtomicInteger fetches = new AtomicInteger();
+    Fetcher fetcher = fetchUrl -> {
+      fetches.incrementAndGet();
+      int status = fetchUrl.startsWith("http://missing") ? 404 : fetchUrl.startsWith("http://down") ? 503 : 200;
+      return FetchResult.builder()
+          .url(fetchUrl)
+          .finalUrl(fetchUrl)
+          .statusCode(status)
+          .body("User-agent: *\nDisallow: /private\n".getBytes(StandardCharsets.UTF_8))
+          .build();
+    };
+    RobotsCache cache = new RobotsCache(fetcher);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    for (int i = 0; i < 100; i++) {
+      int page = i;
+      executor.execute(() -> cache.isAllowed("http://host/page" + page));
+    }
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+    Assert.assertEquals(1, fetches.get());
+    Assert.assertFalse(cache.isAllowed("http://HOST/private"));
+    Assert.assertEquals(1, fetches.get());
+
+    Assert.assertTrue(cache.isAllowed("http://missing/private"));
+    Assert.assertFalse(cache.isAllowed("http://down/page"));
+    Assert.assertEquals(3, cache.size());
+  }
+
+  /**
+   * The least recently used hosts are evicted, and fetched again on their next
+   * lookup.
+   */
+  @Test
+  void testCacheEviction() {
+    AtomicInteger fetches = new AtomicInteger();
+    Fetcher fetcher = fetchUrl -> {
+      fetches.incrementAndGet();
+      return FetchResult.builder().url(fetchUrl).statusCode(404).build();
+    };
+    RobotsCache cache = new RobotsCache(fetcher, Duration.ofHours(1), 2);
+
+    cache.isAllowed("http://a/");
+    cache.isAllowed("http://b/");
+    cache.isAllowed("http://a/");
+    cache.isAllowed("http://c/");
+    Assert.assertEquals(2, cache.size());
+    Assert.assertEquals(3, fetches.get());
+
+    cache.isAllowed("http://a/");
+    Assert.assertEquals(3, fetches.get());
+    cache.isAllowed("http://b/");
+    Assert.assertEquals(4, fetches.get());
+  }
+
+  /**
+   * Read the robots.txt served by the local server.
+   */
+  @Test
+  void testServedRobots() {
+    Assumptions.assumeTrue(url != null, "Docker is not available");
+
+    RobotsCache cache = new RobotsCache(new HttpClientFetcher());
+    RobotsRules rules = cache.rulesFor(url);
+
+    Assert.assertTrue(rules.isAllowed(url + "/link.html"));
+    Assert.assertFalse(rules.isAllowed(url + "/private.html"));
+    Assert.assertEquals(Duration.ofMillis(100), rules.getCrawlDelay());
+  }
+
+  /**
+   * Crawl the local server, and assert that the page disallowed by its
+   * robots.txt is never scraped.
+   */
+  @Test
+  void testCrawlSkipsDisallowed() {
+    Assumptions.assumeTrue(url != null, "Docker is not available");
+
+    List<PageDTO> result = new Bot(Arrays.asList(url), 3).crawlSync();
+
+    Assert.assertEquals(2, result.size());
+    result.forEach(page -> Assert.assertNotEquals("Private", page.getTitle()));
+  }
+}
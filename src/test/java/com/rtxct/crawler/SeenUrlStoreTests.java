@@ -0,0 +1,139 @@
+package com.rtxct.crawler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.rtxct.crawler.bot.Bot;
+import com.rtxct.crawler.bot.BotFactory;
+import com.rtxct.crawler.bot.CrawlerProperties;
+import com.rtxct.crawler.frontier.BloomSeenUrlStore;
+import com.rtxct.crawler.frontier.ConcurrentSeenUrlStore;
+import com.rtxct.crawler.frontier.Frontier;
+import com.rtxct.crawler.frontier.MappedSeenUrlStore;
+import com.rtxct.crawler.frontier.SeenUrlStore;
+import com.rtxct.crawler.index.InvertedIndex;
+
+@TestComponent
+public class SeenUrlStoreTests {
+
+  /** Properties */
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Add an URL twice to the exact store, and only the first call reports it as
+   * new.
+   */
+  @Test
+  void testConcurrentStore() {
+    SeenUrlStore store = new ConcurrentSeenUrlStore();
+
+    Assert.assertTrue(store.add("http://localhost/"));
+    Assert.assertFalse(store.add("http://localhost/"));
+    Assert.assertTrue(store.contains("http://localhost/"));
+    Assert.assertFalse(store.contains("http://localhost/other"));
+    Assert.assertEquals(1, store.size());
+  }
+
+  /**
+   * Fill the Bloom filter up to its expected capacity, with no false negatives
+   * and a false positive rate close to the configured one.
+   */
+  @Test
+  void testBloomStore() {
+    int expected = 100_000;
+    SeenUrlStore store = new BloomSeenUrlStore(expected, 0.01);
+
+    for (int i = 0; i < expected; i++) {
+      store.add("http://localhost/page/" + i);
+    }
+    for (int i = 0; i < expected; i++) {
+      Assert.assertTrue(store.contains("http://localhost/page/" + i));
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < expected; i++) {
+      if (store.contains("http://localhost/other/" + i)) {
+        falsePositives++;
+      }
+    }
+    Assert.assertTrue(falsePositives < expected * 0.02);
+  }
+
+  /**
+   * Close the mapped store and reload it from the same file, keeping the URLs
+   * recorded before.
+   */
+  @Test
+  void testMappedStoreReload() throws IOException {
+    Path file = tempDir.resolve("seen.bloom");
+
+    try (MappedSeenUrlStore store = MappedSeenUrlStore.openOrCreate(file, 1000, 0.01)) {
+      Assert.assertTrue(store.add("http://localhost/"));
+      Assert.assertTrue(store.add("http://localhost/link.html"));
+    }
+    Assert.assertTrue(Files.size(file) > 0);
+
+    try (MappedSeenUrlStore store = MappedSeenUrlStore.open(file)) {
+      Assert.assertEquals(2, store.size());
+      Assert.assertTrue(store.contains("http://localhost/link.html"));
+      Assert.assertFalse(store.add("http://localhost/"));
+    }
+  }
+
+  /**
+   * Select the seen URL store of the created Bots through the properties, the
+   * file of a mapped store being removed once it is closed.
+   */
+  @Test
+  void testSeenStoreProperty() throws IOException {
+    CrawlerProperties properties = new CrawlerProperties();
+    properties.getIndex().setEnabled(false);
+    properties.getPersistence().setEnabled(false);
+    properties.getMetrics().setEnabled(false);
+    properties.getCache().setEnabled(false);
+    properties.getFrontier().setExpectedUrls(1000);
+
+    properties.getFrontier().setSeenStore("bloom");
+    Bot bot = new BotFactory(properties, new InvertedIndex(), null, null, null).create(List.of("http://localhost/"));
+    Assert.assertTrue(bot.getVisitedUrls() instanceof BloomSeenUrlStore);
+    Assert.assertTrue(bot.getVisitedUrls().contains("http://localhost/"));
+
+    Path directory = tempDir.resolve("seen");
+    properties.getFrontier().setSeenStore("mapped");
+    properties.getFrontier().setSeenStoreDirectory(directory.toString());
+    bot = new BotFactory(properties, new InvertedIndex(), null, null, null).create(List.of("http://localhost/"));
+    Assert.assertTrue(bot.getVisitedUrls() instanceof MappedSeenUrlStore);
+    try (Stream<Path> files = Files.list(directory)) {
+      Assert.assertEquals(1, files.count());
+    }
+    bot.getVisitedUrls().close();
+    try (Stream<Path> files = Files.list(directory)) {
+      Assert.assertEquals(0, files.count());
+    }
+
+    properties.getFrontier().setSeenStore("unknown");
+    Assert.assertThrows(IllegalArgumentException.class,
+        () -> new BotFactory(properties, new InvertedIndex(), null, null, null));
+  }
+
+  /**
+   * Offer the same URL twice to the frontier, and only one entry is queued.
+   */
+  @Test
+  void testFrontierDeduplication() {
+    Frontier frontier = new Frontier(new ConcurrentSeenUrlStore());
+
+    Assert.assertTrue(frontier.offer("http://localhost/", 1));
+    Assert.assertFalse(frontier.offer("http://localhost/", 1));
+    Assert.assertEquals(1, frontier.size());
+  }
+}
@@ -0,0 +1,65 @@
+package com.rtxct.crawler;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.TestComponent;
+
+import com.rtxct.crawler.utils.UrlNormalizer;
+
+@TestComponent
+public class UrlNormalizerTests {
+
+  /** Properties */
+  private UrlNormalizer normalizer = new UrlNormalizer();
+
+  /**
+   * Resolve root, document and scheme relative links against the page URL.
+   */
+  @Test
+  void testResolveRelativeLinks() {
+    String base = "http://localhost/docs/page.html?x=1";
+
+    Assert.assertEquals("http://localhost/test/", normalizer.normalize(base, "/test/"));
+    Assert.assertEquals("http://localhost/docs/other.html", normalizer.normalize(base, "other.html"));
+    Assert.assertEquals("http://localhost/index.html", normalizer.normalize(base, "../index.html"));
+    Assert.assertEquals("http://localhost/docs/page.html?y=2", normalizer.normalize(base, "?y=2"));
+    Assert.assertEquals("https://cdn.localhost/a", normalizer.normalize("https://localhost/", "//cdn.localhost/a"));
+  }
+
+  /**
+   * Lowercase scheme and host, drop the fragment and the default port, and add
+   * the root path.
+   */
+  @Test
+  void testCanonicalForm() {
+    Assert.assertEquals("http://localhost/", normalizer.normalize("HTTP://LocalHost:80#top"));
+    Assert.assertEquals("https://localhost:8443/Path", normalizer.normalize("https://localhost:8443/Path"));
+    Assert.assertEquals("https://localhost/a/", normalizer.normalize("https://localhost:443/a/./b/../"));
+  }
+
+  /**
+   * Strip tracking parameters and sort the remaining ones.
+   */
+  @Test
+  void testQueryParams() {
+    Assert.assertEquals("http://localhost/?a=1&b=2",
+        normalizer.normalize("http://localhost/?utm_source=x&b=2&gclid=y&a=1"));
+    Assert.assertEquals("http://localhost/", normalizer.normalize("http://localhost/?utm_medium=email"));
+  }
+
+  /**
+   * Reject links that do not point to an http(s) page.
+   */
+  @Test
+  void testInvalidLinks() {
+    String base = "http://localhost/";
+
+    Assert.assertNull(normalizer.normalize(base, "mailto:someone@localhost"));
+    Assert.assertNull(normalizer.normalize(base, "javascript:void(0)"));
+    Assert.assertNull(normalizer.normalize(base, "#section"));
+    Assert.assertNull(normalizer.normalize("http://:80/"));
+    Assert.assertNull(normalizer.normalize("http://localhost:99999/"));
+    Assert.assertNull(normalizer.normalize(null, "/relative"));
+    Assert.assertTrue(normalizer.isValid("http://localhost:0000"));
+  }
+}
@@ -0,0 +1,129 @@
+package com.rtxct.crawler.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntFunction;
+
+import com.rtxct.crawler.fetch.FetchResult;
+import com.rtxct.crawler.fetch.Fetcher;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Pages of the generated sites crawled by the tests. A page is numbered by the
+ * digits ending its URL, such as 7 for "http://site/p7" or "/site/7", and is
+ * titled "P" followed by its number unless told otherwise.
+ */
+public final class GeneratedSite {
+
+  private GeneratedSite() {
+  }
+
+  /**
+   * Stub site where page N links to pages 2N and 2N + 1, so a crawl of depth D
+   * from page 1 scrapes 2^(D + 1) - 1 pages.
+   *
+   * @return Fetcher answering the pages of the site.
+   */
+  public static Fetcher tree() {
+    return url -> response(url, treePage(pageOf(url), "/p")).build();
+  }
+
+  /**
+   * Stub site where page N links to page N + 1.
+   *
+   * @param text Body text of page N.
+   * @return Fetcher answering the pages of the site.
+   */
+  public static Fetcher chain(IntFunction<String> text) {
+    return url -> response(url, chainPage(pageOf(url), "/p", text.apply(pageOf(url)))).build();
+  }
+
+  /**
+   * Gets the number of a generated page, the first page when its URL does not
+   * end with digits.
+   *
+   * @param url Page URL or path.
+   * @return Page number.
+   */
+  public static int pageOf(String url) {
+    int start = url.length();
+    while (start > 0 && Character.isDigit(url.charAt(start - 1))) {
+      start--;
+    }
+    return start == url.length() ? 1 : Integer.parseInt(url.substring(start));
+  }
+
+  /**
+   * Gets the markup of page N of a tree site, linking to pages 2N and 2N + 1.
+   *
+   * @param page   Page number.
+   * @param prefix Prefix of the linked page numbers, such as "/p".
+   * @return Page markup.
+   */
+  public static String treePage(int page, String prefix) {
+    return html("P" + page, "", prefix + (page * 2), prefix + (page * 2 + 1));
+  }
+
+  /**
+   * Gets the markup of page N of a chain site, linking to page N + 1.
+   *
+   * @param page   Page number.
+   * @param prefix Prefix of the linked page number, such as "/p".
+   * @param text   Body text of the page.
+   * @return Page markup.
+   */
+  public static String chainPage(int page, String prefix, String text) {
+    return html("P" + page, text, prefix + (page + 1));
+  }
+
+  /**
+   * Gets the markup of a page.
+   *
+   * @param title Page title.
+   * @param text  Body text of the page.
+   * @param links URLs the page links to.
+   * @return Page markup.
+   */
+  public static String html(String title, String text, String... links) {
+    StringBuilder html = new StringBuilder("<title>").append(title).append("</title><body>").append(text);
+    for (String link : links) {
+      html.append(" <a href=\"").append(link).append("\">next</a>");
+    }
+    return html.append("</body>").toString();
+  }
+
+  /**
+   * Creates the successful response of a page, to be completed with headers or
+   * timings by the caller.
+   *
+   * @param url  Page URL.
+   * @param html Page markup.
+   * @return Fetch result builder.
+   */
+  public static FetchResult.FetchResultBuilder response(String url, String html) {
+    return FetchResult.builder()
+        .url(url)
+        .finalUrl(url)
+        .statusCode(200)
+        .charset("UTF-8")
+        .body(html.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Answers an exchange of a local test server with a page.
+   *
+   * @param exchange HTTP exchange.
+   * @param html     Page markup.
+   * @throws IOException If the page could not be written.
+   */
+  public static void respond(HttpExchange exchange, String html) throws IOException {
+    byte[] body = html.getBytes(StandardCharsets.UTF_8);
+
+    exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(body);
+    }
+  }
+}